@@ -23,6 +23,17 @@ import org.sonar.core.platform.Module;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 import org.sonar.server.computation.dbcleaner.IndexPurgeListener;
 import org.sonar.server.computation.dbcleaner.ProjectCleaner;
+import org.sonar.server.computation.dbcleaner.ProjectPurgeExecutorServiceImpl;
+import org.sonar.server.computation.dbcleaner.ProjectPurgeScheduler;
+import org.sonar.server.computation.monitoring.ProjectPurgeMBeanImpl;
+import org.sonar.server.computation.monitoring.ReferentialCacheMBeanImpl;
+import org.sonar.server.computation.monitoring.WebhookDeliveryMBeanImpl;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleCache;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricCache;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookCallerImpl;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryExecutorServiceImpl;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStorage;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDispatcher;
 
 /**
  * Globally available components in CE for tasks to use.
@@ -33,6 +44,23 @@ public class CeTaskCommonsModule extends Module {
     add(
       DefaultPeriodCleaner.class,
       ProjectCleaner.class,
-      IndexPurgeListener.class);
+      IndexPurgeListener.class,
+
+      // purge of projects history in background
+      ProjectPurgeExecutorServiceImpl.class,
+      ProjectPurgeMBeanImpl.class,
+      ProjectPurgeScheduler.class,
+
+      // metrics and rules shared by tasks
+      MetricCache.class,
+      RuleCache.class,
+      ReferentialCacheMBeanImpl.class,
+
+      // webhooks delivered in background
+      WebhookCallerImpl.class,
+      WebhookDeliveryStorage.class,
+      WebhookDeliveryExecutorServiceImpl.class,
+      WebhookDeliveryMBeanImpl.class,
+      WebhookDispatcher.class);
   }
 }
@@ -43,6 +43,7 @@ import org.sonar.ce.CeConfigurationModule;
 import org.sonar.ce.CeHttpModule;
 import org.sonar.ce.CeQueueModule;
 import org.sonar.ce.CeTaskCommonsModule;
+import org.sonar.ce.db.CeDatabase;
 import org.sonar.ce.db.ReadOnlyPropertiesDao;
 import org.sonar.ce.log.CeProcessLogging;
 import org.sonar.ce.platform.ComputeEngineExtensionInstaller;
@@ -61,7 +62,6 @@ import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DaoModule;
 import org.sonar.db.DatabaseChecker;
 import org.sonar.db.DbClient;
-import org.sonar.db.DefaultDatabase;
 import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.process.Props;
 import org.sonar.process.logging.LogbackHelper;
@@ -134,7 +134,9 @@ import org.sonar.server.rule.index.RuleIndexer;
 import org.sonar.server.search.EsSearchModule;
 import org.sonar.server.setting.DatabaseSettingLoader;
 import org.sonar.server.setting.DatabaseSettingsEnabler;
+import org.sonar.server.setting.SettingsCache;
 import org.sonar.server.setting.ThreadLocalSettings;
+import org.sonar.server.source.SourceDictionaryRepository;
 import org.sonar.server.startup.LogServerId;
 import org.sonar.server.test.index.TestIndexer;
 import org.sonar.server.user.DefaultUserFinder;
@@ -219,7 +221,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       UuidFactoryImpl.INSTANCE,
       ClusterImpl.class,
       LogbackHelper.class,
-      DefaultDatabase.class,
+      CeDatabase.class,
       DatabaseChecker.class,
       // must instantiate deprecated class in 5.2 and only this one (and not its replacement)
       // to avoid having two SqlSessionFactory instances
@@ -257,6 +259,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       DatabaseVersion.class,
       DatabaseServerCompatibility.class,
 
+      SettingsCache.class,
       DatabaseSettingLoader.class,
       DatabaseSettingsEnabler.class,
       UrlSettings.class,
@@ -378,7 +381,8 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       DefaultNotificationManager.class,
       EmailNotificationChannel.class,
 
-      // Tests
+      // Sources and tests
+      SourceDictionaryRepository.class,
       TestIndexer.class,
 
       // System
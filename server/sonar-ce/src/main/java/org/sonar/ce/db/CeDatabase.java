@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.db;
+
+import java.util.Properties;
+import org.sonar.api.config.Settings;
+import org.sonar.db.DefaultDatabase;
+import org.sonar.process.logging.LogbackHelper;
+
+/**
+ * Compute Engine specific {@link DefaultDatabase} which allows the connection pool of the Compute Engine process
+ * to be sized independently from the one of the Web Server: any property prefixed by {@code sonar.ce.jdbc.}
+ * overrides the corresponding {@code sonar.jdbc.} property (eg. {@code sonar.ce.jdbc.maxActive}).
+ */
+public class CeDatabase extends DefaultDatabase {
+  static final String CE_JDBC_PREFIX = "sonar.ce.jdbc.";
+  private static final String JDBC_PREFIX = "sonar.jdbc.";
+
+  private final Settings settings;
+
+  public CeDatabase(LogbackHelper logbackHelper, Settings settings) {
+    super(logbackHelper, settings);
+    this.settings = settings;
+  }
+
+  @Override
+  protected void doCompleteProperties(Properties properties) {
+    for (String key : settings.getKeysStartingWith(CE_JDBC_PREFIX)) {
+      String value = settings.getString(key);
+      if (value != null) {
+        properties.setProperty(JDBC_PREFIX + key.substring(CE_JDBC_PREFIX.length()), value);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.db;
+
+import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.process.logging.LogbackHelper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class CeDatabaseTest {
+
+  private Settings settings = new MapSettings()
+    .setProperty("sonar.jdbc.url", "jdbc:h2:mem:sonar")
+    .setProperty("sonar.jdbc.driverClassName", "org.h2.Driver")
+    .setProperty("sonar.jdbc.maxActive", "50");
+
+  @Test
+  public void use_web_server_pool_settings_by_default() {
+    CeDatabase underTest = new CeDatabase(mock(LogbackHelper.class), settings);
+    underTest.start();
+    underTest.stop();
+
+    assertThat(underTest.getProperties().getProperty("sonar.jdbc.maxActive")).isEqualTo("50");
+    assertThat(((BasicDataSource) underTest.getDataSource()).getMaxActive()).isEqualTo(50);
+  }
+
+  @Test
+  public void compute_engine_pool_settings_override_web_server_ones() {
+    settings.setProperty("sonar.ce.jdbc.maxActive", "10");
+    settings.setProperty("sonar.ce.jdbc.maxIdle", "2");
+
+    CeDatabase underTest = new CeDatabase(mock(LogbackHelper.class), settings);
+    underTest.start();
+    underTest.stop();
+
+    assertThat(underTest.getProperties().getProperty("sonar.jdbc.maxActive")).isEqualTo("10");
+    assertThat(underTest.getProperties().getProperty("sonar.jdbc.maxIdle")).isEqualTo("2");
+    assertThat(((BasicDataSource) underTest.getDataSource()).getMaxActive()).isEqualTo(10);
+  }
+}
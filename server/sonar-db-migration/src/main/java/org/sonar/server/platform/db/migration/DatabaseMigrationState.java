@@ -20,6 +20,7 @@
 package org.sonar.server.platform.db.migration;
 
 import java.util.Date;
+import java.util.List;
 import javax.annotation.CheckForNull;
 
 public interface DatabaseMigrationState {
@@ -51,4 +52,9 @@ public interface DatabaseMigrationState {
    */
   @CheckForNull
   Throwable getError();
+
+  /**
+   * Statistics of the steps executed by the current or last migration, in order of execution.
+   */
+  List<MigrationStepStatistics> getStepStatistics();
 }
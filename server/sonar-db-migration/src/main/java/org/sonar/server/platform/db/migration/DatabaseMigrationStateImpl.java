@@ -19,12 +19,16 @@
  */
 package org.sonar.server.platform.db.migration;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 /**
- * This implementation of {@link MutableDatabaseMigrationState} does not provide any thread safety.
+ * This implementation of {@link MutableDatabaseMigrationState} does not provide any thread safety, except for
+ * the statistics of steps which can be read while migration is running.
  */
 public class DatabaseMigrationStateImpl implements MutableDatabaseMigrationState {
   private Status status = Status.NONE;
@@ -32,6 +36,7 @@ public class DatabaseMigrationStateImpl implements MutableDatabaseMigrationState
   private Date startedAt;
   @Nullable
   private Throwable error;
+  private final List<MigrationStepStatistics> stepStatistics = new CopyOnWriteArrayList<>();
 
   @Override
   public Status getStatus() {
@@ -64,4 +69,14 @@ public class DatabaseMigrationStateImpl implements MutableDatabaseMigrationState
   public void setError(@Nullable Throwable error) {
     this.error = error;
   }
+
+  @Override
+  public List<MigrationStepStatistics> getStepStatistics() {
+    return Collections.unmodifiableList(stepStatistics);
+  }
+
+  @Override
+  public void addStepStatistics(MigrationStepStatistics statistics) {
+    stepStatistics.add(statistics);
+  }
 }
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Duration and, when known, number of processed rows of an executed migration step.
+ */
+@Immutable
+public final class MigrationStepStatistics {
+  private final String step;
+  private final long durationMs;
+  @CheckForNull
+  private final Long rows;
+
+  public MigrationStepStatistics(String step, long durationMs, @Nullable Long rows) {
+    this.step = step;
+    this.durationMs = durationMs;
+    this.rows = rows;
+  }
+
+  public String getStep() {
+    return step;
+  }
+
+  public long getDurationMs() {
+    return durationMs;
+  }
+
+  /**
+   * Number of rows processed by the step, {@code null} if the step does not report it.
+   */
+  @CheckForNull
+  public Long getRows() {
+    return rows;
+  }
+
+  @CheckForNull
+  public Long getRowsPerSecond() {
+    if (rows == null) {
+      return null;
+    }
+    return durationMs == 0L ? rows : (rows * 1_000L / durationMs);
+  }
+}
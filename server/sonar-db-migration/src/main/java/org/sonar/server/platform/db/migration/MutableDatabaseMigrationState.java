@@ -28,4 +28,6 @@ public interface MutableDatabaseMigrationState extends DatabaseMigrationState {
   void setStartedAt(@Nullable Date startedAt);
 
   void setError(@Nullable Throwable error);
+
+  void addStepStatistics(MigrationStepStatistics statistics);
 }
@@ -22,9 +22,11 @@ package org.sonar.server.platform.db.migration.engine;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import org.sonar.server.platform.db.migration.step.MigrationCheckpoints;
 import org.sonar.server.platform.db.migration.step.MigrationStep;
 import org.sonar.server.platform.db.migration.step.MigrationSteps;
 import org.sonar.server.platform.db.migration.step.MigrationStepsExecutorImpl;
+import org.sonar.server.platform.db.migration.step.PartitionedDataChangeExecutor;
 import org.sonar.server.platform.db.migration.version.DbVersion;
 
 /**
@@ -33,7 +35,7 @@ import org.sonar.server.platform.db.migration.version.DbVersion;
  *   <li>adding all the {@link MigrationStep} classes to the container after building it</li>
  *   <li>adding dependencies for them to the container if there aren't already available in parent container
  *   (see {@link DbVersion#getSupportComponents()})</li>
- *   <li>adding the {@link MigrationStepsExecutorImpl} to the container</li>
+ *   <li>adding the {@link MigrationStepsExecutorImpl} and its dependencies to the container</li>
  * </ul>
  */
 public class MigrationContainerPopulatorImpl implements MigrationContainerPopulator {
@@ -45,7 +47,7 @@ public class MigrationContainerPopulatorImpl implements MigrationContainerPopula
 
   @Override
   public void populateContainer(MigrationContainer container) {
-    container.add(MigrationStepsExecutorImpl.class);
+    container.add(MigrationStepsExecutorImpl.class, PartitionedDataChangeExecutor.class, MigrationCheckpoints.class);
     populateFromDbVersion(container);
     populateFromMigrationSteps(container);
   }
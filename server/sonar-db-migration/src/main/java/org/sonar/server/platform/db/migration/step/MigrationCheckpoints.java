@@ -0,0 +1,172 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.Database;
+import org.sonar.db.DatabaseUtils;
+import org.sonar.server.platform.db.migration.sql.CreateTableBuilder;
+
+import static org.sonar.server.platform.db.migration.def.BigIntegerColumnDef.newBigIntegerColumnDefBuilder;
+
+/**
+ * Persists the progress of the partitions of {@link PartitionedDataChange} steps.
+ * <p>
+ * Similarly to table {@code SCHEMA_MIGRATIONS}, the underlying table is not created by a migration but when it is
+ * used for the first time, so that the steps of any version can be checkpointed.
+ * </p>
+ */
+public class MigrationCheckpoints {
+  public static final String TABLE_NAME = "migration_checkpoints";
+
+  private final Database db;
+  private volatile boolean tableExists = false;
+
+  public MigrationCheckpoints(Database db) {
+    this.db = db;
+  }
+
+  /**
+   * Partitions of the specified migration, as inserted by {@link #insert(long, List)}, with their last
+   * processed key. Empty if the migration has not been started yet.
+   */
+  public List<Partition> select(long migrationNumber) throws SQLException {
+    ensureTableExists();
+    try (Connection connection = createConnection()) {
+      return new DataChange.Context(db, connection, connection)
+        .prepareSelect("select range_start, range_end, last_key from " + TABLE_NAME + " where migration_number=? order by range_start")
+        .setLong(1, migrationNumber)
+        .list(row -> new Partition(row.getLong(1), row.getLong(2), row.getNullableLong(3)));
+    }
+  }
+
+  public void insert(long migrationNumber, List<Partition> partitions) throws SQLException {
+    ensureTableExists();
+    try (Connection connection = createConnection();
+      Upsert upsert = UpsertImpl.create(connection, "insert into " + TABLE_NAME + " (migration_number, range_start, range_end, last_key) values (?, ?, ?, ?)")) {
+      for (Partition partition : partitions) {
+        upsert
+          .setLong(1, migrationNumber)
+          .setLong(2, partition.getStart())
+          .setLong(3, partition.getEnd())
+          .setLong(4, partition.getLastKey())
+          .addBatch();
+      }
+      upsert.execute().commit();
+    }
+  }
+
+  public void update(long migrationNumber, Partition partition, long lastKey) throws SQLException {
+    ensureTableExists();
+    try (Connection connection = createConnection();
+      Upsert upsert = UpsertImpl.create(connection, "update " + TABLE_NAME + " set last_key=? where migration_number=? and range_start=?")) {
+      upsert
+        .setLong(1, lastKey)
+        .setLong(2, migrationNumber)
+        .setLong(3, partition.getStart())
+        .execute()
+        .commit();
+    }
+  }
+
+  public void delete(long migrationNumber) throws SQLException {
+    ensureTableExists();
+    try (Connection connection = createConnection();
+      Upsert upsert = UpsertImpl.create(connection, "delete from " + TABLE_NAME + " where migration_number=?")) {
+      upsert
+        .setLong(1, migrationNumber)
+        .execute()
+        .commit();
+    }
+  }
+
+  private void ensureTableExists() throws SQLException {
+    if (tableExists) {
+      return;
+    }
+    synchronized (this) {
+      try (Connection connection = createConnection()) {
+        if (!DatabaseUtils.tableExists(TABLE_NAME, connection)) {
+          createTable(connection);
+        }
+      }
+      tableExists = true;
+    }
+  }
+
+  private void createTable(Connection connection) throws SQLException {
+    List<String> sqls = new CreateTableBuilder(db.getDialect(), TABLE_NAME)
+      .addColumn(newBigIntegerColumnDefBuilder().setColumnName("migration_number").setIsNullable(false).build())
+      .addColumn(newBigIntegerColumnDefBuilder().setColumnName("range_start").setIsNullable(false).build())
+      .addColumn(newBigIntegerColumnDefBuilder().setColumnName("range_end").setIsNullable(false).build())
+      .addColumn(newBigIntegerColumnDefBuilder().setColumnName("last_key").setIsNullable(true).build())
+      .build();
+
+    Loggers.get(MigrationCheckpoints.class).info("Creating table " + TABLE_NAME);
+    for (String sql : sqls) {
+      try (Statement stmt = connection.createStatement()) {
+        stmt.execute(sql);
+        connection.commit();
+      }
+    }
+  }
+
+  private Connection createConnection() throws SQLException {
+    return DataChange.createDdlConnection(db);
+  }
+
+  /**
+   * Range of keys {@code [start, end]} migrated by a thread
+   */
+  public static final class Partition {
+    private final long start;
+    private final long end;
+    @CheckForNull
+    private final Long lastKey;
+
+    public Partition(long start, long end, @Nullable Long lastKey) {
+      this.start = start;
+      this.end = end;
+      this.lastKey = lastKey;
+    }
+
+    public long getStart() {
+      return start;
+    }
+
+    public long getEnd() {
+      return end;
+    }
+
+    /**
+     * The last key already migrated, {@code null} if migration of the partition has not started yet.
+     */
+    @CheckForNull
+    public Long getLastKey() {
+      return lastKey;
+    }
+  }
+}
@@ -23,6 +23,8 @@ import java.util.stream.Stream;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.server.platform.db.migration.MigrationStepStatistics;
+import org.sonar.server.platform.db.migration.MutableDatabaseMigrationState;
 import org.sonar.server.platform.db.migration.engine.MigrationContainer;
 import org.sonar.server.platform.db.migration.history.MigrationHistory;
 
@@ -37,10 +39,15 @@ public class MigrationStepsExecutorImpl implements MigrationStepsExecutor {
 
   private final MigrationContainer migrationContainer;
   private final MigrationHistory migrationHistory;
+  private final MutableDatabaseMigrationState migrationState;
+  private final PartitionedDataChangeExecutor partitionedDataChangeExecutor;
 
-  public MigrationStepsExecutorImpl(MigrationContainer migrationContainer, MigrationHistory migrationHistory) {
+  public MigrationStepsExecutorImpl(MigrationContainer migrationContainer, MigrationHistory migrationHistory,
+    MutableDatabaseMigrationState migrationState, PartitionedDataChangeExecutor partitionedDataChangeExecutor) {
     this.migrationContainer = migrationContainer;
     this.migrationHistory = migrationHistory;
+    this.migrationState = migrationState;
+    this.partitionedDataChangeExecutor = partitionedDataChangeExecutor;
   }
 
   @Override
@@ -71,15 +78,21 @@ public class MigrationStepsExecutorImpl implements MigrationStepsExecutor {
     Profiler stepProfiler = Profiler.create(LOGGER);
     stepProfiler.startInfo(STEP_START_PATTERN, step);
     boolean done = false;
+    Long rows = null;
     try {
-      migrationStep.execute();
+      if (migrationStep instanceof PartitionedDataChange) {
+        rows = partitionedDataChangeExecutor.execute(step, (PartitionedDataChange) migrationStep);
+      } else {
+        migrationStep.execute();
+      }
       migrationHistory.done(step);
       done = true;
     } catch (Exception e) {
       throw new MigrationStepExecutionException(step, e);
     } finally {
       if (done) {
-        stepProfiler.stopInfo(STEP_STOP_PATTERN, step, "success");
+        long durationMs = stepProfiler.stopInfo(STEP_STOP_PATTERN, step, "success");
+        migrationState.addStepStatistics(new MigrationStepStatistics(step.toString(), durationMs, rows));
       } else {
         stepProfiler.stopError(STEP_STOP_PATTERN, step, "failure");
       }
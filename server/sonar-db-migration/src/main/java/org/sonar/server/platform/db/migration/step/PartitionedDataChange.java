@@ -0,0 +1,143 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Optional;
+import org.sonar.db.Database;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Data migration which can be executed concurrently over distinct ranges of a numeric key (usually the
+ * technical id of the migrated table).
+ * <p>
+ * When executed by {@link MigrationStepsExecutorImpl}, the key range is split into {@link #getPartitions()}
+ * partitions which are migrated on as many threads. Each partition is processed by chunks of
+ * {@link #getChunkSize()} keys, and progress is recorded in table {@link MigrationCheckpoints#TABLE_NAME} after
+ * each chunk, so that a crashed migration resumes from the last processed chunk.
+ * </p>
+ * <p>
+ * The checkpoint is not written in the transaction of the chunk, so the last chunk of a partition may be
+ * executed again after a crash. See {@link #execute(DataChange.Context, long, long)}.
+ * </p>
+ */
+public abstract class PartitionedDataChange implements MigrationStep {
+  public static final int DEFAULT_PARTITIONS = 4;
+  public static final long DEFAULT_CHUNK_SIZE = 10_000L;
+
+  private final Database db;
+
+  public PartitionedDataChange(Database db) {
+    this.db = db;
+  }
+
+  /**
+   * Sequential execution over the whole key range, without checkpoint.
+   */
+  @Override
+  public final void execute() throws SQLException {
+    Optional<KeyRange> range = selectKeyRange();
+    if (range.isPresent()) {
+      executeRange(range.get().getFrom(), range.get().getTo());
+    }
+  }
+
+  public int getPartitions() {
+    return DEFAULT_PARTITIONS;
+  }
+
+  public long getChunkSize() {
+    return DEFAULT_CHUNK_SIZE;
+  }
+
+  /**
+   * SQL request returning the lowest and the highest keys of the rows to be migrated, for example
+   * {@code select min(id), max(id) from issues}
+   */
+  protected abstract String selectKeyRangeSql();
+
+  /**
+   * Migrates the rows which key is between {@code fromKey} and {@code toKey} (both inclusive). Changes must
+   * be committed before returning. This method is called concurrently on different ranges.
+   * <p>
+   * Implementations must be idempotent: a range which changes were committed can be executed again when
+   * the migration crashed before its checkpoint was recorded. Typically the select must only return the
+   * rows which are not migrated yet.
+   * </p>
+   *
+   * @return the number of processed rows
+   */
+  protected abstract long execute(DataChange.Context context, long fromKey, long toKey) throws SQLException;
+
+  Optional<KeyRange> selectKeyRange() throws SQLException {
+    try (Connection connection = DataChange.createReadUncommittedConnection(db)) {
+      KeyRange range = new DataChange.Context(db, connection, connection)
+        .prepareSelect(selectKeyRangeSql())
+        .get(row -> {
+          Long from = row.getNullableLong(1);
+          Long to = row.getNullableLong(2);
+          return from == null || to == null ? null : new KeyRange(from, to);
+        });
+      return Optional.ofNullable(range);
+    }
+  }
+
+  /**
+   * @return the number of processed rows
+   */
+  long executeRange(long fromKey, long toKey) throws SQLException {
+    long rows = 0L;
+    long from = fromKey;
+    while (from <= toKey) {
+      long to = Math.min(toKey, from + getChunkSize() - 1);
+      rows += executeChunk(from, to);
+      from = to + 1;
+    }
+    return rows;
+  }
+
+  long executeChunk(long fromKey, long toKey) throws SQLException {
+    try (Connection readConnection = DataChange.createReadUncommittedConnection(db);
+      Connection writeConnection = DataChange.createDdlConnection(db)) {
+      return execute(new DataChange.Context(db, readConnection, writeConnection), fromKey, toKey);
+    }
+  }
+
+  static final class KeyRange {
+    private final long from;
+    private final long to;
+
+    KeyRange(long from, long to) {
+      checkArgument(from <= to, "Invalid key range [%s, %s]", from, to);
+      this.from = from;
+      this.to = to;
+    }
+
+    long getFrom() {
+      return from;
+    }
+
+    long getTo() {
+      return to;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.platform.db.migration.step.MigrationCheckpoints.Partition;
+
+/**
+ * Executes a {@link PartitionedDataChange} on concurrent threads, one per partition of its key range, and
+ * checkpoints the progress of each partition so that an interrupted migration resumes where it stopped.
+ */
+public class PartitionedDataChangeExecutor {
+  private static final Logger LOGGER = Loggers.get("DbMigrations");
+
+  private final MigrationCheckpoints checkpoints;
+
+  public PartitionedDataChangeExecutor(MigrationCheckpoints checkpoints) {
+    this.checkpoints = checkpoints;
+  }
+
+  /**
+   * @return the number of rows processed by this execution
+   */
+  public long execute(RegisteredMigrationStep step, PartitionedDataChange change) throws SQLException {
+    long migrationNumber = step.getMigrationNumber();
+    List<Partition> partitions = checkpoints.select(migrationNumber);
+    if (partitions.isEmpty()) {
+      Optional<PartitionedDataChange.KeyRange> keyRange = change.selectKeyRange();
+      if (!keyRange.isPresent()) {
+        return 0L;
+      }
+      partitions = split(keyRange.get(), change.getPartitions());
+      checkpoints.insert(migrationNumber, partitions);
+    } else {
+      LOGGER.info("{}: resuming {} partitions from checkpoint", step, partitions.size());
+    }
+
+    ExecutorService executorService = Executors.newFixedThreadPool(partitions.size(), new ThreadFactoryBuilder()
+      .setNameFormat("DbMigration-" + migrationNumber + "-%d")
+      .setDaemon(true)
+      .build());
+    try {
+      List<Future<Long>> futures = new ArrayList<>(partitions.size());
+      for (Partition partition : partitions) {
+        futures.add(executorService.submit(() -> execute(migrationNumber, change, partition)));
+      }
+      long rows = 0L;
+      for (Future<Long> future : futures) {
+        rows += waitFor(future);
+      }
+      checkpoints.delete(migrationNumber);
+      return rows;
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private long execute(long migrationNumber, PartitionedDataChange change, Partition partition) throws SQLException {
+    Long lastKey = partition.getLastKey();
+    long from = lastKey == null ? partition.getStart() : (lastKey + 1);
+    long rows = 0L;
+    while (from <= partition.getEnd()) {
+      long to = Math.min(partition.getEnd(), from + change.getChunkSize() - 1);
+      rows += change.executeChunk(from, to);
+      checkpoints.update(migrationNumber, partition, to);
+      from = to + 1;
+    }
+    return rows;
+  }
+
+  private static long waitFor(Future<Long> future) throws SQLException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for partition of migration", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Fail to migrate partition", cause);
+    }
+  }
+
+  static List<Partition> split(PartitionedDataChange.KeyRange keyRange, int partitionCount) {
+    long size = Math.max(1L, (keyRange.getTo() - keyRange.getFrom()) / partitionCount + 1);
+    List<Partition> partitions = new ArrayList<>(partitionCount);
+    long start = keyRange.getFrom();
+    while (start <= keyRange.getTo()) {
+      long end = Math.min(keyRange.getTo(), start + size - 1);
+      partitions.add(new Partition(start, end, null));
+      start = end + 1;
+    }
+    return partitions;
+  }
+}
@@ -48,6 +48,9 @@ public class DbVersion63 implements DbVersion {
       .add(1513, "Make default organization guarded", MakeDefaultOrganizationGuarded.class)
       .add(1514, "Delete some entries in PROPERTIES", DeleteUselessProperties.class)
       .add(1515, "Unset user root flags", UnsetUserRootFlags.class)
-      .add(1516, "Add ORGANIZATIONS.USER_ID", AddUserIdToOrganizations.class);
+      .add(1516, "Add ORGANIZATIONS.USER_ID", AddUserIdToOrganizations.class)
+      .add(1517, "Add RULE_REPOSITORIES.DEFINITION_HASH", AddDefinitionHashToRuleRepositories.class)
+      .add(1518, "Add FILE_SOURCES.LINE_DATA and FILE_SOURCES.TEXT_HASH", AddLineDataAndTextHashToFileSources.class)
+      .add(1519, "Add index on SNAPSHOTS.ISLAST, STATUS, PURGE_STATUS and COMPONENT_UUID", AddIndexOnPurgeStatusOfSnapshots.class);
   }
 }
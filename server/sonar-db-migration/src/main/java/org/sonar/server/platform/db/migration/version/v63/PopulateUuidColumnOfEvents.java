@@ -20,14 +20,14 @@
 package org.sonar.server.platform.db.migration.version.v63;
 
 import java.sql.SQLException;
+import java.util.List;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.Database;
-import org.sonar.server.platform.db.migration.step.MassUpdate;
-import org.sonar.server.platform.db.migration.step.Select;
-import org.sonar.server.platform.db.migration.step.SqlStatement;
 import org.sonar.server.platform.db.migration.step.DataChange;
+import org.sonar.server.platform.db.migration.step.PartitionedDataChange;
+import org.sonar.server.platform.db.migration.step.Upsert;
 
-public class PopulateUuidColumnOfEvents extends DataChange {
+public class PopulateUuidColumnOfEvents extends PartitionedDataChange {
 
   private final UuidFactory uuidFactory;
 
@@ -37,19 +37,28 @@ public class PopulateUuidColumnOfEvents extends DataChange {
   }
 
   @Override
-  protected void execute(Context context) throws SQLException {
-    MassUpdate massUpdate = context.prepareMassUpdate();
-    massUpdate.select("SELECT e.id from events e where e.uuid is null");
-    massUpdate.update("UPDATE events SET uuid=? WHERE id=?");
-    massUpdate.rowPluralName("events");
-    massUpdate.execute(this::handle);
+  protected String selectKeyRangeSql() {
+    return "SELECT min(e.id), max(e.id) from events e where e.uuid is null";
   }
 
-  private boolean handle(Select.Row row, SqlStatement update) throws SQLException {
-    long id = row.getLong(1);
-    update.setString(1, uuidFactory.create());
-    update.setLong(2, id);
-    return true;
+  @Override
+  protected long execute(DataChange.Context context, long fromKey, long toKey) throws SQLException {
+    List<Long> ids = context.prepareSelect("SELECT e.id from events e where e.uuid is null and e.id>=? and e.id<=?")
+      .setLong(1, fromKey)
+      .setLong(2, toKey)
+      .list(row -> row.getLong(1));
+    if (ids.isEmpty()) {
+      return 0L;
+    }
+    try (Upsert update = context.prepareUpsert("UPDATE events SET uuid=? WHERE id=?")) {
+      for (Long id : ids) {
+        update.setString(1, uuidFactory.create());
+        update.setLong(2, id);
+        update.addBatch();
+      }
+      update.execute().commit();
+    }
+    return ids.size();
   }
 
 }
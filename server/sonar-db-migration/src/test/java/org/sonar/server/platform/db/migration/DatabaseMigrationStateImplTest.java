@@ -67,4 +67,21 @@ public class DatabaseMigrationStateImplTest {
 
     assertThat(underTest.getError()).isSameAs(expected);
   }
+
+  @Test
+  public void getStepStatistics_returns_empty_list_when_component_is_created() {
+    assertThat(underTest.getStepStatistics()).isEmpty();
+  }
+
+  @Test
+  public void getStepStatistics_returns_arguments_of_addStepStatistics_in_order() {
+    MigrationStepStatistics first = new MigrationStepStatistics("#1 'Foo'", 2_000L, 10_000L);
+    MigrationStepStatistics second = new MigrationStepStatistics("#2 'Bar'", 10L, null);
+    underTest.addStepStatistics(first);
+    underTest.addStepStatistics(second);
+
+    assertThat(underTest.getStepStatistics()).containsExactly(first, second);
+    assertThat(first.getRowsPerSecond()).isEqualTo(5_000L);
+    assertThat(second.getRowsPerSecond()).isNull();
+  }
 }
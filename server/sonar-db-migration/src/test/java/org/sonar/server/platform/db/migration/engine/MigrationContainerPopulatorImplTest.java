@@ -23,6 +23,8 @@ import java.sql.SQLException;
 import java.util.stream.Stream;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.db.Database;
+import org.sonar.server.platform.db.migration.MutableDatabaseMigrationState;
 import org.sonar.server.platform.db.migration.history.MigrationHistory;
 import org.sonar.server.platform.db.migration.step.MigrationStep;
 import org.sonar.server.platform.db.migration.step.MigrationStepRegistry;
@@ -75,7 +77,7 @@ public class MigrationContainerPopulatorImplTest {
     when(migrationSteps.readAll()).thenReturn(Stream.empty());
 
     // add MigrationStepsExecutorImpl's dependencies
-    migrationContainer.add(mock(MigrationHistory.class));
+    migrationContainer.add(mock(MigrationHistory.class), mock(MutableDatabaseMigrationState.class), mock(Database.class));
 
     underTest.populateContainer(migrationContainer);
 
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DatabaseUtils;
+import org.sonar.db.DbTester;
+import org.sonar.server.platform.db.migration.step.MigrationCheckpoints.Partition;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class MigrationCheckpointsTest {
+
+  @Rule
+  public DbTester db = DbTester.createForSchema(System2.INSTANCE, MigrationCheckpointsTest.class, "empty.sql");
+
+  private MigrationCheckpoints underTest = new MigrationCheckpoints(db.database());
+
+  @Test
+  public void table_is_created_when_used_for_the_first_time() throws Exception {
+    assertThat(underTest.select(1_000L)).isEmpty();
+
+    assertThat(tableExists()).isTrue();
+    db.assertColumnDefinition(MigrationCheckpoints.TABLE_NAME, "migration_number", Types.BIGINT, null, false);
+    db.assertColumnDefinition(MigrationCheckpoints.TABLE_NAME, "last_key", Types.BIGINT, null, true);
+  }
+
+  @Test
+  public void insert_update_and_delete_partitions() throws SQLException {
+    underTest.insert(1_000L, asList(new Partition(1L, 10L, null), new Partition(11L, 20L, null)));
+    underTest.insert(1_001L, asList(new Partition(1L, 5L, null)));
+
+    underTest.update(1_000L, new Partition(11L, 20L, null), 15L);
+
+    assertThat(underTest.select(1_000L))
+      .extracting(Partition::getStart, Partition::getEnd, Partition::getLastKey)
+      .containsExactly(
+        tuple(1L, 10L, null),
+        tuple(11L, 20L, 15L));
+
+    underTest.delete(1_000L);
+
+    assertThat(underTest.select(1_000L)).isEmpty();
+    assertThat(underTest.select(1_001L)).hasSize(1);
+  }
+
+  private boolean tableExists() throws Exception {
+    try (Connection connection = db.openConnection()) {
+      return DatabaseUtils.tableExists(MigrationCheckpoints.TABLE_NAME, connection);
+    }
+  }
+}
@@ -31,6 +31,9 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.db.Database;
+import org.sonar.server.platform.db.migration.DatabaseMigrationStateImpl;
+import org.sonar.server.platform.db.migration.MigrationStepStatistics;
 import org.sonar.server.platform.db.migration.engine.MigrationContainer;
 import org.sonar.server.platform.db.migration.engine.SimpleMigrationContainer;
 import org.sonar.server.platform.db.migration.history.MigrationHistory;
@@ -38,7 +41,11 @@ import org.sonar.server.platform.db.migration.history.MigrationHistory;
 import static com.google.common.base.Preconditions.checkState;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class MigrationStepsExecutorImplTest {
   @Rule
@@ -48,7 +55,9 @@ public class MigrationStepsExecutorImplTest {
 
   private MigrationContainer migrationContainer = new SimpleMigrationContainer();
   private MigrationHistory migrationHistor = mock(MigrationHistory.class);
-  private MigrationStepsExecutorImpl underTest = new MigrationStepsExecutorImpl(migrationContainer, migrationHistor);
+  private DatabaseMigrationStateImpl migrationState = new DatabaseMigrationStateImpl();
+  private PartitionedDataChangeExecutor partitionedDataChangeExecutor = mock(PartitionedDataChangeExecutor.class);
+  private MigrationStepsExecutorImpl underTest = new MigrationStepsExecutorImpl(migrationContainer, migrationHistor, migrationState, partitionedDataChangeExecutor);
 
   @Test
   public void execute_does_not_fail_when_stream_is_empty_and_log_start_stop_INFO() {
@@ -112,6 +121,29 @@ public class MigrationStepsExecutorImplTest {
     assertThat(migrationContainer.getComponentByType(MigrationStep1.class).isCalled()).isTrue();
     assertThat(migrationContainer.getComponentByType(MigrationStep2.class).isCalled()).isTrue();
     assertThat(migrationContainer.getComponentByType(MigrationStep3.class).isCalled()).isTrue();
+    assertThat(migrationState.getStepStatistics())
+      .extracting(MigrationStepStatistics::getStep)
+      .containsExactly("#1 '1-MigrationStep2'", "#2 '2-MigrationStep1'", "#3 '3-MigrationStep3'");
+    assertThat(migrationState.getStepStatistics())
+      .extracting(MigrationStepStatistics::getRows)
+      .containsOnly((Long) null);
+  }
+
+  @Test
+  public void execute_delegates_execution_of_PartitionedDataChange_and_records_processed_rows() throws SQLException {
+    migrationContainer.add(mock(Database.class), PartitionedStep.class);
+    RegisteredMigrationStep step = registeredStepOf(1, PartitionedStep.class);
+    PartitionedStep partitionedStep = migrationContainer.getComponentByType(PartitionedStep.class);
+    when(partitionedDataChangeExecutor.execute(same(step), same(partitionedStep))).thenReturn(42L);
+
+    underTest.execute(Stream.of(step));
+
+    verify(partitionedDataChangeExecutor).execute(same(step), any(PartitionedStep.class));
+    verify(migrationHistor).done(step);
+    assertThat(migrationState.getStepStatistics()).hasSize(1);
+    MigrationStepStatistics statistics = migrationState.getStepStatistics().get(0);
+    assertThat(statistics.getStep()).isEqualTo("#1 '1-PartitionedStep'");
+    assertThat(statistics.getRows()).isEqualTo(42L);
   }
 
   @Test
@@ -201,6 +233,22 @@ public class MigrationStepsExecutorImplTest {
     }
   }
 
+  public static class PartitionedStep extends PartitionedDataChange {
+    public PartitionedStep(Database db) {
+      super(db);
+    }
+
+    @Override
+    protected String selectKeyRangeSql() {
+      throw new UnsupportedOperationException("executed by PartitionedDataChangeExecutor");
+    }
+
+    @Override
+    protected long execute(DataChange.Context context, long fromKey, long toKey) {
+      throw new UnsupportedOperationException("executed by PartitionedDataChangeExecutor");
+    }
+  }
+
   public static class RuntimeExceptionFailingMigrationStep implements MigrationStep {
     private static final RuntimeException THROWN_EXCEPTION = new RuntimeException("Faking failing migration step");
 
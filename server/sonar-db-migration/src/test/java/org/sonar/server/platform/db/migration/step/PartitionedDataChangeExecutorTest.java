@@ -0,0 +1,161 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.db.migration.step;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.Database;
+import org.sonar.db.DbTester;
+import org.sonar.server.platform.db.migration.step.MigrationCheckpoints.Partition;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class PartitionedDataChangeExecutorTest {
+
+  private static final long MIGRATION_NUMBER = 1_000L;
+  private static final RegisteredMigrationStep STEP = new RegisteredMigrationStep(MIGRATION_NUMBER, "Populate PERSONS.AGE", SetAgeOfPersons.class);
+
+  @Rule
+  public DbTester db = DbTester.createForSchema(System2.INSTANCE, PartitionedDataChangeExecutorTest.class, "schema.sql");
+
+  private MigrationCheckpoints checkpoints = new MigrationCheckpoints(db.database());
+  private PartitionedDataChangeExecutor underTest = new PartitionedDataChangeExecutor(checkpoints);
+
+  @Before
+  public void setUp() {
+    for (int id = 1; id <= 10; id++) {
+      db.executeInsert("persons", "id", String.valueOf(id));
+    }
+  }
+
+  @Test
+  public void migrate_all_partitions_and_delete_checkpoints() throws SQLException {
+    long rows = underTest.execute(STEP, new SetAgeOfPersons(db.database()));
+
+    assertThat(rows).isEqualTo(10L);
+    assertThat(selectMigratedIds()).containsOnly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    assertThat(checkpoints.select(MIGRATION_NUMBER)).isEmpty();
+  }
+
+  @Test
+  public void resume_partitions_from_checkpoints() throws SQLException {
+    checkpoints.insert(MIGRATION_NUMBER, asList(new Partition(1L, 5L, 3L), new Partition(6L, 10L, null)));
+
+    long rows = underTest.execute(STEP, new SetAgeOfPersons(db.database()));
+
+    assertThat(rows).isEqualTo(7L);
+    assertThat(selectMigratedIds()).containsOnly(4L, 5L, 6L, 7L, 8L, 9L, 10L);
+    assertThat(checkpoints.select(MIGRATION_NUMBER)).isEmpty();
+  }
+
+  @Test
+  public void keep_checkpoints_when_a_partition_fails() throws SQLException {
+    SetAgeOfPersons change = new SetAgeOfPersons(db.database()) {
+      @Override
+      protected long execute(DataChange.Context context, long fromKey, long toKey) throws SQLException {
+        if (fromKey >= 9L) {
+          throw new SQLException("Faking failure of chunk");
+        }
+        return super.execute(context, fromKey, toKey);
+      }
+    };
+
+    try {
+      underTest.execute(STEP, change);
+      fail("SQLException should have been thrown");
+    } catch (SQLException e) {
+      assertThat(e).hasMessage("Faking failure of chunk");
+    }
+
+    List<Partition> partitions = checkpoints.select(MIGRATION_NUMBER);
+    assertThat(partitions)
+      .extracting(Partition::getStart, Partition::getEnd)
+      .containsExactly(tuple(1L, 3L), tuple(4L, 6L), tuple(7L, 9L), tuple(10L, 10L));
+    assertThat(partitions.get(0).getLastKey()).isEqualTo(3L);
+    assertThat(partitions.get(3).getLastKey()).isNull();
+  }
+
+  @Test
+  public void do_nothing_when_there_are_no_rows_to_migrate() throws SQLException {
+    db.executeUpdateSql("delete from persons");
+
+    assertThat(underTest.execute(STEP, new SetAgeOfPersons(db.database()))).isEqualTo(0L);
+    assertThat(checkpoints.select(MIGRATION_NUMBER)).isEmpty();
+  }
+
+  @Test
+  public void split_key_range_in_partitions() {
+    assertThat(PartitionedDataChangeExecutor.split(new PartitionedDataChange.KeyRange(1L, 10L), 4))
+      .extracting(Partition::getStart, Partition::getEnd)
+      .containsExactly(tuple(1L, 3L), tuple(4L, 6L), tuple(7L, 9L), tuple(10L, 10L));
+    assertThat(PartitionedDataChangeExecutor.split(new PartitionedDataChange.KeyRange(5L, 6L), 4))
+      .extracting(Partition::getStart, Partition::getEnd)
+      .containsExactly(tuple(5L, 5L), tuple(6L, 6L));
+    assertThat(PartitionedDataChangeExecutor.split(new PartitionedDataChange.KeyRange(7L, 7L), 4))
+      .extracting(Partition::getStart, Partition::getEnd)
+      .containsExactly(tuple(7L, 7L));
+  }
+
+  @Test
+  public void sequential_execution_migrates_whole_key_range_without_checkpoint() throws SQLException {
+    new SetAgeOfPersons(db.database()).execute();
+
+    assertThat(selectMigratedIds()).hasSize(10);
+    assertThat(checkpoints.select(MIGRATION_NUMBER)).isEmpty();
+  }
+
+  private List<Long> selectMigratedIds() {
+    return db.select("select id from persons where age is not null").stream()
+      .map(row -> ((Number) row.get("ID")).longValue())
+      .collect(Collectors.toList());
+  }
+
+  public static class SetAgeOfPersons extends PartitionedDataChange {
+    public SetAgeOfPersons(Database db) {
+      super(db);
+    }
+
+    @Override
+    public long getChunkSize() {
+      return 2L;
+    }
+
+    @Override
+    protected String selectKeyRangeSql() {
+      return "select min(id), max(id) from persons";
+    }
+
+    @Override
+    protected long execute(DataChange.Context context, long fromKey, long toKey) throws SQLException {
+      try (Upsert upsert = context.prepareUpsert("update persons set age=id*2 where id>=? and id<=?")) {
+        upsert.setLong(1, fromKey).setLong(2, toKey).execute().commit();
+      }
+      return toKey - fromKey + 1;
+    }
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.platform.db.migration.version.v63;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +31,10 @@ import org.junit.Test;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DbTester;
+import org.sonar.server.platform.db.migration.step.DataChange;
+import org.sonar.server.platform.db.migration.step.MigrationCheckpoints;
+import org.sonar.server.platform.db.migration.step.PartitionedDataChangeExecutor;
+import org.sonar.server.platform.db.migration.step.RegisteredMigrationStep;
 
 import static java.lang.String.valueOf;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -73,6 +78,37 @@ public class PopulateUuidColumnOfEventsTest {
     verifyUuids(1);
   }
 
+  @Test
+  public void migration_generates_uuids_by_concurrent_partitions() throws SQLException {
+    for (long id = 1; id <= 50; id++) {
+      insertEvents(id);
+    }
+    MigrationCheckpoints checkpoints = new MigrationCheckpoints(db.database());
+    RegisteredMigrationStep step = new RegisteredMigrationStep(1_501L, "Populate EVENTS.UUID", PopulateUuidColumnOfEvents.class);
+
+    long rows = new PartitionedDataChangeExecutor(checkpoints).execute(step, underTest);
+
+    assertThat(rows).isEqualTo(50L);
+    verifyUuids(50);
+    assertThat(checkpoints.select(1_501L)).isEmpty();
+  }
+
+  @Test
+  public void migration_of_a_range_ignores_events_out_of_range_or_having_uuid() throws SQLException {
+    insertEvents(1);
+    insertEvents(2);
+    insertEvents(3);
+    db.executeUpdateSql("update events set uuid='existing' where id=2");
+
+    try (Connection connection = db.database().getDataSource().getConnection()) {
+      long rows = underTest.execute(new DataChange.Context(db.database(), connection, connection), 1L, 2L);
+
+      assertThat(rows).isEqualTo(1L);
+    }
+    verifyUuids(2);
+    assertThat(db.select("select uuid from events where id=3").get(0).get("UUID")).isNull();
+  }
+
   private void verifyUuids(int expectedCount) {
     List<Map<String, Object>> rows = db.select("select uuid from events where uuid is not null");
     Set<Object> uuids = rows.stream().map(cols -> cols.get("UUID")).filter(uuid -> StringUtils.isNotBlank((String) uuid)).collect(Collectors.toSet());
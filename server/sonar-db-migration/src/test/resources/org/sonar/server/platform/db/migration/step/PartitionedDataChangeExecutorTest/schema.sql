@@ -0,0 +1,4 @@
+CREATE TABLE "PERSONS" (
+  "ID" INTEGER NOT NULL,
+  "AGE" INTEGER
+);
@@ -21,24 +21,22 @@ package org.sonar.ce.settings;
 
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Settings;
-import org.sonar.db.DbClient;
+import org.sonar.server.setting.SettingsCache;
 
 @ComputeEngineSide
 public class ProjectSettingsFactory {
 
   private final Settings globalSettings;
-  private final DbClient dbClient;
+  private final SettingsCache settingsCache;
 
-  public ProjectSettingsFactory(Settings globalSettings, DbClient dbClient) {
+  public ProjectSettingsFactory(Settings globalSettings, SettingsCache settingsCache) {
     this.globalSettings = globalSettings;
-    this.dbClient = dbClient;
+    this.settingsCache = settingsCache;
   }
 
-  public Settings newProjectSettings(String projectKey) {
+  public Settings newProjectSettings(String projectUuid) {
     Settings projectSettings = new ProjectSettings(globalSettings);
-    dbClient.propertiesDao()
-      .selectProjectProperties(projectKey)
-      .forEach(property -> projectSettings.setProperty(property.getKey(), property.getValue()));
+    settingsCache.getComponentProperties(projectUuid).forEach(projectSettings::setProperty);
     return projectSettings;
   }
 }
@@ -33,11 +33,11 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.FilePathWithHashDto;
-import org.sonar.db.property.PropertyDto;
 import org.sonar.scanner.protocol.input.FileData;
 import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.setting.SettingsCache;
 import org.sonar.server.user.UserSession;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -52,10 +52,12 @@ public class ProjectDataLoader {
 
   private final DbClient dbClient;
   private final UserSession userSession;
+  private final SettingsCache settingsCache;
 
-  public ProjectDataLoader(DbClient dbClient, UserSession userSession) {
+  public ProjectDataLoader(DbClient dbClient, UserSession userSession, SettingsCache settingsCache) {
     this.dbClient = dbClient;
     this.userSession = userSession;
+    this.settingsCache = settingsCache;
   }
 
   public ProjectRepositories load(ProjectDataQuery query) {
@@ -79,10 +81,9 @@ public class ProjectDataLoader {
 
       List<ComponentDto> modulesTree = dbClient.componentDao().selectEnabledDescendantModules(session, module.uuid());
       Map<String, String> moduleUuidsByKey = moduleUuidsByKey(modulesTree);
-      Map<String, Long> moduleIdsByKey = moduleIdsByKey(modulesTree);
 
-      List<PropertyDto> modulesTreeSettings = dbClient.propertiesDao().selectEnabledDescendantModuleProperties(module.uuid(), session);
-      TreeModuleSettings treeModuleSettings = new TreeModuleSettings(moduleUuidsByKey, moduleIdsByKey, modulesTree, modulesTreeSettings);
+      Map<String, Map<String, String>> modulesTreeSettings = modulesTreeSettings(modulesTree);
+      TreeModuleSettings treeModuleSettings = new TreeModuleSettings(moduleUuidsByKey, modulesTree, modulesTreeSettings);
 
       addSettingsToChildrenModules(data, query.getModuleKey(), Maps.<String, String>newHashMap(), treeModuleSettings, hasScanPerm);
       List<FilePathWithHashDto> files = searchFilesWithHashAndRevision(session, module);
@@ -123,7 +124,7 @@ public class ProjectDataLoader {
 
     Map<String, String> parentProperties = newHashMap();
     for (ComponentDto parent : parents) {
-      parentProperties.putAll(getPropertiesMap(dbClient.propertiesDao().selectProjectProperties(session, parent.key()), hasScanPerm));
+      parentProperties.putAll(getPropertiesMap(settingsCache.getComponentProperties(parent.uuid()), hasScanPerm));
     }
     return parentProperties;
   }
@@ -158,13 +159,20 @@ public class ProjectDataLoader {
     }
   }
 
-  private static Map<String, String> getPropertiesMap(List<PropertyDto> propertyDtos, boolean hasScanPerm) {
+  private Map<String, Map<String, String>> modulesTreeSettings(List<ComponentDto> modulesTree) {
+    Map<String, Map<String, String>> settingsByModuleKey = newHashMap();
+    for (ComponentDto componentDto : modulesTree) {
+      settingsByModuleKey.put(componentDto.key(), settingsCache.getComponentProperties(componentDto.uuid()));
+    }
+    return settingsByModuleKey;
+  }
+
+  private static Map<String, String> getPropertiesMap(Map<String, String> settings, boolean hasScanPerm) {
     Map<String, String> properties = newHashMap();
-    for (PropertyDto propertyDto : propertyDtos) {
-      String key = propertyDto.getKey();
-      String value = propertyDto.getValue();
+    for (Map.Entry<String, String> setting : settings.entrySet()) {
+      String key = setting.getKey();
       if (isPropertyAllowed(key, hasScanPerm)) {
-        properties.put(key, value);
+        properties.put(key, setting.getValue());
       }
     }
     return properties;
@@ -207,32 +215,18 @@ public class ProjectDataLoader {
     return moduleUuidsByKey;
   }
 
-  private static Map<String, Long> moduleIdsByKey(List<ComponentDto> moduleChildren) {
-    Map<String, Long> moduleIdsByKey = newHashMap();
-    for (ComponentDto componentDto : moduleChildren) {
-      moduleIdsByKey.put(componentDto.key(), componentDto.getId());
-    }
-    return moduleIdsByKey;
-  }
-
   private static class TreeModuleSettings {
 
-    private Map<String, Long> moduleIdsByKey;
     private Map<String, String> moduleUuidsByKey;
-    private Multimap<Long, PropertyDto> propertiesByModuleId;
+    private Map<String, Map<String, String>> settingsByModuleKey;
     private Multimap<String, ComponentDto> moduleChildrenByModuleUuid;
 
-    private TreeModuleSettings(Map<String, String> moduleUuidsByKey, Map<String, Long> moduleIdsByKey, List<ComponentDto> moduleChildren,
-      List<PropertyDto> moduleChildrenSettings) {
-      this.moduleIdsByKey = moduleIdsByKey;
+    private TreeModuleSettings(Map<String, String> moduleUuidsByKey, List<ComponentDto> moduleChildren,
+      Map<String, Map<String, String>> settingsByModuleKey) {
       this.moduleUuidsByKey = moduleUuidsByKey;
-      propertiesByModuleId = ArrayListMultimap.create();
+      this.settingsByModuleKey = settingsByModuleKey;
       moduleChildrenByModuleUuid = ArrayListMultimap.create();
 
-      for (PropertyDto settings : moduleChildrenSettings) {
-        propertiesByModuleId.put(settings.getResourceId(), settings);
-      }
-
       for (ComponentDto componentDto : moduleChildren) {
         String moduleUuid = componentDto.moduleUuid();
         if (moduleUuid != null) {
@@ -241,9 +235,9 @@ public class ProjectDataLoader {
       }
     }
 
-    List<PropertyDto> findModuleSettings(String moduleKey) {
-      Long moduleId = moduleIdsByKey.get(moduleKey);
-      return newArrayList(propertiesByModuleId.get(moduleId));
+    Map<String, String> findModuleSettings(String moduleKey) {
+      Map<String, String> settings = settingsByModuleKey.get(moduleKey);
+      return settings == null ? Collections.emptyMap() : settings;
     }
 
     List<ComponentDto> findChildrenModule(String moduleKey) {
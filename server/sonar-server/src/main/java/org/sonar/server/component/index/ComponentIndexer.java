@@ -22,12 +22,16 @@ package org.sonar.server.component.index;
 import com.google.common.base.Throwables;
 import com.google.common.util.concurrent.Uninterruptibles;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.api.Startable;
 import org.sonar.db.DbClient;
@@ -82,6 +86,41 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
     }
   }
 
+  /**
+   * Only the documents of the components changed by the analysis are updated, without re-indexing the whole project.
+   * Components which are disabled, or which do not exist anymore, are removed from the index.
+   */
+  @Override
+  public void indexAnalysis(String projectUuid, Collection<String> updatedUuids, Collection<String> removedUuids) {
+    if (updatedUuids.isEmpty() && removedUuids.isEmpty()) {
+      return;
+    }
+    Set<String> uuidsToDelete = new HashSet<>(removedUuids);
+    uuidsToDelete.addAll(updatedUuids);
+
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_COMPONENTS);
+    bulk.setLarge(false);
+    bulk.start();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.componentDao().selectByUuids(dbSession, updatedUuids)
+        .stream()
+        .filter(ComponentIndexer::isIndexable)
+        .forEach(dto -> {
+          uuidsToDelete.remove(dto.uuid());
+          bulk.add(newIndexRequest(toDocument(dto)));
+        });
+    }
+    uuidsToDelete.forEach(uuid -> bulk.add(new DeleteRequest(INDEX_COMPONENTS, TYPE_COMPONENT, uuid).routing(projectUuid)));
+    bulk.stop();
+  }
+
+  /**
+   * Same condition as the one used by {@link org.sonar.db.component.ComponentDao#selectForIndexing}
+   */
+  private static boolean isIndexable(ComponentDto dto) {
+    return dto.isEnabled() && dto.getCopyResourceUuid() == null;
+  }
+
   @Override
   public AuthorizationScope getAuthorizationScope() {
     return AUTHORIZATION_SCOPE;
@@ -63,6 +63,7 @@ import static org.sonar.server.component.ws.ProjectMeasuresQueryFactory.hasIsFav
 import static org.sonar.server.component.ws.ProjectMeasuresQueryFactory.newProjectMeasuresQuery;
 import static org.sonar.server.component.ws.ProjectMeasuresQueryFactory.toCriteria;
 import static org.sonar.server.measure.index.ProjectMeasuresIndex.SUPPORTED_FACETS;
+import static org.sonar.server.measure.index.ProjectMeasuresQuery.SORT_BY_NAME;
 import static org.sonar.server.ws.WsUtils.checkFoundWithOptional;
 import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.component.ComponentsWsParameters.PARAM_FILTER;
@@ -100,6 +101,17 @@ public class SearchProjectsAction implements ComponentsWsAction {
     action.createParam(Param.FACETS)
       .setDescription("Comma-separated list of the facets to be computed. No facet is computed by default.")
       .setPossibleValues(SUPPORTED_FACETS);
+    action.createParam(Param.SORT)
+      .setDescription("Sort projects by name or by the value of a numeric metric. " +
+        "To sort on a metric, provide its key (ex: coverage). Projects without value for this metric are returned last.")
+      .setDefaultValue(SORT_BY_NAME)
+      .setExampleValue("ncloc")
+      .setSince("6.3");
+    action.createParam(Param.ASCENDING)
+      .setDescription("Ascending sort")
+      .setBooleanPossibleValues()
+      .setDefaultValue(true)
+      .setSince("6.3");
     action
       .createParam(PARAM_FILTER)
       .setDescription("Filter of projects on measure value, quality gate or whether a project is a favorite or not.<br>" +
@@ -173,7 +185,12 @@ public class SearchProjectsAction implements ComponentsWsAction {
     List<ComponentDto> favoriteProjects = searchFavoriteProjects(dbSession);
     Set<String> projectUuids = buildFilterOnProjectUuids(dbSession, criteria, favoriteProjects, organization);
 
-    ProjectMeasuresQuery query = newProjectMeasuresQuery(criteria, projectUuids);
+    ProjectMeasuresQuery query = newProjectMeasuresQuery(criteria, projectUuids)
+      .setSort(request.getSort());
+    Boolean asc = request.getAsc();
+    if (asc != null) {
+      query.setAsc(asc);
+    }
     queryValidator.validate(dbSession, query);
 
     SearchIdResult<String> esResults = index.search(query, new SearchOptions()
@@ -238,6 +255,8 @@ public class SearchProjectsAction implements ComponentsWsAction {
     SearchProjectsRequest.Builder request = SearchProjectsRequest.builder()
       .setOrganization(httpRequest.param(PARAM_ORGANIZATION))
       .setFilter(httpRequest.param(PARAM_FILTER))
+      .setSort(httpRequest.param(Param.SORT))
+      .setAsc(httpRequest.paramAsBoolean(Param.ASCENDING))
       .setPage(httpRequest.mandatoryParamAsInt(Param.PAGE))
       .setPageSize(httpRequest.mandatoryParamAsInt(Param.PAGE_SIZE));
     if (httpRequest.hasParam(Param.FACETS)) {
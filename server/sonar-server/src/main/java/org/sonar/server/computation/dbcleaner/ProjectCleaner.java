@@ -20,6 +20,7 @@
 package org.sonar.server.computation.dbcleaner;
 
 import java.util.Collection;
+import java.util.Collections;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Settings;
@@ -54,18 +55,39 @@ public class ProjectCleaner {
     this.purgeListener = purgeListener;
   }
 
+  /**
+   * Purges the data which must be cleaned at the end of an analysis: aborted analyses and data of disabled components.
+   * History of the project is purged asynchronously by {@link #purgeHistory(DbSession, IdUuidPair, Settings)}.
+   */
   public ProjectCleaner purge(DbSession session, IdUuidPair idUuidPair, Settings projectSettings, Collection<String> disabledComponentUuids) {
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, disabledComponentUuids);
+    try {
+      purgeDao.purgeAnalysisLeftovers(session, configuration, purgeListener, profiler);
+    } catch (Exception e) {
+      // purge errors must no fail the report analysis
+      LOG.error("Fail to purge data [id=" + idUuidPair.getId() + "]", e);
+    }
+    session.commit();
+    return this;
+  }
+
+  /**
+   * Deletes the old analyses of the project according to the housekeeping settings and purges the other ones.
+   *
+   * @return the number of purged analyses
+   */
+  public int purgeHistory(DbSession session, IdUuidPair idUuidPair, Settings projectSettings) {
     long start = System.currentTimeMillis();
     profiler.reset();
 
-    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, disabledComponentUuids);
+    PurgeConfiguration configuration = newDefaultPurgeConfiguration(projectSettings, idUuidPair, Collections.emptyList());
 
     cleanHistoricalData(session, configuration.rootProjectIdUuid().getUuid(), projectSettings);
-    doPurge(session, configuration);
+    int purgedAnalyses = doPurge(session, configuration);
 
     session.commit();
     logProfiling(start, projectSettings);
-    return this;
+    return purgedAnalyses;
   }
 
   private void logProfiling(long start, Settings settings) {
@@ -86,12 +108,13 @@ public class ProjectCleaner {
     }
   }
 
-  private void doPurge(DbSession session, PurgeConfiguration configuration) {
+  private int doPurge(DbSession session, PurgeConfiguration configuration) {
     try {
-      purgeDao.purge(session, configuration, purgeListener, profiler);
+      return purgeDao.purgeHistory(session, configuration, purgeListener, profiler);
     } catch (Exception e) {
-      // purge errors must no fail the report analysis
+      // purge errors must no fail the purge of other projects
       LOG.error("Fail to purge data [id=" + configuration.rootProjectIdUuid().getId() + "]", e);
+      return 0;
     }
   }
 }
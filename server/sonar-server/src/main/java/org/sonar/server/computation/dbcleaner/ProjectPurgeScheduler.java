@@ -0,0 +1,151 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.settings.ProjectSettingsFactory;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.server.computation.monitoring.ProjectPurgeMBeanImpl;
+
+import static java.lang.String.format;
+import static org.sonar.core.util.stream.Collectors.toList;
+
+/**
+ * Purges the history of projects in background, outside of the analysis tasks which only leave behind analyses to be
+ * purged (see {@link org.sonar.db.purge.PurgeDao#selectRootUuidsToPurge(DbSession)}).
+ * <p>
+ * A single project is purged at each execution and executions are separated by a delay, configured by property
+ * {@link #DELAY_PROPERTY}, so that purge does not compete with the analyses for database resources. As the state of
+ * the purge is stored in the analyses themselves, an interrupted purge is resumed after a restart.
+ */
+@ComputeEngineSide
+public class ProjectPurgeScheduler implements Startable {
+  public static final String DELAY_PROPERTY = "sonar.ce.purge.delayInSeconds";
+
+  private static final Logger LOG = Loggers.get(ProjectPurgeScheduler.class);
+
+  private static final long INITIAL_DELAY_IN_SECONDS = 60;
+  @VisibleForTesting
+  static final long DEFAULT_DELAY_IN_SECONDS = 10;
+
+  private final ProjectPurgeExecutorService executorService;
+  private final DbClient dbClient;
+  private final ProjectCleaner projectCleaner;
+  private final ProjectSettingsFactory projectSettingsFactory;
+  private final ProjectPurgeMBeanImpl purgeStatus;
+  private final System2 system2;
+  private final long delayInSeconds;
+
+  @CheckForNull
+  private String lastPurgedRootUuid = null;
+
+  public ProjectPurgeScheduler(ProjectPurgeExecutorService executorService, DbClient dbClient, ProjectCleaner projectCleaner,
+    ProjectSettingsFactory projectSettingsFactory, ProjectPurgeMBeanImpl purgeStatus, Settings settings, System2 system2) {
+    this.executorService = executorService;
+    this.dbClient = dbClient;
+    this.projectCleaner = projectCleaner;
+    this.projectSettingsFactory = projectSettingsFactory;
+    this.purgeStatus = purgeStatus;
+    this.system2 = system2;
+    this.delayInSeconds = parseDelay(settings);
+  }
+
+  private static long parseDelay(Settings settings) {
+    String value = settings.getString(DELAY_PROPERTY);
+    if (value == null || value.isEmpty()) {
+      return DEFAULT_DELAY_IN_SECONDS;
+    }
+    try {
+      long delay = Long.parseLong(value);
+      if (delay > 0) {
+        return delay;
+      }
+    } catch (NumberFormatException e) {
+      // error is raised below
+    }
+    throw MessageException.of(format("value '%s' of property %s is invalid. It must be an integer strictly greater than 0.", value, DELAY_PROPERTY));
+  }
+
+  @Override
+  public void start() {
+    purgeStatus.setDelayBetweenPurges(delayInSeconds);
+    executorService.scheduleWithFixedDelay(this::purgeNextProject, INITIAL_DELAY_IN_SECONDS, delayInSeconds, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public void stop() {
+    // nothing to do, executor service is stopped by the container
+  }
+
+  void purgeNextProject() {
+    try (DbSession dbSession = dbClient.openSession(true)) {
+      List<String> rootUuids = dbClient.purgeDao().selectRootUuidsToPurge(dbSession).stream().sorted().collect(toList());
+      purgeStatus.setPending(rootUuids.size(), dbClient.purgeDao().countAnalysesToPurge(dbSession));
+      if (rootUuids.isEmpty()) {
+        return;
+      }
+      String rootUuid = selectNextRootUuid(rootUuids);
+      lastPurgedRootUuid = rootUuid;
+      Optional<ComponentDto> root = dbClient.componentDao().selectByUuid(dbSession, rootUuid);
+      if (root.isPresent()) {
+        purge(dbSession, root.get());
+      }
+    } catch (Exception e) {
+      // an exception would cancel the next executions
+      LOG.error("Failed to purge project history", e);
+    }
+  }
+
+  /**
+   * Projects are purged in turn, so that a project whose purge keeps failing does not prevent the others from being purged.
+   */
+  private String selectNextRootUuid(List<String> sortedRootUuids) {
+    if (lastPurgedRootUuid != null) {
+      for (String rootUuid : sortedRootUuids) {
+        if (rootUuid.compareTo(lastPurgedRootUuid) > 0) {
+          return rootUuid;
+        }
+      }
+    }
+    return sortedRootUuids.get(0);
+  }
+
+  private void purge(DbSession dbSession, ComponentDto root) {
+    long start = system2.now();
+    int purgedAnalyses = projectCleaner.purgeHistory(dbSession, new IdUuidPair(root.getId(), root.uuid()), projectSettingsFactory.newProjectSettings(root.uuid()));
+    long duration = system2.now() - start;
+    purgeStatus.addPurgedProject(purgedAnalyses, duration);
+    LOG.debug("Purged {} analyses of {} in {}ms", purgedAnalyses, root.key(), duration);
+  }
+}
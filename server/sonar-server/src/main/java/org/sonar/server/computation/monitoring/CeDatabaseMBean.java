@@ -40,4 +40,24 @@ public interface CeDatabaseMBean {
   boolean getPoolRemoveAbandoned();
 
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  /**
+   * Count of connections borrowed from the pool since startup.
+   */
+  long getPoolBorrowCount();
+
+  /**
+   * Time spent waiting for connections to be borrowed from the pool since startup, in milliseconds.
+   */
+  long getPoolBorrowWaitMillis();
+
+  /**
+   * Longest time spent waiting for a connection to be borrowed from the pool since startup, in milliseconds.
+   */
+  long getPoolMaxBorrowWaitMillis();
+
+  /**
+   * Count of connections held for longer than the leak detection threshold (property sonar.jdbc.leakDetectionThresholdMillis).
+   */
+  long getPoolLeakCount();
 }
@@ -22,11 +22,14 @@ package org.sonar.server.computation.monitoring;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.picocontainer.Startable;
 import org.sonar.db.DbClient;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
 import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
 public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemInfoSection {
+  private static final int TOP_CALLERS = 10;
+
   private final DbClient dbClient;
 
   public CeDatabaseMBeanImpl(DbClient dbClient) {
@@ -91,6 +94,30 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     return commonsDbcp().getRemoveAbandonedTimeout();
   }
 
+  @Override
+  public long getPoolBorrowCount() {
+    return poolStatistics().getBorrowCount();
+  }
+
+  @Override
+  public long getPoolBorrowWaitMillis() {
+    return poolStatistics().getTotalWaitTime();
+  }
+
+  @Override
+  public long getPoolMaxBorrowWaitMillis() {
+    return poolStatistics().getMaxWaitTime();
+  }
+
+  @Override
+  public long getPoolLeakCount() {
+    return poolStatistics().getLeakCount();
+  }
+
+  private ConnectionPoolStatistics poolStatistics() {
+    return ConnectionPoolStatistics.of(dbClient.getDatabase().getDataSource());
+  }
+
   private BasicDataSource commonsDbcp() {
     return (BasicDataSource) dbClient.getDatabase().getDataSource();
   }
@@ -108,6 +135,12 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     builder.addAttributesBuilder().setKey("Pool Max Wait (ms)").setLongValue(getPoolMaxWaitMillis()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned").setBooleanValue(getPoolRemoveAbandoned()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned Timeout (sec)").setLongValue(getPoolRemoveAbandonedTimeoutSeconds()).build();
+    builder.addAttributesBuilder().setKey("Pool Borrows").setLongValue(getPoolBorrowCount()).build();
+    builder.addAttributesBuilder().setKey("Pool Borrow Wait (ms)").setLongValue(getPoolBorrowWaitMillis()).build();
+    builder.addAttributesBuilder().setKey("Pool Max Borrow Wait (ms)").setLongValue(getPoolMaxBorrowWaitMillis()).build();
+    builder.addAttributesBuilder().setKey("Pool Borrow Wait Histogram").setStringValue(poolStatistics().getWaitTimeHistogram().toString()).build();
+    builder.addAttributesBuilder().setKey("Pool Leaked Connections").setLongValue(getPoolLeakCount()).build();
+    builder.addAttributesBuilder().setKey("Pool Top Borrowers").setStringValue(poolStatistics().getTopCallers(TOP_CALLERS).toString()).build();
     return builder.build();
   }
 }
@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+public interface ProjectPurgeMBean {
+
+  String OBJECT_NAME = "SonarQube:name=ComputeEngineProjectPurge";
+
+  /**
+   * Count of projects having analyses waiting to be purged, as of the last execution of the purge.
+   */
+  long getPendingProjectCount();
+
+  /**
+   * Count of analyses waiting to be purged, as of the last execution of the purge.
+   */
+  long getPendingAnalysisCount();
+
+  /**
+   * Count of projects purged since startup.
+   */
+  long getPurgedProjectCount();
+
+  /**
+   * Count of analyses purged since startup.
+   */
+  long getPurgedAnalysisCount();
+
+  /**
+   * Time spent purging projects since startup, in milliseconds.
+   */
+  long getPurgeTime();
+
+  /**
+   * Average number of analyses purged per second of {@link #getPurgeTime() purge time} since startup. Delays between
+   * purges are not included. This is not a number of rows, the rows deleted per analysis depend on the size of the project.
+   */
+  double getAnalysisPurgeRate();
+
+  /**
+   * Delay between two purges, in seconds.
+   */
+  long getDelayBetweenPurges();
+}
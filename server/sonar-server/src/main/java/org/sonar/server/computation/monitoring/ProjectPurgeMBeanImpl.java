@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.picocontainer.Startable;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+public class ProjectPurgeMBeanImpl implements ProjectPurgeMBean, Startable, SystemInfoSection {
+  private final AtomicLong pendingProjectCount = new AtomicLong(0);
+  private final AtomicLong pendingAnalysisCount = new AtomicLong(0);
+  private final AtomicLong purgedProjectCount = new AtomicLong(0);
+  private final AtomicLong purgedAnalysisCount = new AtomicLong(0);
+  private final AtomicLong purgeTime = new AtomicLong(0);
+  private final AtomicLong delayBetweenPurges = new AtomicLong(0);
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  public void setPending(long projectCount, long analysisCount) {
+    pendingProjectCount.set(projectCount);
+    pendingAnalysisCount.set(analysisCount);
+  }
+
+  public void setDelayBetweenPurges(long delayInSeconds) {
+    delayBetweenPurges.set(delayInSeconds);
+  }
+
+  public void addPurgedProject(long analysisCount, long durationInMs) {
+    purgedProjectCount.incrementAndGet();
+    purgedAnalysisCount.addAndGet(analysisCount);
+    purgeTime.addAndGet(durationInMs);
+  }
+
+  @Override
+  public long getPendingProjectCount() {
+    return pendingProjectCount.get();
+  }
+
+  @Override
+  public long getPendingAnalysisCount() {
+    return pendingAnalysisCount.get();
+  }
+
+  @Override
+  public long getPurgedProjectCount() {
+    return purgedProjectCount.get();
+  }
+
+  @Override
+  public long getPurgedAnalysisCount() {
+    return purgedAnalysisCount.get();
+  }
+
+  @Override
+  public long getPurgeTime() {
+    return purgeTime.get();
+  }
+
+  @Override
+  public long getDelayBetweenPurges() {
+    return delayBetweenPurges.get();
+  }
+
+  @Override
+  public double getAnalysisPurgeRate() {
+    long time = purgeTime.get();
+    if (time == 0) {
+      return 0;
+    }
+    return purgedAnalysisCount.get() * 1000.0 / time;
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Project Purge");
+    builder.addAttributesBuilder().setKey("Pending Projects").setLongValue(getPendingProjectCount()).build();
+    builder.addAttributesBuilder().setKey("Pending Analyses").setLongValue(getPendingAnalysisCount()).build();
+    builder.addAttributesBuilder().setKey("Purged Projects").setLongValue(getPurgedProjectCount()).build();
+    builder.addAttributesBuilder().setKey("Purged Analyses").setLongValue(getPurgedAnalysisCount()).build();
+    builder.addAttributesBuilder().setKey("Purge Time (ms)").setLongValue(getPurgeTime()).build();
+    builder.addAttributesBuilder().setKey("Analysis Purge Rate (analyses/s)").setDoubleValue(getAnalysisPurgeRate()).build();
+    builder.addAttributesBuilder().setKey("Delay Between Purges (s)").setLongValue(getDelayBetweenPurges()).build();
+    return builder.build();
+  }
+}
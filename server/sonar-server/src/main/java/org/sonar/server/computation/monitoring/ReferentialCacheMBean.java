@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+public interface ReferentialCacheMBean {
+
+  String OBJECT_NAME = "SonarQube:name=ComputeEngineReferentialCache";
+
+  /**
+   * Count of tasks which reused the metrics cached by a previous task, since startup.
+   */
+  long getMetricCacheHits();
+
+  /**
+   * Count of tasks which loaded metrics from DB, since startup.
+   */
+  long getMetricCacheMisses();
+
+  /**
+   * Ratio of tasks which reused cached metrics, between 0 and 1.
+   */
+  double getMetricCacheHitRatio();
+
+  /**
+   * Count of tasks which reused the rules cached by a previous task, since startup.
+   */
+  long getRuleCacheHits();
+
+  /**
+   * Count of tasks which loaded rules from DB, since startup.
+   */
+  long getRuleCacheMisses();
+
+  /**
+   * Ratio of tasks which reused cached rules, between 0 and 1.
+   */
+  double getRuleCacheHitRatio();
+}
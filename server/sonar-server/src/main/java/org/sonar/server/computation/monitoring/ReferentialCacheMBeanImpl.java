@@ -0,0 +1,93 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import org.picocontainer.Startable;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.projectanalysis.issue.RuleCache;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricCache;
+
+public class ReferentialCacheMBeanImpl implements ReferentialCacheMBean, Startable, SystemInfoSection {
+  private final MetricCache metricCache;
+  private final RuleCache ruleCache;
+
+  public ReferentialCacheMBeanImpl(MetricCache metricCache, RuleCache ruleCache) {
+    this.metricCache = metricCache;
+    this.ruleCache = ruleCache;
+  }
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  @Override
+  public long getMetricCacheHits() {
+    return metricCache.getCache().getHits();
+  }
+
+  @Override
+  public long getMetricCacheMisses() {
+    return metricCache.getCache().getMisses();
+  }
+
+  @Override
+  public double getMetricCacheHitRatio() {
+    return metricCache.getCache().getHitRatio();
+  }
+
+  @Override
+  public long getRuleCacheHits() {
+    return ruleCache.getCache().getHits();
+  }
+
+  @Override
+  public long getRuleCacheMisses() {
+    return ruleCache.getCache().getMisses();
+  }
+
+  @Override
+  public double getRuleCacheHitRatio() {
+    return ruleCache.getCache().getHitRatio();
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Referential Cache");
+    builder.addAttributesBuilder().setKey("Metric Cache Hits").setLongValue(getMetricCacheHits()).build();
+    builder.addAttributesBuilder().setKey("Metric Cache Misses").setLongValue(getMetricCacheMisses()).build();
+    builder.addAttributesBuilder().setKey("Metric Cache Hit Ratio").setDoubleValue(getMetricCacheHitRatio()).build();
+    builder.addAttributesBuilder().setKey("Rule Cache Hits").setLongValue(getRuleCacheHits()).build();
+    builder.addAttributesBuilder().setKey("Rule Cache Misses").setLongValue(getRuleCacheMisses()).build();
+    builder.addAttributesBuilder().setKey("Rule Cache Hit Ratio").setDoubleValue(getRuleCacheHitRatio()).build();
+    return builder.build();
+  }
+}
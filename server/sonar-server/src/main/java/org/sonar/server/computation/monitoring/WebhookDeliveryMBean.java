@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+public interface WebhookDeliveryMBean {
+
+  String OBJECT_NAME = "SonarQube:name=ComputeEngineWebhookDeliveries";
+
+  /**
+   * Count of webhook deliveries accepted and not completed yet, including the ones waiting for a retry.
+   */
+  long getPendingCount();
+
+  /**
+   * Count of webhook deliveries which succeeded since startup.
+   */
+  long getSuccessCount();
+
+  /**
+   * Count of webhook deliveries which failed since startup, after their last attempt.
+   */
+  long getFailureCount();
+
+  /**
+   * Count of webhook deliveries failed without being attempted since startup, because too many deliveries were
+   * pending or because the circuit breaker of their endpoint was open.
+   */
+  long getRejectedCount();
+
+  /**
+   * Count of attempts retried since startup.
+   */
+  long getRetryCount();
+
+  /**
+   * Time spent waiting for the responses of webhook endpoints since startup, in milliseconds.
+   */
+  long getResponseTime();
+
+  /**
+   * Average time to get the response of a webhook endpoint since startup, in milliseconds.
+   */
+  double getAverageResponseTime();
+
+  /**
+   * Ratio of the webhook deliveries which failed or were rejected since startup.
+   */
+  double getFailureRate();
+}
@@ -0,0 +1,142 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.picocontainer.Startable;
+import org.sonar.process.Jmx;
+import org.sonar.process.systeminfo.SystemInfoSection;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+public class WebhookDeliveryMBeanImpl implements WebhookDeliveryMBean, Startable, SystemInfoSection {
+  private final AtomicLong pendingCount = new AtomicLong(0);
+  private final AtomicLong successCount = new AtomicLong(0);
+  private final AtomicLong failureCount = new AtomicLong(0);
+  private final AtomicLong rejectedCount = new AtomicLong(0);
+  private final AtomicLong retryCount = new AtomicLong(0);
+  private final AtomicLong responseCount = new AtomicLong(0);
+  private final AtomicLong responseTime = new AtomicLong(0);
+
+  @Override
+  public void start() {
+    Jmx.register(OBJECT_NAME, this);
+  }
+
+  /**
+   * Unregister, if needed
+   */
+  @Override
+  public void stop() {
+    Jmx.unregister(OBJECT_NAME);
+  }
+
+  public void addPending() {
+    pendingCount.incrementAndGet();
+  }
+
+  public void addResponse(long durationInMs) {
+    responseCount.incrementAndGet();
+    responseTime.addAndGet(durationInMs);
+  }
+
+  public void addRetry() {
+    retryCount.incrementAndGet();
+  }
+
+  public void removePending() {
+    pendingCount.decrementAndGet();
+  }
+
+  public void addSuccess() {
+    successCount.incrementAndGet();
+  }
+
+  public void addFailure() {
+    failureCount.incrementAndGet();
+  }
+
+  public void addRejected() {
+    rejectedCount.incrementAndGet();
+  }
+
+  @Override
+  public long getPendingCount() {
+    return pendingCount.get();
+  }
+
+  @Override
+  public long getSuccessCount() {
+    return successCount.get();
+  }
+
+  @Override
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  @Override
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  @Override
+  public long getRetryCount() {
+    return retryCount.get();
+  }
+
+  @Override
+  public long getResponseTime() {
+    return responseTime.get();
+  }
+
+  @Override
+  public double getAverageResponseTime() {
+    long count = responseCount.get();
+    if (count == 0) {
+      return 0;
+    }
+    return (double) responseTime.get() / count;
+  }
+
+  @Override
+  public double getFailureRate() {
+    long failures = failureCount.get() + rejectedCount.get();
+    long completed = successCount.get() + failures;
+    if (completed == 0) {
+      return 0;
+    }
+    return (double) failures / completed;
+  }
+
+  @Override
+  public ProtobufSystemInfo.Section toProtobuf() {
+    ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
+    builder.setName("Compute Engine Webhook Deliveries");
+    builder.addAttributesBuilder().setKey("Pending").setLongValue(getPendingCount()).build();
+    builder.addAttributesBuilder().setKey("Succeeded").setLongValue(getSuccessCount()).build();
+    builder.addAttributesBuilder().setKey("Failed").setLongValue(getFailureCount()).build();
+    builder.addAttributesBuilder().setKey("Rejected").setLongValue(getRejectedCount()).build();
+    builder.addAttributesBuilder().setKey("Retries").setLongValue(getRetryCount()).build();
+    builder.addAttributesBuilder().setKey("Response Time (ms)").setLongValue(getResponseTime()).build();
+    builder.addAttributesBuilder().setKey("Average Response Time (ms)").setDoubleValue(getAverageResponseTime()).build();
+    builder.addAttributesBuilder().setKey("Failure Rate").setDoubleValue(getFailureRate()).build();
+    return builder.build();
+  }
+}
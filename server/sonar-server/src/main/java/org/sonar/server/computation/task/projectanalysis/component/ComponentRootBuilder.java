@@ -174,7 +174,7 @@ public class ComponentRootBuilder {
   @VisibleForTesting
   static ReportAttributes createOtherReportAttributes(ScannerReport.Component component) {
     return createCommonBuilder(component)
-      .setVersion(trimToNull(component.getVersion()))
+      .setVersion(intern(trimToNull(component.getVersion())))
       .build();
   }
 
@@ -193,10 +193,19 @@ public class ComponentRootBuilder {
     checkArgument(component.getLines() > 0, "File '%s' has no line", component.getPath());
     return new FileAttributes(
       component.getIsTest(),
-      trimToNull(component.getLanguage()),
+      intern(trimToNull(component.getLanguage())),
       component.getLines());
   }
 
+  /**
+   * Versions and languages have few distinct values but are read into a new String for each component of the
+   * report. They are shared so that trees of a million of files do not hold a million copies of them.
+   */
+  @CheckForNull
+  private static String intern(@Nullable String s) {
+    return s == null ? null : s.intern();
+  }
+
   @VisibleForTesting
   static Component.Type convertType(ScannerReport.Component.ComponentType type) {
     switch (type) {
@@ -19,23 +19,43 @@
  */
 package org.sonar.server.computation.task.projectanalysis.component;
 
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
 
 /**
- * Cache of persisted component (component id and snapshot id) that can be used in the persistence steps
+ * Cache of persisted component (component id and snapshot id) that can be used in the persistence steps.
+ * <p>
+ * Report refs are small consecutive integers, so component ids are stored in an array indexed by ref rather than in a
+ * map of boxed values.
+ * </p>
  */
 public class DbIdsRepositoryImpl implements MutableDbIdsRepository {
 
+  private static final long NO_ID = Long.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 64;
+
   private final MapBasedDbIdsRepository<Integer> delegate = new MapBasedDbIdsRepository<>(toReportRef());
+  private long[] componentIdsByRef = newIdArray(INITIAL_CAPACITY);
 
   @Override
   public DbIdsRepository setComponentId(Component component, long componentId) {
-    return delegate.setComponentId(component, componentId);
+    int ref = component.getReportAttributes().getRef();
+    long existingComponentId = idOfRef(ref);
+    checkState(existingComponentId == NO_ID,
+      "Component id '%s' is already registered in repository for Component '%s', can not set new id '%s'", existingComponentId, component.getKey(), componentId);
+    ensureCapacity(ref);
+    componentIdsByRef[ref] = componentId;
+    return this;
   }
 
   @Override
   public long getComponentId(Component component) {
-    return delegate.getComponentId(component);
+    long componentId = idOfRef(component.getReportAttributes().getRef());
+    checkState(componentId != NO_ID, "No component id registered in repository for Component '%s'", component.getKey());
+    return componentId;
   }
 
   @Override
@@ -47,4 +67,23 @@ public class DbIdsRepositoryImpl implements MutableDbIdsRepository {
   public long getDeveloperId(Developer developer) {
     return delegate.getDeveloperId(developer);
   }
+
+  private long idOfRef(int ref) {
+    checkArgument(ref >= 0, "Ref of component must be positive or zero: %s", ref);
+    return ref < componentIdsByRef.length ? componentIdsByRef[ref] : NO_ID;
+  }
+
+  private void ensureCapacity(int ref) {
+    if (ref >= componentIdsByRef.length) {
+      long[] ids = newIdArray(Math.max(ref + 1, componentIdsByRef.length * 2));
+      System.arraycopy(componentIdsByRef, 0, ids, 0, componentIdsByRef.length);
+      componentIdsByRef = ids;
+    }
+  }
+
+  private static long[] newIdArray(int size) {
+    long[] ids = new long[size];
+    Arrays.fill(ids, NO_ID);
+    return ids;
+  }
 }
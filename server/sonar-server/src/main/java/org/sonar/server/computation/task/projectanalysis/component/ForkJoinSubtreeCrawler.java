@@ -0,0 +1,150 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Crawls a {@link Component} tree with a {@link SubtreeVisitor}: the states of sibling subtrees are computed
+ * concurrently, then completed sequentially in post-order.
+ * <p>
+ * The crawl runs in its own {@link ForkJoinPool}, which is bounded to {@link #MAX_PARALLELISM} threads and shut down
+ * when the crawl is over, so that it does not compete with the common pool nor with the other Compute Engine workers
+ * for more threads than that.
+ * </p>
+ * <p>
+ * As states of children are merged in their order and completion is sequential, the result is the same as the one
+ * of a sequential crawl.
+ * </p>
+ */
+public final class ForkJoinSubtreeCrawler {
+  public static final int MAX_PARALLELISM = 4;
+
+  private final int parallelism;
+
+  public ForkJoinSubtreeCrawler() {
+    this(Math.min(MAX_PARALLELISM, Runtime.getRuntime().availableProcessors()));
+  }
+
+  @VisibleForTesting
+  ForkJoinSubtreeCrawler(int parallelism) {
+    checkArgument(parallelism > 0, "Parallelism must be strictly greater than 0");
+    this.parallelism = parallelism;
+  }
+
+  public <T> void crawl(Component root, SubtreeVisitor<T> visitor) {
+    requireNonNull(visitor);
+    if (!verifyDepth(visitor, root)) {
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism, ForkJoinSubtreeCrawler::newThread, null, false);
+    try {
+      Subtree<T> subtree = pool.invoke(new VisitTask<>(visitor, root));
+      complete(visitor, subtree);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("ComponentCrawler-" + thread.getPoolIndex());
+    return thread;
+  }
+
+  private static <T> void complete(SubtreeVisitor<T> visitor, Subtree<T> subtree) {
+    for (Subtree<T> child : subtree.children) {
+      complete(visitor, child);
+    }
+    try {
+      visitor.complete(subtree.component, subtree.state);
+    } catch (RuntimeException e) {
+      Component component = subtree.component;
+      VisitException.rethrowOrWrap(e, "Visit of Component {key=%s,uuid=%s,type=%s} failed", component.getKey(), component.getUuid(), component.getType());
+    }
+  }
+
+  private static boolean verifyDepth(SubtreeVisitor<?> visitor, Component component) {
+    CrawlerDepthLimit maxDepth = visitor.getMaxDepth();
+    return maxDepth.isSameAs(component.getType()) || maxDepth.isDeeperThan(component.getType());
+  }
+
+  private static final class Subtree<T> {
+    private final Component component;
+    private final T state;
+    private final List<Subtree<T>> children;
+
+    private Subtree(Component component, T state, List<Subtree<T>> children) {
+      this.component = component;
+      this.state = state;
+      this.children = children;
+    }
+  }
+
+  private static final class VisitTask<T> extends RecursiveTask<Subtree<T>> {
+    private final SubtreeVisitor<T> visitor;
+    private final Component component;
+
+    private VisitTask(SubtreeVisitor<T> visitor, Component component) {
+      this.visitor = visitor;
+      this.component = component;
+    }
+
+    @Override
+    protected Subtree<T> compute() {
+      try {
+        return visitImpl();
+      } catch (RuntimeException e) {
+        VisitException.rethrowOrWrap(e, "Visit of Component {key=%s,uuid=%s,type=%s} failed", component.getKey(), component.getUuid(), component.getType());
+        return null;
+      }
+    }
+
+    private Subtree<T> visitImpl() {
+      List<VisitTask<T>> tasks = new ArrayList<>(component.getChildren().size());
+      for (Component child : component.getChildren()) {
+        if (verifyDepth(visitor, child)) {
+          tasks.add(new VisitTask<>(visitor, child));
+        }
+      }
+      // subtrees of the children but the first one are forked, the first one is visited by the current thread
+      for (int i = 1; i < tasks.size(); i++) {
+        tasks.get(i).fork();
+      }
+      T state = visitor.visit(component);
+      List<Subtree<T>> children = new ArrayList<>(tasks.size());
+      for (int i = 0; i < tasks.size(); i++) {
+        VisitTask<T> task = tasks.get(i);
+        Subtree<T> child = i == 0 ? task.compute() : task.join();
+        visitor.merge(state, child.state);
+        children.add(child);
+      }
+      return new Subtree<>(component, state, children);
+    }
+  }
+}
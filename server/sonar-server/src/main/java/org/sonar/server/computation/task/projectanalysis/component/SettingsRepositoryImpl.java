@@ -34,8 +34,8 @@ public class SettingsRepositoryImpl implements SettingsRepository {
   private final ProjectSettingsFactory projectSettingsFactory;
   private final MemoryCache<String, Settings> cache = new MemoryCache<>(new CacheLoader<String, Settings>() {
     @Override
-    public Settings load(String key) {
-      return projectSettingsFactory.newProjectSettings(key);
+    public Settings load(String uuid) {
+      return projectSettingsFactory.newProjectSettings(uuid);
     }
 
     @Override
@@ -50,7 +50,7 @@ public class SettingsRepositoryImpl implements SettingsRepository {
 
   @Override
   public Settings getSettings(Component component){
-    return cache.get(component.getKey());
+    return cache.get(component.getUuid());
   }
 
 }
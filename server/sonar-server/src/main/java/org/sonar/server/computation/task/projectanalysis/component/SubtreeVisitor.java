@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+/**
+ * A visitor of the {@link Component} tree executed by {@link ForkJoinSubtreeCrawler}, which computes a state for each
+ * subtree on concurrent threads and then consumes these states on a single thread.
+ *
+ * @param <T> type of the state of a subtree
+ */
+public interface SubtreeVisitor<T> {
+
+  /**
+   * Components strictly deeper than this limit are not visited.
+   */
+  CrawlerDepthLimit getMaxDepth();
+
+  /**
+   * Creates the state of the specified component, ignoring its descendants.
+   * <p>
+   * This method is called concurrently on the components of distinct subtrees, so it must only read data which is
+   * not modified during the crawl.
+   * </p>
+   */
+  T visit(Component component);
+
+  /**
+   * Merges the state of the subtree of a child into the state of its parent. States of the children of a component
+   * are merged on a single thread, in the order of the children.
+   */
+  void merge(T parentState, T childState);
+
+  /**
+   * Called once the states of all the subtrees are computed, on the thread which started the crawl and in
+   * post-order: a component is completed after all its descendants.
+   */
+  void complete(Component component, T subtreeState);
+}
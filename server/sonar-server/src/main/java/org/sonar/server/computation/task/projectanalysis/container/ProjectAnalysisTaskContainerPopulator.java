@@ -34,6 +34,7 @@ import org.sonar.server.computation.task.projectanalysis.api.posttask.PostProjec
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.DbIdsRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.component.ChangedComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.DisabledComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.SettingsRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderImpl;
@@ -45,6 +46,7 @@ import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity
 import org.sonar.server.computation.task.projectanalysis.filemove.MutableMovedFilesRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.filemove.SourceSimilarityImpl;
 import org.sonar.server.computation.task.projectanalysis.filesystem.ComputationTempFolderProvider;
+import org.sonar.server.computation.task.projectanalysis.issue.BaseInputPrefetcher;
 import org.sonar.server.computation.task.projectanalysis.issue.BaseIssuesLoader;
 import org.sonar.server.computation.task.projectanalysis.issue.CloseIssuesOnRemovedComponentsVisitor;
 import org.sonar.server.computation.task.projectanalysis.issue.ComponentIssuesRepositoryImpl;
@@ -96,11 +98,20 @@ import org.sonar.server.computation.task.projectanalysis.qualitymodel.NewReliabi
 import org.sonar.server.computation.task.projectanalysis.qualitymodel.RatingSettings;
 import org.sonar.server.computation.task.projectanalysis.qualitymodel.ReliabilityAndSecurityRatingMeasuresVisitor;
 import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderImpl;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLinesRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.LastCommitVisitor;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryImpl;
+import org.sonar.server.computation.task.projectanalysis.step.CommentMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.ComplexityMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.CoverageMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.LanguageDistributionMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.NewCoverageMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.NewSizeMeasuresStep;
 import org.sonar.server.computation.task.projectanalysis.step.ReportComputationSteps;
+import org.sonar.server.computation.task.projectanalysis.step.SizeMeasuresStep;
+import org.sonar.server.computation.task.projectanalysis.step.UnitTestMeasuresStep;
 import org.sonar.server.computation.task.projectanalysis.webhook.WebhookModule;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 import org.sonar.server.computation.task.step.ComputationSteps;
@@ -168,11 +179,13 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       SettingsRepositoryImpl.class,
       DbIdsRepositoryImpl.class,
       DisabledComponentsHolderImpl.class,
+      ChangedComponentsHolderImpl.class,
       QualityGateServiceImpl.class,
       EvaluationResultTextConverterImpl.class,
       SourceLinesRepositoryImpl.class,
       SourceHashRepositoryImpl.class,
       ScmInfoRepositoryImpl.class,
+      NewLinesRepositoryImpl.class,
       DuplicationRepositoryImpl.class,
 
       // issues
@@ -225,6 +238,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       Tracker.class,
       TrackerExecution.class,
       BaseIssuesLoader.class,
+      BaseInputPrefetcher.class,
 
       // filemove
       SourceSimilarityImpl.class,
@@ -234,6 +248,16 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
       // duplication
       IntegrateCrossProjectDuplications.class,
 
+      // measure steps, which are not in ReportComputationSteps as their visitors are executed by ExecuteMeasureVisitorsStep
+      SizeMeasuresStep.class,
+      NewCoverageMeasuresStep.class,
+      CoverageMeasuresStep.class,
+      CommentMeasuresStep.class,
+      NewSizeMeasuresStep.class,
+      LanguageDistributionMeasuresStep.class,
+      UnitTestMeasuresStep.class,
+      ComplexityMeasuresStep.class,
+
       // views
       ViewIndex.class,
 
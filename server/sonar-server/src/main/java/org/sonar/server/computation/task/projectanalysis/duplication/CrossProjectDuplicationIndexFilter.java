@@ -0,0 +1,161 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.duplication;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact in-memory summary, by language, of the block hashes of the DUPLICATIONS_INDEX table. It is used to avoid
+ * querying the table for hashes which are not indexed, which is the case of most of them.
+ * <p>
+ * The filter of a language is loaded from database the first time it's used, then kept up-to-date by
+ * {@link #add(String, Collection)} when the blocks of an analysis are persisted. As a Bloom filter, it can answer that a
+ * hash might be indexed when it's not, but never the opposite. Blocks removed from the table are therefore not removed
+ * from the filter, which is reloaded from database once it holds more hashes than it's been sized for.
+ * <p>
+ * Memory is bounded by {@link #MAX_EXPECTED_INSERTIONS} per language. Beyond that, the rate of false positives increases
+ * instead of the size of the filter.
+ * <p>
+ * Hashes are loaded without locking the filter, which answers that any hash might be indexed as long as it's not
+ * loaded. Hashes added during the load are kept and put into the filter once loaded.
+ * <p>
+ * This component lives as long as the Compute Engine and is shared by all tasks.
+ */
+public class CrossProjectDuplicationIndexFilter {
+
+  private static final Logger LOGGER = Loggers.get(CrossProjectDuplicationIndexFilter.class);
+
+  private static final int MIN_EXPECTED_INSERTIONS = 10_000;
+  /**
+   * About 12MB per language with a false positive probability of 1%
+   */
+  private static final int MAX_EXPECTED_INSERTIONS = 10_000_000;
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private final DbClient dbClient;
+  private final int maxExpectedInsertions;
+  private final ConcurrentMap<String, LanguageFilter> filtersByLanguage = new ConcurrentHashMap<>();
+
+  public CrossProjectDuplicationIndexFilter(DbClient dbClient) {
+    this(dbClient, MAX_EXPECTED_INSERTIONS);
+  }
+
+  @VisibleForTesting
+  CrossProjectDuplicationIndexFilter(DbClient dbClient, int maxExpectedInsertions) {
+    this.dbClient = dbClient;
+    this.maxExpectedInsertions = maxExpectedInsertions;
+  }
+
+  /**
+   * @return {@code false} if no block of the last analysis of an enabled file of the specified language has the specified hash
+   */
+  public boolean mightBeIndexed(String language, String hash) {
+    LanguageFilter filter = filtersByLanguage.get(language);
+    if (filter == null) {
+      LanguageFilter created = new LanguageFilter();
+      filter = filtersByLanguage.putIfAbsent(language, created);
+      if (filter == null) {
+        filter = created;
+        load(language, created);
+      }
+    }
+    return filter.mightContain(hash);
+  }
+
+  /**
+   * Registers hashes which have been inserted in the DUPLICATIONS_INDEX table. Must be called once the insertion is
+   * committed, so that a filter loaded in the meantime can't miss them.
+   */
+  public void add(String language, Collection<String> hashes) {
+    LanguageFilter filter = filtersByLanguage.get(language);
+    if (filter != null && !filter.putAll(hashes)) {
+      LOGGER.debug("Cross project duplication index filter of language {} is full, it will be reloaded", language);
+      filtersByLanguage.remove(language, filter);
+    }
+  }
+
+  private void load(String language, LanguageFilter filter) {
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      int count = dbClient.duplicationDao().countHashes(dbSession, language);
+      // leave room for the blocks of the next analyses
+      int expectedInsertions = (int) Math.min(maxExpectedInsertions, Math.max(MIN_EXPECTED_INSERTIONS, 2L * count));
+      BloomFilter<CharSequence> hashes = BloomFilter.create(Funnels.stringFunnel(UTF_8), expectedInsertions, FALSE_POSITIVE_PROBABILITY);
+      dbClient.duplicationDao().scrollHashes(dbSession, language, context -> hashes.put((String) context.getResultObject()));
+      filter.setLoaded(hashes, count, expectedInsertions < maxExpectedInsertions ? expectedInsertions : Integer.MAX_VALUE);
+      LOGGER.debug("Cross project duplication index filter of language {} loaded with {} hashes", language, count);
+    } catch (RuntimeException e) {
+      filtersByLanguage.remove(language, filter);
+      throw e;
+    } finally {
+      dbClient.closeSession(dbSession);
+    }
+  }
+
+  private static final class LanguageFilter {
+    @CheckForNull
+    private BloomFilter<CharSequence> hashes;
+    @CheckForNull
+    private List<String> addedWhileLoading = new ArrayList<>();
+    private int insertions = 0;
+    private int maxInsertions = Integer.MAX_VALUE;
+
+    private synchronized void setLoaded(BloomFilter<CharSequence> loadedHashes, int loadedInsertions, int maxInsertions) {
+      this.hashes = loadedHashes;
+      this.insertions = loadedInsertions;
+      this.maxInsertions = maxInsertions;
+      List<String> added = addedWhileLoading;
+      addedWhileLoading = null;
+      putAll(added);
+    }
+
+    private synchronized boolean mightContain(String hash) {
+      // any hash might be indexed as long as the filter is not loaded
+      return hashes == null || hashes.mightContain(hash);
+    }
+
+    /**
+     * @return {@code false} if the filter holds more hashes than it's been sized for
+     */
+    private synchronized boolean putAll(Collection<String> added) {
+      if (hashes == null) {
+        addedWhileLoading.addAll(added);
+        return true;
+      }
+      added.forEach(hashes::put);
+      insertions += added.size();
+      return insertions <= maxInsertions;
+    }
+  }
+}
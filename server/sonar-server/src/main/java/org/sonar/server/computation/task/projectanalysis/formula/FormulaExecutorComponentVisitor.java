@@ -21,9 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.formula;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
@@ -39,38 +37,18 @@ import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import static java.util.Objects.requireNonNull;
 
 public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<FormulaExecutorComponentVisitor.Counters> {
-  private static final SimpleStackElementFactory<Counters> COUNTERS_FACTORY = new SimpleStackElementFactory<Counters>() {
-
-    @Override
-    public Counters createForAny(Component component) {
-      return new Counters();
-    }
-
-    @Override
-    public Counters createForFile(Component component) {
-      // No need to create a counter on leaf levels
-      return null;
-    }
-
-    @Override
-    public Counters createForProjectView(Component projectView) {
-      // No need to create a counter on leaf levels
-      return null;
-    }
-  };
-
   @CheckForNull
   private final PeriodHolder periodHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
   private final List<Formula> formulas;
 
-  private FormulaExecutorComponentVisitor(Builder builder, Iterable<Formula> formulas) {
-    super(CrawlerDepthLimit.LEAVES, ComponentVisitor.Order.POST_ORDER, COUNTERS_FACTORY);
+  private FormulaExecutorComponentVisitor(Builder builder, List<Formula> formulas) {
+    super(CrawlerDepthLimit.LEAVES, ComponentVisitor.Order.POST_ORDER, new CountersFactory(formulas.size()));
     this.periodHolder = builder.periodHolder;
     this.measureRepository = builder.measureRepository;
     this.metricRepository = builder.metricRepository;
-    this.formulas = ImmutableList.copyOf(formulas);
+    this.formulas = formulas;
   }
 
   public static Builder newBuilder(MetricRepository metricRepository, MeasureRepository measureRepository) {
@@ -98,7 +76,7 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
     }
 
     public FormulaExecutorComponentVisitor buildFor(Iterable<Formula> formulas) {
-      return new FormulaExecutorComponentVisitor(this, formulas);
+      return new FormulaExecutorComponentVisitor(this, ImmutableList.copyOf(formulas));
     }
   }
 
@@ -146,27 +124,29 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
   }
 
   private void processNotLeaf(Component component, Path<FormulaExecutorComponentVisitor.Counters> path) {
-    for (Formula formula : formulas) {
-      Counter counter = path.current().getCounter(formula);
+    for (int i = 0; i < formulas.size(); i++) {
+      Formula formula = formulas.get(i);
+      Counter counter = path.current().getCounter(i);
       // If there were no file under this node, the counter won't be initialized
       if (counter != null) {
         for (String metricKey : formula.getOutputMetricKeys()) {
           addNewMeasure(component, metricKey, formula, counter);
         }
-        aggregateToParent(path, formula, counter);
+        aggregateToParent(path, i, counter);
       }
     }
   }
 
   private void processLeaf(Component file, Path<FormulaExecutorComponentVisitor.Counters> path) {
     CounterInitializationContext counterContext = new CounterInitializationContextImpl(file);
-    for (Formula formula : formulas) {
+    for (int i = 0; i < formulas.size(); i++) {
+      Formula formula = formulas.get(i);
       Counter counter = formula.createNewCounter();
       counter.initialize(counterContext);
       for (String metricKey : formula.getOutputMetricKeys()) {
         addNewMeasure(file, metricKey, formula, counter);
       }
-      aggregateToParent(path, formula, counter);
+      aggregateToParent(path, i, counter);
     }
   }
 
@@ -182,9 +162,9 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
     }
   }
 
-  private static void aggregateToParent(Path<FormulaExecutorComponentVisitor.Counters> path, Formula formula, Counter currentCounter) {
+  private static void aggregateToParent(Path<FormulaExecutorComponentVisitor.Counters> path, int formulaIndex, Counter currentCounter) {
     if (!path.isRoot()) {
-      path.parent().aggregate(formula, currentCounter);
+      path.parent().aggregate(formulaIndex, currentCounter);
     }
   }
 
@@ -216,13 +196,20 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
     }
   }
 
+  /**
+   * Counters of a component, indexed by the position of their formula in the list of formulas of the visitor.
+   */
   public static class Counters {
-    Map<Formula, Counter> countersByFormula = new HashMap<>();
+    private final Counter[] countersByFormulaIndex;
 
-    public void aggregate(Formula formula, Counter childCounter) {
-      Counter counter = countersByFormula.get(formula);
+    private Counters(int formulaCount) {
+      this.countersByFormulaIndex = new Counter[formulaCount];
+    }
+
+    public void aggregate(int formulaIndex, Counter childCounter) {
+      Counter counter = countersByFormulaIndex[formulaIndex];
       if (counter == null) {
-        countersByFormula.put(formula, childCounter);
+        countersByFormulaIndex[formulaIndex] = childCounter;
       } else {
         counter.aggregate(childCounter);
       }
@@ -232,8 +219,33 @@ public class FormulaExecutorComponentVisitor extends PathAwareVisitorAdapter<For
      * Counter can be null on a level when it has not been fed by children levels
      */
     @CheckForNull
-    public Counter getCounter(Formula formula) {
-      return countersByFormula.get(formula);
+    public Counter getCounter(int formulaIndex) {
+      return countersByFormulaIndex[formulaIndex];
+    }
+  }
+
+  private static class CountersFactory extends SimpleStackElementFactory<Counters> {
+    private final int formulaCount;
+
+    private CountersFactory(int formulaCount) {
+      this.formulaCount = formulaCount;
+    }
+
+    @Override
+    public Counters createForAny(Component component) {
+      return new Counters(formulaCount);
+    }
+
+    @Override
+    public Counters createForFile(Component component) {
+      // No need to create a counter on leaf levels
+      return null;
+    }
+
+    @Override
+    public Counters createForProjectView(Component projectView) {
+      // No need to create a counter on leaf levels
+      return null;
     }
   }
 
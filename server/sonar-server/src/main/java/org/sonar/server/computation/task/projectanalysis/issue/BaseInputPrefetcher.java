@@ -0,0 +1,176 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.base.Splitter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.MyBatis;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.util.cache.SpillingCache;
+
+/**
+ * Loads in bulk the non-closed issues of the project and the line hashes of the files having such
+ * issues, so that issue tracking does not request the database for each component. Data are
+ * streamed from database at the first request, then are kept in memory within a budget and
+ * spilled to a temporary file beyond it.
+ * <br/>
+ * Data of a component can be requested only once. Components which have no open issues
+ * have no data. Temporary files are released when the task container is stopped.
+ */
+public class BaseInputPrefetcher implements Startable {
+
+  private static final Logger LOG = Loggers.get(BaseInputPrefetcher.class);
+  private static final Splitter END_OF_LINE_SPLITTER = Splitter.on('\n');
+
+  /**
+   * Maximum number of issues kept in memory
+   */
+  static final long ISSUES_MEMORY_BUDGET = 50_000L;
+
+  /**
+   * Maximum number of characters of line hashes kept in memory, roughly 500'000 lines
+   */
+  static final long LINE_HASHES_MEMORY_BUDGET = 16_000_000L;
+
+  private final TreeRootHolder treeRootHolder;
+  private final DbClient dbClient;
+  private final BaseIssuesLoader baseIssuesLoader;
+  private final TempFolder tempFolder;
+  private final long issuesMemoryBudget;
+  private final long lineHashesMemoryBudget;
+
+  private SpillingCache<String, ArrayList<DefaultIssue>> issuesByComponentUuid;
+  private SpillingCache<String, String> lineHashesByFileUuid;
+
+  public BaseInputPrefetcher(TreeRootHolder treeRootHolder, DbClient dbClient, BaseIssuesLoader baseIssuesLoader, TempFolder tempFolder) {
+    this(treeRootHolder, dbClient, baseIssuesLoader, tempFolder, ISSUES_MEMORY_BUDGET, LINE_HASHES_MEMORY_BUDGET);
+  }
+
+  BaseInputPrefetcher(TreeRootHolder treeRootHolder, DbClient dbClient, BaseIssuesLoader baseIssuesLoader, TempFolder tempFolder,
+    long issuesMemoryBudget, long lineHashesMemoryBudget) {
+    this.treeRootHolder = treeRootHolder;
+    this.dbClient = dbClient;
+    this.baseIssuesLoader = baseIssuesLoader;
+    this.tempFolder = tempFolder;
+    this.issuesMemoryBudget = issuesMemoryBudget;
+    this.lineHashesMemoryBudget = lineHashesMemoryBudget;
+  }
+
+  @Override
+  public void start() {
+    // data are loaded on first request
+  }
+
+  @Override
+  public void stop() {
+    if (issuesByComponentUuid != null) {
+      issuesByComponentUuid.close();
+    }
+    if (lineHashesByFileUuid != null) {
+      lineHashesByFileUuid.close();
+    }
+  }
+
+  /**
+   * Non-closed issues of the component, as loaded by {@link BaseIssuesLoader}.
+   */
+  public List<DefaultIssue> removeIssues(String componentUuid) {
+    prefetch();
+    List<DefaultIssue> issues = issuesByComponentUuid.remove(componentUuid);
+    return issues == null ? Collections.emptyList() : issues;
+  }
+
+  /**
+   * Line hashes of the file, or {@code null} if the file has no open issues or no source.
+   */
+  @CheckForNull
+  public List<String> removeLineHashes(String fileUuid) {
+    prefetch();
+    String lineHashes = lineHashesByFileUuid.remove(fileUuid);
+    return lineHashes == null ? null : END_OF_LINE_SPLITTER.splitToList(lineHashes);
+  }
+
+  private void prefetch() {
+    if (issuesByComponentUuid != null) {
+      return;
+    }
+    issuesByComponentUuid = new SpillingCache<>(tempFolder.newFile("base-issues", ".dat"), issuesMemoryBudget, ArrayList::size);
+    lineHashesByFileUuid = new SpillingCache<>(tempFolder.newFile("base-line-hashes", ".dat"), lineHashesMemoryBudget, String::length);
+    prefetchIssues();
+    prefetchLineHashes();
+    LOG.debug("Prefetched base issues and line hashes ({} and {} components spilled to disk)",
+      issuesByComponentUuid.spilledSize(), lineHashesByFileUuid.spilledSize());
+  }
+
+  private void prefetchIssues() {
+    IssuesGrouper grouper = new IssuesGrouper();
+    baseIssuesLoader.loadForProject(grouper::add);
+    grouper.flush();
+  }
+
+  private void prefetchLineHashes() {
+    DbSession session = dbClient.openSession(false);
+    try {
+      dbClient.fileSourceDao().scrollLineHashesOfFilesWithOpenIssues(session, treeRootHolder.getRoot().getUuid(), resultContext -> {
+        FileSourceDto dto = (FileSourceDto) resultContext.getResultObject();
+        if (dto.getLineHashes() != null && !dto.getLineHashes().isEmpty()) {
+          lineHashesByFileUuid.put(dto.getFileUuid(), dto.getLineHashes());
+        }
+      });
+    } finally {
+      MyBatis.closeQuietly(session);
+    }
+  }
+
+  /**
+   * Issues are read ordered by component, so that the issues of a component
+   * are consecutive.
+   */
+  private class IssuesGrouper {
+    private String componentUuid = null;
+    private ArrayList<DefaultIssue> issues = new ArrayList<>();
+
+    void add(DefaultIssue issue) {
+      if (!issue.componentUuid().equals(componentUuid)) {
+        flush();
+        componentUuid = issue.componentUuid();
+      }
+      issues.add(issue);
+    }
+
+    void flush() {
+      if (componentUuid != null) {
+        issuesByComponentUuid.put(componentUuid, issues);
+        issues = new ArrayList<>();
+      }
+    }
+  }
+}
@@ -19,11 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
-import org.apache.ibatis.session.ResultContext;
-import org.apache.ibatis.session.ResultHandler;
+import java.util.function.Consumer;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
 import org.sonar.core.issue.DefaultIssue;
@@ -54,32 +51,34 @@ public class BaseIssuesLoader {
     this.ruleRepository = ruleRepository;
   }
 
-  public List<DefaultIssue> loadForComponentUuid(String componentUuid) {
+  /**
+   * Streams the non-closed issues of the project, ordered by component uuid. Each issue is
+   * passed to {@code consumer} as soon as it is read from database.
+   */
+  public void loadForProject(Consumer<DefaultIssue> consumer) {
     DbSession session = dbClient.openSession(false);
-    final List<DefaultIssue> result = new ArrayList<>();
     try {
-      session.getMapper(IssueMapper.class).selectNonClosedByComponentUuid(componentUuid, new ResultHandler() {
-        @Override
-        public void handleResult(ResultContext resultContext) {
-          DefaultIssue issue = ((IssueDto) resultContext.getResultObject()).toDefaultIssue();
-
-          // TODO this field should be set outside this class
-          if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
-            issue.setOnDisabledRule(true);
-            // TODO to be improved, why setOnDisabledRule(true) is not enough ?
-            issue.setBeingClosed(true);
-          }
-          // FIXME
-          issue.setSelectedAt(System.currentTimeMillis());
-          result.add(issue);
-        }
-      });
-      return result;
+      session.getMapper(IssueMapper.class).selectNonClosedByProjectUuid(treeRootHolder.getRoot().getUuid(),
+        resultContext -> consumer.accept(toDefaultIssue((IssueDto) resultContext.getResultObject())));
     } finally {
       MyBatis.closeQuietly(session);
     }
   }
 
+  private DefaultIssue toDefaultIssue(IssueDto dto) {
+    DefaultIssue issue = dto.toDefaultIssue();
+
+    // TODO this field should be set outside this class
+    if (!isActive(issue.ruleKey()) || ruleRepository.getByKey(issue.ruleKey()).getStatus() == RuleStatus.REMOVED) {
+      issue.setOnDisabledRule(true);
+      // TODO to be improved, why setOnDisabledRule(true) is not enough ?
+      issue.setBeingClosed(true);
+    }
+    // FIXME
+    issue.setSelectedAt(System.currentTimeMillis());
+    return issue;
+  }
+
   private boolean isActive(RuleKey ruleKey) {
     return activeRulesHolder.get(ruleKey).isPresent();
   }
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.server.computation.util.VersionedCache;
+
+/**
+ * Rules, whatever their status, shared by all the tasks of the Compute Engine and reloaded as soon as
+ * a rule is created or updated.
+ */
+public class RuleCache {
+  private final VersionedCache<Rules> cache;
+
+  public RuleCache(DbClient dbClient) {
+    this.cache = new VersionedCache<>(
+      dbSession -> dbClient.ruleDao().selectMaxUpdatedAt(dbSession),
+      dbSession -> new Rules(dbClient.ruleDao().selectAll(dbSession)));
+  }
+
+  public Rules get(DbSession dbSession) {
+    return cache.get(dbSession);
+  }
+
+  public VersionedCache<Rules> getCache() {
+    return cache;
+  }
+
+  public static final class Rules {
+    private final Map<RuleKey, Rule> byKey;
+    private final Map<Integer, Rule> byId;
+
+    private Rules(List<RuleDto> dtos) {
+      ImmutableMap.Builder<RuleKey, Rule> byKeyBuilder = ImmutableMap.builder();
+      ImmutableMap.Builder<Integer, Rule> byIdBuilder = ImmutableMap.builder();
+      for (RuleDto ruleDto : dtos) {
+        Rule rule = new RuleImpl(ruleDto);
+        byKeyBuilder.put(ruleDto.getKey(), rule);
+        byIdBuilder.put(ruleDto.getId(), rule);
+      }
+      this.byKey = byKeyBuilder.build();
+      this.byId = byIdBuilder.build();
+    }
+
+    public Map<RuleKey, Rule> getByKey() {
+      return byKey;
+    }
+
+    public Map<Integer, Rule> getById() {
+      return byId;
+    }
+  }
+}
@@ -20,13 +20,11 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableMap;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.rule.RuleDto;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
@@ -39,9 +37,11 @@ public class RuleRepositoryImpl implements RuleRepository {
   private Map<Integer, Rule> rulesById;
 
   private final DbClient dbClient;
+  private final RuleCache ruleCache;
 
-  public RuleRepositoryImpl(DbClient dbClient) {
+  public RuleRepositoryImpl(DbClient dbClient, RuleCache ruleCache) {
     this.dbClient = dbClient;
+    this.ruleCache = ruleCache;
   }
 
   @Override
@@ -96,15 +96,9 @@ public class RuleRepositoryImpl implements RuleRepository {
   }
 
   private void loadRulesFromDb(DbSession dbSession) {
-    ImmutableMap.Builder<RuleKey, Rule> rulesByKeyBuilder = ImmutableMap.builder();
-    ImmutableMap.Builder<Integer, Rule> rulesByIdBuilder = ImmutableMap.builder();
-    for (RuleDto ruleDto : dbClient.ruleDao().selectAll(dbSession)) {
-      Rule rule = new RuleImpl(ruleDto);
-      rulesByKeyBuilder.put(ruleDto.getKey(), rule);
-      rulesByIdBuilder.put(ruleDto.getId(), rule);
-    }
-    this.rulesByKey = rulesByKeyBuilder.build();
-    this.rulesById = rulesByIdBuilder.build();
+    RuleCache.Rules rules = ruleCache.get(dbSession);
+    this.rulesByKey = rules.getByKey();
+    this.rulesById = rules.getById();
   }
 
 }
@@ -27,26 +27,21 @@ import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Input;
 import org.sonar.core.issue.tracking.LazyInput;
 import org.sonar.core.issue.tracking.LineHashSequence;
-import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
-import org.sonar.db.MyBatis;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository.OriginalFile;
 
 /**
- * Factory of {@link Input} of base data for issue tracking. Data are lazy-loaded.
+ * Factory of {@link Input} of base data for issue tracking. Data are lazy-loaded from {@link BaseInputPrefetcher}.
  */
 public class TrackerBaseInputFactory {
   private static final LineHashSequence EMPTY_LINE_HASH_SEQUENCE = new LineHashSequence(Collections.<String>emptyList());
 
-  private final BaseIssuesLoader baseIssuesLoader;
-  private final DbClient dbClient;
+  private final BaseInputPrefetcher baseInputPrefetcher;
   private final MovedFilesRepository movedFilesRepository;
 
-  public TrackerBaseInputFactory(BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository) {
-    this.baseIssuesLoader = baseIssuesLoader;
-    this.dbClient = dbClient;
+  public TrackerBaseInputFactory(BaseInputPrefetcher baseInputPrefetcher, MovedFilesRepository movedFilesRepository) {
+    this.baseInputPrefetcher = baseInputPrefetcher;
     this.movedFilesRepository = movedFilesRepository;
   }
 
@@ -69,22 +64,17 @@ public class TrackerBaseInputFactory {
       if (component.getType() != Component.Type.FILE) {
         return EMPTY_LINE_HASH_SEQUENCE;
       }
-      
-      DbSession session = dbClient.openSession(false);
-      try {
-        List<String> hashes = dbClient.fileSourceDao().selectLineHashes(session, effectiveUuid);
-        if (hashes == null || hashes.isEmpty()) {
-          return EMPTY_LINE_HASH_SEQUENCE;
-        }
-        return new LineHashSequence(hashes);
-      } finally {
-        MyBatis.closeQuietly(session);
+
+      List<String> hashes = baseInputPrefetcher.removeLineHashes(effectiveUuid);
+      if (hashes == null || hashes.isEmpty()) {
+        return EMPTY_LINE_HASH_SEQUENCE;
       }
+      return new LineHashSequence(hashes);
     }
 
     @Override
     protected List<DefaultIssue> loadIssues() {
-      return baseIssuesLoader.loadForComponentUuid(effectiveUuid);
+      return baseInputPrefetcher.removeIssues(effectiveUuid);
     }
   }
 }
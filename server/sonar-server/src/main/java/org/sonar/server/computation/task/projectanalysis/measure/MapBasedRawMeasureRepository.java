@@ -21,20 +21,22 @@ package org.sonar.server.computation.task.projectanalysis.measure;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.SetMultimap;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import javax.annotation.Nonnull;
+import java.util.function.BiConsumer;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.collect.FluentIterable.from;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -45,7 +47,7 @@ import static java.util.Objects.requireNonNull;
  */
 public final class MapBasedRawMeasureRepository<T> implements MeasureRepository {
   private final Function<Component, T> componentToKey;
-  private final Map<T, Map<MeasureKey, Measure>> measures = new HashMap<>();
+  private final Map<T, ComponentMeasures> measures = new HashMap<>();
 
   public MapBasedRawMeasureRepository(Function<Component, T> componentToKey) {
     this.componentToKey = requireNonNull(componentToKey);
@@ -113,44 +115,48 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     requireNonNull(metric);
     requireNonNull(component);
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> rawMeasures = measures.get(componentKey);
+    ComponentMeasures rawMeasures = measures.get(componentKey);
     if (rawMeasures == null) {
       return Collections.emptySet();
     }
-    return from(rawMeasures.entrySet()).filter(new MatchMetric(metric)).transform(ToMeasure.INSTANCE).toSet();
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    rawMeasures.forEach((metricKey, measure) -> {
+      if (metricKey.equals(metric.getKey())) {
+        builder.add(measure);
+      }
+    });
+    return builder.build();
   }
 
   @Override
   public SetMultimap<String, Measure> getRawMeasures(Component component) {
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> rawMeasures = measures.get(componentKey);
+    ComponentMeasures rawMeasures = measures.get(componentKey);
     if (rawMeasures == null) {
       return ImmutableSetMultimap.of();
     }
 
     ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
-    for (Map.Entry<MeasureKey, Measure> entry : rawMeasures.entrySet()) {
-      builder.put(entry.getKey().getMetricKey(), entry.getValue());
-    }
+    rawMeasures.forEach(builder::put);
     return builder.build();
   }
 
   private Optional<Measure> find(Component component, Metric metric) {
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(componentKey);
+    ComponentMeasures measuresPerMetric = measures.get(componentKey);
     if (measuresPerMetric == null) {
       return Optional.absent();
     }
-    return Optional.fromNullable(measuresPerMetric.get(new MeasureKey(metric.getKey(), null)));
+    return Optional.fromNullable(measuresPerMetric.get(metric.getKey(), null));
   }
 
   private Optional<Measure> find(Component component, Metric metric, Measure measure) {
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(componentKey);
+    ComponentMeasures measuresPerMetric = measures.get(componentKey);
     if (measuresPerMetric == null) {
       return Optional.absent();
     }
-    return Optional.fromNullable(measuresPerMetric.get(new MeasureKey(metric.getKey(), measure.getDeveloper())));
+    return Optional.fromNullable(measuresPerMetric.get(metric.getKey(), measure.getDeveloper()));
   }
 
   public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
@@ -160,14 +166,9 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     requireNonNull(overridePolicy);
 
     T componentKey = componentToKey.apply(component);
-    Map<MeasureKey, Measure> measuresPerMetric = measures.get(componentKey);
-    if (measuresPerMetric == null) {
-      measuresPerMetric = new HashMap<>();
-      measures.put(componentKey, measuresPerMetric);
-    }
-    MeasureKey key = new MeasureKey(metric.getKey(), measure.getDeveloper());
-    if (!measuresPerMetric.containsKey(key) || overridePolicy == OverridePolicy.OVERRIDE) {
-      measuresPerMetric.put(key, measure);
+    ComponentMeasures measuresPerMetric = measures.computeIfAbsent(componentKey, k -> new ComponentMeasures());
+    if (overridePolicy == OverridePolicy.OVERRIDE || measuresPerMetric.get(metric.getKey(), measure.getDeveloper()) == null) {
+      measuresPerMetric.put(metric.getKey(), measure.getDeveloper(), measure);
     }
   }
 
@@ -175,26 +176,67 @@ public final class MapBasedRawMeasureRepository<T> implements MeasureRepository
     OVERRIDE, DO_NOT_OVERRIDE
   }
 
-  private static class MatchMetric implements Predicate<Map.Entry<MeasureKey, Measure>> {
-    private final Metric metric;
-
-    public MatchMetric(Metric metric) {
-      this.metric = metric;
+  /**
+   * Raw measures of a component. Measures without developer, which are by far the most common, are stored in
+   * two arrays of metric keys and of measures. For the few dozens of measures of a component, it is much smaller
+   * than a map and as fast to search. Measures of developers are stored in a map.
+   */
+  private static final class ComponentMeasures {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private String[] metricKeys = new String[INITIAL_CAPACITY];
+    private Measure[] values = new Measure[INITIAL_CAPACITY];
+    private int size = 0;
+    @CheckForNull
+    private Map<MeasureKey, Measure> developerMeasures;
+
+    @CheckForNull
+    Measure get(String metricKey, @Nullable Developer developer) {
+      if (developer != null) {
+        return developerMeasures == null ? null : developerMeasures.get(new MeasureKey(metricKey, developer));
+      }
+      int index = indexOf(metricKey);
+      return index < 0 ? null : values[index];
     }
 
-    @Override
-    public boolean apply(@Nonnull Map.Entry<MeasureKey, Measure> input) {
-      return input.getKey().getMetricKey().equals(metric.getKey());
+    void put(String metricKey, @Nullable Developer developer, Measure measure) {
+      if (developer != null) {
+        if (developerMeasures == null) {
+          developerMeasures = new HashMap<>();
+        }
+        developerMeasures.put(new MeasureKey(metricKey, developer), measure);
+        return;
+      }
+      int index = indexOf(metricKey);
+      if (index >= 0) {
+        values[index] = measure;
+        return;
+      }
+      if (size == metricKeys.length) {
+        metricKeys = Arrays.copyOf(metricKeys, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+      }
+      metricKeys[size] = metricKey;
+      values[size] = measure;
+      size++;
     }
-  }
 
-  private enum ToMeasure implements Function<Map.Entry<MeasureKey, Measure>, Measure> {
-    INSTANCE;
+    void forEach(BiConsumer<String, Measure> consumer) {
+      for (int i = 0; i < size; i++) {
+        consumer.accept(metricKeys[i], values[i]);
+      }
+      if (developerMeasures != null) {
+        developerMeasures.forEach((key, measure) -> consumer.accept(key.getMetricKey(), measure));
+      }
+    }
 
-    @Nullable
-    @Override
-    public Measure apply(@Nonnull Map.Entry<MeasureKey, Measure> input) {
-      return input.getValue();
+    private int indexOf(String metricKey) {
+      for (int i = 0; i < size; i++) {
+        if (metricKeys[i].equals(metricKey)) {
+          return i;
+        }
+      }
+      return -1;
     }
   }
 }
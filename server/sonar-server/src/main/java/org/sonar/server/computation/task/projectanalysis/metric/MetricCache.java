@@ -0,0 +1,70 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.metric;
+
+import java.util.List;
+import java.util.Map;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.metric.MetricDto;
+import org.sonar.server.computation.util.VersionedCache;
+
+import static com.google.common.collect.FluentIterable.from;
+
+/**
+ * Enabled metrics, shared by all the tasks of the Compute Engine and reloaded as soon as a metric is
+ * created, updated or disabled.
+ */
+public class MetricCache {
+  private final VersionedCache<Metrics> cache;
+
+  public MetricCache(DbClient dbClient) {
+    this.cache = new VersionedCache<>(
+      dbSession -> dbClient.metricDao().selectVersion(dbSession),
+      dbSession -> new Metrics(dbClient.metricDao().selectEnabled(dbSession)));
+  }
+
+  public Metrics get(DbSession dbSession) {
+    return cache.get(dbSession);
+  }
+
+  public VersionedCache<Metrics> getCache() {
+    return cache;
+  }
+
+  public static final class Metrics {
+    private final Map<String, Metric> byKey;
+    private final Map<Long, Metric> byId;
+
+    private Metrics(List<MetricDto> dtos) {
+      List<Metric> metrics = from(dtos).transform(MetricDtoToMetric.INSTANCE).toList();
+      this.byKey = from(metrics).uniqueIndex(Metric::getKey);
+      this.byId = from(metrics).uniqueIndex(metric -> (long) metric.getId());
+    }
+
+    public Map<String, Metric> getByKey() {
+      return byKey;
+    }
+
+    public Map<Long, Metric> getById() {
+      return byId;
+    }
+  }
+}
@@ -35,11 +35,9 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
-import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
-import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
-import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLines;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLinesRepository;
 
 import static org.sonar.api.measures.CoreMetrics.NCLOC_DATA_KEY;
 import static org.sonar.api.measures.CoreMetrics.NEW_MAINTAINABILITY_RATING_KEY;
@@ -60,7 +58,7 @@ import static org.sonar.server.computation.task.projectanalysis.measure.Measure.
 public class NewMaintainabilityMeasuresVisitor extends PathAwareVisitorAdapter<NewMaintainabilityMeasuresVisitor.Counter> {
   private static final Logger LOG = Loggers.get(NewMaintainabilityMeasuresVisitor.class);
 
-  private final ScmInfoRepository scmInfoRepository;
+  private final NewLinesRepository newLinesRepository;
   private final MeasureRepository measureRepository;
   private final PeriodHolder periodHolder;
   private final RatingSettings ratingSettings;
@@ -72,11 +70,11 @@ public class NewMaintainabilityMeasuresVisitor extends PathAwareVisitorAdapter<N
   private final Metric newDebtRatioMetric;
   private final Metric newMaintainabilityRatingMetric;
 
-  public NewMaintainabilityMeasuresVisitor(MetricRepository metricRepository, MeasureRepository measureRepository, ScmInfoRepository scmInfoRepository,
+  public NewMaintainabilityMeasuresVisitor(MetricRepository metricRepository, MeasureRepository measureRepository, NewLinesRepository newLinesRepository,
                                            PeriodHolder periodHolder, RatingSettings ratingSettings) {
     super(CrawlerDepthLimit.FILE, POST_ORDER, CounterFactory.INSTANCE);
     this.measureRepository = measureRepository;
-    this.scmInfoRepository = scmInfoRepository;
+    this.newLinesRepository = newLinesRepository;
     this.periodHolder = periodHolder;
     this.ratingSettings = ratingSettings;
     this.ratingGrid = ratingSettings.getRatingGrid();
@@ -162,24 +160,21 @@ public class NewMaintainabilityMeasuresVisitor extends PathAwareVisitorAdapter<N
       return;
     }
 
-    Optional<ScmInfo> scmInfoOptional = scmInfoRepository.getScmInfo(file);
-    if (!scmInfoOptional.isPresent()) {
+    Optional<NewLines> newLinesOptional = newLinesRepository.getNewLines(file);
+    if (!newLinesOptional.isPresent()) {
       LOG.trace(String.format("No changeset for file %s. Dev cost will be zero.", file.getKey()));
       return;
     }
 
-    ScmInfo scmInfo = scmInfoOptional.get();
-    initNewDebtRatioCounter(path.current(), file, nclocDataMeasure.get(), scmInfo);
+    initNewDebtRatioCounter(path.current(), file, nclocDataMeasure.get(), newLinesOptional.get());
   }
 
-  private void initNewDebtRatioCounter(Counter devCostCounter, Component file, Measure nclocDataMeasure, ScmInfo scmInfo) {
+  private void initNewDebtRatioCounter(Counter devCostCounter, Component file, Measure nclocDataMeasure, NewLines newLines) {
     boolean hasDevCost = false;
 
     long lineDevCost = ratingSettings.getDevCost(file.getFileAttributes().getLanguageKey());
     for (Integer nclocLineIndex : nclocLineIndexes(nclocDataMeasure)) {
-      Changeset changeset = scmInfo.getChangesetForLine(nclocLineIndex);
-      Period period = periodHolder.getPeriod();
-      if (isLineInPeriod(changeset.getDate(), period)) {
+      if (newLines.isNew(nclocLineIndex)) {
         devCostCounter.incrementDevCost(lineDevCost);
         hasDevCost = true;
       }
@@ -194,13 +189,6 @@ public class NewMaintainabilityMeasuresVisitor extends PathAwareVisitorAdapter<N
     path.parent().add(path.current());
   }
 
-  /**
-   * A line belongs to a Period if its date is older than the SNAPSHOT's date of the period.
-   */
-  private static boolean isLineInPeriod(long lineDate, Period period) {
-    return lineDate > period.getSnapshotDate();
-  }
-
   /**
    * NCLOC_DATA contains Key-value pairs, where key - is a number of line, and value - is an indicator of whether line
    * contains code (1) or not (0).
@@ -41,13 +41,13 @@ import static com.google.common.base.Preconditions.checkState;
 @Immutable
 class DbScmInfo implements ScmInfo {
 
-  private final ScmInfo delegate;
+  private final ScmInfoImpl delegate;
 
-  private DbScmInfo(ScmInfo delegate) {
+  private DbScmInfo(ScmInfoImpl delegate) {
     this.delegate = delegate;
   }
 
-  static Optional<ScmInfo> create(Component component, Iterable<DbFileSources.Line> lines) {
+  static Optional<DbScmInfo> create(Component component, Iterable<DbFileSources.Line> lines) {
     LineToChangeset lineToChangeset = new LineToChangeset();
     List<Changeset> lineChangesets = StreamSupport.stream(lines.spliterator(), false)
       .map(lineToChangeset)
@@ -61,6 +61,10 @@ class DbScmInfo implements ScmInfo {
     return Optional.of(new DbScmInfo(new ScmInfoImpl(lineChangesets)));
   }
 
+  long getMemorySize() {
+    return delegate.getMemorySize();
+  }
+
   @Override
   public Changeset getLatestChangeset() {
     return delegate.getLatestChangeset();
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.scm;
+
+import java.util.BitSet;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.server.computation.task.projectanalysis.period.Period;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Lines of a file which are new in a {@link Period}, ie. which changeset is more recent than the snapshot of the period.
+ */
+@Immutable
+public final class NewLines {
+  private final int lineCount;
+  private final BitSet newLines;
+  private final int newLineCount;
+
+  private NewLines(int lineCount, BitSet newLines) {
+    this.lineCount = lineCount;
+    this.newLines = newLines;
+    this.newLineCount = newLines.cardinality();
+  }
+
+  public static NewLines of(ScmInfo scmInfo, Period period) {
+    long snapshotDate = period.getSnapshotDate();
+    BitSet newLines = new BitSet();
+    int line = 0;
+    for (Changeset changeset : scmInfo.getAllChangesets()) {
+      line++;
+      if (changeset.getDate() > snapshotDate) {
+        newLines.set(line);
+      }
+    }
+    return new NewLines(line, newLines);
+  }
+
+  /**
+   * @throws IllegalArgumentException if the line number is invalid, ie. either less than 1 or greater than the line count
+   *         of the file
+   */
+  public boolean isNew(int lineNumber) {
+    checkArgument(lineNumber > 0 && lineNumber <= lineCount, "There's no changeset on line %s", lineNumber);
+    return newLines.get(lineNumber);
+  }
+
+  /**
+   * Number of new lines of the file
+   */
+  public int count() {
+    return newLineCount;
+  }
+
+  @Override
+  public String toString() {
+    return "NewLines{lineCount=" + lineCount + ", newLines=" + newLines + '}';
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.scm;
+
+import com.google.common.base.Optional;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+
+/**
+ * Return the lines of files which are new in the period, as computed from their {@link ScmInfo}.
+ */
+public interface NewLinesRepository {
+
+  /**
+   * Returns the new lines of the specified component, computed once per file.
+   * <p>
+   * Returns {@link Optional#absent()} if there is no period (on first analysis for instance) or if there is no
+   * {@link ScmInfo} for the component, which is always the case when the component's type is not
+   * {@link Component.Type#FILE}.
+   * </p>
+   *
+   * @throws NullPointerException if argument is {@code null}
+   */
+  Optional<NewLines> getNewLines(Component component);
+}
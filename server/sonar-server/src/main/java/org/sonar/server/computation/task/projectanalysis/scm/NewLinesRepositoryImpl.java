@@ -0,0 +1,60 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.scm;
+
+import com.google.common.base.Optional;
+import java.util.HashMap;
+import java.util.Map;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * New lines are kept for all files, as they are much smaller than their {@link ScmInfo} (one bit per line).
+ */
+public class NewLinesRepositoryImpl implements NewLinesRepository {
+
+  private final ScmInfoRepository scmInfoRepository;
+  private final PeriodHolder periodHolder;
+  private final Map<Component, Optional<NewLines>> newLinesCache = new HashMap<>();
+
+  public NewLinesRepositoryImpl(ScmInfoRepository scmInfoRepository, PeriodHolder periodHolder) {
+    this.scmInfoRepository = scmInfoRepository;
+    this.periodHolder = periodHolder;
+  }
+
+  @Override
+  public Optional<NewLines> getNewLines(Component component) {
+    requireNonNull(component, "Component cannot be null");
+    if (component.getType() != Component.Type.FILE || !periodHolder.hasPeriod()) {
+      return Optional.absent();
+    }
+    return newLinesCache.computeIfAbsent(component, this::computeNewLines);
+  }
+
+  private Optional<NewLines> computeNewLines(Component file) {
+    Optional<ScmInfo> scmInfo = scmInfoRepository.getScmInfo(file);
+    if (!scmInfo.isPresent()) {
+      return Optional.absent();
+    }
+    return Optional.of(NewLines.of(scmInfo.get(), periodHolder.getPeriod()));
+  }
+}
@@ -39,19 +39,23 @@ import static org.apache.commons.lang.StringUtils.isNotEmpty;
  */
 @Immutable
 class ReportScmInfo implements ScmInfo {
-  private final ScmInfo delegate;
+  private final ScmInfoImpl delegate;
 
   ReportScmInfo(ScannerReport.Changesets changesets) {
     requireNonNull(changesets);
     this.delegate = convertToScmInfo(changesets);
   }
 
-  private static ScmInfo convertToScmInfo(ScannerReport.Changesets changesets) {
+  private static ScmInfoImpl convertToScmInfo(ScannerReport.Changesets changesets) {
     return new ScmInfoImpl(
       from(new IntRangeIterable(changesets.getChangesetIndexByLineCount()))
         .transform(new LineIndexToChangeset(changesets)));
   }
 
+  long getMemorySize() {
+    return delegate.getMemorySize();
+  }
+
   @Override
   public Changeset getLatestChangeset() {
     return this.delegate.getLatestChangeset();
@@ -20,7 +20,10 @@
 package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.base.Predicate;
-import java.util.Arrays;
+import com.google.common.collect.Iterables;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -31,19 +34,67 @@ import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Iterables.isEmpty;
 import static java.util.Arrays.asList;
 
+/**
+ * Changesets are stored once per file. Lines only refer to the index of their changeset, in
+ * an array of {@code char} when the file has less than 65'536 distinct changesets, otherwise in
+ * an array of {@code int}.
+ */
 @Immutable
 public class ScmInfoImpl implements ScmInfo {
 
+  private static final int MAX_CHAR_INDEX = Character.MAX_VALUE;
+  /**
+   * Rough size in bytes of the instance and of its arrays, excluding lines and changesets
+   */
+  private static final int BASE_MEMORY_SIZE = 96;
+  /**
+   * Rough size in bytes of a {@link Changeset}, including its revision and author
+   */
+  private static final int CHANGESET_MEMORY_SIZE = 160;
+
   @CheckForNull
   private final Changeset latestChangeset;
-  private final Changeset[] lineChangesets;
+  private final Changeset[] changesets;
+  @CheckForNull
+  private final char[] charIndexByLine;
+  @CheckForNull
+  private final int[] intIndexByLine;
 
   public ScmInfoImpl(Iterable<Changeset> lineChangesets) {
     checkState(!isEmpty(lineChangesets), "A ScmInfo must have at least one Changeset and does not support any null one");
-    this.lineChangesets = from(lineChangesets)
+    Changeset[] changesetByLine = from(lineChangesets)
       .filter(CheckNotNull.INSTANCE)
       .toArray(Changeset.class);
-    this.latestChangeset = computeLatestChangeset(lineChangesets);
+    Map<Changeset, Integer> indexByChangeset = new IdentityHashMap<>();
+    int[] indexByLine = new int[changesetByLine.length];
+    for (int i = 0; i < changesetByLine.length; i++) {
+      Changeset changeset = changesetByLine[i];
+      Integer index = indexByChangeset.get(changeset);
+      if (index == null) {
+        index = indexByChangeset.size();
+        indexByChangeset.put(changeset, index);
+      }
+      indexByLine[i] = index;
+    }
+    Changeset[] distinctChangesets = new Changeset[indexByChangeset.size()];
+    indexByChangeset.forEach((changeset, index) -> distinctChangesets[index] = changeset);
+    this.changesets = distinctChangesets;
+    if (changesets.length <= MAX_CHAR_INDEX) {
+      this.charIndexByLine = toCharArray(indexByLine);
+      this.intIndexByLine = null;
+    } else {
+      this.charIndexByLine = null;
+      this.intIndexByLine = indexByLine;
+    }
+    this.latestChangeset = computeLatestChangeset(asList(changesets));
+  }
+
+  private static char[] toCharArray(int[] ints) {
+    char[] chars = new char[ints.length];
+    for (int i = 0; i < ints.length; i++) {
+      chars[i] = (char) ints[i];
+    }
+    return chars;
   }
 
   private static Changeset computeLatestChangeset(Iterable<Changeset> lineChangesets) {
@@ -56,6 +107,22 @@ public class ScmInfoImpl implements ScmInfo {
     return latestChangeset;
   }
 
+  private int lineCount() {
+    return charIndexByLine != null ? charIndexByLine.length : intIndexByLine.length;
+  }
+
+  private Changeset changesetAtIndex(int lineIndex) {
+    return changesets[charIndexByLine != null ? charIndexByLine[lineIndex] : intIndexByLine[lineIndex]];
+  }
+
+  /**
+   * Estimated size in bytes of the heap retained by this instance
+   */
+  long getMemorySize() {
+    int bytesPerLine = charIndexByLine != null ? Character.BYTES : Integer.BYTES;
+    return BASE_MEMORY_SIZE + (long) lineCount() * bytesPerLine + (long) changesets.length * CHANGESET_MEMORY_SIZE;
+  }
+
   @Override
   public Changeset getLatestChangeset() {
     return latestChangeset;
@@ -63,25 +130,25 @@ public class ScmInfoImpl implements ScmInfo {
 
   @Override
   public Changeset getChangesetForLine(int lineNumber) {
-    checkArgument(lineNumber > 0 && lineNumber <= lineChangesets.length, String.format("There's no changeset on line %s", lineNumber));
-    return lineChangesets[lineNumber - 1];
+    checkArgument(lineNumber > 0 && lineNumber <= lineCount(), String.format("There's no changeset on line %s", lineNumber));
+    return changesetAtIndex(lineNumber - 1);
   }
 
   @Override
   public boolean hasChangesetForLine(int lineNumber) {
-    return lineNumber <= lineChangesets.length;
+    return lineNumber <= lineCount();
   }
 
   @Override
   public Iterable<Changeset> getAllChangesets() {
-    return asList(lineChangesets);
+    return () -> IntStream.range(0, lineCount()).mapToObj(this::changesetAtIndex).iterator();
   }
 
   @Override
   public String toString() {
     return "ScmInfoImpl{" +
       "latestChangeset=" + latestChangeset +
-      ", lineChangesets=" + Arrays.toString(lineChangesets) +
+      ", lineChangesets=" + Iterables.toString(getAllChangesets()) +
       '}';
   }
 
@@ -20,13 +20,17 @@
 package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.base.Optional;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
+import org.sonar.db.source.SourceDictionaries;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
@@ -35,22 +39,47 @@ import org.sonar.server.computation.task.projectanalysis.source.SourceHashReposi
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * SCM info of files is read several times during an analysis, by distinct crawls of the component tree (for example
+ * new code measures, persistence of sources). It is therefore kept in memory, as long as its estimated size
+ * does not exceed {@link #DEFAULT_MAX_MEMORY_SIZE}, which holds all the files of most projects. Beyond, least
+ * recently used files are evicted and read again from the report or from DB when requested later.
+ */
 public class ScmInfoRepositoryImpl implements ScmInfoRepository {
 
   private static final Logger LOGGER = Loggers.get(ScmInfoRepositoryImpl.class);
 
+  /**
+   * Maximum estimated size in bytes of the {@link ScmInfo} kept in memory: an eighth of the heap.
+   */
+  static final long DEFAULT_MAX_MEMORY_SIZE = Runtime.getRuntime().maxMemory() / 8;
+
+  /**
+   * Rough size in bytes of an entry of the cache, excluding its {@link ScmInfo}
+   */
+  private static final int ENTRY_MEMORY_SIZE = 64;
+
   private final BatchReportReader batchReportReader;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final DbClient dbClient;
   private final SourceHashRepository sourceHashRepository;
+  private final SourceDictionaries sourceDictionaries;
 
-  private final Map<Component, ScmInfo> scmInfoCache = new HashMap<>();
+  private final LruCache scmInfoCache;
 
-  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient, SourceHashRepository sourceHashRepository) {
+  public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient, SourceHashRepository sourceHashRepository,
+    SourceDictionaries sourceDictionaries) {
+    this(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository, sourceDictionaries, DEFAULT_MAX_MEMORY_SIZE);
+  }
+
+  ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient, SourceHashRepository sourceHashRepository,
+    SourceDictionaries sourceDictionaries, long maxMemorySize) {
+    this.scmInfoCache = new LruCache(maxMemorySize);
     this.batchReportReader = batchReportReader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.dbClient = dbClient;
     this.sourceHashRepository = sourceHashRepository;
+    this.sourceDictionaries = sourceDictionaries;
   }
 
   @Override
@@ -63,85 +92,90 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     if (component.getType() != Component.Type.FILE) {
       return Optional.absent();
     }
-    ScmInfo scmInfo = scmInfoCache.get(component);
-    if (scmInfo != null) {
-      return optionalOf(scmInfo);
+    CacheEntry entry = scmInfoCache.get(component);
+    if (entry == null) {
+      entry = getScmInfoForComponent(component);
+      scmInfoCache.add(component, entry);
     }
-
-    scmInfo = getScmInfoForComponent(component);
-    scmInfoCache.put(component, scmInfo);
-    return optionalOf(scmInfo);
+    return Optional.fromNullable(entry.scmInfo);
   }
 
-  private static Optional<ScmInfo> optionalOf(ScmInfo scmInfo) {
-    if (scmInfo == NoScmInfo.INSTANCE) {
-      return Optional.absent();
-    }
-    return Optional.of(scmInfo);
-  }
-
-  private ScmInfo getScmInfoForComponent(Component component) {
+  private CacheEntry getScmInfoForComponent(Component component) {
     ScannerReport.Changesets changesets = batchReportReader.readChangesets(component.getReportAttributes().getRef());
     if (changesets == null) {
       LOGGER.trace("No SCM info for file '{}'", component.getKey());
-      return NoScmInfo.INSTANCE;
+      return CacheEntry.NO_SCM_INFO;
     }
     if (changesets.getCopyFromPrevious()) {
-      return getScmInfoFromDb(component);
+      DbScmInfo scmInfo = getScmInfoFromDb(component);
+      return scmInfo == null ? CacheEntry.NO_SCM_INFO : new CacheEntry(scmInfo, scmInfo.getMemorySize());
     }
-    return getScmInfoFromReport(component, changesets);
+    ReportScmInfo scmInfo = getScmInfoFromReport(component, changesets);
+    return new CacheEntry(scmInfo, scmInfo.getMemorySize());
   }
 
-  private ScmInfo getScmInfoFromDb(Component file) {
+  @CheckForNull
+  private DbScmInfo getScmInfoFromDb(Component file) {
     if (analysisMetadataHolder.isFirstAnalysis()) {
-      return NoScmInfo.INSTANCE;
+      return null;
     }
 
     LOGGER.trace("Reading SCM info from db for file '{}'", file.getKey());
     DbSession dbSession = dbClient.openSession(false);
     try {
-      FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid());
+      FileSourceDto dto = dbClient.fileSourceDao().selectLineDataByFileUuid(dbSession, file.getUuid());
       if (dto == null || !sourceHashRepository.getRawSourceHash(file).equals(dto.getSrcHash())) {
-        return NoScmInfo.INSTANCE;
+        return null;
+      }
+      DbFileSources.Data data = dto.getLineSourceData();
+      if (data == null) {
+        // text and SCM are stored together in column BINARY_DATA
+        data = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, file.getUuid()).getSourceData(sourceDictionaries);
       }
-      return DbScmInfo.create(file, dto.getSourceData().getLinesList()).or(NoScmInfo.INSTANCE);
+      return DbScmInfo.create(file, data.getLinesList()).orNull();
     } finally {
       dbClient.closeSession(dbSession);
     }
   }
 
-  private static ScmInfo getScmInfoFromReport(Component file, ScannerReport.Changesets changesets) {
+  private static ReportScmInfo getScmInfoFromReport(Component file, ScannerReport.Changesets changesets) {
     LOGGER.trace("Reading SCM info from report for file '{}'", file.getKey());
     return new ReportScmInfo(changesets);
   }
 
-  /**
-   * Internally used to populate cache when no ScmInfo exist.
-   */
-  private enum NoScmInfo implements ScmInfo {
-    INSTANCE {
-      @Override
-      public Changeset getLatestChangeset() {
-        return notImplemented();
-      }
+  private static final class CacheEntry {
+    /**
+     * Internally used to populate cache when no ScmInfo exist.
+     */
+    private static final CacheEntry NO_SCM_INFO = new CacheEntry(null, 0L);
 
-      @Override
-      public Changeset getChangesetForLine(int lineNumber) {
-        return notImplemented();
-      }
+    @CheckForNull
+    private final ScmInfo scmInfo;
+    private final long memorySize;
 
-      @Override
-      public boolean hasChangesetForLine(int lineNumber) {
-        return notImplemented();
-      }
+    private CacheEntry(@Nullable ScmInfo scmInfo, long scmInfoMemorySize) {
+      this.scmInfo = scmInfo;
+      this.memorySize = ENTRY_MEMORY_SIZE + scmInfoMemorySize;
+    }
+  }
 
-      @Override
-      public Iterable<Changeset> getAllChangesets() {
-        return notImplemented();
-      }
+  private static final class LruCache extends LinkedHashMap<Component, CacheEntry> {
+    private final long maxMemorySize;
+    private long memorySize = 0L;
+
+    private LruCache(long maxMemorySize) {
+      super(16, 0.75f, true);
+      this.maxMemorySize = maxMemorySize;
+    }
 
-      private <T> T notImplemented() {
-        throw new UnsupportedOperationException("NoScmInfo does not implement any method");
+    private void add(Component component, CacheEntry entry) {
+      put(component, entry);
+      memorySize += entry.memorySize;
+      Iterator<CacheEntry> eldest = values().iterator();
+      // the entry which has just been added is kept, even if bigger than the cache
+      while (memorySize > maxMemorySize && size() > 1) {
+        memorySize -= eldest.next().memorySize;
+        eldest.remove();
       }
     }
   }
@@ -21,9 +21,11 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import java.util.List;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.formula.Counter;
 import org.sonar.server.computation.task.projectanalysis.formula.CounterInitializationContext;
 import org.sonar.server.computation.task.projectanalysis.formula.CreateMeasureContext;
@@ -35,8 +37,8 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Collections.singletonList;
 import static org.sonar.api.measures.CoreMetrics.COMMENTED_OUT_CODE_LINES_KEY;
 import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_DENSITY_KEY;
 import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_KEY;
@@ -49,7 +51,7 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes comments measures on files and then aggregates them on higher components.
  */
-public class CommentMeasuresStep implements ComputationStep {
+public class CommentMeasuresStep implements MeasureVisitorsStep {
 
   private final TreeRootHolder treeRootHolder;
   private final MetricRepository metricRepository;
@@ -68,9 +70,13 @@ public class CommentMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(formulas))
-        .visit(treeRootHolder.getRoot());
+    new VisitorsCrawler(getVisitors()).visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public List<ComponentVisitor> getVisitors() {
+    return singletonList(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(formulas));
   }
 
   private class CommentDensityFormula implements Formula<IntSumCounter> {
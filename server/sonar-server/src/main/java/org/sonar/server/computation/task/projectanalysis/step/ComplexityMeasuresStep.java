@@ -20,16 +20,18 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import java.util.List;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.formula.AverageFormula;
 import org.sonar.server.computation.task.projectanalysis.formula.DistributionFormula;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
 import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutorComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Collections.singletonList;
 import static org.sonar.api.measures.CoreMetrics.CLASSES_KEY;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION_KEY;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_KEY;
@@ -48,7 +50,7 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes complexity measures on files and then aggregates them on higher components.
  */
-public class ComplexityMeasuresStep implements ComputationStep {
+public class ComplexityMeasuresStep implements MeasureVisitorsStep {
 
   private static final ImmutableList<Formula> FORMULAS = ImmutableList.<Formula>of(
     createIntSumFormula(COMPLEXITY_KEY),
@@ -83,9 +85,13 @@ public class ComplexityMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(FORMULAS))
-      .visit(treeRootHolder.getRoot());
+    new VisitorsCrawler(getVisitors()).visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public List<ComponentVisitor> getVisitors() {
+    return singletonList(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(FORMULAS));
   }
 
   @Override
@@ -20,8 +20,10 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import java.util.List;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
 import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutorComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.formula.coverage.LinesAndConditionsWithUncoveredFormula;
@@ -30,8 +32,8 @@ import org.sonar.server.computation.task.projectanalysis.formula.coverage.Single
 import org.sonar.server.computation.task.projectanalysis.formula.coverage.SingleWithUncoveredMetricKeys;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Collections.singletonList;
 import static org.sonar.api.measures.CoreMetrics.BRANCH_COVERAGE_KEY;
 import static org.sonar.api.measures.CoreMetrics.CONDITIONS_TO_COVER_KEY;
 import static org.sonar.api.measures.CoreMetrics.COVERAGE_KEY;
@@ -44,7 +46,7 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes coverage measures on files and then aggregates them on higher components.
  */
-public class CoverageMeasuresStep implements ComputationStep {
+public class CoverageMeasuresStep implements MeasureVisitorsStep {
   private static final ImmutableList<Formula> COVERAGE_FORMULAS = ImmutableList.<Formula>of(
     createIntSumFormula(LINES_TO_COVER_KEY),
     createIntSumFormula(UNCOVERED_LINES_KEY),
@@ -66,9 +68,13 @@ public class CoverageMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(COVERAGE_FORMULAS))
-        .visit(treeRootHolder.getRoot());
+    new VisitorsCrawler(getVisitors()).visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public List<ComponentVisitor> getVisitors() {
+    return singletonList(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(COVERAGE_FORMULAS));
   }
 
   private static class CodeCoverageFormula extends LinesAndConditionsWithUncoveredFormula {
@@ -27,8 +27,12 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.ForkJoinSubtreeCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.SubtreeVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepository;
 import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplicate;
@@ -46,6 +50,7 @@ import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Iterables.isEmpty;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_KEY;
 import static org.sonar.api.measures.CoreMetrics.DUPLICATED_BLOCKS_KEY;
@@ -57,23 +62,28 @@ import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
 
 /**
  * Computes duplication measures on files and then aggregates them on higher components.
- * 
- * This step must be executed after {@link CommentMeasuresStep} as it depends on {@link CoreMetrics#COMMENT_LINES}
+ * <p>
+ * When processing a report, duplications of files are counted concurrently by {@link ForkJoinSubtreeCrawler}, as
+ * {@link DuplicationRepository} is not modified anymore. Measures are still created sequentially.
+ * </p>
+ * This step must be executed after {@link ExecuteMeasureVisitorsStep} as it depends on {@link CoreMetrics#COMMENT_LINES}
  */
 public class DuplicationMeasuresStep implements ComputationStep {
 
-  private final ImmutableList<Formula> formulas;
-
   private final TreeRootHolder treeRootHolder;
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
+  @CheckForNull
+  private final DuplicationRepository duplicationRepository;
+  private final DuplicationFormula formula;
 
   public DuplicationMeasuresStep(TreeRootHolder treeRootHolder, MetricRepository metricRepository, MeasureRepository measureRepository,
     @Nullable DuplicationRepository duplicationRepository) {
     this.treeRootHolder = treeRootHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
-    this.formulas = ImmutableList.<Formula>of(new DuplicationFormula(metricRepository, measureRepository, duplicationRepository));
+    this.duplicationRepository = duplicationRepository;
+    this.formula = new DuplicationFormula(metricRepository, measureRepository, duplicationRepository);
   }
 
   /**
@@ -90,9 +100,45 @@ public class DuplicationMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
-      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(formulas))
-      .visit(treeRootHolder.getRoot());
+    if (duplicationRepository == null) {
+      // Views: measures of projects are copied, there is no duplication to count
+      ComponentVisitor visitor = FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(ImmutableList.<Formula>of(formula));
+      new VisitorsCrawler(singletonList(visitor)).visit(treeRootHolder.getRoot());
+    } else {
+      new ForkJoinSubtreeCrawler().crawl(treeRootHolder.getRoot(), new DuplicationSubtreeVisitor());
+    }
+  }
+
+  private class DuplicationSubtreeVisitor implements SubtreeVisitor<DuplicationCounter> {
+    @Override
+    public CrawlerDepthLimit getMaxDepth() {
+      return CrawlerDepthLimit.LEAVES;
+    }
+
+    @Override
+    public DuplicationCounter visit(Component component) {
+      DuplicationCounter counter = formula.createNewCounter();
+      if (component.getType() == Component.Type.FILE) {
+        counter.initializeForFile(component);
+      }
+      return counter;
+    }
+
+    @Override
+    public void merge(DuplicationCounter parentState, DuplicationCounter childState) {
+      parentState.aggregate(childState);
+    }
+
+    @Override
+    public void complete(Component component, DuplicationCounter subtreeState) {
+      for (String metricKey : formula.getOutputMetricKeys()) {
+        Metric metric = metricRepository.getByKey(metricKey);
+        Optional<Measure> measure = formula.createMeasure(subtreeState, component, metric);
+        if (measure.isPresent()) {
+          measureRepository.add(component, metric, measure.get());
+        }
+      }
+    }
   }
 
   private static class DuplicationCounter implements Counter<DuplicationCounter> {
@@ -191,38 +237,42 @@ public class DuplicationMeasuresStep implements ComputationStep {
 
     @Override
     public Optional<Measure> createMeasure(DuplicationCounter counter, CreateMeasureContext context) {
-      switch (context.getMetric().getKey()) {
+      return createMeasure(counter, context.getComponent(), context.getMetric());
+    }
+
+    private Optional<Measure> createMeasure(DuplicationCounter counter, Component component, Metric metric) {
+      switch (metric.getKey()) {
         case DUPLICATED_FILES_KEY:
           return Optional.of(Measure.newMeasureBuilder().create(counter.fileCount));
         case DUPLICATED_LINES_KEY:
           return Optional.of(Measure.newMeasureBuilder().create(counter.lineCount));
         case DUPLICATED_LINES_DENSITY_KEY:
-          return createDuplicatedLinesDensityMeasure(counter, context);
+          return createDuplicatedLinesDensityMeasure(counter, component, metric);
         case DUPLICATED_BLOCKS_KEY:
           return Optional.of(Measure.newMeasureBuilder().create(counter.blockCount));
         default:
-          throw new IllegalArgumentException("Unsupported metric " + context.getMetric());
+          throw new IllegalArgumentException("Unsupported metric " + metric);
       }
     }
 
-    private Optional<Measure> createDuplicatedLinesDensityMeasure(DuplicationCounter counter, CreateMeasureContext context) {
+    private Optional<Measure> createDuplicatedLinesDensityMeasure(DuplicationCounter counter, Component component, Metric metric) {
       int duplicatedLines = counter.lineCount;
-      java.util.Optional<Integer> nbLines = getNbLinesFromLocOrNcloc(context);
+      java.util.Optional<Integer> nbLines = getNbLinesFromLocOrNcloc(component);
       if (nbLines.isPresent() && nbLines.get() > 0) {
         double density = Math.min(100d, 100d * duplicatedLines / nbLines.get());
-        return Optional.of(Measure.newMeasureBuilder().create(density, context.getMetric().getDecimalScale()));
+        return Optional.of(Measure.newMeasureBuilder().create(density, metric.getDecimalScale()));
       }
       return Optional.absent();
     }
 
-    private java.util.Optional<Integer> getNbLinesFromLocOrNcloc(CreateMeasureContext context) {
-      Optional<Measure> lines = measureRepository.getRawMeasure(context.getComponent(), linesMetric);
+    private java.util.Optional<Integer> getNbLinesFromLocOrNcloc(Component component) {
+      Optional<Measure> lines = measureRepository.getRawMeasure(component, linesMetric);
       if (lines.isPresent()) {
         return java.util.Optional.of(lines.get().getIntValue());
       }
-      Optional<Measure> nclocs = measureRepository.getRawMeasure(context.getComponent(), nclocMetric);
+      Optional<Measure> nclocs = measureRepository.getRawMeasure(component, nclocMetric);
       if (nclocs.isPresent()) {
-        Optional<Measure> commentLines = measureRepository.getRawMeasure(context.getComponent(), commentLinesMetric);
+        Optional<Measure> commentLines = measureRepository.getRawMeasure(component, commentLinesMetric);
         int nbLines = nclocs.get().getIntValue();
         return java.util.Optional.of(commentLines.isPresent() ? (nbLines + commentLines.get().getIntValue()) : nbLines);
       }
@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Executes the visitors of all the {@link MeasureVisitorsStep} in a single crawl of the component tree, rather than one
+ * crawl per step.
+ * <p>
+ * Visitors are executed on each component in the order of the steps, so a step can still rely on the measures computed
+ * by the previous steps on the same component or on its descendants.
+ * </p>
+ */
+public class ExecuteMeasureVisitorsStep implements ComputationStep {
+
+  private static final Logger LOGGER = Loggers.get(ExecuteMeasureVisitorsStep.class);
+
+  private final TreeRootHolder treeRootHolder;
+  private final List<MeasureVisitorsStep> steps;
+
+  public ExecuteMeasureVisitorsStep(TreeRootHolder treeRootHolder, SizeMeasuresStep sizeMeasuresStep, NewCoverageMeasuresStep newCoverageMeasuresStep,
+    CoverageMeasuresStep coverageMeasuresStep, CommentMeasuresStep commentMeasuresStep, NewSizeMeasuresStep newSizeMeasuresStep,
+    LanguageDistributionMeasuresStep languageDistributionMeasuresStep, UnitTestMeasuresStep unitTestMeasuresStep, ComplexityMeasuresStep complexityMeasuresStep) {
+    this(treeRootHolder, ImmutableList.of(
+      sizeMeasuresStep,
+      newCoverageMeasuresStep,
+      coverageMeasuresStep,
+      commentMeasuresStep,
+      newSizeMeasuresStep,
+      languageDistributionMeasuresStep,
+      unitTestMeasuresStep,
+      complexityMeasuresStep));
+  }
+
+  ExecuteMeasureVisitorsStep(TreeRootHolder treeRootHolder, List<MeasureVisitorsStep> steps) {
+    this.treeRootHolder = treeRootHolder;
+    this.steps = steps;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Compute measures";
+  }
+
+  @Override
+  public void execute() {
+    List<List<ComponentVisitor>> visitorsOfSteps = steps.stream()
+      .map(MeasureVisitorsStep::getVisitors)
+      .collect(toList());
+    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(
+      visitorsOfSteps.stream().flatMap(List::stream).collect(toList()),
+      LOGGER.isDebugEnabled());
+    visitorsCrawler.visit(treeRootHolder.getRoot());
+    logStepExecutionDurations(visitorsOfSteps, visitorsCrawler);
+  }
+
+  private void logStepExecutionDurations(List<List<ComponentVisitor>> visitorsOfSteps, VisitorsCrawler visitorsCrawler) {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("  Execution time for each measure step:");
+      Map<ComponentVisitor, Long> cumulativeDurations = visitorsCrawler.getCumulativeDurations();
+      for (int i = 0; i < steps.size(); i++) {
+        long duration = visitorsOfSteps.get(i).stream().mapToLong(cumulativeDurations::get).sum();
+        LOGGER.debug("  - {} | time={}ms", steps.get(i).getClass().getSimpleName(), duration);
+      }
+    }
+  }
+}
@@ -21,6 +21,8 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.task.projectanalysis.component.ChangedComponentsHolder;
+import org.sonar.server.computation.task.projectanalysis.component.DisabledComponentsHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
@@ -30,10 +32,15 @@ public class IndexAnalysisStep implements ComputationStep {
   private static final Logger LOGGER = Loggers.get(IndexAnalysisStep.class);
 
   private final TreeRootHolder treeRootHolder;
+  private final ChangedComponentsHolder changedComponentsHolder;
+  private final DisabledComponentsHolder disabledComponentsHolder;
   private final ProjectIndexer[] indexers;
 
-  public IndexAnalysisStep(TreeRootHolder treeRootHolder, ProjectIndexer... indexers) {
+  public IndexAnalysisStep(TreeRootHolder treeRootHolder, ChangedComponentsHolder changedComponentsHolder,
+    DisabledComponentsHolder disabledComponentsHolder, ProjectIndexer... indexers) {
     this.treeRootHolder = treeRootHolder;
+    this.changedComponentsHolder = changedComponentsHolder;
+    this.disabledComponentsHolder = disabledComponentsHolder;
     this.indexers = indexers;
   }
 
@@ -42,7 +49,7 @@ public class IndexAnalysisStep implements ComputationStep {
     String projectUuid = treeRootHolder.getRoot().getUuid();
     for (ProjectIndexer indexer : indexers) {
       LOGGER.debug("Call {}", indexer);
-      indexer.indexProject(projectUuid, ProjectIndexer.Cause.NEW_ANALYSIS);
+      indexer.indexAnalysis(projectUuid, changedComponentsHolder.getUuids(), disabledComponentsHolder.getUuids());
     }
   }
 
@@ -24,14 +24,16 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.TreeMultiset;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.formula.Counter;
 import org.sonar.server.computation.task.projectanalysis.formula.CounterInitializationContext;
 import org.sonar.server.computation.task.projectanalysis.formula.CreateMeasureContext;
@@ -40,16 +42,16 @@ import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutor
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.collect.Maps.asMap;
+import static java.util.Collections.singletonList;
 import static org.sonar.api.measures.CoreMetrics.NCLOC_LANGUAGE_DISTRIBUTION_KEY;
 import static org.sonar.api.utils.KeyValueFormat.format;
 import static org.sonar.api.utils.KeyValueFormat.newIntegerConverter;
 import static org.sonar.api.utils.KeyValueFormat.newStringConverter;
 import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
 
-public class LanguageDistributionMeasuresStep implements ComputationStep {
+public class LanguageDistributionMeasuresStep implements MeasureVisitorsStep {
 
   private static final String UNKNOWN_LANGUAGE_KEY = "<null>";
 
@@ -69,8 +71,13 @@ public class LanguageDistributionMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(FORMULAS))
-      .visit(treeRootHolder.getRoot());
+    new VisitorsCrawler(getVisitors()).visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public List<ComponentVisitor> getVisitors() {
+    return singletonList(
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository).buildFor(FORMULAS));
   }
 
   private static class LanguageDistributionFormula implements Formula<LanguageDistributionCounter> {
@@ -20,8 +20,15 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -31,6 +38,7 @@ import org.sonar.db.duplication.DuplicationUnitDto;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.ByteArray;
 import org.sonar.scanner.protocol.output.ScannerReport.CpdTextBlock;
+import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -38,13 +46,14 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationIndexFilter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
 import org.sonar.server.computation.task.projectanalysis.duplication.IntegrateCrossProjectDuplications;
-import org.sonar.server.computation.task.projectanalysis.analysis.Analysis;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
+import static org.sonar.db.DatabaseUtils.PARTITION_SIZE_FOR_ORACLE;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 /**
@@ -53,33 +62,51 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Blocks can be empty if :
  * - The file is excluded from the analysis using {@link org.sonar.api.CoreProperties#CPD_EXCLUSIONS}
  * - On Java, if the number of statements of the file is too small, nothing will be sent.
+ *
+ * Only the hashes which might be indexed according to {@link CrossProjectDuplicationIndexFilter} are looked up in the
+ * DUPLICATIONS_INDEX table, in queries shared by the files of the same language.
  */
 public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationStep {
 
   private static final Logger LOGGER = Loggers.get(LoadCrossProjectDuplicationsRepositoryStep.class);
 
+  /**
+   * Files are looked up together until their hashes fill a query, see {@link org.sonar.db.DatabaseUtils#PARTITION_SIZE_FOR_ORACLE}
+   */
+  private static final int MAX_HASHES_PER_BATCH = PARTITION_SIZE_FOR_ORACLE;
+
   private final TreeRootHolder treeRootHolder;
   private final BatchReportReader reportReader;
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final IntegrateCrossProjectDuplications integrateCrossProjectDuplications;
   private final CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder;
+  private final CrossProjectDuplicationIndexFilter indexFilter;
   private final DbClient dbClient;
 
   public LoadCrossProjectDuplicationsRepositoryStep(TreeRootHolder treeRootHolder, BatchReportReader reportReader,
     AnalysisMetadataHolder analysisMetadataHolder, CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder,
-    IntegrateCrossProjectDuplications integrateCrossProjectDuplications, DbClient dbClient) {
+    IntegrateCrossProjectDuplications integrateCrossProjectDuplications, CrossProjectDuplicationIndexFilter indexFilter, DbClient dbClient) {
     this.treeRootHolder = treeRootHolder;
     this.reportReader = reportReader;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.integrateCrossProjectDuplications = integrateCrossProjectDuplications;
     this.crossProjectDuplicationStatusHolder = crossProjectDuplicationStatusHolder;
+    this.indexFilter = indexFilter;
     this.dbClient = dbClient;
   }
 
   @Override
   public void execute() {
-    if (crossProjectDuplicationStatusHolder.isEnabled()) {
-      new DepthTraversalTypeAwareCrawler(new CrossProjectDuplicationVisitor()).visit(treeRootHolder.getRoot());
+    if (!crossProjectDuplicationStatusHolder.isEnabled()) {
+      return;
+    }
+    DbSession dbSession = dbClient.openSession(false);
+    try {
+      CrossProjectDuplicationVisitor visitor = new CrossProjectDuplicationVisitor(dbSession);
+      new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+      visitor.flushAll();
+    } finally {
+      dbClient.closeSession(dbSession);
     }
   }
 
@@ -89,9 +116,16 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
   }
 
   private class CrossProjectDuplicationVisitor extends TypeAwareVisitorAdapter {
+    private final DbSession dbSession;
+    @CheckForNull
+    private final String baseAnalysisUuid;
+    private final Map<String, FileBatch> batchesByLanguage = new HashMap<>();
 
-    private CrossProjectDuplicationVisitor() {
+    private CrossProjectDuplicationVisitor(DbSession dbSession) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
+      this.dbSession = dbSession;
+      Analysis baseAnalysis = analysisMetadataHolder.getBaseAnalysis();
+      this.baseAnalysisUuid = baseAnalysis == null ? null : baseAnalysis.getUuid();
     }
 
     @Override
@@ -102,37 +136,84 @@ public class LoadCrossProjectDuplicationsRepositoryStep implements ComputationSt
         return;
       }
 
-      Collection<String> hashes = from(cpdTextBlocks).transform(CpdTextBlockToHash.INSTANCE).toList();
-      List<DuplicationUnitDto> dtos = selectDuplicates(file, hashes);
+      String language = file.getFileAttributes().getLanguageKey();
+      Set<String> hashes = new HashSet<>();
+      for (CpdTextBlock cpdTextBlock : cpdTextBlocks) {
+        if (indexFilter.mightBeIndexed(language, cpdTextBlock.getHash())) {
+          hashes.add(cpdTextBlock.getHash());
+        }
+      }
+      if (hashes.isEmpty()) {
+        return;
+      }
+
+      FileBatch batch = batchesByLanguage.computeIfAbsent(language, FileBatch::new);
+      batch.add(file, cpdTextBlocks, hashes);
+      if (batch.hashes.size() >= MAX_HASHES_PER_BATCH) {
+        flush(batch);
+        batchesByLanguage.remove(language);
+      }
+    }
+
+    private void flushAll() {
+      batchesByLanguage.values().forEach(this::flush);
+      batchesByLanguage.clear();
+    }
+
+    private void flush(FileBatch batch) {
+      ListMultimap<String, DuplicationUnitDto> dtosByHash = from(
+        dbClient.duplicationDao().selectCandidates(dbSession, baseAnalysisUuid, batch.language, batch.hashes))
+          .index(DuplicationUnitDto::getHash);
+      for (PendingFile pendingFile : batch.files) {
+        computeCpd(pendingFile, dtosByHash);
+      }
+    }
+
+    private void computeCpd(PendingFile pendingFile, ListMultimap<String, DuplicationUnitDto> dtosByHash) {
+      List<DuplicationUnitDto> dtos = new ArrayList<>();
+      for (String hash : pendingFile.hashes) {
+        dtos.addAll(dtosByHash.get(hash));
+      }
       if (dtos.isEmpty()) {
         return;
       }
 
+      Component file = pendingFile.file;
       Collection<Block> duplicatedBlocks = from(dtos).transform(DtoToBlock.INSTANCE).toList();
-      Collection<Block> originBlocks = from(cpdTextBlocks).transform(new CpdTextBlockToBlock(file.getKey())).toList();
+      Collection<Block> originBlocks = from(pendingFile.cpdTextBlocks).transform(new CpdTextBlockToBlock(file.getKey())).toList();
       LOGGER.trace("Found {} duplicated cpd blocks on file {}", duplicatedBlocks.size(), file.getKey());
 
       integrateCrossProjectDuplications.computeCpd(file, originBlocks, duplicatedBlocks);
     }
+  }
+
+  /**
+   * Files of a given language whose hashes are looked up in the same query
+   */
+  private static final class FileBatch {
+    private final String language;
+    private final Set<String> hashes = new HashSet<>();
+    private final List<PendingFile> files = new ArrayList<>();
+
+    private FileBatch(String language) {
+      this.language = language;
+    }
 
-    private List<DuplicationUnitDto> selectDuplicates(Component file, Collection<String> hashes) {
-      DbSession dbSession = dbClient.openSession(false);
-      try {
-        Analysis projectAnalysis = analysisMetadataHolder.getBaseAnalysis();
-        String analysisUuid = projectAnalysis == null ? null : projectAnalysis.getUuid();
-        return dbClient.duplicationDao().selectCandidates(dbSession, analysisUuid, file.getFileAttributes().getLanguageKey(), hashes);
-      } finally {
-        dbClient.closeSession(dbSession);
-      }
+    private void add(Component file, List<CpdTextBlock> cpdTextBlocks, Set<String> fileHashes) {
+      this.files.add(new PendingFile(file, cpdTextBlocks, fileHashes));
+      this.hashes.addAll(fileHashes);
     }
   }
 
-  private enum CpdTextBlockToHash implements Function<CpdTextBlock, String> {
-    INSTANCE;
+  private static final class PendingFile {
+    private final Component file;
+    private final List<CpdTextBlock> cpdTextBlocks;
+    private final Set<String> hashes;
 
-    @Override
-    public String apply(@Nonnull CpdTextBlock duplicationBlock) {
-      return duplicationBlock.getHash();
+    private PendingFile(Component file, List<CpdTextBlock> cpdTextBlocks, Set<String> hashes) {
+      this.file = file;
+      this.cpdTextBlocks = cpdTextBlocks;
+      this.hashes = hashes;
     }
   }
 
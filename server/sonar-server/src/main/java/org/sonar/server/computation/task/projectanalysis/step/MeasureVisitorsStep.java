@@ -0,0 +1,40 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import java.util.List;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+/**
+ * A {@link ComputationStep} which computes measures by visiting the component tree with {@link ComponentVisitor}s.
+ * <p>
+ * When processing an analysis report, these steps are not executed one by one: their visitors are executed by
+ * {@link ExecuteMeasureVisitorsStep} in a single crawl of the component tree.
+ * </p>
+ */
+public interface MeasureVisitorsStep extends ComputationStep {
+
+  /**
+   * The visitors computing the measures of this step, in order of execution.
+   */
+  List<ComponentVisitor> getVisitors();
+
+}
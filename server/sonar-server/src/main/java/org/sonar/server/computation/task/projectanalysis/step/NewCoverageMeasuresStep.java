@@ -33,8 +33,9 @@ import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.utils.KeyValueFormat;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.formula.CounterInitializationContext;
 import org.sonar.server.computation.task.projectanalysis.formula.CreateMeasureContext;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
@@ -49,18 +50,17 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
-import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
-import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLines;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLinesRepository;
 
+import static java.util.Collections.singletonList;
 import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
 
 /**
  * Computes measures related to the New Coverage. These measures do not have values, only variations.
  */
-public class NewCoverageMeasuresStep implements ComputationStep {
+public class NewCoverageMeasuresStep implements MeasureVisitorsStep {
 
   private static final List<Formula> FORMULAS = ImmutableList.of(
     // UT coverage
@@ -73,18 +73,18 @@ public class NewCoverageMeasuresStep implements ComputationStep {
   private final MetricRepository metricRepository;
   private final MeasureRepository measureRepository;
   @CheckForNull
-  private final ScmInfoRepository scmInfoRepository;
+  private final NewLinesRepository newLinesRepository;
 
   /**
    * Constructor used when processing a Report (ie. a {@link BatchReportReader} instance is available in the container)
    */
   public NewCoverageMeasuresStep(TreeRootHolder treeRootHolder, PeriodHolder periodHolder,
-    MeasureRepository measureRepository, final MetricRepository metricRepository, ScmInfoRepository scmInfoRepository) {
+    MeasureRepository measureRepository, final MetricRepository metricRepository, NewLinesRepository newLinesRepository) {
     this.treeRootHolder = treeRootHolder;
     this.periodHolder = periodHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
-    this.scmInfoRepository = scmInfoRepository;
+    this.newLinesRepository = newLinesRepository;
   }
 
   /**
@@ -96,17 +96,21 @@ public class NewCoverageMeasuresStep implements ComputationStep {
     this.periodHolder = periodHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
-    this.scmInfoRepository = null;
+    this.newLinesRepository = null;
   }
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
+    new VisitorsCrawler(getVisitors()).visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public List<ComponentVisitor> getVisitors() {
+    return singletonList(
       FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
         .withVariationSupport(periodHolder)
         .buildFor(
-          Iterables.concat(NewLinesAndConditionsCoverageFormula.from(scmInfoRepository), FORMULAS)))
-            .visit(treeRootHolder.getRoot());
+          Iterables.concat(NewLinesAndConditionsCoverageFormula.from(newLinesRepository), FORMULAS)));
   }
 
   @Override
@@ -121,18 +125,18 @@ public class NewCoverageMeasuresStep implements ComputationStep {
       CoreMetrics.NEW_CONDITIONS_TO_COVER_KEY, CoreMetrics.NEW_UNCOVERED_CONDITIONS_KEY);
     private static final Iterable<Formula<?>> VIEWS_FORMULAS = variationSumFormulas(OUTPUT_METRIC_KEYS);
 
-    private NewLinesAndConditionsCoverageFormula(ScmInfoRepository scmInfoRepository) {
-      super(scmInfoRepository,
+    private NewLinesAndConditionsCoverageFormula(NewLinesRepository newLinesRepository) {
+      super(newLinesRepository,
         new NewCoverageInputMetricKeys(
           CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY, CoreMetrics.CONDITIONS_BY_LINE_KEY, CoreMetrics.COVERED_CONDITIONS_BY_LINE_KEY),
         OUTPUT_METRIC_KEYS);
     }
 
-    public static Iterable<Formula<?>> from(@Nullable ScmInfoRepository scmInfoRepository) {
-      if (scmInfoRepository == null) {
+    public static Iterable<Formula<?>> from(@Nullable NewLinesRepository newLinesRepository) {
+      if (newLinesRepository == null) {
         return VIEWS_FORMULAS;
       }
-      return Collections.<Formula<?>>singleton(new NewLinesAndConditionsCoverageFormula(scmInfoRepository));
+      return Collections.<Formula<?>>singleton(new NewLinesAndConditionsCoverageFormula(newLinesRepository));
     }
 
     /**
@@ -175,19 +179,19 @@ public class NewCoverageMeasuresStep implements ComputationStep {
   }
 
   public static class NewLinesAndConditionsFormula implements Formula<NewCoverageCounter> {
-    private final ScmInfoRepository scmInfoRepository;
+    private final NewLinesRepository newLinesRepository;
     private final NewCoverageInputMetricKeys inputMetricKeys;
     private final NewCoverageOutputMetricKeys outputMetricKeys;
 
-    public NewLinesAndConditionsFormula(ScmInfoRepository scmInfoRepository, NewCoverageInputMetricKeys inputMetricKeys, NewCoverageOutputMetricKeys outputMetricKeys) {
-      this.scmInfoRepository = scmInfoRepository;
+    public NewLinesAndConditionsFormula(NewLinesRepository newLinesRepository, NewCoverageInputMetricKeys inputMetricKeys, NewCoverageOutputMetricKeys outputMetricKeys) {
+      this.newLinesRepository = newLinesRepository;
       this.inputMetricKeys = inputMetricKeys;
       this.outputMetricKeys = outputMetricKeys;
     }
 
     @Override
     public NewCoverageCounter createNewCounter() {
-      return new NewCoverageCounter(scmInfoRepository, inputMetricKeys);
+      return new NewCoverageCounter(newLinesRepository, inputMetricKeys);
     }
 
     @Override
@@ -231,11 +235,11 @@ public class NewCoverageMeasuresStep implements ComputationStep {
     private final IntValue newCoveredLines = new IntValue();
     private final IntValue newConditions = new IntValue();
     private final IntValue newCoveredConditions = new IntValue();
-    private final ScmInfoRepository scmInfoRepository;
+    private final NewLinesRepository newLinesRepository;
     private final NewCoverageInputMetricKeys metricKeys;
 
-    public NewCoverageCounter(ScmInfoRepository scmInfoRepository, NewCoverageInputMetricKeys metricKeys) {
-      this.scmInfoRepository = scmInfoRepository;
+    public NewCoverageCounter(NewLinesRepository newLinesRepository, NewCoverageInputMetricKeys metricKeys) {
+      this.newLinesRepository = newLinesRepository;
       this.metricKeys = metricKeys;
     }
 
@@ -250,11 +254,11 @@ public class NewCoverageMeasuresStep implements ComputationStep {
     @Override
     public void initialize(CounterInitializationContext context) {
       Component fileComponent = context.getLeaf();
-      Optional<ScmInfo> scmInfoOptional = scmInfoRepository.getScmInfo(fileComponent);
-      if (!scmInfoOptional.isPresent() || !context.hasPeriod()) {
+      Optional<NewLines> newLinesOptional = newLinesRepository.getNewLines(fileComponent);
+      if (!newLinesOptional.isPresent() || !context.hasPeriod()) {
         return;
       }
-      ScmInfo componentScm = scmInfoOptional.get();
+      NewLines newLinesOfFile = newLinesOptional.get();
 
       newLines.increment(0);
       newCoveredLines.increment(0);
@@ -268,11 +272,13 @@ public class NewCoverageMeasuresStep implements ComputationStep {
 
       for (Map.Entry<Integer, Integer> entry : hitsByLine.entrySet()) {
         int lineId = entry.getKey();
-        int hits = entry.getValue();
-        int conditions = (Integer) ObjectUtils.defaultIfNull(conditionsByLine.get(lineId), 0);
-        int coveredConditions = (Integer) ObjectUtils.defaultIfNull(coveredConditionsByLine.get(lineId), 0);
-        long date = componentScm.getChangesetForLine(lineId).getDate();
-        analyze(context.getPeriod(), date, hits, conditions, coveredConditions);
+        if (newLinesOfFile.isNew(lineId)) {
+          int hits = entry.getValue();
+          int conditions = (Integer) ObjectUtils.defaultIfNull(conditionsByLine.get(lineId), 0);
+          int coveredConditions = (Integer) ObjectUtils.defaultIfNull(coveredConditionsByLine.get(lineId), 0);
+          incrementLines(hits);
+          incrementConditions(conditions, coveredConditions);
+        }
       }
     }
 
@@ -283,23 +289,6 @@ public class NewCoverageMeasuresStep implements ComputationStep {
       return Collections.emptyMap();
     }
 
-    void analyze(Period period, @Nullable Long lineDate, int hits, int conditions, int coveredConditions) {
-      if (lineDate == null) {
-        return;
-      }
-      if (isLineInPeriod(lineDate, period)) {
-        incrementLines(hits);
-        incrementConditions(conditions, coveredConditions);
-      }
-    }
-
-    /**
-     * A line belongs to a Period if its date is older than the SNAPSHOT's date of the period.
-     */
-    private static boolean isLineInPeriod(long lineDate, Period period) {
-      return lineDate > period.getSnapshotDate();
-    }
-
     private void incrementLines(int hits) {
       newLines.increment(1);
       if (hits > 0) {
@@ -21,14 +21,14 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.IntStream;
-import java.util.stream.StreamSupport;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.duplication.Duplication;
 import org.sonar.server.computation.task.projectanalysis.duplication.DuplicationRepository;
 import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplicate;
@@ -42,13 +42,11 @@ import org.sonar.server.computation.task.projectanalysis.formula.counter.IntValu
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
-import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
-import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
-import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLines;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLinesRepository;
 
+import static java.util.Collections.singletonList;
 import static org.sonar.api.measures.CoreMetrics.NEW_BLOCKS_DUPLICATED_KEY;
 import static org.sonar.api.measures.CoreMetrics.NEW_DUPLICATED_LINES_DENSITY_KEY;
 import static org.sonar.api.measures.CoreMetrics.NEW_DUPLICATED_LINES_KEY;
@@ -57,7 +55,7 @@ import static org.sonar.api.measures.CoreMetrics.NEW_LINES_KEY;
 /**
  * Computes measures on new code related to the size
  */
-public class NewSizeMeasuresStep implements ComputationStep {
+public class NewSizeMeasuresStep implements MeasureVisitorsStep {
 
   private final TreeRootHolder treeRootHolder;
   private final PeriodHolder periodHolder;
@@ -66,12 +64,12 @@ public class NewSizeMeasuresStep implements ComputationStep {
   private final NewDuplicationFormula duplicationFormula;
 
   public NewSizeMeasuresStep(TreeRootHolder treeRootHolder, PeriodHolder periodHolder, MetricRepository metricRepository, MeasureRepository measureRepository,
-                             ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+                             NewLinesRepository newLinesRepository, DuplicationRepository duplicationRepository) {
     this.treeRootHolder = treeRootHolder;
     this.periodHolder = periodHolder;
     this.metricRepository = metricRepository;
     this.measureRepository = measureRepository;
-    this.duplicationFormula = new NewDuplicationFormula(scmInfoRepository, duplicationRepository);
+    this.duplicationFormula = new NewDuplicationFormula(newLinesRepository, duplicationRepository);
   }
 
   @Override
@@ -81,24 +79,28 @@ public class NewSizeMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(
+    new VisitorsCrawler(getVisitors()).visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public List<ComponentVisitor> getVisitors() {
+    return singletonList(
       FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
         .withVariationSupport(periodHolder)
-        .buildFor(ImmutableList.of(duplicationFormula)))
-          .visit(treeRootHolder.getRoot());
+        .buildFor(ImmutableList.of(duplicationFormula)));
   }
 
   private static class NewSizeCounter implements Counter<NewSizeCounter> {
     private final DuplicationRepository duplicationRepository;
-    private final ScmInfoRepository scmInfoRepository;
+    private final NewLinesRepository newLinesRepository;
     private final IntValue newLines = new IntValue();
     private final IntValue newDuplicatedLines = new IntValue();
     private final IntValue newDuplicatedBlocks = new IntValue();
 
     private NewSizeCounter(DuplicationRepository duplicationRepository,
-      ScmInfoRepository scmInfoRepository) {
+      NewLinesRepository newLinesRepository) {
       this.duplicationRepository = duplicationRepository;
-      this.scmInfoRepository = scmInfoRepository;
+      this.newLinesRepository = newLinesRepository;
     }
 
     @Override
@@ -111,8 +113,8 @@ public class NewSizeMeasuresStep implements ComputationStep {
     @Override
     public void initialize(CounterInitializationContext context) {
       Component leaf = context.getLeaf();
-      Optional<ScmInfo> scmInfo = scmInfoRepository.getScmInfo(leaf);
-      if (!scmInfo.isPresent() || !context.hasPeriod()) {
+      Optional<NewLines> newLinesOfLeaf = newLinesRepository.getNewLines(leaf);
+      if (!newLinesOfLeaf.isPresent() || !context.hasPeriod()) {
         return;
       }
 
@@ -123,18 +125,12 @@ public class NewSizeMeasuresStep implements ComputationStep {
         return;
       }
 
-      initNewLines(scmInfo.get(), context.getPeriod());
-      initNewDuplicated(leaf, scmInfo.get(), context.getPeriod());
-    }
-
-    private void initNewLines(ScmInfo scmInfo, Period period) {
-      StreamSupport.stream(scmInfo.getAllChangesets().spliterator(), false)
-        .filter(changeset -> isLineInPeriod(changeset, period))
-        .forEach(changeset -> newLines.increment(1));
+      newLines.increment(newLinesOfLeaf.get().count());
+      initNewDuplicated(leaf, newLinesOfLeaf.get());
     }
 
-    private void initNewDuplicated(Component component, ScmInfo scmInfo, Period period) {
-      DuplicationCounters duplicationCounters = new DuplicationCounters(scmInfo, period);
+    private void initNewDuplicated(Component component, NewLines newLinesOfComponent) {
+      DuplicationCounters duplicationCounters = new DuplicationCounters(newLinesOfComponent);
       Iterable<Duplication> duplications = duplicationRepository.getDuplications(component);
       for (Duplication duplication : duplications) {
         duplicationCounters.addBlock(duplication.getOriginal());
@@ -147,28 +143,21 @@ public class NewSizeMeasuresStep implements ComputationStep {
       newDuplicatedLines.increment(duplicationCounters.getNewLinesDuplicated());
       newDuplicatedBlocks.increment(duplicationCounters.getNewBlocksDuplicated());
     }
-
-    private static boolean isLineInPeriod(Changeset changeset, Period period) {
-      return changeset.getDate() > period.getSnapshotDate();
-    }
   }
 
   private static class DuplicationCounters {
-    private final ScmInfo scmInfo;
-    private final Period period;
-    private final Set<Integer> lineCounts;
+    private final NewLines newLines;
+    private final Set<Integer> lineCounts = new HashSet<>();
     private int blockCounts;
 
-    private DuplicationCounters(ScmInfo scmInfo, Period period) {
-      this.scmInfo = scmInfo;
-      this.period = period;
-      this.lineCounts = new HashSet<>(Iterables.size(scmInfo.getAllChangesets()));
+    private DuplicationCounters(NewLines newLines) {
+      this.newLines = newLines;
     }
 
     void addBlock(TextBlock textBlock) {
       Boolean[] newBlock = new Boolean[] {false};
       IntStream.rangeClosed(textBlock.getStart(), textBlock.getEnd())
-        .filter(line -> isLineInPeriod(line, period))
+        .filter(newLines::isNew)
         .forEach(line -> {
           lineCounts.add(line);
           newBlock[0] = true;
@@ -185,25 +174,21 @@ public class NewSizeMeasuresStep implements ComputationStep {
     int getNewBlocksDuplicated() {
       return blockCounts;
     }
-
-    private boolean isLineInPeriod(int lineNumber, Period period) {
-      return scmInfo.getChangesetForLine(lineNumber).getDate() > period.getSnapshotDate();
-    }
   }
 
   private static final class NewDuplicationFormula implements Formula<NewSizeCounter> {
     private final DuplicationRepository duplicationRepository;
-    private final ScmInfoRepository scmInfoRepository;
+    private final NewLinesRepository newLinesRepository;
 
-    private NewDuplicationFormula(ScmInfoRepository scmInfoRepository,
+    private NewDuplicationFormula(NewLinesRepository newLinesRepository,
       DuplicationRepository duplicationRepository) {
       this.duplicationRepository = duplicationRepository;
-      this.scmInfoRepository = scmInfoRepository;
+      this.newLinesRepository = newLinesRepository;
     }
 
     @Override
     public NewSizeCounter createNewCounter() {
-      return new NewSizeCounter(duplicationRepository, scmInfoRepository);
+      return new NewSizeCounter(duplicationRepository, newLinesRepository);
     }
 
     @Override
@@ -19,6 +19,10 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -31,6 +35,7 @@ import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthL
 import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationIndexFilter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
@@ -46,15 +51,17 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
   private final AnalysisMetadataHolder analysisMetadataHolder;
   private final BatchReportReader reportReader;
   private final CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder;
+  private final CrossProjectDuplicationIndexFilter indexFilter;
 
   public PersistCrossProjectDuplicationIndexStep(CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder, DbClient dbClient,
     TreeRootHolder treeRootHolder, AnalysisMetadataHolder analysisMetadataHolder,
-    BatchReportReader reportReader) {
+    BatchReportReader reportReader, CrossProjectDuplicationIndexFilter indexFilter) {
     this.dbClient = dbClient;
     this.treeRootHolder = treeRootHolder;
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.reportReader = reportReader;
     this.crossProjectDuplicationStatusHolder = crossProjectDuplicationStatusHolder;
+    this.indexFilter = indexFilter;
   }
 
   @Override
@@ -63,20 +70,26 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
       return;
     }
 
+    Map<String, Set<String>> hashesByLanguage;
     DbSession session = dbClient.openSession(true);
     try {
       Component project = treeRootHolder.getRoot();
-      new DepthTraversalTypeAwareCrawler(new DuplicationVisitor(session, analysisMetadataHolder.getUuid())).visit(project);
+      DuplicationVisitor visitor = new DuplicationVisitor(session, analysisMetadataHolder.getUuid());
+      new DepthTraversalTypeAwareCrawler(visitor).visit(project);
       session.commit();
+      hashesByLanguage = visitor.hashesByLanguage;
     } finally {
       dbClient.closeSession(session);
     }
+    // blocks are registered in the filter only once committed, see CrossProjectDuplicationIndexFilter#add
+    hashesByLanguage.forEach(indexFilter::add);
   }
 
   private class DuplicationVisitor extends TypeAwareVisitorAdapter {
 
     private final DbSession session;
     private final String analysisUuid;
+    private final Map<String, Set<String>> hashesByLanguage = new HashMap<>();
 
     private DuplicationVisitor(DbSession session, String analysisUuid) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
@@ -91,10 +104,14 @@ public class PersistCrossProjectDuplicationIndexStep implements ComputationStep
 
     private void visitComponent(Component component) {
       int indexInFile = 0;
+      String language = component.getFileAttributes().getLanguageKey();
       CloseableIterator<ScannerReport.CpdTextBlock> blocks = reportReader.readCpdTextBlocks(component.getReportAttributes().getRef());
       try {
         while (blocks.hasNext()) {
           ScannerReport.CpdTextBlock block = blocks.next();
+          if (language != null) {
+            hashesByLanguage.computeIfAbsent(language, l -> new HashSet<>()).add(block.getHash());
+          }
           dbClient.duplicationDao().insert(
             session,
             new DuplicationUnitDto()
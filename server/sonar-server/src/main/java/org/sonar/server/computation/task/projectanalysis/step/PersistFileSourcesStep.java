@@ -21,15 +21,20 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -37,6 +42,7 @@ import org.sonar.db.MyBatis;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
+import org.sonar.db.source.SourceDictionary;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
@@ -58,11 +64,25 @@ import org.sonar.server.computation.task.projectanalysis.source.ScmLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SymbolsLineReader;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.source.SourceDictionaryRepository;
 
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 public class PersistFileSourcesStep implements ComputationStep {
 
+  private static final Logger LOG = Loggers.get(PersistFileSourcesStep.class);
+
+  /**
+   * Maximum number of lines of each language kept in memory to train a dictionary, when none exists yet
+   */
+  private static final int MAX_TRAINING_LINES = 10_000;
+
+  /**
+   * Maximum number of characters of each language kept in memory to train a dictionary, so that files
+   * with very long lines do not defeat {@link #MAX_TRAINING_LINES}
+   */
+  private static final int MAX_TRAINING_CHARS = 1_000_000;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -70,9 +90,10 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final SourceDictionaryRepository sourceDictionaryRepository;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
-    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, SourceDictionaryRepository sourceDictionaryRepository) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -80,6 +101,7 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    this.sourceDictionaryRepository = sourceDictionaryRepository;
   }
 
   @Override
@@ -87,8 +109,10 @@ public class PersistFileSourcesStep implements ComputationStep {
     // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
     DbSession session = dbClient.openSession(false);
     try {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(session))
+      FileSourceVisitor visitor = new FileSourceVisitor(session);
+      new DepthTraversalTypeAwareCrawler(visitor)
         .visit(treeRootHolder.getRoot());
+      visitor.trainDictionaries();
     } finally {
       MyBatis.closeQuietly(session);
     }
@@ -99,6 +123,9 @@ public class PersistFileSourcesStep implements ComputationStep {
     private final DbSession session;
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
+    private final Map<String, Optional<SourceDictionary>> dictionariesByLanguage = new HashMap<>();
+    private final Map<String, List<String>> trainingLinesByLanguage = new HashMap<>();
+    private final Map<String, Integer> trainingCharsByLanguage = new HashMap<>();
     private String projectUuid;
 
     private FileSourceVisitor(DbSession session) {
@@ -123,7 +150,8 @@ public class PersistFileSourcesStep implements ComputationStep {
       try {
         ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
         ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
+        SourceDictionary dictionary = getDictionary(file.getFileAttributes().getLanguageKey(), fileSourceData.getFileSourceData());
+        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange(), dictionary);
       } catch (Exception e) {
         throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
       } finally {
@@ -132,11 +160,52 @@ public class PersistFileSourcesStep implements ComputationStep {
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
+    /**
+     * When compression with dictionaries is enabled but there is no dictionary yet for the language, lines of the
+     * files are kept to train a dictionary at the end of the step. It will be used by next analyses.
+     */
+    @CheckForNull
+    private SourceDictionary getDictionary(@Nullable String language, DbFileSources.Data fileData) {
+      if (language == null || !sourceDictionaryRepository.isEnabled()) {
+        return null;
+      }
+      Optional<SourceDictionary> dictionary = dictionariesByLanguage.computeIfAbsent(language, l -> sourceDictionaryRepository.getCurrent(session, l));
+      if (!dictionary.isPresent()) {
+        List<String> trainingLines = trainingLinesByLanguage.computeIfAbsent(language, l -> new ArrayList<>());
+        int trainingChars = trainingCharsByLanguage.getOrDefault(language, 0);
+        for (DbFileSources.Line line : fileData.getLinesList()) {
+          String source = line.getSource();
+          if (trainingLines.size() >= MAX_TRAINING_LINES || trainingChars + source.length() > MAX_TRAINING_CHARS) {
+            break;
+          }
+          trainingLines.add(source);
+          trainingChars += source.length();
+        }
+        trainingCharsByLanguage.put(language, trainingChars);
+      }
+      return dictionary.orElse(null);
+    }
+
+    private void trainDictionaries() {
+      for (Map.Entry<String, List<String>> entry : trainingLinesByLanguage.entrySet()) {
+        SourceDictionary dictionary = SourceDictionary.train(entry.getKey(), entry.getValue());
+        if (dictionary != null && sourceDictionaryRepository.setCurrent(session, dictionary)) {
+          LOG.debug("Dictionary {} trained with {} lines", dictionary.getKey(), entry.getValue().size());
+        }
+      }
+    }
+
+    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange,
+      @Nullable SourceDictionary dictionary) {
       DbFileSources.Data fileData = fileSourceData.getFileSourceData();
 
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
+      // text of lines and other line data are stored in two different columns, so that text is not rewritten
+      // when only SCM, coverage or duplications changed
+      FileSourceDto source = new FileSourceDto().setSourceData(fileData, dictionary);
+      byte[] textData = source.getBinaryData();
+      byte[] lineData = source.getLineData();
+      String textHash = DigestUtils.md5Hex(textData);
+      String dataHash = computeDataHash(textData, lineData);
       String srcHash = fileSourceData.getSrcHash();
       String lineHashes = fileSourceData.getLineHashes();
       FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
@@ -146,9 +215,11 @@ public class PersistFileSourcesStep implements ComputationStep {
           .setProjectUuid(projectUuid)
           .setFileUuid(componentUuid)
           .setDataType(Type.SOURCE)
-          .setBinaryData(data)
+          .setBinaryData(textData)
+          .setLineData(lineData)
           .setSrcHash(srcHash)
           .setDataHash(dataHash)
+          .setTextHash(textHash)
           .setLineHashes(lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
@@ -163,13 +234,20 @@ public class PersistFileSourcesStep implements ComputationStep {
         boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
         if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
           previousDto
-            .setBinaryData(data)
+            .setLineData(lineData)
             .setDataHash(dataHash)
             .setSrcHash(srcHash)
-            .setLineHashes(lineHashes)
             .setRevision(revision)
             .setUpdatedAt(system2.now());
-          dbClient.fileSourceDao().update(session, previousDto);
+          if (textHash.equals(previousDto.getTextHash())) {
+            dbClient.fileSourceDao().updateLineData(session, previousDto);
+          } else {
+            previousDto
+              .setBinaryData(textData)
+              .setTextHash(textHash)
+              .setLineHashes(lineHashes);
+            dbClient.fileSourceDao().update(session, previousDto);
+          }
           session.commit();
         }
       }
@@ -235,6 +313,13 @@ public class PersistFileSourcesStep implements ComputationStep {
     }
   }
 
+  private static String computeDataHash(byte[] textData, byte[] lineData) {
+    MessageDigest digest = DigestUtils.getMd5Digest();
+    digest.update(textData);
+    digest.update(lineData);
+    return Hex.encodeHexString(digest.digest());
+  }
+
   @Override
   public String getDescription() {
     return "Persist sources";
@@ -19,8 +19,12 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.sonar.api.issue.IssueComment;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.DefaultIssueComment;
 import org.sonar.core.issue.FieldDiffs;
@@ -38,6 +42,9 @@ import org.sonar.server.computation.task.projectanalysis.issue.UpdateConflictRes
 import org.sonar.server.computation.task.step.ComputationStep;
 
 public class PersistIssuesStep implements ComputationStep {
+  private static final Logger LOGGER = Loggers.get(PersistIssuesStep.class);
+  private static final String ISSUES_TABLE = "issues";
+  private static final String ISSUE_CHANGES_TABLE = "issue_changes";
 
   private final DbClient dbClient;
   private final System2 system2;
@@ -59,65 +66,86 @@ public class PersistIssuesStep implements ComputationStep {
     DbSession session = dbClient.openSession(true);
     IssueMapper mapper = session.getMapper(IssueMapper.class);
     IssueChangeMapper changeMapper = session.getMapper(IssueChangeMapper.class);
+    int batchSize = dbClient.getDatabase().getDialect().getBatchSize();
+    PersistenceStatistics statistics = new PersistenceStatistics(system2);
+    List<DefaultIssue> addedIssues = new ArrayList<>(batchSize);
+    List<DefaultIssue> updatedIssues = new ArrayList<>(batchSize);
 
     CloseableIterator<DefaultIssue> issues = issueCache.traverse();
     try {
       while (issues.hasNext()) {
         DefaultIssue issue = issues.next();
-        boolean saved = persistIssueIfRequired(mapper, issue);
-        if (saved) {
-          insertChanges(changeMapper, issue);
+        if (issue.isNew()) {
+          addedIssues.add(issue);
+          if (addedIssues.size() >= batchSize) {
+            persistNewIssues(mapper, changeMapper, addedIssues, statistics);
+          }
+        } else if (issue.isChanged()) {
+          updatedIssues.add(issue);
+          if (updatedIssues.size() >= batchSize) {
+            persistChangedIssues(mapper, changeMapper, updatedIssues, statistics);
+          }
         }
       }
+      persistNewIssues(mapper, changeMapper, addedIssues, statistics);
+      persistChangedIssues(mapper, changeMapper, updatedIssues, statistics);
       session.flushStatements();
       session.commit();
+      statistics.log(LOGGER);
     } finally {
       MyBatis.closeQuietly(session);
       issues.close();
     }
   }
 
-  private boolean persistIssueIfRequired(IssueMapper mapper, DefaultIssue issue) {
-    if (issue.isNew()) {
-      persistNewIssue(mapper, issue);
-      return true;
+  /**
+   * Statements of the same kind are grouped, so that they are sent in the same JDBC batch instead of
+   * breaking the batch at each issue.
+   */
+  private void persistNewIssues(IssueMapper mapper, IssueChangeMapper changeMapper, List<DefaultIssue> issues, PersistenceStatistics statistics) {
+    long now = system2.now();
+    for (DefaultIssue issue : issues) {
+      Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
+      mapper.insert(IssueDto.toDtoForComputationInsert(issue, ruleId, now));
     }
-    if (issue.isChanged()) {
-      persistChangedIssue(mapper, issue);
-      return true;
-    }
-    return false;
-  }
-
-  private void persistNewIssue(IssueMapper mapper, DefaultIssue issue) {
-    Integer ruleId = ruleRepository.getByKey(issue.ruleKey()).getId();
-    IssueDto dto = IssueDto.toDtoForComputationInsert(issue, ruleId, system2.now());
-    mapper.insert(dto);
+    statistics.add(ISSUES_TABLE, issues.size());
+    insertChanges(changeMapper, issues, statistics);
+    issues.clear();
   }
 
-  private void persistChangedIssue(IssueMapper mapper, DefaultIssue issue) {
-    IssueDto dto = IssueDto.toDtoForUpdate(issue, system2.now());
-    int updateCount = mapper.updateIfBeforeSelectedDate(dto);
-    if (updateCount == 0) {
-      // End-user and scan changed the issue at the same time.
-      // See https://jira.sonarsource.com/browse/SONAR-4309
-      conflictResolver.resolve(issue, mapper);
+  private void persistChangedIssues(IssueMapper mapper, IssueChangeMapper changeMapper, List<DefaultIssue> issues, PersistenceStatistics statistics) {
+    long now = system2.now();
+    for (DefaultIssue issue : issues) {
+      IssueDto dto = IssueDto.toDtoForUpdate(issue, now);
+      int updateCount = mapper.updateIfBeforeSelectedDate(dto);
+      if (updateCount == 0) {
+        // End-user and scan changed the issue at the same time.
+        // See https://jira.sonarsource.com/browse/SONAR-4309
+        conflictResolver.resolve(issue, mapper);
+      }
     }
+    statistics.add(ISSUES_TABLE, issues.size());
+    insertChanges(changeMapper, issues, statistics);
+    issues.clear();
   }
 
-  private static void insertChanges(IssueChangeMapper mapper, DefaultIssue issue) {
-    for (IssueComment comment : issue.comments()) {
-      DefaultIssueComment c = (DefaultIssueComment) comment;
-      if (c.isNew()) {
-        IssueChangeDto changeDto = IssueChangeDto.of(c);
+  private static void insertChanges(IssueChangeMapper mapper, List<DefaultIssue> issues, PersistenceStatistics statistics) {
+    for (DefaultIssue issue : issues) {
+      for (IssueComment comment : issue.comments()) {
+        DefaultIssueComment c = (DefaultIssueComment) comment;
+        if (c.isNew()) {
+          IssueChangeDto changeDto = IssueChangeDto.of(c);
+          mapper.insert(changeDto);
+          statistics.increment(ISSUE_CHANGES_TABLE);
+        }
+      }
+      FieldDiffs diffs = issue.currentChange();
+      if (!issue.isNew() && diffs != null) {
+        IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
         mapper.insert(changeDto);
+        statistics.increment(ISSUE_CHANGES_TABLE);
       }
     }
-    FieldDiffs diffs = issue.currentChange();
-    if (!issue.isNew() && diffs != null) {
-      IssueChangeDto changeDto = IssueChangeDto.of(issue.key(), diffs);
-      mapper.insert(changeDto);
-    }
   }
 
   @Override
@@ -27,6 +27,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.measure.MeasureDao;
@@ -51,6 +54,7 @@ import static org.sonar.api.measures.CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTIO
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
 public class PersistMeasuresStep implements ComputationStep {
+  private static final Logger LOGGER = Loggers.get(PersistMeasuresStep.class);
 
   /**
    * List of metrics that should not be persisted on file measure (Waiting for SONAR-6688 to be implemented)
@@ -65,14 +69,16 @@ public class PersistMeasuresStep implements ComputationStep {
   private final MeasureToMeasureDto measureToMeasureDto;
   private final TreeRootHolder treeRootHolder;
   private final MeasureRepository measureRepository;
+  private final System2 system2;
 
   public PersistMeasuresStep(DbClient dbClient, MetricRepository metricRepository, MeasureToMeasureDto measureToMeasureDto,
-    TreeRootHolder treeRootHolder, MeasureRepository measureRepository) {
+    TreeRootHolder treeRootHolder, MeasureRepository measureRepository, System2 system2) {
     this.dbClient = dbClient;
     this.metricRepository = metricRepository;
     this.measureToMeasureDto = measureToMeasureDto;
     this.treeRootHolder = treeRootHolder;
     this.measureRepository = measureRepository;
+    this.system2 = system2;
   }
 
   @Override
@@ -84,8 +90,10 @@ public class PersistMeasuresStep implements ComputationStep {
   public void execute() {
     DbSession dbSession = dbClient.openSession(true);
     try {
-      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession)).visit(treeRootHolder.getRoot());
+      PersistenceStatistics statistics = new PersistenceStatistics(system2);
+      new DepthTraversalTypeAwareCrawler(new MeasureVisitor(dbSession, statistics)).visit(treeRootHolder.getRoot());
       dbSession.commit();
+      statistics.log(LOGGER);
     } finally {
       dbSession.close();
     }
@@ -93,10 +101,12 @@ public class PersistMeasuresStep implements ComputationStep {
 
   private class MeasureVisitor extends TypeAwareVisitorAdapter {
     private final DbSession session;
+    private final PersistenceStatistics statistics;
 
-    private MeasureVisitor(DbSession session) {
+    private MeasureVisitor(DbSession session, PersistenceStatistics statistics) {
       super(CrawlerDepthLimit.LEAVES, PRE_ORDER);
       this.session = session;
+      this.statistics = statistics;
     }
 
     @Override
@@ -118,6 +128,7 @@ public class PersistMeasuresStep implements ComputationStep {
         for (Measure measure : from(measures.getValue()).filter(NonEmptyMeasure.INSTANCE).filter(notBestValueOptimized)) {
           MeasureDto measureDto = measureToMeasureDto.toMeasureDto(measure, metric, component);
           measureDao.insert(session, measureDto);
+          statistics.increment("project_measures");
         }
       }
     }
@@ -31,7 +31,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -43,6 +46,7 @@ import org.sonar.db.MyBatis;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
+import org.sonar.db.source.SourceDictionary;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Test.TestStatus;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
@@ -53,6 +57,7 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.source.SourceDictionaryRepository;
 
 public class PersistTestsStep implements ComputationStep {
 
@@ -62,12 +67,15 @@ public class PersistTestsStep implements ComputationStep {
   private final System2 system;
   private final BatchReportReader reportReader;
   private final TreeRootHolder treeRootHolder;
+  private final SourceDictionaryRepository sourceDictionaryRepository;
 
-  public PersistTestsStep(DbClient dbClient, System2 system, BatchReportReader reportReader, TreeRootHolder treeRootHolder) {
+  public PersistTestsStep(DbClient dbClient, System2 system, BatchReportReader reportReader, TreeRootHolder treeRootHolder,
+    SourceDictionaryRepository sourceDictionaryRepository) {
     this.dbClient = dbClient;
     this.system = system;
     this.reportReader = reportReader;
     this.treeRootHolder = treeRootHolder;
+    this.sourceDictionaryRepository = sourceDictionaryRepository;
   }
 
   @Override
@@ -93,6 +101,7 @@ public class PersistTestsStep implements ComputationStep {
   private class TestDepthTraversalTypeAwareVisitor extends TypeAwareVisitorAdapter {
     final DbSession session;
     final Map<String, FileSourceDto> existingFileSourcesByUuid;
+    final Map<String, Optional<SourceDictionary>> dictionariesByLanguage = new HashMap<>();
     final String projectUuid;
     final String projectKey;
     boolean hasUnprocessedCoverageDetails = false;
@@ -132,17 +141,18 @@ public class PersistTestsStep implements ComputationStep {
 
       String componentUuid = getUuid(component.getReportAttributes().getRef());
       FileSourceDto existingDto = existingFileSourcesByUuid.get(componentUuid);
+      SourceDictionary dictionary = getDictionary(component.getFileAttributes().getLanguageKey());
       long now = system.now();
       if (existingDto != null) {
         // update
         existingDto
-          .setTestData(tests)
+          .setTestData(tests, dictionary)
           .setUpdatedAt(now);
         dbClient.fileSourceDao().update(session, existingDto);
       } else {
         // insert
         FileSourceDto newDto = new FileSourceDto()
-          .setTestData(tests)
+          .setTestData(tests, dictionary)
           .setFileUuid(componentUuid)
           .setProjectUuid(projectUuid)
           .setDataType(Type.TEST)
@@ -152,6 +162,14 @@ public class PersistTestsStep implements ComputationStep {
       }
     }
 
+    @CheckForNull
+    private SourceDictionary getDictionary(@Nullable String language) {
+      if (language == null) {
+        return null;
+      }
+      return dictionariesByLanguage.computeIfAbsent(language, l -> sourceDictionaryRepository.getCurrent(session, l)).orElse(null);
+    }
+
     private boolean checkIfThereAreUnprocessedCoverageDetails(Multimap<String, DbFileSources.Test.Builder> testsByName,
                                                               Table<String, String, DbFileSources.Test.CoveredFile.Builder> coveredFilesByName, String componentKey) {
       Set<String> unprocessedCoverageDetailNames = new HashSet<>(coveredFilesByName.rowKeySet());
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+
+/**
+ * Counts the rows persisted by a step in each table, in order to log the throughput of the step.
+ */
+final class PersistenceStatistics {
+  private final Map<String, Long> rowsByTable = new LinkedHashMap<>();
+  private final System2 system2;
+  private final long startTime;
+
+  PersistenceStatistics(System2 system2) {
+    this.system2 = system2;
+    this.startTime = system2.now();
+  }
+
+  void increment(String table) {
+    add(table, 1);
+  }
+
+  void add(String table, long rows) {
+    rowsByTable.merge(table, rows, Long::sum);
+  }
+
+  long getRows(String table) {
+    return rowsByTable.getOrDefault(table, 0L);
+  }
+
+  void log(Logger logger) {
+    if (!logger.isDebugEnabled()) {
+      return;
+    }
+    long duration = system2.now() - startTime;
+    rowsByTable.forEach((table, rows) -> {
+      if (duration > 0L) {
+        logger.debug("{} rows persisted in {} in {}ms ({} rows/s)", rows, table, duration, rows * 1000L / duration);
+      } else {
+        logger.debug("{} rows persisted in {} in {}ms", rows, table, duration);
+      }
+    });
+  }
+}
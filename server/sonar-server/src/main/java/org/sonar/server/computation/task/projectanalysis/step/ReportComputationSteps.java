@@ -58,17 +58,12 @@ public class ReportComputationSteps extends AbstractComputationSteps {
     LoadCrossProjectDuplicationsRepositoryStep.class,
 
     // data computation
-    SizeMeasuresStep.class,
-    NewCoverageMeasuresStep.class,
-    CoverageMeasuresStep.class,
-    CommentMeasuresStep.class,
     CustomMeasuresCopyStep.class,
-    DuplicationMeasuresStep.class,
     DuplicationDataMeasuresStep.class,
-    NewSizeMeasuresStep.class,
-    LanguageDistributionMeasuresStep.class,
-    UnitTestMeasuresStep.class,
-    ComplexityMeasuresStep.class,
+    // executes the MeasureVisitorsStep in a single crawl of the component tree
+    ExecuteMeasureVisitorsStep.class,
+    // Must be executed after ExecuteMeasureVisitorsStep as it depends on COMMENT_LINES
+    DuplicationMeasuresStep.class,
 
     LoadMeasureComputersStep.class,
     ExecuteVisitorsStep.class,
@@ -20,9 +20,12 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.sonar.api.notifications.Notification;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolder;
@@ -41,7 +44,12 @@ import org.sonar.server.notification.NotificationService;
 /**
  * Reads issues from disk cache and send related notifications. For performance reasons,
  * the standard notification DB queue is not used as a temporary storage. Notifications
- * are directly processed by {@link NotificationService}.
+ * are directly processed by {@link NotificationService}, in batches so that subscribers
+ * of the project and users to be notified are loaded once per batch rather than once per issue.
+ * <p>
+ * New issues are already notified with one digest per assignee. Changed issues are still notified
+ * one by one, as each notification is rendered by its own email template.
+ * </p>
  */
 public class SendIssueNotificationsStep implements ComputationStep {
   /**
@@ -49,6 +57,11 @@ public class SendIssueNotificationsStep implements ComputationStep {
    */
   static final Set<String> NOTIF_TYPES = ImmutableSet.of(IssueChangeNotification.TYPE, NewIssuesNotification.TYPE, MyNewIssuesNotification.MY_NEW_ISSUES_NOTIF_TYPE);
 
+  /**
+   * Maximum number of notifications of changed issues kept in memory before being delivered
+   */
+  static final int CHANGE_NOTIFICATIONS_BATCH_SIZE = 1_000;
+
   private final IssueCache issueCache;
   private final RuleRepository rules;
   private final TreeRootHolder treeRootHolder;
@@ -85,43 +98,52 @@ public class SendIssueNotificationsStep implements ComputationStep {
     }
     if (newIssuesStats.hasIssues()) {
       long analysisDate = analysisMetadataHolder.getAnalysisDate();
-      sendNewIssuesNotification(newIssuesStats, project, analysisDate);
-      sendNewIssuesNotificationToAssignees(newIssuesStats, project, analysisDate);
+      List<Notification> newIssuesNotifications = new ArrayList<>();
+      newIssuesNotifications.add(createNewIssuesNotification(newIssuesStats, project, analysisDate));
+      addNewIssuesNotificationsOfAssignees(newIssuesStats, project, analysisDate, newIssuesNotifications);
+      service.deliver(newIssuesNotifications);
     }
   }
 
   private void processIssues(NewIssuesStatistics newIssuesStats, CloseableIterator<DefaultIssue> issues, Component project) {
+    List<IssueChangeNotification> changeNotifications = new ArrayList<>();
     while (issues.hasNext()) {
       DefaultIssue issue = issues.next();
       if (issue.isNew() && issue.resolution() == null) {
         newIssuesStats.add(issue);
       } else if (issue.isChanged() && issue.mustSendNotifications()) {
-        sendIssueChangeNotification(issue, project);
+        changeNotifications.add(createIssueChangeNotification(issue, project));
+        if (changeNotifications.size() >= CHANGE_NOTIFICATIONS_BATCH_SIZE) {
+          service.deliver(changeNotifications);
+          changeNotifications = new ArrayList<>();
+        }
       }
     }
+    if (!changeNotifications.isEmpty()) {
+      service.deliver(changeNotifications);
+    }
   }
 
-  private void sendIssueChangeNotification(DefaultIssue issue, Component project) {
+  private IssueChangeNotification createIssueChangeNotification(DefaultIssue issue, Component project) {
     IssueChangeNotification changeNotification = new IssueChangeNotification();
     changeNotification.setRuleName(rules.getByKey(issue.ruleKey()).getName());
     changeNotification.setIssue(issue);
     changeNotification.setProject(project.getKey(), project.getName());
-    service.deliver(changeNotification);
+    return changeNotification;
   }
 
-  private void sendNewIssuesNotification(NewIssuesStatistics statistics, Component project, long analysisDate) {
+  private NewIssuesNotification createNewIssuesNotification(NewIssuesStatistics statistics, Component project, long analysisDate) {
     NewIssuesStatistics.Stats globalStatistics = statistics.globalStatistics();
-    NewIssuesNotification notification = newIssuesNotificationFactory
+    return newIssuesNotificationFactory
       .newNewIssuesNotication()
       .setProject(project.getKey(), project.getUuid(), project.getName())
       .setAnalysisDate(new Date(analysisDate))
       .setStatistics(project.getName(), globalStatistics)
       .setDebt(globalStatistics.debt());
-    service.deliver(notification);
   }
 
-  private void sendNewIssuesNotificationToAssignees(NewIssuesStatistics statistics, Component project, long analysisDate) {
-    // send email to each user having issues
+  private void addNewIssuesNotificationsOfAssignees(NewIssuesStatistics statistics, Component project, long analysisDate, List<Notification> notifications) {
+    // one notification for each user having issues
     for (Map.Entry<String, NewIssuesStatistics.Stats> assigneeAndStatisticsTuple : statistics.assigneesStatistics().entrySet()) {
       String assignee = assigneeAndStatisticsTuple.getKey();
       NewIssuesStatistics.Stats assigneeStatistics = assigneeAndStatisticsTuple.getValue();
@@ -134,7 +156,7 @@ public class SendIssueNotificationsStep implements ComputationStep {
         .setStatistics(project.getName(), assigneeStatistics)
         .setDebt(assigneeStatistics.debt());
 
-      service.deliver(myNewIssuesNotification);
+      notifications.add(myNewIssuesNotification);
     }
   }
 
@@ -23,17 +23,17 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import java.util.List;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
-import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
 import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutorComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
 
 import static org.sonar.api.measures.CoreMetrics.ACCESSORS_KEY;
 import static org.sonar.api.measures.CoreMetrics.CLASSES_KEY;
@@ -52,7 +52,7 @@ import static org.sonar.server.computation.task.projectanalysis.measure.Measure.
 /**
  * Compute size measures
  */
-public class SizeMeasuresStep implements ComputationStep {
+public class SizeMeasuresStep implements MeasureVisitorsStep {
   private static final CounterStackElementFactory COUNTER_STACK_ELEMENT_FACTORY = new CounterStackElementFactory();
   private static final List<Formula> AGGREGATED_SIZE_MEASURE_FORMULAS = ImmutableList.<Formula>of(
     createIntSumFormula(GENERATED_LINES_KEY),
@@ -75,14 +75,18 @@ public class SizeMeasuresStep implements ComputationStep {
 
   @Override
   public void execute() {
-    new PathAwareCrawler<>(new FileAndDirectoryMeasureVisitor(
-      metricRepository.getByKey(DIRECTORIES_KEY),
-      metricRepository.getByKey(FILES_KEY),
-      metricRepository.getByKey(LINES_KEY)))
-        .visit(treeRootHolder.getRoot());
-    new PathAwareCrawler<>(FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
-      .buildFor(AGGREGATED_SIZE_MEASURE_FORMULAS))
-        .visit(treeRootHolder.getRoot());
+    new VisitorsCrawler(getVisitors()).visit(treeRootHolder.getRoot());
+  }
+
+  @Override
+  public List<ComponentVisitor> getVisitors() {
+    return ImmutableList.<ComponentVisitor>of(
+      new FileAndDirectoryMeasureVisitor(
+        metricRepository.getByKey(DIRECTORIES_KEY),
+        metricRepository.getByKey(FILES_KEY),
+        metricRepository.getByKey(LINES_KEY)),
+      FormulaExecutorComponentVisitor.newBuilder(metricRepository, measureRepository)
+        .buildFor(AGGREGATED_SIZE_MEASURE_FORMULAS));
   }
 
   @Override
@@ -0,0 +1,364 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.monitoring.WebhookDeliveryMBeanImpl;
+
+import static java.lang.String.format;
+
+/**
+ * Delivers webhooks in background, so that slow endpoints do not delay the processing of the next tasks.
+ * <ul>
+ *   <li>at most {@link #MAX_PENDING_DELIVERIES} deliveries can be pending, the next ones fail without being attempted</li>
+ *   <li>at most {@link #MAX_CONCURRENT_CALLS_PER_ENDPOINT} calls are made concurrently to an endpoint (the URL of
+ *   the webhook), the next ones wait for their turn</li>
+ *   <li>attempts which fail because of a connectivity problem, a timeout or a 5xx HTTP status are retried with an
+ *   exponential backoff, up to {@link #MAX_ATTEMPTS} attempts</li>
+ *   <li>once {@link #CIRCUIT_BREAKER_THRESHOLD} attempts in a row failed on an endpoint, the deliveries to this endpoint
+ *   fail without being attempted during {@link #CIRCUIT_BREAKER_DELAY_MS} ms. The next attempt then decides whether the
+ *   endpoint is called again.</li>
+ * </ul>
+ * The result of the last attempt of each delivery is persisted by {@link WebhookDeliveryStorage}. Timeouts are the
+ * ones of the {@link okhttp3.OkHttpClient} used by {@link WebhookCaller}.
+ * <p>
+ * The state of an endpoint is dropped as soon as no delivery to this endpoint is pending and its last failure, if any,
+ * is older than {@link #CIRCUIT_BREAKER_DELAY_MS} ms. When the Compute Engine stops, the deliveries which are not
+ * being attempted are persisted as failed.
+ * </p>
+ */
+@ComputeEngineSide
+public class WebhookDispatcher implements Startable {
+
+  private static final Logger LOGGER = Loggers.get(WebhookDispatcher.class);
+
+  static final int MAX_PENDING_DELIVERIES = 1_000;
+  static final int MAX_CONCURRENT_CALLS_PER_ENDPOINT = 2;
+  static final int MAX_ATTEMPTS = 3;
+  static final int CIRCUIT_BREAKER_THRESHOLD = 5;
+  static final long CIRCUIT_BREAKER_DELAY_MS = 60_000L;
+  private static final long INITIAL_RETRY_DELAY_MS = 1_000L;
+  private static final String STOPPING_MESSAGE = "Compute Engine is stopping";
+
+  private final WebhookCaller caller;
+  private final WebhookDeliveryStorage deliveryStorage;
+  private final WebhookDeliveryExecutorService executorService;
+  private final WebhookDeliveryMBeanImpl deliveryStatus;
+  private final System2 system;
+  private final long initialRetryDelayMs;
+  private final AtomicInteger pendingCount = new AtomicInteger(0);
+  private final Set<Delivery> pendingDeliveries = Collections.newSetFromMap(new ConcurrentHashMap<>());
+  private final Map<String, Endpoint> endpointsByUrl = new HashMap<>();
+  private volatile boolean stopping = false;
+
+  public WebhookDispatcher(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, WebhookDeliveryExecutorService executorService,
+    WebhookDeliveryMBeanImpl deliveryStatus, System2 system) {
+    this(caller, deliveryStorage, executorService, deliveryStatus, system, INITIAL_RETRY_DELAY_MS);
+  }
+
+  WebhookDispatcher(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, WebhookDeliveryExecutorService executorService,
+    WebhookDeliveryMBeanImpl deliveryStatus, System2 system, long initialRetryDelayMs) {
+    this.caller = caller;
+    this.deliveryStorage = deliveryStorage;
+    this.executorService = executorService;
+    this.deliveryStatus = deliveryStatus;
+    this.system = system;
+    this.initialRetryDelayMs = initialRetryDelayMs;
+  }
+
+  @Override
+  public void start() {
+    // deliveries are scheduled by dispatch()
+  }
+
+  /**
+   * Persists as failed the deliveries which wait for their turn or for their next attempt. Deliveries being attempted
+   * are persisted when their call completes, or fails because the executor service is stopped.
+   */
+  @Override
+  public void stop() {
+    stopping = true;
+    for (Delivery delivery : pendingDeliveries) {
+      if (delivery.state.compareAndSet(DeliveryState.WAITING, DeliveryState.ATTEMPTING)) {
+        completeRejected(delivery, STOPPING_MESSAGE);
+      }
+    }
+  }
+
+  /**
+   * Schedules the delivery of the payload to the webhook and returns immediately. Like {@link WebhookCaller#call(Webhook, WebhookPayload)},
+   * errors don't throw exceptions, they are stored in the persisted {@link WebhookDelivery}.
+   */
+  public void dispatch(Webhook webhook, WebhookPayload payload) {
+    if (stopping) {
+      reject(webhook, payload, STOPPING_MESSAGE);
+      return;
+    }
+    if (pendingCount.incrementAndGet() > MAX_PENDING_DELIVERIES) {
+      pendingCount.decrementAndGet();
+      reject(webhook, payload, format("More than %d webhook deliveries are pending", MAX_PENDING_DELIVERIES));
+      return;
+    }
+    deliveryStatus.addPending();
+    Delivery delivery = new Delivery(webhook, payload, acquireEndpoint(webhook.getUrl()));
+    pendingDeliveries.add(delivery);
+    submit(delivery);
+  }
+
+  private void attempt(Delivery delivery) {
+    if (!delivery.state.compareAndSet(DeliveryState.WAITING, DeliveryState.ATTEMPTING)) {
+      // delivery has been persisted as failed when stopping
+      return;
+    }
+    if (stopping) {
+      completeRejected(delivery, STOPPING_MESSAGE);
+      return;
+    }
+    Endpoint endpoint = delivery.endpoint;
+    String rejection = null;
+    synchronized (endpoint) {
+      if (endpoint.isCircuitOpen(system.now())) {
+        rejection = format("Circuit breaker is open after %d failed attempts in a row", endpoint.consecutiveFailures);
+      } else if (endpoint.runningCalls >= MAX_CONCURRENT_CALLS_PER_ENDPOINT) {
+        delivery.state.set(DeliveryState.WAITING);
+        endpoint.waitingDeliveries.add(delivery);
+        return;
+      } else {
+        endpoint.runningCalls++;
+      }
+    }
+    if (rejection != null) {
+      completeRejected(delivery, rejection);
+      return;
+    }
+
+    WebhookDelivery result = call(delivery);
+    boolean failed = isRetriableFailure(result);
+
+    List<Delivery> next = new ArrayList<>();
+    synchronized (endpoint) {
+      endpoint.runningCalls--;
+      endpoint.recordAttempt(failed, system.now());
+      if (stopping) {
+        // deliveries queued while stopping would never be attempted
+        next.addAll(endpoint.waitingDeliveries);
+        endpoint.waitingDeliveries.clear();
+      } else if (!endpoint.waitingDeliveries.isEmpty()) {
+        next.add(endpoint.waitingDeliveries.poll());
+      }
+    }
+    next.forEach(this::submit);
+
+    if (failed && delivery.attempts < MAX_ATTEMPTS && !stopping) {
+      deliveryStatus.addRetry();
+      long delayMs = initialRetryDelayMs << (delivery.attempts - 1);
+      LOGGER.debug("Webhook '{}' will be retried in {}ms | url={}", delivery.webhook.getName(), delayMs, delivery.webhook.getUrl());
+      delivery.state.set(DeliveryState.WAITING);
+      if (stopping) {
+        // stop() may have been called before the delivery was waiting
+        completeRejected(delivery, STOPPING_MESSAGE);
+      } else {
+        schedule(delivery, delayMs);
+      }
+    } else {
+      complete(delivery, result);
+    }
+  }
+
+  private WebhookDelivery call(Delivery delivery) {
+    delivery.attempts++;
+    WebhookDelivery result = caller.call(delivery.webhook, delivery.payload);
+    result.getDurationInMs().ifPresent(deliveryStatus::addResponse);
+    return result;
+  }
+
+  private static boolean isRetriableFailure(WebhookDelivery result) {
+    Optional<Integer> httpStatus = result.getHttpStatus();
+    return !httpStatus.isPresent() || httpStatus.get() >= 500;
+  }
+
+  private void submit(Delivery delivery) {
+    try {
+      executorService.execute(() -> attempt(delivery));
+    } catch (RejectedExecutionException e) {
+      completeRejected(delivery, STOPPING_MESSAGE);
+    }
+  }
+
+  private void schedule(Delivery delivery, long delayMs) {
+    try {
+      executorService.schedule(() -> attempt(delivery), delayMs, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      completeRejected(delivery, STOPPING_MESSAGE);
+    }
+  }
+
+  private void complete(Delivery delivery, WebhookDelivery result) {
+    if (delivery.state.getAndSet(DeliveryState.COMPLETED) == DeliveryState.COMPLETED) {
+      return;
+    }
+    if (result.isSuccess()) {
+      deliveryStatus.addSuccess();
+    } else {
+      deliveryStatus.addFailure();
+    }
+    completePending(delivery, result);
+  }
+
+  private void completeRejected(Delivery delivery, String message) {
+    if (delivery.state.getAndSet(DeliveryState.COMPLETED) == DeliveryState.COMPLETED) {
+      return;
+    }
+    deliveryStatus.addRejected();
+    completePending(delivery, newRejectedDelivery(delivery.webhook, delivery.payload, message));
+  }
+
+  private void completePending(Delivery delivery, WebhookDelivery result) {
+    pendingDeliveries.remove(delivery);
+    pendingCount.decrementAndGet();
+    deliveryStatus.removePending();
+    releaseEndpoint(delivery.endpoint);
+    log(result);
+    try {
+      deliveryStorage.persist(result);
+    } catch (RuntimeException e) {
+      // an exception would be lost in the executor
+      LOGGER.error("Failed to persist delivery of webhook '{}'", result.getWebhook().getName(), e);
+    }
+  }
+
+  private void reject(Webhook webhook, WebhookPayload payload, String message) {
+    deliveryStatus.addRejected();
+    WebhookDelivery result = newRejectedDelivery(webhook, payload, message);
+    log(result);
+    deliveryStorage.persist(result);
+  }
+
+  private WebhookDelivery newRejectedDelivery(Webhook webhook, WebhookPayload payload, String message) {
+    return new WebhookDelivery.Builder()
+      .setAt(system.now())
+      .setWebhook(webhook)
+      .setPayload(payload)
+      .setError(new IllegalStateException(message))
+      .build();
+  }
+
+  private synchronized Endpoint acquireEndpoint(String url) {
+    Endpoint endpoint = endpointsByUrl.computeIfAbsent(url, u -> new Endpoint());
+    synchronized (endpoint) {
+      endpoint.pendingDeliveries++;
+    }
+    return endpoint;
+  }
+
+  private synchronized void releaseEndpoint(Endpoint endpoint) {
+    synchronized (endpoint) {
+      endpoint.pendingDeliveries--;
+    }
+    long now = system.now();
+    endpointsByUrl.values().removeIf(e -> e.isEvictable(now));
+  }
+
+  synchronized int countEndpoints() {
+    return endpointsByUrl.size();
+  }
+
+  private static void log(WebhookDelivery delivery) {
+    Optional<String> error = delivery.getErrorMessage();
+    if (error.isPresent()) {
+      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
+    } else {
+      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
+    }
+  }
+
+  private enum DeliveryState {
+    WAITING, ATTEMPTING, COMPLETED
+  }
+
+  private static final class Delivery {
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+    private final Endpoint endpoint;
+    private final AtomicReference<DeliveryState> state = new AtomicReference<>(DeliveryState.WAITING);
+    private int attempts = 0;
+
+    private Delivery(Webhook webhook, WebhookPayload payload, Endpoint endpoint) {
+      this.webhook = webhook;
+      this.payload = payload;
+      this.endpoint = endpoint;
+    }
+  }
+
+  /**
+   * State of the calls to a webhook URL, guarded by the instance lock
+   */
+  private static final class Endpoint {
+    private final Deque<Delivery> waitingDeliveries = new ArrayDeque<>();
+    private int pendingDeliveries = 0;
+    private int runningCalls = 0;
+    private int consecutiveFailures = 0;
+    private long lastFailureAt = 0L;
+    @CheckForNull
+    private Long circuitOpenUntil = null;
+
+    private boolean isCircuitOpen(long now) {
+      return circuitOpenUntil != null && now < circuitOpenUntil;
+    }
+
+    private void recordAttempt(boolean failed, long now) {
+      if (failed) {
+        consecutiveFailures++;
+        lastFailureAt = now;
+        if (consecutiveFailures >= CIRCUIT_BREAKER_THRESHOLD) {
+          circuitOpenUntil = now + CIRCUIT_BREAKER_DELAY_MS;
+        }
+      } else {
+        consecutiveFailures = 0;
+        circuitOpenUntil = null;
+      }
+    }
+
+    private synchronized boolean isEvictable(long now) {
+      return pendingDeliveries == 0 && (consecutiveFailures == 0 || now >= lastFailureAt + CIRCUIT_BREAKER_DELAY_MS);
+    }
+  }
+}
@@ -24,6 +24,7 @@ import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.db.profiling.ConnectionCaller;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
@@ -59,13 +60,31 @@ public final class ComputationStepExecutor {
   }
 
   private void executeSteps(Profiler stepProfiler) {
-    for (ComputationStep step : steps.instances()) {
-      stepProfiler.start();
-      step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+    try {
+      for (ComputationStep step : steps.instances()) {
+        stepProfiler.start();
+        ConnectionCaller.set(step.getDescription());
+        long usedHeapBefore = usedHeapInMb();
+        step.execute();
+        stepProfiler
+          .addContext("heapBefore", usedHeapBefore + "MB")
+          .addContext("heapAfter", usedHeapInMb() + "MB")
+          .stopDebug(step.getDescription());
+      }
+    } finally {
+      ConnectionCaller.set(null);
     }
   }
 
+  /**
+   * Heap used when the step starts and ends is logged along with duration, so that memory
+   * retained by a step can be spotted. It includes garbage not collected yet.
+   */
+  private static long usedHeapInMb() {
+    Runtime runtime = Runtime.getRuntime();
+    return (runtime.totalMemory() - runtime.freeMemory()) / (1024L * 1024L);
+  }
+
   private void executeListener(boolean allStepsExecuted) {
     try {
       listener.finished(allStepsExecuted);
@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.db.DbSession;
+
+/**
+ * Value loaded from DB and shared by the tasks of the Compute Engine, as long as the version read from DB
+ * does not change. Reading the version is expected to be much cheaper than loading the value.
+ * <p>
+ * Loading of the value is guarded, so that concurrent tasks which detect the same change of version load
+ * the value only once.
+ * </p>
+ */
+public class VersionedCache<T> {
+  private final Function<DbSession, ?> versionLoader;
+  private final Function<DbSession, T> valueLoader;
+  private final Object loadLock = new Object();
+  private final AtomicLong hits = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+  @CheckForNull
+  private volatile Entry<T> entry;
+
+  public VersionedCache(Function<DbSession, ?> versionLoader, Function<DbSession, T> valueLoader) {
+    this.versionLoader = versionLoader;
+    this.valueLoader = valueLoader;
+  }
+
+  public T get(DbSession dbSession) {
+    Object version = versionLoader.apply(dbSession);
+    Entry<T> current = this.entry;
+    if (current != null && current.version.equals(version)) {
+      hits.incrementAndGet();
+      return current.value;
+    }
+    synchronized (loadLock) {
+      // value may have been loaded by another task while waiting for the lock
+      current = this.entry;
+      if (current != null && current.version.equals(version)) {
+        hits.incrementAndGet();
+        return current.value;
+      }
+      misses.incrementAndGet();
+      T value = valueLoader.apply(dbSession);
+      this.entry = new Entry<>(version, value);
+      return value;
+    }
+  }
+
+  public void invalidate() {
+    this.entry = null;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Ratio of calls to {@link #get(DbSession)} which did not load the value from DB, between 0 and 1.
+   */
+  public double getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0d : ((double) h / total);
+  }
+
+  @Immutable
+  private static final class Entry<T> {
+    private final Object version;
+    private final T value;
+
+    private Entry(Object version, T value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
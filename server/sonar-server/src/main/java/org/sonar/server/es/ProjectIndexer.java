@@ -19,6 +19,8 @@
  */
 package org.sonar.server.es;
 
+import java.util.Collection;
+
 /**
  * A {@link ProjectIndexer} populates an Elasticsearch index
  * containing project-related documents, for instance issues
@@ -49,6 +51,18 @@ public interface ProjectIndexer {
    */
   void indexProject(String projectUuid, Cause cause);
 
+  /**
+   * This method is called by Compute Engine at the end of the analysis of a project. By default
+   * the whole project is re-indexed, but implementations can restrict indexing to the components
+   * changed by the analysis.
+   * @param projectUuid non-null UUID of project
+   * @param changedComponentUuids UUIDs of the components created or updated by the analysis
+   * @param removedComponentUuids UUIDs of the components disabled by the analysis
+   */
+  default void indexAnalysis(String projectUuid, Collection<String> changedComponentUuids, Collection<String> removedComponentUuids) {
+    indexProject(projectUuid, Cause.NEW_ANALYSIS);
+  }
+
   /**
    * This method is called when a project is deleted.
    * @param projectUuid non-null UUID of project
@@ -0,0 +1,224 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.existsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+
+/**
+ * Opaque position in a sorted list of results. Unlike from/size paging, the cost of a request does not
+ * depend on the depth of the page and the number of results is not bounded.
+ * <p/>
+ * The cursor encodes the sort values of the last returned document. The special value {@link #START_VALUE}
+ * denotes the first page. Next page is requested with the filter {@link #createFilter(List)}, which
+ * emulates the "search_after" feature of Elasticsearch 5.
+ */
+public class SearchAfterCursor {
+
+  public static final String START_VALUE = "*";
+  public static final SearchAfterCursor START = new SearchAfterCursor(new Object[0]);
+
+  /**
+   * Name of the aggregation counting all the documents matching the query. Documents located before
+   * the cursor are excluded from hits, so {@code hits.total} can't be used.
+   */
+  public static final String TOTAL_AGGREGATION = "__cursorTotal";
+
+  private static final byte TYPE_NULL = 0;
+  private static final byte TYPE_STRING = 1;
+  private static final byte TYPE_LONG = 2;
+  private static final byte TYPE_DOUBLE = 3;
+  private static final byte TYPE_BOOLEAN = 4;
+
+  private final Object[] sortValues;
+
+  private SearchAfterCursor(Object[] sortValues) {
+    this.sortValues = sortValues;
+  }
+
+  public static SearchAfterCursor of(Object[] sortValues) {
+    return new SearchAfterCursor(Arrays.copyOf(sortValues, sortValues.length));
+  }
+
+  /**
+   * @throws IllegalArgumentException if the value has not been generated by {@link #encode()}
+   */
+  public static SearchAfterCursor parse(String value) {
+    if (START_VALUE.equals(value)) {
+      return START;
+    }
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(value)))) {
+      int size = input.readUnsignedByte();
+      Object[] values = new Object[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = readValue(input);
+      }
+      return new SearchAfterCursor(values);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new IllegalArgumentException(format("Invalid cursor '%s'", value), e);
+    }
+  }
+
+  public boolean isStart() {
+    return sortValues.length == 0;
+  }
+
+  public Object[] getSortValues() {
+    return Arrays.copyOf(sortValues, sortValues.length);
+  }
+
+  /**
+   * Filter of the documents located after the cursor, given the sort criteria of the request. Sort criteria
+   * must make order total, usually by ending with a unique field.
+   *
+   * @throws IllegalArgumentException if the cursor does not match the sort criteria
+   */
+  public QueryBuilder createFilter(List<Sorting.Criterion> criteria) {
+    checkArgument(criteria.size() == sortValues.length, "Cursor does not match sort of request");
+    BoolQueryBuilder filter = boolQuery();
+    for (int i = 0; i < criteria.size(); i++) {
+      QueryBuilder after = after(criteria.get(i), sortValue(i));
+      if (after != null) {
+        // same values than the cursor for the previous sort criteria, then located after it for this one
+        BoolQueryBuilder clause = boolQuery();
+        for (int j = 0; j < i; j++) {
+          clause.filter(sameAs(criteria.get(j), sortValue(j)));
+        }
+        filter.should(clause.filter(after));
+      }
+    }
+    if (!filter.hasClauses()) {
+      // cursor is positioned on the last document
+      return boolQuery().mustNot(matchAllQuery());
+    }
+    return filter.minimumNumberShouldMatch(1);
+  }
+
+  /**
+   * Elasticsearch replaces missing numeric values by the extreme values of the type
+   */
+  @CheckForNull
+  private Object sortValue(int index) {
+    Object value = sortValues[index];
+    if (value instanceof Long && ((Long) value == Long.MIN_VALUE || (Long) value == Long.MAX_VALUE)) {
+      return null;
+    }
+    if (value instanceof Double && ((Double) value).isInfinite()) {
+      return null;
+    }
+    return value;
+  }
+
+  private static QueryBuilder sameAs(Sorting.Criterion criterion, @Nullable Object value) {
+    if (value == null) {
+      return boolQuery().mustNot(existsQuery(criterion.getFieldName()));
+    }
+    return termQuery(criterion.getFieldName(), value);
+  }
+
+  @CheckForNull
+  private static QueryBuilder after(Sorting.Criterion criterion, @Nullable Object value) {
+    String fieldName = criterion.getFieldName();
+    if (value == null) {
+      return criterion.isMissingLast() ? null : existsQuery(fieldName);
+    }
+    QueryBuilder range = criterion.isAsc() ? rangeQuery(fieldName).gt(value) : rangeQuery(fieldName).lt(value);
+    if (criterion.isMissingLast()) {
+      return boolQuery().should(range).should(boolQuery().mustNot(existsQuery(fieldName))).minimumNumberShouldMatch(1);
+    }
+    return range;
+  }
+
+  public String encode() {
+    if (isStart()) {
+      return START_VALUE;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeByte(sortValues.length);
+      for (Object sortValue : sortValues) {
+        writeValue(output, sortValue);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode cursor", e);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+  }
+
+  private static void writeValue(DataOutputStream output, @Nullable Object value) throws IOException {
+    if (value == null) {
+      output.writeByte(TYPE_NULL);
+    } else if (value instanceof Double || value instanceof Float) {
+      output.writeByte(TYPE_DOUBLE);
+      output.writeDouble(((Number) value).doubleValue());
+    } else if (value instanceof Number) {
+      output.writeByte(TYPE_LONG);
+      output.writeLong(((Number) value).longValue());
+    } else if (value instanceof Boolean) {
+      output.writeByte(TYPE_BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else {
+      // strings are returned by Elasticsearch as String or Text
+      output.writeByte(TYPE_STRING);
+      output.writeUTF(value.toString());
+    }
+  }
+
+  private static Object readValue(DataInputStream input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case TYPE_NULL:
+        return null;
+      case TYPE_STRING:
+        return input.readUTF();
+      case TYPE_LONG:
+        return input.readLong();
+      case TYPE_DOUBLE:
+        return input.readDouble();
+      case TYPE_BOOLEAN:
+        return input.readBoolean();
+      default:
+        throw new IOException("Unsupported type " + type);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return encode();
+  }
+}
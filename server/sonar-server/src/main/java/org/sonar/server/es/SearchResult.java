@@ -22,19 +22,40 @@ package org.sonar.server.es;
 import com.google.common.base.Function;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 import org.apache.commons.lang.builder.ReflectionToStringBuilder;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.filter.Filter;
 
 public class SearchResult<DOC extends BaseDoc> {
 
   private final List<DOC> docs;
   private final Facets facets;
   private final long total;
+  private final SearchAfterCursor nextCursor;
 
   public SearchResult(SearchResponse response, Function<Map<String, Object>, DOC> converter) {
     this.facets = new Facets(response);
-    this.total = response.getHits().totalHits();
+    this.total = toTotal(response);
     this.docs = EsUtils.convertToDocs(response.getHits(), converter);
+    this.nextCursor = toNextCursor(response.getHits().getHits());
+  }
+
+  private static long toTotal(SearchResponse response) {
+    Aggregations aggregations = response.getAggregations();
+    Filter cursorTotal = aggregations == null ? null : aggregations.get(SearchAfterCursor.TOTAL_AGGREGATION);
+    return cursorTotal == null ? response.getHits().totalHits() : cursorTotal.getDocCount();
+  }
+
+  @CheckForNull
+  private static SearchAfterCursor toNextCursor(SearchHit[] hits) {
+    if (hits.length == 0) {
+      return null;
+    }
+    Object[] sortValues = hits[hits.length - 1].getSortValues();
+    return sortValues == null || sortValues.length == 0 ? null : SearchAfterCursor.of(sortValues);
   }
 
   public List<DOC> getDocs() {
@@ -49,6 +70,14 @@ public class SearchResult<DOC extends BaseDoc> {
     return this.facets;
   }
 
+  /**
+   * Position of the last returned document, to be used to request the next page. Null if no documents are returned or if results are not sorted.
+   */
+  @CheckForNull
+  public SearchAfterCursor getNextCursor() {
+    return nextCursor;
+  }
+
   @Override
   public String toString() {
     return ReflectionToStringBuilder.toString(this);
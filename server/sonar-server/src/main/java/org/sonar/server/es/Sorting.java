@@ -62,28 +62,80 @@ public class Sorting {
   }
 
   public void fill(SearchRequestBuilder request, String name, boolean asc) {
+    fill(request, getCriteria(name, asc));
+  }
+
+  public void fillDefault(SearchRequestBuilder request) {
+    fill(request, getDefaultCriteria());
+  }
+
+  /**
+   * Effective sort criteria applied by {@link #fill(SearchRequestBuilder, String, boolean)}, in the same order
+   */
+  public List<Criterion> getCriteria(String name, boolean asc) {
     List<Field> list = fields.get(name);
     if (list.isEmpty()) {
       throw new BadRequestException("Bad sort field: " + name);
     }
-    doFill(request, list, asc);
+    return toCriteria(list, asc);
   }
 
-  public void fillDefault(SearchRequestBuilder request) {
-    doFill(request, defaultFields, true);
+  /**
+   * Effective sort criteria applied by {@link #fillDefault(SearchRequestBuilder)}, in the same order
+   */
+  public List<Criterion> getDefaultCriteria() {
+    return toCriteria(defaultFields, true);
   }
 
-  private static void doFill(SearchRequestBuilder request, List<Field> fields, boolean asc) {
+  private static List<Criterion> toCriteria(List<Field> fields, boolean asc) {
+    List<Criterion> criteria = Lists.newArrayList();
     for (Field field : fields) {
-      FieldSortBuilder sortBuilder = SortBuilders.fieldSort(field.name);
       boolean effectiveAsc = asc != field.reverse;
-      sortBuilder.order(effectiveAsc ? SortOrder.ASC : SortOrder.DESC);
       boolean effectiveMissingLast = asc == field.missingLast;
-      sortBuilder.missing(effectiveMissingLast ? "_last" : "_first");
+      criteria.add(new Criterion(field.name, effectiveAsc, effectiveMissingLast));
+    }
+    return criteria;
+  }
+
+  public static void fill(SearchRequestBuilder request, List<Criterion> criteria) {
+    for (Criterion criterion : criteria) {
+      FieldSortBuilder sortBuilder = SortBuilders.fieldSort(criterion.fieldName);
+      sortBuilder.order(criterion.asc ? SortOrder.ASC : SortOrder.DESC);
+      sortBuilder.missing(criterion.missingLast ? "_last" : "_first");
       request.addSort(sortBuilder);
     }
   }
 
+  /**
+   * Sort of a field, as sent to Elasticsearch
+   */
+  public static class Criterion {
+    private final String fieldName;
+    private final boolean asc;
+    private final boolean missingLast;
+
+    public Criterion(String fieldName, boolean asc, boolean missingLast) {
+      this.fieldName = fieldName;
+      this.asc = asc;
+      this.missingLast = missingLast;
+    }
+
+    public String getFieldName() {
+      return fieldName;
+    }
+
+    public boolean isAsc() {
+      return asc;
+    }
+
+    /**
+     * Whether documents without value are returned after the others, whatever the order
+     */
+    public boolean isMissingLast() {
+      return missingLast;
+    }
+  }
+
   public static class Field {
     private final String name;
     private boolean reverse = false;
@@ -21,6 +21,8 @@ package org.sonar.server.issue;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.sonar.db.component.ComponentDto;
 import org.sonar.db.issue.IssueDto;
 import org.sonar.server.user.UserSession;
 
@@ -41,6 +43,18 @@ public class ActionFinder {
   }
 
   public List<String> listAvailableActions(IssueDto issue) {
+    return listAvailableActions(issue, () -> userSession.hasComponentUuidPermission(ISSUE_ADMIN, requireNonNull(issue.getProjectUuid())));
+  }
+
+  /**
+   * Same as {@link #listAvailableActions(IssueDto)}, except that permissions are checked on the given project
+   * of the issue, so that it does not have to be loaded from db.
+   */
+  public List<String> listAvailableActions(IssueDto issue, ComponentDto project) {
+    return listAvailableActions(issue, () -> userSession.hasComponentPermission(ISSUE_ADMIN, project));
+  }
+
+  private List<String> listAvailableActions(IssueDto issue, BooleanSupplier isIssueAdmin) {
     List<String> availableActions = newArrayList();
     String login = userSession.getLogin();
     if (login == null) {
@@ -56,11 +70,10 @@ public class ActionFinder {
       // This action will be removed by
       availableActions.add("assign_to_me");
     }
-    if (userSession.hasComponentUuidPermission(ISSUE_ADMIN, requireNonNull(issue.getProjectUuid()))) {
+    if (isIssueAdmin.getAsBoolean()) {
       availableActions.add(SET_TYPE_KEY);
       availableActions.add(SET_SEVERITY_KEY);
     }
     return availableActions;
   }
-
 }
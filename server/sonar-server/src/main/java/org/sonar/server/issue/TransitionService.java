@@ -20,9 +20,11 @@
 package org.sonar.server.issue;
 
 import java.util.List;
+import java.util.function.Predicate;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.IssueChangeContext;
 import org.sonar.core.util.stream.Collectors;
+import org.sonar.db.component.ComponentDto;
 import org.sonar.server.issue.workflow.IssueWorkflow;
 import org.sonar.server.issue.workflow.Transition;
 import org.sonar.server.user.UserSession;
@@ -46,10 +48,22 @@ public class TransitionService {
 
   public List<Transition> listTransitions(DefaultIssue issue) {
     String projectUuid = requireNonNull(issue.projectUuid());
+    return listTransitions(issue, permission -> userSession.hasComponentUuidPermission(permission, projectUuid));
+  }
+
+  /**
+   * Same as {@link #listTransitions(DefaultIssue)}, except that permissions are checked on the given project
+   * of the issue, so that it does not have to be loaded from db.
+   */
+  public List<Transition> listTransitions(DefaultIssue issue, ComponentDto project) {
+    return listTransitions(issue, permission -> userSession.hasComponentPermission(permission, project));
+  }
+
+  private List<Transition> listTransitions(DefaultIssue issue, Predicate<String> hasProjectPermission) {
     return workflow.outTransitions(issue)
       .stream()
       .filter(transition -> (userSession.isLoggedIn() && isBlank(transition.requiredProjectPermission()))
-        || userSession.hasComponentUuidPermission(transition.requiredProjectPermission(), projectUuid))
+        || hasProjectPermission.test(transition.requiredProjectPermission()))
       .collect(Collectors.toList());
   }
 
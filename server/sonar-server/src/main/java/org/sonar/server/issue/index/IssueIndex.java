@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -70,6 +71,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.server.es.BaseIndex;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsUtils;
+import org.sonar.server.es.SearchAfterCursor;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
 import org.sonar.server.es.Sorting;
@@ -144,6 +146,7 @@ public class IssueIndex extends BaseIndex {
   private static final Order EFFORT_AGGREGATION_ORDER = Order.aggregation(FACET_MODE_EFFORT, false);
 
   private static final int DEFAULT_FACET_SIZE = 15;
+  private static final int SCROLL_SIZE = 500;
   private static final Duration TWENTY_DAYS = Duration.standardDays(20L);
   private static final Duration TWENTY_WEEKS = Duration.standardDays(20L * 7L);
   private static final Duration TWENTY_MONTHS = Duration.standardDays(20L * 30L);
@@ -192,45 +195,95 @@ public class IssueIndex extends BaseIndex {
   }
 
   public SearchResult<IssueDoc> search(IssueQuery query, SearchOptions options) {
+    return search(query, options, null);
+  }
+
+  /**
+   * Same as {@link #search(IssueQuery, SearchOptions)}, except that when a cursor is provided the page is
+   * located after the cursor instead of with from/size. Offset is then ignored and the number of results
+   * that can be browsed is not bounded.
+   */
+  public SearchResult<IssueDoc> search(IssueQuery query, SearchOptions options, @Nullable SearchAfterCursor cursor) {
     SearchRequestBuilder requestBuilder = getClient()
       .prepareSearch(IssueIndexDefinition.INDEX)
       .setTypes(IssueIndexDefinition.TYPE_ISSUE);
 
-    configureSorting(query, requestBuilder);
-    configurePagination(options, requestBuilder);
+    List<Sorting.Criterion> sortCriteria = getSortCriteria(query, cursor != null);
+    Sorting.fill(requestBuilder, sortCriteria);
+    if (cursor == null) {
+      configurePagination(options, requestBuilder);
+    } else {
+      configureSearchAfter(options, cursor, sortCriteria, requestBuilder);
+    }
 
     QueryBuilder esQuery = matchAllQuery();
-    BoolQueryBuilder esFilter = boolQuery();
     Map<String, QueryBuilder> filters = createFilters(query);
+    requestBuilder.setQuery(createQuery(esQuery, filters));
+
+    configureStickyFacets(query, options, filters, esQuery, requestBuilder);
+    return new SearchResult<>(requestBuilder.get(), DOC_CONVERTER);
+  }
+
+  /**
+   * Return all the issues matching the query, without any limit. Documents are loaded by batches
+   * while iterating, so that the whole result is never held in memory. Sorting, facets and paging
+   * are not supported.
+   */
+  public Iterator<IssueDoc> scroll(IssueQuery query) {
+    SearchRequestBuilder requestBuilder = getClient()
+      .prepareSearch(IssueIndexDefinition.INDEX)
+      .setTypes(IssueIndexDefinition.TYPE_ISSUE)
+      .setSearchType(SearchType.SCAN)
+      .setScroll(TimeValue.timeValueMinutes(EsUtils.SCROLL_TIME_IN_MINUTES))
+      .setSize(SCROLL_SIZE)
+      .setQuery(createQuery(matchAllQuery(), createFilters(query)));
+    SearchResponse response = requestBuilder.get();
+
+    return EsUtils.scroll(getClient(), response.getScrollId(), DOC_CONVERTER);
+  }
+
+  private static QueryBuilder createQuery(QueryBuilder esQuery, Map<String, QueryBuilder> filters) {
+    BoolQueryBuilder esFilter = boolQuery();
     for (QueryBuilder filter : filters.values()) {
       if (filter != null) {
         esFilter.must(filter);
       }
     }
     if (esFilter.hasClauses()) {
-      requestBuilder.setQuery(boolQuery().must(esQuery).filter(esFilter));
-    } else {
-      requestBuilder.setQuery(esQuery);
+      return boolQuery().must(esQuery).filter(esFilter);
     }
-
-    configureStickyFacets(query, options, filters, esQuery, requestBuilder);
-    return new SearchResult<>(requestBuilder.get(), DOC_CONVERTER);
+    return esQuery;
   }
 
-  private void configureSorting(IssueQuery query, SearchRequestBuilder esRequest) {
+  private List<Sorting.Criterion> getSortCriteria(IssueQuery query, boolean cursorBased) {
     String sortField = query.sort();
-    if (sortField != null) {
-      boolean asc = BooleanUtils.isTrue(query.asc());
-      sorting.fill(esRequest, sortField, asc);
-    } else {
-      sorting.fillDefault(esRequest);
+    if (sortField == null) {
+      return sorting.getDefaultCriteria();
     }
+    List<Sorting.Criterion> criteria = new ArrayList<>(sorting.getCriteria(sortField, BooleanUtils.isTrue(query.asc())));
+    if (cursorBased && !IssueQuery.SORT_BY_FILE_LINE.equals(sortField)) {
+      // issue key is unique. It makes the order total, so that no issue is skipped or returned twice
+      // when browsing pages. Default sort and sort by file line already end with it.
+      criteria.add(new Sorting.Criterion(IssueIndexDefinition.FIELD_ISSUE_KEY, true, true));
+    }
+    return criteria;
   }
 
   private static void configurePagination(SearchOptions options, SearchRequestBuilder esSearch) {
     esSearch.setFrom(options.getOffset()).setSize(options.getLimit());
   }
 
+  private static void configureSearchAfter(SearchOptions options, SearchAfterCursor cursor, List<Sorting.Criterion> sortCriteria,
+    SearchRequestBuilder esSearch) {
+    esSearch.setFrom(0).setSize(options.getLimit());
+    if (!cursor.isStart()) {
+      // post filter does not apply to facets, which must not depend on the page. The total is counted
+      // by an aggregation as the hits located before the cursor are excluded.
+      esSearch.setPostFilter(cursor.createFilter(sortCriteria));
+      esSearch.addAggregation(AggregationBuilders.filter(SearchAfterCursor.TOTAL_AGGREGATION).filter(matchAllQuery()));
+    }
+  }
+
   private Map<String, QueryBuilder> createFilters(IssueQuery query) {
     Map<String, QueryBuilder> filters = new HashMap<>();
     filters.put("__authorization", createAuthorizationFilter(query.checkAuthorization()));
@@ -19,15 +19,19 @@
  */
 package org.sonar.server.issue.index;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
@@ -36,17 +40,16 @@ import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rules.RuleType;
 import org.sonar.db.DatabaseUtils;
 import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
-import org.sonar.db.ResultSetIterator;
+import org.sonar.db.KeysetPaginatedIterator;
 
 import static org.sonar.api.utils.DateUtils.longToDate;
 import static org.sonar.db.DatabaseUtils.getLong;
 
 /**
- * Scrolls over table ISSUES and reads documents to populate
+ * Scrolls over table ISSUES, by pages ordered by issue key, and reads documents to populate
  * the issues index
  */
-class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
+class IssueResultSetIterator extends KeysetPaginatedIterator<IssueDoc> {
 
   private static final String[] FIELDS = {
     // column 1
@@ -88,35 +91,64 @@ class IssueResultSetIterator extends ResultSetIterator<IssueDoc> {
     "inner join projects p on p.uuid=i.component_uuid " +
     "inner join projects root on root.uuid=i.project_uuid";
 
-  private static final String SQL_AFTER_DATE = SQL_ALL + " where i.updated_at>?";
-
-  private static final String PROJECT_FILTER = " AND root.uuid=?";
-
   private static final Splitter TAGS_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
 
   private static final Splitter MODULE_PATH_SPLITTER = Splitter.on('.').trimResults().omitEmptyStrings();
 
-  private IssueResultSetIterator(PreparedStatement stmt) throws SQLException {
-    super(stmt);
+  private final long afterDate;
+  @Nullable
+  private final String projectUuid;
+
+  private IssueResultSetIterator(DbClient dbClient, int pageSize, long afterDate, @Nullable String projectUuid) {
+    super(dbClient.getDatabase(), pageSize, null);
+    this.afterDate = afterDate;
+    this.projectUuid = projectUuid;
   }
 
-  static IssueResultSetIterator create(DbClient dbClient, DbSession session, long afterDate, @Nullable String projectUuid) {
-    try {
-      String sql = afterDate > 0L ? SQL_AFTER_DATE : SQL_ALL;
-      sql += projectUuid == null ? "" : PROJECT_FILTER;
-      PreparedStatement stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, sql);
-      int index = 1;
-      if (afterDate > 0L) {
-        stmt.setLong(index, afterDate);
-        index++;
-      }
-      if (projectUuid != null) {
-        stmt.setString(index, projectUuid);
-      }
-      return new IssueResultSetIterator(stmt);
-    } catch (SQLException e) {
-      throw new IllegalStateException("Fail to prepare SQL request to select all issues", e);
+  static IssueResultSetIterator create(DbClient dbClient, long afterDate, @Nullable String projectUuid) {
+    return create(dbClient, DEFAULT_PAGE_SIZE, afterDate, projectUuid);
+  }
+
+  @VisibleForTesting
+  static IssueResultSetIterator create(DbClient dbClient, int pageSize, long afterDate, @Nullable String projectUuid) {
+    return new IssueResultSetIterator(dbClient, pageSize, afterDate, projectUuid);
+  }
+
+  @Override
+  protected PreparedStatement prepareStatement(Connection connection, @Nullable String afterKey) throws SQLException {
+    List<String> conditions = new ArrayList<>(3);
+    if (afterDate > 0L) {
+      conditions.add("i.updated_at>?");
     }
+    if (projectUuid != null) {
+      conditions.add("root.uuid=?");
+    }
+    if (afterKey != null) {
+      conditions.add("i.kee>?");
+    }
+    String sql = SQL_ALL;
+    if (!conditions.isEmpty()) {
+      sql += " where " + String.join(" and ", conditions);
+    }
+    PreparedStatement stmt = connection.prepareStatement(sql + " order by i.kee");
+    int index = 1;
+    if (afterDate > 0L) {
+      stmt.setLong(index, afterDate);
+      index++;
+    }
+    if (projectUuid != null) {
+      stmt.setString(index, projectUuid);
+      index++;
+    }
+    if (afterKey != null) {
+      stmt.setString(index, afterKey);
+    }
+    return stmt;
+  }
+
+  @Override
+  protected String readKey(ResultSet rs) throws SQLException {
+    return rs.getString(1);
   }
 
   @CheckForNull
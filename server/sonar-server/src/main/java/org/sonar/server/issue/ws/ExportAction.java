@@ -0,0 +1,256 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.api.utils.DateUtils;
+import org.sonar.api.utils.Durations;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.server.issue.IssueQuery;
+import org.sonar.server.issue.IssueQueryService;
+import org.sonar.server.issue.index.IssueDoc;
+import org.sonar.server.issue.index.IssueIndex;
+import org.sonarqube.ws.Common;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.MediaTypes;
+import org.sonarqube.ws.client.issue.SearchWsRequest;
+
+import static com.google.common.base.Strings.emptyToNull;
+import static com.google.common.base.Strings.nullToEmpty;
+import static java.lang.String.format;
+import static org.sonar.core.util.Protobuf.setNullable;
+import static org.sonar.core.util.stream.Collectors.uniqueIndex;
+import static org.sonar.server.ws.KeyExamples.KEY_PROJECT_EXAMPLE_001;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.ACTION_EXPORT;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.FACET_MODE_COUNT;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_COMPONENT_KEYS;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AFTER;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_BEFORE;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_RESOLVED;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_RULES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_SEVERITIES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_STATUSES;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_TYPES;
+
+/**
+ * Streams all the issues matching the request. Contrary to {@link SearchAction}, the results are not paginated: documents
+ * are written as they are read from Elasticsearch, by batches, so that memory does not depend on the number of issues.
+ */
+public class ExportAction implements IssuesWsAction {
+
+  private static final int BATCH_SIZE = 500;
+
+  private final DbClient dbClient;
+  private final IssueIndex issueIndex;
+  private final IssueQueryService issueQueryService;
+  private final Durations durations;
+
+  public ExportAction(DbClient dbClient, IssueIndex issueIndex, IssueQueryService issueQueryService, Durations durations) {
+    this.dbClient = dbClient;
+    this.issueIndex = issueIndex;
+    this.issueQueryService = issueQueryService;
+    this.durations = durations;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction(ACTION_EXPORT)
+      .setDescription("Export all the issues matching the criteria. Requires Browse permission on project(s).<br>" +
+        "Results are not paginated. Response is a stream of issues: one JSON object per line, " +
+        "or length-delimited messages when protobuf format is requested. " +
+        "Only the fields of issues are returned, comments, transitions and actions are not.")
+      .setSince("6.3")
+      .setInternal(true)
+      .setHandler(this);
+
+    action.createParam(PARAM_COMPONENT_KEYS)
+      .setRequired(true)
+      .setDescription("Comma-separated list of component keys. A component can be a view, project, module, directory or file.")
+      .setExampleValue(KEY_PROJECT_EXAMPLE_001);
+    action.createParam(PARAM_SEVERITIES)
+      .setDescription("Comma-separated list of severities")
+      .setExampleValue(Severity.BLOCKER + "," + Severity.CRITICAL)
+      .setPossibleValues(Severity.ALL);
+    action.createParam(PARAM_STATUSES)
+      .setDescription("Comma-separated list of statuses")
+      .setExampleValue(Issue.STATUS_OPEN + "," + Issue.STATUS_REOPENED)
+      .setPossibleValues(Issue.STATUSES);
+    action.createParam(PARAM_RESOLVED)
+      .setDescription("To match resolved or unresolved issues")
+      .setBooleanPossibleValues();
+    action.createParam(PARAM_RULES)
+      .setDescription("Comma-separated list of coding rule keys. Format is &lt;repository&gt;:&lt;rule&gt;")
+      .setExampleValue("squid:AvoidCycles");
+    action.createParam(PARAM_TYPES)
+      .setDescription("Comma-separated list of types.")
+      .setPossibleValues(RuleType.values())
+      .setExampleValue(format("%s,%s", RuleType.CODE_SMELL, RuleType.BUG));
+    action.createParam(PARAM_CREATED_AFTER)
+      .setDescription("To retrieve issues created after the given date (inclusive). Format: date or datetime ISO formats.")
+      .setExampleValue("2013-05-01 (or 2013-05-01T13:00:00+0100)");
+    action.createParam(PARAM_CREATED_BEFORE)
+      .setDescription("To retrieve issues created before the given date (exclusive). Format: date or datetime ISO formats")
+      .setExampleValue("2013-05-01 (or 2013-05-01T13:00:00+0100)");
+  }
+
+  @Override
+  public void handle(Request request, Response response) throws Exception {
+    IssueQuery query = issueQueryService.createFromRequest(toSearchWsRequest(request));
+    boolean protobuf = MediaTypes.PROTOBUF.equals(request.getMediaType());
+    response.stream().setMediaType(protobuf ? MediaTypes.PROTOBUF : MediaTypes.JSON);
+
+    OutputStream output = response.stream().output();
+    try (IssueWriter issueWriter = protobuf ? new ProtobufIssueWriter(output) : new JsonIssueWriter(output);
+      DbSession dbSession = dbClient.openSession(false)) {
+      Iterator<IssueDoc> issues = issueIndex.scroll(query);
+      List<IssueDoc> batch = new ArrayList<>(BATCH_SIZE);
+      while (issues.hasNext()) {
+        batch.add(issues.next());
+        if (batch.size() == BATCH_SIZE || !issues.hasNext()) {
+          writeBatch(dbSession, batch, issueWriter);
+          batch.clear();
+        }
+      }
+    }
+  }
+
+  private void writeBatch(DbSession dbSession, List<IssueDoc> batch, IssueWriter issueWriter) throws IOException {
+    Set<String> componentUuids = new HashSet<>();
+    for (IssueDoc doc : batch) {
+      componentUuids.add(doc.componentUuid());
+      componentUuids.add(doc.projectUuid());
+      setNullable(doc.moduleUuid(), componentUuids::add);
+    }
+    Map<String, ComponentDto> componentsByUuid = dbClient.componentDao().selectByUuids(dbSession, componentUuids).stream()
+      .collect(uniqueIndex(ComponentDto::uuid));
+
+    Issues.Issue.Builder issueBuilder = Issues.Issue.newBuilder();
+    for (IssueDoc doc : batch) {
+      issueBuilder.clear();
+      formatIssue(doc, componentsByUuid, issueBuilder);
+      issueWriter.write(issueBuilder.build());
+    }
+  }
+
+  private void formatIssue(IssueDoc doc, Map<String, ComponentDto> componentsByUuid, Issues.Issue.Builder issueBuilder) {
+    issueBuilder.setKey(doc.key());
+    issueBuilder.setType(Common.RuleType.valueOf(doc.type().name()));
+    setNullable(componentsByUuid.get(doc.componentUuid()), c -> issueBuilder.setComponent(c.key()));
+    ComponentDto project = componentsByUuid.get(doc.projectUuid());
+    if (project != null) {
+      issueBuilder.setProject(project.key());
+      ComponentDto subProject = doc.moduleUuid() == null ? null : componentsByUuid.get(doc.moduleUuid());
+      if (subProject != null && !subProject.key().equals(project.key())) {
+        issueBuilder.setSubProject(subProject.key());
+      }
+    }
+    issueBuilder.setRule(doc.ruleKey().toString());
+    issueBuilder.setSeverity(Common.Severity.valueOf(doc.severity()));
+    setNullable(emptyToNull(doc.assignee()), issueBuilder::setAssignee);
+    setNullable(emptyToNull(doc.resolution()), issueBuilder::setResolution);
+    issueBuilder.setStatus(doc.status());
+    issueBuilder.setMessage(nullToEmpty(doc.message()));
+    setNullable(doc.tags(), issueBuilder::addAllTags);
+    setNullable(doc.effort(), effort -> issueBuilder.setEffort(durations.encode(effort)));
+    setNullable(doc.line(), issueBuilder::setLine);
+    issueBuilder.setAuthor(nullToEmpty(doc.authorLogin()));
+    setNullable(doc.creationDate(), issueBuilder::setCreationDate, DateUtils::formatDateTime);
+    setNullable(doc.updateDate(), issueBuilder::setUpdateDate, DateUtils::formatDateTime);
+    setNullable(doc.closeDate(), issueBuilder::setCloseDate, DateUtils::formatDateTime);
+  }
+
+  private static SearchWsRequest toSearchWsRequest(Request request) {
+    return new SearchWsRequest()
+      .setComponentKeys(request.paramAsStrings(PARAM_COMPONENT_KEYS))
+      .setCreatedAfter(request.param(PARAM_CREATED_AFTER))
+      .setCreatedBefore(request.param(PARAM_CREATED_BEFORE))
+      .setFacetMode(FACET_MODE_COUNT)
+      .setResolved(request.paramAsBoolean(PARAM_RESOLVED))
+      .setRules(request.paramAsStrings(PARAM_RULES))
+      .setSeverities(request.paramAsStrings(PARAM_SEVERITIES))
+      .setSinceLeakPeriod(false)
+      .setStatuses(request.paramAsStrings(PARAM_STATUSES))
+      .setTypes(request.paramAsStrings(PARAM_TYPES));
+  }
+
+  private interface IssueWriter extends Closeable {
+    void write(Issues.Issue issue) throws IOException;
+  }
+
+  private static class ProtobufIssueWriter implements IssueWriter {
+    private final OutputStream output;
+
+    private ProtobufIssueWriter(OutputStream output) {
+      this.output = output;
+    }
+
+    @Override
+    public void write(Issues.Issue issue) throws IOException {
+      issue.writeDelimitedTo(output);
+    }
+
+    @Override
+    public void close() throws IOException {
+      output.close();
+    }
+  }
+
+  /**
+   * Newline-delimited JSON: one issue per line
+   */
+  private static class JsonIssueWriter implements IssueWriter {
+    private final Writer writer;
+
+    private JsonIssueWriter(OutputStream output) {
+      this.writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(Issues.Issue issue) throws IOException {
+      writer.write(ProtobufJsonFormat.toJson(issue));
+      writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+  }
+}
@@ -64,6 +64,7 @@ public class IssueWsModule extends Module {
       ComponentTagsAction.class,
       AuthorsAction.class,
       ChangelogAction.class,
-      BulkChangeAction.class);
+      BulkChangeAction.class,
+      ExportAction.class);
   }
 }
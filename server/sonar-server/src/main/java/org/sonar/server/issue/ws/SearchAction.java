@@ -39,6 +39,7 @@ import org.sonar.api.server.ws.WebService;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonar.api.utils.Paging;
 import org.sonar.server.es.Facets;
+import org.sonar.server.es.SearchAfterCursor;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
 import org.sonar.server.issue.IssueQuery;
@@ -49,6 +50,7 @@ import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.Issues.SearchWsResponse;
 import org.sonarqube.ws.client.issue.SearchWsRequest;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Iterables.concat;
 import static java.lang.String.format;
@@ -78,6 +80,7 @@ import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AFT
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AT;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_BEFORE;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_IN_LAST;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CURSOR;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_DIRECTORIES;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_FILE_UUIDS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_ISSUES;
@@ -132,6 +135,13 @@ public class SearchAction implements IssuesWsAction {
       .setResponseExample(getClass().getResource("search-example.json"));
 
     action.addPagingParams(100, MAX_LIMIT);
+    action.createParam(PARAM_CURSOR)
+      .setSince("6.3")
+      .setDescription(format("Enables cursor-based pagination, which is not limited to the first 10,000 results. " +
+        "Use '%s' to request the first page, then the value of the field 'nextCursor' of the previous response to request the next page. " +
+        "The field 'nextCursor' is not returned on the last page. " +
+        "If this parameter is set, the parameter '%s' must not be set.", SearchAfterCursor.START_VALUE, Param.PAGE))
+      .setExampleValue(SearchAfterCursor.START_VALUE);
     action.createParam(Param.FACETS)
       .setDescription("Comma-separated list of the facets to be computed. No facet is computed by default.<br/>" +
         "Since 5.5, facet 'actionPlans' is deprecated.<br/>" +
@@ -292,12 +302,14 @@ public class SearchAction implements IssuesWsAction {
 
   private SearchWsResponse doHandle(SearchWsRequest request, Request wsRequest) {
     // prepare the Elasticsearch request
-    SearchOptions options = createSearchOptionsFromRequest(request);
+    String cursorParam = request.getCursor();
+    SearchAfterCursor cursor = cursorParam == null ? null : SearchAfterCursor.parse(cursorParam);
+    SearchOptions options = createSearchOptionsFromRequest(request, cursor != null);
     EnumSet<SearchAdditionalField> additionalFields = SearchAdditionalField.getFromRequest(request);
     IssueQuery query = issueQueryService.createFromRequest(request);
 
     // execute request
-    SearchResult<IssueDoc> result = issueIndex.search(query, options);
+    SearchResult<IssueDoc> result = issueIndex.search(query, options, cursor);
     List<String> issueKeys = from(result.getDocs()).transform(IssueDocToKey.INSTANCE).toList();
 
     // load the additional information to be returned in response
@@ -325,12 +337,20 @@ public class SearchAction implements IssuesWsAction {
     // FIXME allow long in Paging
     Paging paging = forPageIndex(options.getPage()).withPageSize(options.getLimit()).andTotal((int) result.getTotal());
 
-    return searchResponseFormat.formatSearch(additionalFields, data, paging, facets);
+    // a partial page is the last one, there's no need to return a cursor to request the next (empty) page
+    SearchAfterCursor nextCursor = cursor != null && result.getDocs().size() == options.getLimit() ? result.getNextCursor() : null;
+
+    return searchResponseFormat.formatSearch(additionalFields, data, paging, facets, nextCursor);
   }
 
-  private static SearchOptions createSearchOptionsFromRequest(SearchWsRequest request) {
+  private static SearchOptions createSearchOptionsFromRequest(SearchWsRequest request, boolean cursorBased) {
     SearchOptions options = new SearchOptions();
-    options.setPage(request.getPage(), request.getPageSize());
+    if (cursorBased) {
+      checkArgument(request.getPage() == 1, "Parameters '%s' and '%s' cannot be used at the same time", Param.PAGE, PARAM_CURSOR);
+      options.setLimit(request.getPageSize());
+    } else {
+      options.setPage(request.getPage(), request.getPageSize());
+    }
     options.addFacets(request.getFacets());
 
     return options;
@@ -442,6 +462,7 @@ public class SearchAction implements IssuesWsAction {
       .setCreatedAt(request.param(PARAM_CREATED_AT))
       .setCreatedBefore(request.param(PARAM_CREATED_BEFORE))
       .setCreatedInLast(request.param(PARAM_CREATED_IN_LAST))
+      .setCursor(request.param(PARAM_CURSOR))
       .setDirectories(request.paramAsStrings(PARAM_DIRECTORIES))
       .setFacetMode(request.mandatoryParam(FACET_MODE))
       .setFacets(request.paramAsStrings(Param.FACETS))
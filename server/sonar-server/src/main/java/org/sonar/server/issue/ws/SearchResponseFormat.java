@@ -44,6 +44,7 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.markdown.Markdown;
 import org.sonar.server.es.Facets;
+import org.sonar.server.es.SearchAfterCursor;
 import org.sonar.server.issue.workflow.Transition;
 import org.sonar.server.ws.WsResponseCommonFormat;
 import org.sonarqube.ws.Common;
@@ -66,10 +67,11 @@ public class SearchResponseFormat {
   }
 
   public Issues.SearchWsResponse formatSearch(Set<SearchAdditionalField> fields, SearchResponseData data,
-    Paging paging, @Nullable Facets facets) {
+    Paging paging, @Nullable Facets facets, @Nullable SearchAfterCursor nextCursor) {
     Issues.SearchWsResponse.Builder response = Issues.SearchWsResponse.newBuilder();
 
     formatPaging(paging, response);
+    setNullable(nextCursor, response::setNextCursor, SearchAfterCursor::encode);
     formatEffortTotal(data, response);
     response.addAllIssues(formatIssues(fields, data));
     response.addAllComponents(formatComponents(data));
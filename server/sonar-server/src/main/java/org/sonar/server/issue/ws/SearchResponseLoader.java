@@ -29,7 +29,10 @@ import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.util.logs.Profiler;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -55,6 +58,8 @@ import static org.sonar.server.issue.ws.SearchAdditionalField.USERS;
  */
 public class SearchResponseLoader {
 
+  private static final Logger LOGGER = Loggers.get(SearchResponseLoader.class);
+
   private final UserSession userSession;
   private final DbClient dbClient;
   private final ActionFinder actionService;
@@ -69,21 +74,37 @@ public class SearchResponseLoader {
 
   /**
    * The issue keys are given by the multi-criteria search in Elasticsearch index.
+   * <p/>
+   * All the keys referenced by issues are collected before hitting db, so that each type of data
+   * (rules, users, components, ...) is loaded with a single partitioned query, whatever the number of issues.
    */
   public SearchResponseData load(Collector collector, @Nullable Facets facets) {
+    Profiler profiler = Profiler.createIfDebug(LOGGER);
     DbSession dbSession = dbClient.openSession(false);
     try {
+      profiler.startDebug("Load issues");
       SearchResponseData result = new SearchResponseData(dbClient.issueDao().selectByOrderedKeys(dbSession, collector.getIssueKeys()));
       collector.collect(result.getIssues());
+      profiler.stopDebug("Loaded " + result.getIssues().size() + " issues");
 
+      profiler.startDebug("Load rules");
       loadRules(collector, dbSession, result);
+      profiler.stopDebug();
       // order is important - loading of comments complete the list of users: loadComments() is
       // before loadUsers()
+      profiler.startDebug("Load comments");
       loadComments(collector, dbSession, result);
+      profiler.stopDebug();
+      profiler.startDebug("Load users");
       loadUsers(collector, dbSession, result);
+      profiler.stopDebug();
+      profiler.startDebug("Load components");
       loadComponents(collector, dbSession, result);
       loadOrganizations(dbSession, result);
+      profiler.stopDebug();
+      profiler.startDebug("Load actions and transitions");
       loadActionsAndTransitions(collector, result);
+      profiler.stopDebug();
       completeTotalEffortFromFacet(facets, result);
       return result;
     } finally {
@@ -123,13 +144,20 @@ public class SearchResponseLoader {
   private void loadComponents(Collector collector, DbSession dbSession, SearchResponseData result) {
     // always load components and projects, because some issue fields still relate to component ids/keys.
     // They should be dropped but are kept for backward-compatibility (see SearchResponseFormat)
-    result.addComponents(dbClient.componentDao().selectByUuids(dbSession, collector.getComponentUuids()));
+    Set<String> uuids = new HashSet<>(collector.getComponentUuids());
+    uuids.addAll(collector.getProjectUuids());
+    result.addComponents(dbClient.componentDao().selectByUuids(dbSession, uuids));
     result.addComponents(dbClient.componentDao().selectSubProjectsByComponentUuids(dbSession, collector.getComponentUuids()));
-    for (ComponentDto component : result.getComponents()) {
-      collector.addProjectUuid(component.projectUuid());
+
+    // projects of components which are not referenced by issues, for example components of facets
+    Set<String> missingProjectUuids = result.getComponents().stream()
+      .map(ComponentDto::projectUuid)
+      .filter(projectUuid -> result.getComponentByUuid(projectUuid) == null)
+      .collect(Collectors.toSet());
+    collector.addProjectUuids(missingProjectUuids);
+    if (!missingProjectUuids.isEmpty()) {
+      result.addComponents(dbClient.componentDao().selectByUuids(dbSession, missingProjectUuids));
     }
-    List<ComponentDto> projects = dbClient.componentDao().selectByUuids(dbSession, collector.getProjectUuids());
-    result.addComponents(projects);
   }
 
   private void loadOrganizations(DbSession dbSession, SearchResponseData result) {
@@ -146,14 +174,17 @@ public class SearchResponseLoader {
   private void loadActionsAndTransitions(Collector collector, SearchResponseData result) {
     if (collector.contains(ACTIONS) || collector.contains(TRANSITIONS)) {
       for (IssueDto dto : result.getIssues()) {
+        // projects are already loaded. Permissions are checked on them instead of
+        // on project uuids, which would require to load each project again.
+        ComponentDto project = result.getComponentByUuid(dto.getProjectUuid());
         // so that IssueDto can be used.
         if (collector.contains(ACTIONS)) {
-          result.addActions(dto.getKey(), actionService.listAvailableActions(dto));
+          result.addActions(dto.getKey(), project == null ? actionService.listAvailableActions(dto) : actionService.listAvailableActions(dto, project));
         }
         if (collector.contains(TRANSITIONS)) {
           // TODO workflow and action engines must not depend on org.sonar.api.issue.Issue but on a generic interface
           DefaultIssue issue = dto.toDefaultIssue();
-          result.addTransitions(issue.key(), transitionService.listTransitions(issue));
+          result.addTransitions(issue.key(), project == null ? transitionService.listTransitions(issue) : transitionService.listTransitions(issue, project));
         }
       }
     }
@@ -19,14 +19,11 @@
  */
 package org.sonar.server.measure.index;
 
-import com.google.common.collect.ImmutableMap;
-import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
-import org.sonar.core.util.stream.Collectors;
 import org.sonar.server.es.BaseDoc;
 
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES;
@@ -85,25 +82,18 @@ public class ProjectMeasuresDoc extends BaseDoc {
     return this;
   }
 
-  public Collection<Map<String, Object>> getMeasures() {
+  /**
+   * Values of numeric measures, by metric key
+   */
+  public Map<String, Double> getMeasures() {
     return getField(FIELD_MEASURES);
   }
 
-  public ProjectMeasuresDoc setMeasures(Collection<Map<String, Object>> measures) {
+  public ProjectMeasuresDoc setMeasures(Map<String, Double> measures) {
     setField(FIELD_MEASURES, measures);
     return this;
   }
 
-  public ProjectMeasuresDoc setMeasuresFromMap(Map<String, Double> measures) {
-    setMeasures(
-      measures.entrySet().stream()
-        .map(entry -> ImmutableMap.<String, Object>of(
-          ProjectMeasuresIndexDefinition.FIELD_MEASURES_KEY, entry.getKey(),
-          ProjectMeasuresIndexDefinition.FIELD_MEASURES_VALUE, entry.getValue()))
-        .collect(Collectors.toList()));
-    return this;
-  }
-
   @CheckForNull
   public String getQualityGate() {
     return getField(ProjectMeasuresIndexDefinition.FIELD_QUALITY_GATE);
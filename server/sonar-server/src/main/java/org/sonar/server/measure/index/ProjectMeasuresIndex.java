@@ -32,6 +32,8 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.range.RangeBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.sonar.api.measures.Metric;
 import org.sonar.server.es.BaseIndex;
@@ -45,7 +47,6 @@ import org.sonar.server.permission.index.AuthorizationTypeSupport;
 
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
-import static org.elasticsearch.index.query.QueryBuilders.nestedQuery;
 import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
@@ -57,13 +58,12 @@ import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
 import static org.sonar.api.measures.CoreMetrics.RELIABILITY_RATING_KEY;
 import static org.sonar.api.measures.CoreMetrics.SECURITY_RATING_KEY;
 import static org.sonar.api.measures.CoreMetrics.SQALE_RATING_KEY;
-import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES;
-import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_KEY;
-import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_MEASURES_VALUE;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_NAME;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.FIELD_QUALITY_GATE;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.INDEX_PROJECT_MEASURES;
 import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.TYPE_PROJECT_MEASURE;
+import static org.sonar.server.measure.index.ProjectMeasuresIndexDefinition.measureField;
+import static org.sonar.server.measure.index.ProjectMeasuresQuery.SORT_BY_NAME;
 
 public class ProjectMeasuresIndex extends BaseIndex {
 
@@ -76,9 +76,6 @@ public class ProjectMeasuresIndex extends BaseIndex {
     SECURITY_RATING_KEY,
     ALERT_STATUS_KEY);
 
-  private static final String FIELD_KEY = FIELD_MEASURES + "." + FIELD_MEASURES_KEY;
-  private static final String FIELD_VALUE = FIELD_MEASURES + "." + FIELD_MEASURES_VALUE;
-
   private final AuthorizationTypeSupport authorizationTypeSupport;
 
   public ProjectMeasuresIndex(EsClient client, AuthorizationTypeSupport authorizationTypeSupport) {
@@ -92,8 +89,8 @@ public class ProjectMeasuresIndex extends BaseIndex {
       .setTypes(TYPE_PROJECT_MEASURE)
       .setFetchSource(false)
       .setFrom(searchOptions.getOffset())
-      .setSize(searchOptions.getLimit())
-      .addSort(DefaultIndexSettingsElement.SORTABLE_ANALYZER.subField(FIELD_NAME), SortOrder.ASC);
+      .setSize(searchOptions.getLimit());
+    addSort(requestBuilder, query);
 
     BoolQueryBuilder esFilter = boolQuery();
     Map<String, QueryBuilder> filters = createFilters(query);
@@ -104,6 +101,23 @@ public class ProjectMeasuresIndex extends BaseIndex {
     return new SearchIdResult<>(requestBuilder.get(), id -> id);
   }
 
+  private static void addSort(SearchRequestBuilder requestBuilder, ProjectMeasuresQuery query) {
+    SortOrder order = query.isAsc() ? SortOrder.ASC : SortOrder.DESC;
+    String nameField = DefaultIndexSettingsElement.SORTABLE_ANALYZER.subField(FIELD_NAME);
+    if (SORT_BY_NAME.equals(query.getSort())) {
+      requestBuilder.addSort(nameField, order);
+      return;
+    }
+    // metrics that have never been computed are not yet mapped in the index
+    FieldSortBuilder metricSort = SortBuilders.fieldSort(measureField(query.getSort()))
+      .order(order)
+      .missing("_last")
+      .unmappedType("double");
+    requestBuilder
+      .addSort(metricSort)
+      .addSort(nameField, SortOrder.ASC);
+  }
+
   private static void addFacets(SearchRequestBuilder esSearch, SearchOptions options, Map<String, QueryBuilder> filters) {
     if (!options.getFacets().isEmpty()) {
       if (options.getFacets().contains(NCLOC_KEY)) {
@@ -150,7 +164,7 @@ public class ProjectMeasuresIndex extends BaseIndex {
 
   private static AbstractAggregationBuilder createRangeFacet(String metricKey, List<Double> thresholds) {
     RangeBuilder rangeAgg = AggregationBuilders.range(metricKey)
-      .field(FIELD_VALUE);
+      .field(measureField(metricKey));
     final int lastIndex = thresholds.size() - 1;
     IntStream.range(0, thresholds.size())
       .forEach(i -> {
@@ -163,27 +177,17 @@ public class ProjectMeasuresIndex extends BaseIndex {
           rangeAgg.addRange(thresholds.get(i), thresholds.get(i + 1));
         }
       });
-
-    return AggregationBuilders.nested("nested_" + metricKey)
-      .path(FIELD_MEASURES)
-      .subAggregation(
-        AggregationBuilders.filter("filter_" + metricKey)
-          .filter(termsQuery(FIELD_KEY, metricKey))
-          .subAggregation(rangeAgg));
+    return rangeAgg;
   }
 
   private static AbstractAggregationBuilder createRatingFacet(String metricKey) {
-    return AggregationBuilders.nested("nested_" + metricKey)
-      .path(FIELD_MEASURES)
-      .subAggregation(
-        AggregationBuilders.filter("filter_" + metricKey)
-          .filter(termsQuery(FIELD_KEY, metricKey))
-          .subAggregation(filters(metricKey)
-            .filter("1", termQuery(FIELD_VALUE, 1d))
-            .filter("2", termQuery(FIELD_VALUE, 2d))
-            .filter("3", termQuery(FIELD_VALUE, 3d))
-            .filter("4", termQuery(FIELD_VALUE, 4d))
-            .filter("5", termQuery(FIELD_VALUE, 5d))));
+    String fieldName = measureField(metricKey);
+    return filters(metricKey)
+      .filter("1", termQuery(fieldName, 1d))
+      .filter("2", termQuery(fieldName, 2d))
+      .filter("3", termQuery(fieldName, 3d))
+      .filter("4", termQuery(fieldName, 4d))
+      .filter("5", termQuery(fieldName, 5d));
   }
 
   private static AbstractAggregationBuilder createQualityGateFacet() {
@@ -202,9 +206,7 @@ public class ProjectMeasuresIndex extends BaseIndex {
       BoolQueryBuilder metricFilters = boolQuery();
       entry.getValue()
         .stream()
-        .map(criterion -> nestedQuery(FIELD_MEASURES, boolQuery()
-          .filter(termQuery(FIELD_KEY, criterion.getMetricKey()))
-          .filter(toValueQuery(criterion))))
+        .map(ProjectMeasuresIndex::toValueQuery)
         .forEach(metricFilters::must);
       filters.put(entry.getKey(), metricFilters);
 
@@ -219,7 +221,7 @@ public class ProjectMeasuresIndex extends BaseIndex {
   }
 
   private static QueryBuilder toValueQuery(MetricCriterion criterion) {
-    String fieldName = FIELD_VALUE;
+    String fieldName = measureField(criterion.getMetricKey());
 
     switch (criterion.getOperator()) {
       case GT:
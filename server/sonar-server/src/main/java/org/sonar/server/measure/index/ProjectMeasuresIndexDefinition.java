@@ -19,6 +19,8 @@
  */
 package org.sonar.server.measure.index;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.sonar.api.config.Settings;
 import org.sonar.server.es.IndexDefinition;
 import org.sonar.server.es.NewIndex;
@@ -32,9 +34,13 @@ public class ProjectMeasuresIndexDefinition implements IndexDefinition {
   public static final String FIELD_NAME = "name";
   public static final String FIELD_ANALYSED_AT = "analysedAt";
   public static final String FIELD_QUALITY_GATE = "qualityGate";
+
+  /**
+   * Object field holding one numeric sub-field per metric, for example "measures.ncloc". Sub-fields are
+   * mapped dynamically as doubles, so that they are stored as doc values and can be filtered, sorted
+   * and aggregated without nested queries.
+   */
   public static final String FIELD_MEASURES = "measures";
-  public static final String FIELD_MEASURES_KEY = "key";
-  public static final String FIELD_MEASURES_VALUE = "value";
 
   private final Settings settings;
 
@@ -55,10 +61,18 @@ public class ProjectMeasuresIndexDefinition implements IndexDefinition {
     mapping.stringFieldBuilder(FIELD_NAME).enableSorting().build();
     mapping.stringFieldBuilder(FIELD_QUALITY_GATE).build();
     mapping.createDateTimeField(FIELD_ANALYSED_AT);
-    mapping.nestedFieldBuilder(FIELD_MEASURES)
-      .addStringFied(FIELD_MEASURES_KEY)
-      .addDoubleField(FIELD_MEASURES_VALUE)
-      .build();
+    mapping.setProperty(FIELD_MEASURES, ImmutableMap.of("type", "object", "dynamic", true));
+    mapping.setAttribute("dynamic_templates", ImmutableList.of(ImmutableMap.of(
+      "measures", ImmutableMap.of(
+        "path_match", FIELD_MEASURES + ".*",
+        "mapping", ImmutableMap.of("type", "double")))));
     mapping.setEnableSource(false);
   }
+
+  /**
+   * Name of the numeric field storing the value of the given metric
+   */
+  public static String measureField(String metricKey) {
+    return FIELD_MEASURES + "." + metricKey;
+  }
 }
@@ -130,6 +130,6 @@ public class ProjectMeasuresIndexer extends BaseIndexer implements ProjectIndexe
       .setName(projectMeasures.getProject().getName())
       .setQualityGate(projectMeasures.getMeasures().getQualityGateStatus())
       .setAnalysedAt(analysisDate == null ? null : new Date(analysisDate))
-      .setMeasuresFromMap(projectMeasures.getMeasures().getNumericMeasures());
+      .setMeasures(projectMeasures.getMeasures().getNumericMeasures());
   }
 }
@@ -22,6 +22,7 @@ package org.sonar.server.measure.index;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.sonar.api.measures.Metric;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -30,9 +31,14 @@ import static java.util.Arrays.stream;
 import static java.util.Objects.requireNonNull;
 
 public class ProjectMeasuresQuery {
+
+  public static final String SORT_BY_NAME = "name";
+
   private List<MetricCriterion> metricCriteria = new ArrayList<>();
   private Metric.Level qualityGateStatus;
   private Set<String> projectUuids = null;
+  private String sort = SORT_BY_NAME;
+  private boolean asc = true;
 
   public ProjectMeasuresQuery addMetricCriterion(MetricCriterion metricCriterion) {
     this.metricCriteria.add(metricCriterion);
@@ -70,6 +76,28 @@ public class ProjectMeasuresQuery {
     return requireNonNull(projectUuids);
   }
 
+  /**
+   * Either {@link #SORT_BY_NAME} or the key of a numeric metric. Projects having the same value are
+   * sorted by name. Default is {@link #SORT_BY_NAME}.
+   */
+  public ProjectMeasuresQuery setSort(@Nullable String sort) {
+    this.sort = sort == null ? SORT_BY_NAME : sort;
+    return this;
+  }
+
+  public String getSort() {
+    return sort;
+  }
+
+  public ProjectMeasuresQuery setAsc(boolean asc) {
+    this.asc = asc;
+    return this;
+  }
+
+  public boolean isAsc() {
+    return asc;
+  }
+
   public enum Operator {
     LT("<"), LTE("<="), GT(">"), GTE(">="), EQ("=");
 
@@ -21,13 +21,19 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -38,6 +44,8 @@ import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
+
 public class DefaultNotificationManager implements NotificationManager {
 
   private static final Logger LOG = Loggers.get(DefaultNotificationManager.class);
@@ -48,6 +56,8 @@ public class DefaultNotificationManager implements NotificationManager {
   private NotificationQueueDao notificationQueueDao;
   private PropertiesDao propertiesDao;
 
+  private final ThreadLocal<Map<List<String>, Multimap<String, NotificationChannel>>> subscribersCache = new ThreadLocal<>();
+
   private boolean alreadyLoggedDeserializationIssue = false;
 
   /**
@@ -83,21 +93,44 @@ public class DefaultNotificationManager implements NotificationManager {
   /**
    * Give the notification queue so that it can be processed
    */
+  @CheckForNull
   public Notification getFromQueue() {
-    int batchSize = 1;
-    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(1);
     if (notificationDtos.isEmpty()) {
       return null;
     }
     notificationQueueDao.delete(notificationDtos);
 
-    return convertToNotification(notificationDtos);
+    return convertToNotification(notificationDtos.get(0));
+  }
+
+  /**
+   * Hand at most {@code batchSize} of the oldest notifications of the queue to {@code consumer}, one after the other.
+   * Each notification is removed from the queue once handed, so that a crash while processing a batch loses only
+   * what the consumer has already accepted. Notifications which can't be deserialized are removed and ignored.
+   *
+   * @return the number of notifications read from the queue, {@code 0} if it is empty
+   */
+  public int consumeQueue(int batchSize, Consumer<Notification> consumer) {
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      try {
+        Notification notification = convertToNotification(notificationDto);
+        if (notification != null) {
+          consumer.accept(notification);
+        }
+      } finally {
+        // also removed when the consumer fails, so that a notification which can't be processed does not block the queue
+        notificationQueueDao.delete(singletonList(notificationDto));
+      }
+    }
+    return notificationDtos.size();
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -119,6 +152,18 @@ public class DefaultNotificationManager implements NotificationManager {
     return notificationQueueDao.count();
   }
 
+  /**
+   * Subscribers found by the current thread are cached until {@link #stopCachingSubscribers()} is called, so that they
+   * are loaded once for a whole batch of notifications.
+   */
+  void startCachingSubscribers() {
+    subscribersCache.set(new HashMap<>());
+  }
+
+  void stopCachingSubscribers() {
+    subscribersCache.remove();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -126,33 +171,42 @@ public class DefaultNotificationManager implements NotificationManager {
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
     @Nullable String projectUuid) {
     String dispatcherKey = dispatcher.getKey();
-
-    SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
-    for (NotificationChannel channel : notificationChannels) {
-      String channelKey = channel.getKey();
-
-      // Find users subscribed globally to the dispatcher (i.e. not on a specific project)
-      addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
-
-      if (projectUuid != null) {
-        // Find users subscribed to the dispatcher specifically for the project
-        addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
+    return cached(Arrays.asList("recipients", dispatcherKey, projectUuid), () -> {
+      SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
+      for (NotificationChannel channel : notificationChannels) {
+        String channelKey = channel.getKey();
+
+        // Find users subscribed globally to the dispatcher (i.e. not on a specific project)
+        addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
+
+        if (projectUuid != null) {
+          // Find users subscribed to the dispatcher specifically for the project
+          addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
+        }
       }
-    }
-
-    return recipients;
+      return recipients;
+    });
   }
 
   @Override
   public Multimap<String, NotificationChannel> findNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
     String dispatcherKey = dispatcher.getKey();
+    return cached(Arrays.asList("subscribers", dispatcherKey, componentKey), () -> {
+      SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
+      for (NotificationChannel channel : notificationChannels) {
+        addUsersToRecipientListForChannel(propertiesDao.selectNotificationSubscribers(dispatcherKey, channel.getKey(), componentKey), recipients, channel);
+      }
+      return recipients;
+    });
+  }
 
-    SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
-    for (NotificationChannel channel : notificationChannels) {
-      addUsersToRecipientListForChannel(propertiesDao.selectNotificationSubscribers(dispatcherKey, channel.getKey(), componentKey), recipients, channel);
+  private Multimap<String, NotificationChannel> cached(List<String> cacheKey, Supplier<SetMultimap<String, NotificationChannel>> loader) {
+    Map<List<String>, Multimap<String, NotificationChannel>> cache = subscribersCache.get();
+    if (cache == null) {
+      return loader.get();
     }
-
-    return recipients;
+    // cached subscribers are shared by the dispatchers, they must not be modified
+    return cache.computeIfAbsent(cacheKey, k -> ImmutableSetMultimap.copyOf(loader.get()));
   }
 
   @VisibleForTesting
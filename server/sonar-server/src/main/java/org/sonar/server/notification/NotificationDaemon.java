@@ -20,15 +20,23 @@
 package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.SetMultimap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
 import org.sonar.api.config.Settings;
 import org.sonar.api.notifications.Notification;
+import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
@@ -48,6 +56,25 @@ import org.sonar.api.utils.log.Loggers;
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String DELIVERY_THREAD_NAME_PREFIX = "sq-notification-delivery-";
+
+  /**
+   * Number of notifications loaded from the queue at once. Their subscribers are resolved once for the whole batch.
+   */
+  static final int BATCH_SIZE = 100;
+
+  /**
+   * Each channel has its own pool of threads, so that a slow channel (an unresponsive SMTP server for instance) does
+   * not delay the deliveries of the other ones.
+   */
+  static final int DELIVERY_THREADS_PER_CHANNEL = 2;
+
+  /**
+   * Deliveries waiting for a channel are lost on crash, as their notifications are already removed from the queue.
+   * They are bounded to the size of a batch: beyond it, the daemon delivers by itself, which slows down the
+   * consumption of the queue.
+   */
+  static final int MAX_PENDING_DELIVERIES_PER_CHANNEL = BATCH_SIZE;
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
@@ -59,8 +86,14 @@ public class NotificationDaemon implements Startable {
   private final DefaultNotificationManager manager;
   private final NotificationService service;
 
+  private final Map<String, ExecutorService> deliveryExecutors = new ConcurrentHashMap<>();
+  private final AtomicLong pendingDeliveries = new AtomicLong(0);
+  private final AtomicLong deliveredCount = new AtomicLong(0);
+  private final AtomicLong failedDeliveryCount = new AtomicLong(0);
+  private final AtomicLong deliveryTimeMs = new AtomicLong(0);
+
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private volatile boolean stopping = false;
 
   public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
@@ -86,12 +119,22 @@ public class NotificationDaemon implements Startable {
     LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
   }
 
+  /**
+   * No more notifications are dequeued once stopping. As dequeued notifications are not in db anymore, the deliveries
+   * waiting in the pools of the channels are done before returning.
+   */
   @Override
   public void stop() {
     try {
       stopping = true;
       executorService.shutdown();
-      executorService.awaitTermination(5, TimeUnit.SECONDS);
+      awaitTermination(executorService);
+      for (ExecutorService deliveryExecutor : deliveryExecutors.values()) {
+        deliveryExecutor.shutdown();
+      }
+      for (ExecutorService deliveryExecutor : deliveryExecutors.values()) {
+        awaitTermination(deliveryExecutor);
+      }
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -99,17 +142,26 @@ public class NotificationDaemon implements Startable {
     LOG.info("Notification service stopped");
   }
 
+  private void awaitTermination(ExecutorService executor) throws InterruptedException {
+    while (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+      LOG.info("Waiting for {} notification deliveries to be done", pendingDeliveries.get());
+    }
+  }
+
   @VisibleForTesting
   synchronized void processQueue() {
     long start = now();
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    if (stopping) {
+      return;
+    }
+    int dequeuedCount = processBatch();
+    while (dequeuedCount > 0) {
+      notifSentCount += dequeuedCount;
       if (stopping) {
+        // notifications which are still in queue are sent after restart
         break;
       }
       long now = now();
@@ -119,10 +171,87 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      dequeuedCount = processBatch();
+    }
+  }
+
+  private int processBatch() {
+    manager.startCachingSubscribers();
+    try {
+      return manager.consumeQueue(BATCH_SIZE, this::dispatch);
+    } finally {
+      manager.stopCachingSubscribers();
+    }
+  }
+
+  private void dispatch(Notification notification) {
+    SetMultimap<String, NotificationChannel> recipients = service.findRecipients(notification);
+    for (Map.Entry<String, NotificationChannel> recipient : recipients.entries()) {
+      String username = recipient.getKey();
+      NotificationChannel channel = recipient.getValue();
+      pendingDeliveries.incrementAndGet();
+      deliveryExecutor(channel).execute(() -> deliver(notification, username, channel));
     }
   }
 
+  private ExecutorService deliveryExecutor(NotificationChannel channel) {
+    return deliveryExecutors.computeIfAbsent(channel.getKey(), channelKey -> new ThreadPoolExecutor(
+      DELIVERY_THREADS_PER_CHANNEL, DELIVERY_THREADS_PER_CHANNEL,
+      0L, TimeUnit.MILLISECONDS,
+      new LinkedBlockingQueue<>(MAX_PENDING_DELIVERIES_PER_CHANNEL),
+      new ThreadFactoryBuilder()
+        .setNameFormat(DELIVERY_THREAD_NAME_PREFIX + channelKey + "-%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build(),
+      // dequeued notifications are not in db anymore, so rejected deliveries are done by the caller rather than dropped
+      (delivery, executor) -> delivery.run()));
+  }
+
+  private void deliver(Notification notification, String username, NotificationChannel channel) {
+    long start = System.nanoTime();
+    try {
+      LOG.debug("For user {} via {}", username, channel);
+      channel.deliver(notification, username);
+      deliveredCount.incrementAndGet();
+    } catch (Exception e) {
+      // catch all exceptions in order to deliver via other channels
+      failedDeliveryCount.incrementAndGet();
+      LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
+    } finally {
+      deliveryTimeMs.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      pendingDeliveries.decrementAndGet();
+    }
+  }
+
+  /**
+   * Number of deliveries of dequeued notifications which are not done yet
+   */
+  public long getPendingDeliveries() {
+    return pendingDeliveries.get();
+  }
+
+  /**
+   * Number of deliveries done since startup
+   */
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  /**
+   * Number of deliveries which failed since startup
+   */
+  public long getFailedDeliveryCount() {
+    return failedDeliveryCount.get();
+  }
+
+  /**
+   * Average time spent by a channel to deliver a notification to a user, in milliseconds
+   */
+  public long getAverageDeliveryTimeMs() {
+    long deliveries = deliveredCount.get() + failedDeliveryCount.get();
+    return deliveries == 0 ? 0 : (deliveryTimeMs.get() / deliveries);
+  }
+
   @VisibleForTesting
   void log(long notifSentCount, long remainingNotifCount, long spentTimeInMinutes) {
     LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent",
@@ -26,6 +26,8 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,17 +48,19 @@ public class NotificationService {
 
   private final List<NotificationDispatcher> dispatchers;
   private final DbClient dbClient;
+  private final DefaultNotificationManager manager;
 
-  public NotificationService(DbClient dbClient, NotificationDispatcher[] dispatchers) {
+  public NotificationService(DbClient dbClient, DefaultNotificationManager manager, NotificationDispatcher[] dispatchers) {
     this.dbClient = dbClient;
+    this.manager = manager;
     this.dispatchers = ImmutableList.copyOf(dispatchers);
   }
 
   /**
    * Default constructor when no dispatchers.
    */
-  public NotificationService(DbClient dbClient) {
-    this(dbClient, new NotificationDispatcher[0]);
+  public NotificationService(DbClient dbClient, DefaultNotificationManager manager) {
+    this(dbClient, manager, new NotificationDispatcher[0]);
   }
 
   @VisibleForTesting
@@ -65,7 +69,50 @@ public class NotificationService {
   }
 
   public void deliver(Notification notification) {
-    final SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
+    dispatch(notification, findRecipients(notification));
+  }
+
+  /**
+   * Delivers many notifications at once. Subscribers are loaded only once for all of them, and so are the users
+   * of the channels implementing {@link UserCachingChannel}. This method should be preferred to
+   * {@link #deliver(Notification)} when notifications are sent in bulk.
+   */
+  public void deliver(Collection<? extends Notification> notifications) {
+    List<SetMultimap<String, NotificationChannel>> recipientsOfNotifications = new ArrayList<>(notifications.size());
+    manager.startCachingSubscribers();
+    try {
+      for (Notification notification : notifications) {
+        recipientsOfNotifications.add(findRecipients(notification));
+      }
+    } finally {
+      manager.stopCachingSubscribers();
+    }
+
+    Set<String> logins = new HashSet<>();
+    Set<UserCachingChannel> userCachingChannels = new HashSet<>();
+    for (SetMultimap<String, NotificationChannel> recipients : recipientsOfNotifications) {
+      logins.addAll(recipients.keySet());
+      recipients.values().stream()
+        .filter(UserCachingChannel.class::isInstance)
+        .map(UserCachingChannel.class::cast)
+        .forEach(userCachingChannels::add);
+    }
+    userCachingChannels.forEach(channel -> channel.startCachingUsers(logins));
+    try {
+      Iterator<SetMultimap<String, NotificationChannel>> recipientsIt = recipientsOfNotifications.iterator();
+      for (Notification notification : notifications) {
+        dispatch(notification, recipientsIt.next());
+      }
+    } finally {
+      userCachingChannels.forEach(UserCachingChannel::stopCachingUsers);
+    }
+  }
+
+  /**
+   * Users to be notified of the given notification, with the channels to be used for each of them.
+   */
+  SetMultimap<String, NotificationChannel> findRecipients(Notification notification) {
+    SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
       NotificationDispatcher.Context context = new ContextImpl(recipients);
       try {
@@ -75,7 +122,7 @@ public class NotificationService {
         LOG.warn(String.format("Unable to dispatch notification %s using %s", notification, dispatcher), e);
       }
     }
-    dispatch(notification, recipients);
+    return recipients;
   }
 
   private void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
@@ -19,11 +19,26 @@
  */
 package org.sonar.server.notification.email;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.mail.EmailException;
 import org.apache.commons.mail.SimpleEmail;
+import org.picocontainer.Startable;
 import org.sonar.api.config.EmailSettings;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -34,6 +49,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.plugins.emailnotifications.api.EmailMessage;
 import org.sonar.plugins.emailnotifications.api.EmailTemplate;
+import org.sonar.server.notification.UserCachingChannel;
 
 /**
  * References:
@@ -45,7 +61,7 @@ import org.sonar.plugins.emailnotifications.api.EmailTemplate;
  *
  * @since 2.10
  */
-public class EmailNotificationChannel extends NotificationChannel {
+public class EmailNotificationChannel extends NotificationChannel implements UserCachingChannel, Startable {
 
   private static final Logger LOG = Loggers.get(EmailNotificationChannel.class);
 
@@ -82,19 +98,66 @@ public class EmailNotificationChannel extends NotificationChannel {
   private static final String FROM_NAME_DEFAULT = "SonarQube";
   private static final String SUBJECT_DEFAULT = "Notification";
 
+  /**
+   * SMTP connections which have not been used for longer are closed rather than reused.
+   */
+  private static final long MAX_CONNECTION_IDLE_MS = 30_000L;
+
   private EmailSettings configuration;
   private EmailTemplate[] templates;
   private UserFinder userFinder;
 
+  /**
+   * Notifications are delivered by a few long-lived threads, each of them keeps its connection to the SMTP server
+   * open for the following emails.
+   */
+  private final ThreadLocal<SmtpConnection> threadConnection = new ThreadLocal<>();
+  private final Set<SmtpConnection> openConnections = ConcurrentHashMap.newKeySet();
+  private final AtomicLong openedConnectionCount = new AtomicLong(0);
+
+  /**
+   * Active users by login, loaded at once for a batch of notifications delivered by the current thread
+   */
+  private final ThreadLocal<Map<String, User>> cachedUsers = new ThreadLocal<>();
+
   public EmailNotificationChannel(EmailSettings configuration, EmailTemplate[] templates, UserFinder userFinder) {
     this.configuration = configuration;
     this.templates = templates;
     this.userFinder = userFinder;
   }
 
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    for (SmtpConnection connection : openConnections) {
+      connection.close();
+    }
+    openConnections.clear();
+  }
+
+  @Override
+  public void startCachingUsers(Collection<String> logins) {
+    Map<String, User> usersByLogin = new HashMap<>();
+    for (User user : userFinder.findByLogins(new ArrayList<>(logins))) {
+      if (user.active()) {
+        usersByLogin.put(user.login(), user);
+      }
+    }
+    cachedUsers.set(usersByLogin);
+  }
+
+  @Override
+  public void stopCachingUsers() {
+    cachedUsers.remove();
+  }
+
   @Override
   public void deliver(Notification notification, String username) {
-    User user = userFinder.findByLogin(username);
+    User user = findUser(username);
     if (user == null || StringUtils.isBlank(user.email())) {
       LOG.debug("User does not exist or has no email: {}", username);
       return;
@@ -106,6 +169,15 @@ public class EmailNotificationChannel extends NotificationChannel {
     }
   }
 
+  @CheckForNull
+  private User findUser(String login) {
+    Map<String, User> usersByLogin = cachedUsers.get();
+    if (usersByLogin == null) {
+      return userFinder.findByLogin(login);
+    }
+    return usersByLogin.get(login);
+  }
+
   private EmailMessage format(Notification notification) {
     for (EmailTemplate template : templates) {
       EmailMessage email = template.format(notification);
@@ -126,13 +198,13 @@ public class EmailNotificationChannel extends NotificationChannel {
       return;
     }
     try {
-      send(emailMessage);
+      send(emailMessage, true);
     } catch (EmailException e) {
       LOG.error("Unable to send email", e);
     }
   }
 
-  private void send(EmailMessage emailMessage) throws EmailException {
+  private void send(EmailMessage emailMessage, boolean reuseConnection) throws EmailException {
     // Trick to correctly initialize javax.mail library
     ClassLoader classloader = Thread.currentThread().getContextClassLoader();
     Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
@@ -178,13 +250,80 @@ public class EmailNotificationChannel extends NotificationChannel {
       }
       email.setSocketConnectionTimeout(SOCKET_TIMEOUT);
       email.setSocketTimeout(SOCKET_TIMEOUT);
-      email.send();
+      if (reuseConnection) {
+        sendOnThreadConnection(email);
+      } else {
+        email.send();
+      }
 
     } finally {
       Thread.currentThread().setContextClassLoader(classloader);
     }
   }
 
+  private void sendOnThreadConnection(SimpleEmail email) throws EmailException {
+    email.buildMimeMessage();
+    MimeMessage message = email.getMimeMessage();
+    try {
+      message.saveChanges();
+      SmtpConnection connection = threadConnection(email.getMailSession());
+      try {
+        connection.send(message);
+      } catch (MessagingException e) {
+        if (!connection.isReused() || e instanceof SendFailedException) {
+          throw e;
+        }
+        // the server may have closed the connection since it was last used
+        LOG.debug("Fail to send email on reused SMTP connection, reconnecting", e);
+        closeThreadConnection();
+        threadConnection(email.getMailSession()).send(message);
+      }
+    } catch (MessagingException e) {
+      closeThreadConnection();
+      throw new EmailException(e);
+    }
+  }
+
+  private SmtpConnection threadConnection(Session session) throws MessagingException {
+    String configurationKey = configurationKey();
+    SmtpConnection connection = threadConnection.get();
+    if (connection != null && !connection.isReusable(configurationKey)) {
+      closeThreadConnection();
+      connection = null;
+    }
+    if (connection == null) {
+      Transport transport = session.getTransport();
+      transport.connect();
+      openedConnectionCount.incrementAndGet();
+      connection = new SmtpConnection(configurationKey, transport);
+      threadConnection.set(connection);
+      openConnections.add(connection);
+    }
+    return connection;
+  }
+
+  private void closeThreadConnection() {
+    SmtpConnection connection = threadConnection.get();
+    if (connection != null) {
+      threadConnection.remove();
+      openConnections.remove(connection);
+      connection.close();
+    }
+  }
+
+  /**
+   * Connections are opened again when SMTP settings are changed
+   */
+  private String configurationKey() {
+    return String.join("|", configuration.getSmtpHost(), String.valueOf(configuration.getSmtpPort()), configuration.getSecureConnection(),
+      configuration.getSmtpUsername(), configuration.getSmtpPassword());
+  }
+
+  @VisibleForTesting
+  long getOpenedConnectionCount() {
+    return openedConnectionCount.get();
+  }
+
   private void configureSecureConnection(SimpleEmail email) {
     if (StringUtils.equalsIgnoreCase(configuration.getSecureConnection(), "ssl")) {
       email.setSSLOnConnect(true);
@@ -215,11 +354,44 @@ public class EmailNotificationChannel extends NotificationChannel {
       emailMessage.setTo(toAddress);
       emailMessage.setSubject(subject);
       emailMessage.setMessage(message);
-      send(emailMessage);
+      send(emailMessage, false);
     } catch (EmailException e) {
       LOG.debug("Fail to send test email to: " + toAddress, e);
       throw e;
     }
   }
 
+  private static class SmtpConnection {
+    private final String configurationKey;
+    private final Transport transport;
+    private long lastUsedAt = 0L;
+
+    SmtpConnection(String configurationKey, Transport transport) {
+      this.configurationKey = configurationKey;
+      this.transport = transport;
+    }
+
+    boolean isReused() {
+      return lastUsedAt > 0L;
+    }
+
+    boolean isReusable(String configurationKey) {
+      return this.configurationKey.equals(configurationKey)
+        && System.currentTimeMillis() - lastUsedAt < MAX_CONNECTION_IDLE_MS
+        && transport.isConnected();
+    }
+
+    void send(MimeMessage message) throws MessagingException {
+      transport.sendMessage(message, message.getAllRecipients());
+      lastUsedAt = System.currentTimeMillis();
+    }
+
+    void close() {
+      try {
+        transport.close();
+      } catch (MessagingException e) {
+        LOG.debug("Fail to close SMTP connection", e);
+      }
+    }
+  }
 }
@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.user.AuthorizationCache;
+
+/**
+ * Efficiency of the cache of projects authorized to users
+ */
+public class AuthorizationCacheMonitor implements Monitor {
+
+  private final AuthorizationCache authorizationCache;
+
+  public AuthorizationCacheMonitor(AuthorizationCache authorizationCache) {
+    this.authorizationCache = authorizationCache;
+  }
+
+  @Override
+  public String name() {
+    return "Authorization Cache";
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Entries", authorizationCache.getSize());
+    attributes.put("Cached Project UUIDs", authorizationCache.getWeight());
+    attributes.put("Hits", authorizationCache.getHits());
+    attributes.put("Misses", authorizationCache.getMisses());
+    attributes.put("Hit Ratio", authorizationCache.getHitRatio());
+    return attributes;
+  }
+}
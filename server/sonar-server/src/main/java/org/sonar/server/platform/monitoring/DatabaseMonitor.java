@@ -29,6 +29,7 @@ import org.apache.commons.dbutils.DbUtils;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
 
 /**
@@ -36,6 +37,8 @@ import org.sonar.server.platform.db.migration.version.DatabaseVersion;
  */
 public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitorMBean {
 
+  private static final int TOP_CALLERS = 10;
+
   private final DatabaseVersion dbVersion;
   private final DbClient dbClient;
 
@@ -117,6 +120,36 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     attributes.put("Pool Max Wait (ms)", getPoolMaxWaitMillis());
     attributes.put("Pool Remove Abandoned", getPoolRemoveAbandoned());
     attributes.put("Pool Remove Abandoned Timeout (seconds)", getPoolRemoveAbandonedTimeoutSeconds());
+    attributes.put("Pool Borrows", getPoolBorrowCount());
+    attributes.put("Pool Borrow Wait (ms)", getPoolBorrowWaitMillis());
+    attributes.put("Pool Max Borrow Wait (ms)", getPoolMaxBorrowWaitMillis());
+    attributes.put("Pool Borrow Wait Histogram", poolStatistics().getWaitTimeHistogram());
+    attributes.put("Pool Leaked Connections", getPoolLeakCount());
+    attributes.put("Pool Top Borrowers", poolStatistics().getTopCallers(TOP_CALLERS));
+  }
+
+  @Override
+  public long getPoolBorrowCount() {
+    return poolStatistics().getBorrowCount();
+  }
+
+  @Override
+  public long getPoolBorrowWaitMillis() {
+    return poolStatistics().getTotalWaitTime();
+  }
+
+  @Override
+  public long getPoolMaxBorrowWaitMillis() {
+    return poolStatistics().getMaxWaitTime();
+  }
+
+  @Override
+  public long getPoolLeakCount() {
+    return poolStatistics().getLeakCount();
+  }
+
+  private ConnectionPoolStatistics poolStatistics() {
+    return ConnectionPoolStatistics.of(dbClient.getDatabase().getDataSource());
   }
 
   private BasicDataSource commonsDbcp() {
@@ -68,4 +68,24 @@ public interface DatabaseMonitorMBean {
    * Timeout in seconds before an abandoned connection can be removed.
    */
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  /**
+   * Count of connections borrowed from the pool since startup.
+   */
+  long getPoolBorrowCount();
+
+  /**
+   * Time spent waiting for connections to be borrowed from the pool since startup, in milliseconds.
+   */
+  long getPoolBorrowWaitMillis();
+
+  /**
+   * Longest time spent waiting for a connection to be borrowed from the pool since startup, in milliseconds.
+   */
+  long getPoolMaxBorrowWaitMillis();
+
+  /**
+   * Count of connections held for longer than the leak detection threshold (property sonar.jdbc.leakDetectionThresholdMillis).
+   */
+  long getPoolLeakCount();
 }
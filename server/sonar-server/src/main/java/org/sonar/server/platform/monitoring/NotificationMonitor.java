@@ -0,0 +1,80 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.notification.DefaultNotificationManager;
+import org.sonar.server.notification.NotificationDaemon;
+
+/**
+ * Activity of the daemon delivering notifications
+ */
+public class NotificationMonitor extends BaseMonitorMBean implements NotificationMonitorMBean {
+
+  private final DefaultNotificationManager manager;
+  private final NotificationDaemon daemon;
+
+  public NotificationMonitor(DefaultNotificationManager manager, NotificationDaemon daemon) {
+    this.manager = manager;
+    this.daemon = daemon;
+  }
+
+  @Override
+  public String name() {
+    return "Notifications";
+  }
+
+  @Override
+  public long getQueueSize() {
+    return manager.count();
+  }
+
+  @Override
+  public long getPendingDeliveries() {
+    return daemon.getPendingDeliveries();
+  }
+
+  @Override
+  public long getDeliveredCount() {
+    return daemon.getDeliveredCount();
+  }
+
+  @Override
+  public long getFailedDeliveryCount() {
+    return daemon.getFailedDeliveryCount();
+  }
+
+  @Override
+  public long getAverageDeliveryTimeMs() {
+    return daemon.getAverageDeliveryTimeMs();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Queue Size", getQueueSize());
+    attributes.put("Pending Deliveries", getPendingDeliveries());
+    attributes.put("Delivered", getDeliveredCount());
+    attributes.put("Failed Deliveries", getFailedDeliveryCount());
+    attributes.put("Average Delivery Time (ms)", getAverageDeliveryTimeMs());
+    return attributes;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+public interface NotificationMonitorMBean {
+
+  /**
+   * Number of notifications waiting in the queue to be processed
+   */
+  long getQueueSize();
+
+  /**
+   * Number of deliveries of notifications already removed from the queue, which are not done yet
+   */
+  long getPendingDeliveries();
+
+  /**
+   * Count of notifications delivered to users since startup
+   */
+  long getDeliveredCount();
+
+  /**
+   * Count of deliveries which failed since startup
+   */
+  long getFailedDeliveryCount();
+
+  /**
+   * Average time spent to deliver a notification to a user, in milliseconds
+   */
+  long getAverageDeliveryTimeMs();
+}
@@ -19,8 +19,10 @@
  */
 package org.sonar.server.platform.ws;
 
+import java.util.List;
 import org.sonar.api.utils.text.JsonWriter;
 import org.sonar.server.platform.db.migration.DatabaseMigrationState;
+import org.sonar.server.platform.db.migration.MigrationStepStatistics;
 
 import static org.sonar.server.platform.db.migration.DatabaseMigrationState.Status.RUNNING;
 
@@ -28,6 +30,7 @@ public class DbMigrationJsonWriter {
   static final String FIELD_STATE = "state";
   static final String FIELD_MESSAGE = "message";
   static final String FIELD_STARTED_AT = "startedAt";
+  static final String FIELD_STEPS = "steps";
 
   static final String STATUS_NO_MIGRATION = "NO_MIGRATION";
   static final String STATUS_NOT_SUPPORTED = "NOT_SUPPORTED";
@@ -53,8 +56,25 @@ public class DbMigrationJsonWriter {
     json.beginObject()
       .prop(FIELD_STATE, statusToJson(databaseMigrationState.getStatus()))
       .prop(FIELD_MESSAGE, buildMessage(databaseMigrationState))
-      .propDateTime(FIELD_STARTED_AT, databaseMigrationState.getStartedAt())
-      .endObject();
+      .propDateTime(FIELD_STARTED_AT, databaseMigrationState.getStartedAt());
+    writeSteps(json, databaseMigrationState.getStepStatistics());
+    json.endObject();
+  }
+
+  private static void writeSteps(JsonWriter json, List<MigrationStepStatistics> steps) {
+    if (steps.isEmpty()) {
+      return;
+    }
+    json.name(FIELD_STEPS).beginArray();
+    for (MigrationStepStatistics step : steps) {
+      json.beginObject()
+        .prop("step", step.getStep())
+        .prop("durationMs", step.getDurationMs())
+        .prop("rows", step.getRows())
+        .prop("rowsPerSecond", step.getRowsPerSecond())
+        .endObject();
+    }
+    json.endArray();
   }
 
   static void writeNotSupportedResponse(JsonWriter json) {
@@ -128,6 +148,7 @@ public class DbMigrationJsonWriter {
       "<li>MIGRATION_FAILED: DB migration has run and failed. SonarQube must be restarted in order to retry a " +
       "DB migration (optionally after DB has been restored from backup).</li>" +
       "<li>MIGRATION_REQUIRED: DB migration is required.</li>" +
-      "</ul>";
+      "</ul>" +
+      "Executed migration steps are listed with their duration and, when known, their number of processed rows per second.";
   }
 }
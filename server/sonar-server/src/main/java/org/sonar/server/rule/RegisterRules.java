@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
@@ -62,6 +63,7 @@ import org.sonar.server.rule.index.RuleIndexer;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.intersection;
+import static java.util.stream.Collectors.groupingBy;
 
 /**
  * Register rules at server startup
@@ -95,21 +97,38 @@ public class RegisterRules implements Startable {
     DbSession session = dbClient.openSession(false);
     try {
       Map<RuleKey, RuleDto> allRules = loadRules(session);
+      Map<String, String> registeredHashesByRepository = loadDefinitionHashes(session);
 
       RulesDefinition.Context context = defLoader.load();
-      for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
-        if (languages.get(repoDef.language()) != null) {
-          for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
-            registerRule(ruleDef, allRules, session);
-          }
+      Map<String, List<RulesDefinition.ExtendedRepository>> repositoriesByKey = getRepositories(context)
+        .stream()
+        .filter(repoDef -> languages.get(repoDef.language()) != null)
+        .collect(groupingBy(RulesDefinition.ExtendedRepository::key, LinkedHashMap::new, Collectors.toList()));
+      Map<String, String> hashesByRepository = new HashMap<>();
+      int unchangedRepositories = 0;
+      int skippedRules = 0;
+      for (Map.Entry<String, List<RulesDefinition.ExtendedRepository>> entry : repositoriesByKey.entrySet()) {
+        String hash = RuleRepositoryHash.of(entry.getValue());
+        hashesByRepository.put(entry.getKey(), hash);
+        List<RulesDefinition.Rule> ruleDefs = entry.getValue().stream()
+          .flatMap(repoDef -> repoDef.rules().stream())
+          .collect(Collectors.toList());
+        if (isUnchanged(ruleDefs, hash, registeredHashesByRepository.get(entry.getKey()), allRules)) {
+          // rules of the repository are already up-to-date in db
+          ruleDefs.forEach(ruleDef -> allRules.remove(RuleKey.of(ruleDef.repository().key(), ruleDef.key())));
+          unchangedRepositories++;
+          skippedRules += ruleDefs.size();
+        } else {
+          ruleDefs.forEach(ruleDef -> registerRule(ruleDef, allRules, session));
           session.commit();
         }
       }
+      LOG.info("{} rule repositories are unchanged since last registration, {} rules skipped", unchangedRepositories, skippedRules);
       List<RuleDto> activeRules = processRemainingDbRules(allRules.values(), session);
       List<ActiveRuleChange> changes = removeActiveRulesOnStillExistingRepositories(session, activeRules, context);
       session.commit();
 
-      persistRepositories(session, context.repositories());
+      persistRepositories(session, context.repositories(), hashesByRepository);
       ruleIndexer.index();
       activeRuleIndexer.index(changes);
       profiler.stopDebug();
@@ -118,11 +137,29 @@ public class RegisterRules implements Startable {
     }
   }
 
-  private void persistRepositories(DbSession dbSession, List<RulesDefinition.Repository> repositories) {
+  private Map<String, String> loadDefinitionHashes(DbSession dbSession) {
+    Map<String, String> hashes = new HashMap<>();
+    dbClient.ruleRepositoryDao().selectAll(dbSession)
+      .stream()
+      .filter(dto -> dto.getDefinitionHash() != null)
+      .forEach(dto -> hashes.put(dto.getKey(), dto.getDefinitionHash()));
+    return hashes;
+  }
+
+  /**
+   * The registration of the rules of a repository can be skipped if the definition did not change since
+   * last registration, and if all its rules still exist in db.
+   */
+  private static boolean isUnchanged(List<RulesDefinition.Rule> ruleDefs, String hash, @Nullable String registeredHash, Map<RuleKey, RuleDto> allRules) {
+    return hash.equals(registeredHash) &&
+      ruleDefs.stream().allMatch(ruleDef -> allRules.containsKey(RuleKey.of(ruleDef.repository().key(), ruleDef.key())));
+  }
+
+  private void persistRepositories(DbSession dbSession, List<RulesDefinition.Repository> repositories, Map<String, String> hashesByRepository) {
     dbClient.ruleRepositoryDao().truncate(dbSession);
     List<RuleRepositoryDto> dtos = repositories
       .stream()
-      .map(r -> new RuleRepositoryDto(r.key(), r.language(), r.name()))
+      .map(r -> new RuleRepositoryDto(r.key(), r.language(), r.name()).setDefinitionHash(hashesByRepository.get(r.key())))
       .collect(Collectors.toList(repositories.size()));
     dbClient.ruleRepositoryDao().insert(dbSession, dtos);
     dbSession.commit();
@@ -0,0 +1,101 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonar.api.server.rule.RulesDefinition;
+
+/**
+ * Computes a hash of all the rules declared by a repository and its extensions. Two definitions
+ * having the same hash register the same rules in database, so the registration of a repository can be
+ * skipped at startup if its hash did not change since the last registration.
+ */
+class RuleRepositoryHash {
+
+  private static final byte FIELD_SEPARATOR = 0;
+  private static final byte NULL_FIELD = 1;
+
+  private final MessageDigest digest = DigestUtils.getSha1Digest();
+
+  private RuleRepositoryHash() {
+    // use static method
+  }
+
+  /**
+   * @param repositories the repository and its extensions, all having the same key
+   */
+  static String of(Collection<RulesDefinition.ExtendedRepository> repositories) {
+    RuleRepositoryHash hash = new RuleRepositoryHash();
+    List<RulesDefinition.Rule> rules = new ArrayList<>();
+    repositories.forEach(repository -> {
+      hash.add(repository.key()).add(repository.language());
+      rules.addAll(repository.rules());
+    });
+    rules.sort(Comparator.comparing(RulesDefinition.Rule::key));
+    rules.forEach(hash::add);
+    return Hex.encodeHexString(hash.digest.digest());
+  }
+
+  private void add(RulesDefinition.Rule rule) {
+    add(rule.key())
+      .add(rule.name())
+      .add(rule.internalKey())
+      .add(rule.severity())
+      .add(rule.type().name())
+      .add(rule.status().name())
+      .add(String.valueOf(rule.template()))
+      .add(rule.htmlDescription())
+      .add(rule.markdownDescription())
+      .add(rule.gapDescription())
+      .add(new TreeSet<>(rule.tags()).toString());
+    DebtRemediationFunction function = rule.debtRemediationFunction();
+    if (function == null) {
+      add(null);
+    } else {
+      add(function.type().name()).add(function.gapMultiplier()).add(function.baseEffort());
+    }
+    rule.params().stream()
+      .sorted(Comparator.comparing(RulesDefinition.Param::key))
+      .forEach(param -> add(param.key())
+        .add(param.description())
+        .add(param.defaultValue())
+        .add(param.type().toString()));
+  }
+
+  private RuleRepositoryHash add(@Nullable String field) {
+    if (field == null) {
+      digest.update(NULL_FIELD);
+    } else {
+      digest.update(field.getBytes(StandardCharsets.UTF_8));
+    }
+    digest.update(FIELD_SEPARATOR);
+    return this;
+  }
+}
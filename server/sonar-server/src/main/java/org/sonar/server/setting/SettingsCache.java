@@ -0,0 +1,198 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.setting;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.CheckForNull;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.GlobalPropertyChangeHandler;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.property.PropertyDto;
+
+import static org.apache.commons.lang.StringUtils.defaultString;
+
+/**
+ * Snapshot of the global and component settings stored in the db table "properties", shared by all the threads
+ * of the process.
+ *
+ * <p>
+ * The snapshot is replaced atomically as soon as the version of settings in db changes. This version is read at
+ * most once every {@link #VERSION_CHECK_INTERVAL_MS}, so settings changed by another process (another node of
+ * the cluster for example) are visible after this delay. Changes made by the current process are visible
+ * immediately when {@link #invalidate()} is called or when global settings are changed through
+ * {@link org.sonar.server.platform.SettingsChangeNotifier}.
+ * </p>
+ *
+ * <p>
+ * Component settings are loaded on first request and are kept until next change of version. The number of
+ * components kept in the snapshot is bounded by {@link #MAX_COMPONENTS}.
+ * </p>
+ */
+@ComputeEngineSide
+@ServerSide
+public class SettingsCache extends GlobalPropertyChangeHandler {
+
+  static final long VERSION_CHECK_INTERVAL_MS = 1_000L;
+  static final int MAX_COMPONENTS = 10_000;
+
+  private final DbClient dbClient;
+  private final System2 system2;
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+  private final AtomicLong nextVersionCheck = new AtomicLong(0L);
+  private final AtomicLong hits = new AtomicLong(0L);
+  private final AtomicLong misses = new AtomicLong(0L);
+
+  public SettingsCache(DbClient dbClient, System2 system2) {
+    this.dbClient = dbClient;
+    this.system2 = system2;
+  }
+
+  /**
+   * Global settings, excluding the settings of users. Values are never {@code null}.
+   */
+  public Map<String, String> getGlobalProperties() {
+    Snapshot previous = snapshot.get();
+    Snapshot current = getSnapshot();
+    count(current == previous);
+    return current.globalProperties;
+  }
+
+  /**
+   * Settings defined on the project, module or view with the specified uuid. Settings inherited from
+   * parent modules and global settings are not included.
+   * <p>
+   * Settings are kept by uuid rather than by key, as the key of a component can be updated or reused by
+   * another component.
+   * </p>
+   */
+  public Map<String, String> getComponentProperties(String componentUuid) {
+    Snapshot previous = snapshot.get();
+    Snapshot current = getSnapshot();
+    Map<String, String> properties = current.componentProperties.get(componentUuid);
+    if (properties != null) {
+      count(current == previous);
+      return properties;
+    }
+    count(false);
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      properties = toMap(dbClient.propertiesDao().selectComponentPropertiesByUuid(dbSession, componentUuid));
+    }
+    if (current.componentProperties.size() < MAX_COMPONENTS) {
+      current.componentProperties.putIfAbsent(componentUuid, properties);
+    }
+    return properties;
+  }
+
+  /**
+   * Forces the version of settings to be checked on next read. To be called once the change of
+   * settings is committed.
+   */
+  public void invalidate() {
+    nextVersionCheck.set(0L);
+  }
+
+  @Override
+  public void onChange(PropertyChange change) {
+    invalidate();
+  }
+
+  /**
+   * Version of the current snapshot, {@code null} if settings have not been loaded yet.
+   */
+  @CheckForNull
+  public String getVersion() {
+    Snapshot current = snapshot.get();
+    return current == null ? null : current.version;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Ratio of reads which did not load settings from db, between 0 and 1.
+   */
+  public double getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0d : ((double) h / total);
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot current = snapshot.get();
+    long now = system2.now();
+    long next = nextVersionCheck.get();
+    if (current != null && (now < next || !nextVersionCheck.compareAndSet(next, now + VERSION_CHECK_INTERVAL_MS))) {
+      // snapshot is recent enough or its version is being checked by another thread
+      return current;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      // version is read before settings, so that a change committed in the meantime
+      // is detected by the next check
+      String version = dbClient.propertiesDao().selectSettingsVersion(dbSession);
+      if (current != null && current.version.equals(version)) {
+        return current;
+      }
+      Snapshot loaded = new Snapshot(version, toMap(dbClient.propertiesDao().selectGlobalProperties(dbSession)));
+      snapshot.set(loaded);
+      nextVersionCheck.set(now + VERSION_CHECK_INTERVAL_MS);
+      return loaded;
+    }
+  }
+
+  private void count(boolean hit) {
+    if (hit) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+    }
+  }
+
+  private static Map<String, String> toMap(List<PropertyDto> dtos) {
+    Map<String, String> map = new HashMap<>();
+    dtos.forEach(dto -> map.put(dto.getKey(), defaultString(dto.getValue())));
+    return ImmutableMap.copyOf(map);
+  }
+
+  private static final class Snapshot {
+    private final String version;
+    private final Map<String, String> globalProperties;
+    private final ConcurrentMap<String, Map<String, String>> componentProperties = new ConcurrentHashMap<>();
+
+    private Snapshot(String version, Map<String, String> globalProperties) {
+      this.version = version;
+      this.globalProperties = globalProperties;
+    }
+  }
+}
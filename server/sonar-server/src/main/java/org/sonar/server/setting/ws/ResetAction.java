@@ -34,6 +34,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.setting.SettingsCache;
 import org.sonar.server.setting.ws.SettingValidations.SettingData;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.client.setting.ResetRequest;
@@ -52,15 +53,17 @@ public class ResetAction implements SettingsWsAction {
   private final UserSession userSession;
   private final PropertyDefinitions definitions;
   private final SettingValidations validations;
+  private final SettingsCache settingsCache;
 
   public ResetAction(DbClient dbClient, ComponentFinder componentFinder, SettingsUpdater settingsUpdater, UserSession userSession, PropertyDefinitions definitions,
-    SettingValidations validations) {
+    SettingValidations validations, SettingsCache settingsCache) {
     this.dbClient = dbClient;
     this.settingsUpdater = settingsUpdater;
     this.userSession = userSession;
     this.componentFinder = componentFinder;
     this.definitions = definitions;
     this.validations = validations;
+    this.settingsCache = settingsCache;
   }
 
   @Override
@@ -105,6 +108,7 @@ public class ResetAction implements SettingsWsAction {
         settingsUpdater.deleteGlobalSettings(dbSession, keys);
       }
       dbSession.commit();
+      settingsCache.invalidate();
       response.noContent();
     }
   }
@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Settings;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.source.SourceDictionaries;
+import org.sonar.db.source.SourceDictionary;
+
+import static org.sonar.core.config.CorePropertyDefinitions.SOURCES_DICTIONARY_COMPRESSION;
+
+/**
+ * Dictionaries used to compress sources are stored as internal properties:
+ * <ul>
+ *   <li>{@code srcdict.<language>.<hash>} holds the content of a dictionary, encoded in base64. It never changes.</li>
+ *   <li>{@code srcdict.<language>} holds the key of the dictionary to be used to encode new data of the language.</li>
+ * </ul>
+ * Dictionaries are never deleted, so that data encoded with a previous dictionary can still be read.
+ */
+@ServerSide
+@ComputeEngineSide
+public class SourceDictionaryRepository implements SourceDictionaries {
+
+  private static final String PROPERTY_PREFIX = "srcdict.";
+  private static final int MAX_PROPERTY_KEY_LENGTH = 50;
+
+  private final DbClient dbClient;
+  private final Settings settings;
+  // content of dictionaries never changes, so they can be kept forever
+  private final Map<String, SourceDictionary> dictionariesByKey = new ConcurrentHashMap<>();
+
+  public SourceDictionaryRepository(DbClient dbClient, Settings settings) {
+    this.dbClient = dbClient;
+    this.settings = settings;
+  }
+
+  public boolean isEnabled() {
+    return settings.getBoolean(SOURCES_DICTIONARY_COMPRESSION);
+  }
+
+  @Override
+  @CheckForNull
+  public SourceDictionary get(String key) {
+    SourceDictionary dictionary = dictionariesByKey.get(key);
+    if (dictionary != null) {
+      return dictionary;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      Optional<String> value = dbClient.internalPropertiesDao().selectByKey(dbSession, PROPERTY_PREFIX + key);
+      if (!value.isPresent()) {
+        return null;
+      }
+      dictionary = new SourceDictionary(key.substring(0, key.lastIndexOf('.')), Base64.getDecoder().decode(value.get()));
+      dictionariesByKey.put(key, dictionary);
+      return dictionary;
+    }
+  }
+
+  /**
+   * The dictionary to be used to encode data of the given language.
+   *
+   * @return {@link Optional#empty()} if compression with dictionaries is disabled or if no dictionary has been trained yet for the language
+   */
+  public Optional<SourceDictionary> getCurrent(DbSession dbSession, String language) {
+    if (!isEnabled()) {
+      return Optional.empty();
+    }
+    return dbClient.internalPropertiesDao().selectByKey(dbSession, PROPERTY_PREFIX + language)
+      .map(this::get);
+  }
+
+  /**
+   * Stores the dictionary and makes it the one to be used to encode new data of its language.
+   *
+   * @return {@code false} if the dictionary can't be stored because the key of the language is too long
+   */
+  public boolean setCurrent(DbSession dbSession, SourceDictionary dictionary) {
+    String dictionaryPropertyKey = PROPERTY_PREFIX + dictionary.getKey();
+    if (dictionaryPropertyKey.length() > MAX_PROPERTY_KEY_LENGTH) {
+      return false;
+    }
+    if (!dictionariesByKey.containsKey(dictionary.getKey())) {
+      dbClient.internalPropertiesDao().save(dbSession, dictionaryPropertyKey, Base64.getEncoder().encodeToString(dictionary.getBytes()));
+    }
+    dbClient.internalPropertiesDao().save(dbSession, PROPERTY_PREFIX + dictionary.getLanguage(), dictionary.getKey());
+    dbSession.commit();
+    dictionariesByKey.put(dictionary.getKey(), dictionary);
+    return true;
+  }
+}
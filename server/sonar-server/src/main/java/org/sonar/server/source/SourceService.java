@@ -26,6 +26,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
+import org.sonar.db.source.SourceDictionaries;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -33,10 +34,12 @@ public class SourceService {
 
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
+  private final SourceDictionaries sourceDictionaries;
 
-  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator) {
+  public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator, SourceDictionaries sourceDictionaries) {
     this.dbClient = dbClient;
     this.htmlDecorator = htmlDecorator;
+    this.sourceDictionaries = sourceDictionaries;
   }
 
   /**
@@ -67,7 +70,7 @@ public class SourceService {
     if (dto == null) {
       return Optional.empty();
     }
-    return Optional.of(dto.getSourceData().getLinesList().stream()
+    return Optional.of(dto.getSourceData(sourceDictionaries).getLinesList().stream()
       .filter(line -> line.hasLine() && line.getLine() >= from)
       .limit((toInclusive - from) + 1L)
       .map(function)
@@ -26,6 +26,7 @@ import org.elasticsearch.index.query.QueryBuilders;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.source.SourceDictionaries;
 import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.EsClient;
@@ -44,10 +45,12 @@ import static org.sonar.server.test.index.TestIndexDefinition.TYPE;
 public class TestIndexer extends BaseIndexer implements ProjectIndexer {
 
   private final DbClient dbClient;
+  private final SourceDictionaries sourceDictionaries;
 
-  public TestIndexer(System2 system2, DbClient dbClient, EsClient esClient) {
+  public TestIndexer(System2 system2, DbClient dbClient, EsClient esClient, SourceDictionaries sourceDictionaries) {
     super(system2, esClient, 0L, INDEX, TYPE, FIELD_UPDATED_AT);
     this.dbClient = dbClient;
+    this.sourceDictionaries = sourceDictionaries;
   }
 
   @Override
@@ -84,7 +87,7 @@ public class TestIndexer extends BaseIndexer implements ProjectIndexer {
 
     DbSession dbSession = dbClient.openSession(false);
     try {
-      TestResultSetIterator rowIt = TestResultSetIterator.create(dbClient, dbSession, lastUpdatedAt, projectUuid);
+      TestResultSetIterator rowIt = TestResultSetIterator.create(dbClient, dbSession, lastUpdatedAt, projectUuid, sourceDictionaries);
       long maxUpdatedAt = doIndex(bulk, rowIt);
       rowIt.close();
       return maxUpdatedAt;
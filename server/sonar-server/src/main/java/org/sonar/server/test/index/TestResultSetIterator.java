@@ -38,6 +38,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.ResultSetIterator;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
+import org.sonar.db.source.SourceDictionaries;
 import org.sonar.server.es.EsUtils;
 import org.sonar.server.source.index.FileSourcesUpdaterHelper;
 import org.sonar.server.source.index.FileSourcesUpdaterHelper.Row;
@@ -63,13 +64,17 @@ import static org.sonar.server.test.index.TestIndexDefinition.TYPE;
  */
 public class TestResultSetIterator extends ResultSetIterator<Row> {
 
-  private TestResultSetIterator(PreparedStatement stmt) throws SQLException {
+  private final SourceDictionaries sourceDictionaries;
+
+  private TestResultSetIterator(PreparedStatement stmt, SourceDictionaries sourceDictionaries) throws SQLException {
     super(stmt);
+    this.sourceDictionaries = sourceDictionaries;
   }
 
-  public static TestResultSetIterator create(DbClient dbClient, DbSession session, long afterDate, @Nullable String projectUuid) {
+  public static TestResultSetIterator create(DbClient dbClient, DbSession session, long afterDate, @Nullable String projectUuid, SourceDictionaries sourceDictionaries) {
     try {
-      return new TestResultSetIterator(FileSourcesUpdaterHelper.preparedStatementToSelectFileSources(dbClient, session, FileSourceDto.Type.TEST, afterDate, projectUuid));
+      return new TestResultSetIterator(FileSourcesUpdaterHelper.preparedStatementToSelectFileSources(dbClient, session, FileSourceDto.Type.TEST, afterDate, projectUuid),
+        sourceDictionaries);
     } catch (SQLException e) {
       throw new IllegalStateException("Fail to prepare SQL request to select all tests", e);
     }
@@ -80,15 +85,15 @@ public class TestResultSetIterator extends ResultSetIterator<Row> {
     String projectUuid = rs.getString(1);
     String fileUuid = rs.getString(2);
     Date updatedAt = new Date(rs.getLong(3));
-    List<DbFileSources.Test> tests = parseData(fileUuid, rs.getBinaryStream(4));
+    List<DbFileSources.Test> tests = parseData(fileUuid, rs.getBinaryStream(4), sourceDictionaries);
     return toRow(projectUuid, fileUuid, updatedAt, tests);
   }
 
-  private static List<DbFileSources.Test> parseData(String fileUuid, @Nullable InputStream dataInput) {
+  private static List<DbFileSources.Test> parseData(String fileUuid, @Nullable InputStream dataInput, SourceDictionaries sourceDictionaries) {
     List<DbFileSources.Test> tests = Collections.emptyList();
     if (dataInput != null) {
       try {
-        tests = FileSourceDto.decodeTestData(dataInput);
+        tests = FileSourceDto.decodeTestData(dataInput, sourceDictionaries);
       } catch (Exception e) {
         Loggers.get(TestResultSetIterator.class).warn(String.format("Invalid file_sources.binary_data on row with file_uuid='%s', test file will be ignored", fileUuid), e);
       }
@@ -0,0 +1,237 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+
+/**
+ * Root projects on which a user has a permission, shared by the sessions of all the web requests.
+ *
+ * <p>
+ * Entries are identified by the user, the groups of the user and the permission, so that changes of group
+ * membership do not require invalidation. Changes of permissions made by the current process must call
+ * {@link #invalidate()} once committed. Changes made by other nodes of the cluster are taken into account
+ * when entries expire, after {@link #TIME_TO_LIVE_MS}.
+ * </p>
+ *
+ * <p>
+ * Memory is bounded by the total number of project uuids kept in cache ({@link #MAX_WEIGHT}). Entries are split
+ * into {@link #SHARDS} shards, each one evicting its least recently used entries, in order to reduce contention.
+ * </p>
+ */
+@ServerSide
+public class AuthorizationCache {
+
+  static final int SHARDS = 16;
+  static final int MAX_WEIGHT = 500_000;
+  static final long TIME_TO_LIVE_MS = 60_000L;
+
+  private final DbClient dbClient;
+  private final System2 system2;
+  private final Shard[] shards = new Shard[SHARDS];
+  private final AtomicLong version = new AtomicLong(0L);
+  private final AtomicLong hits = new AtomicLong(0L);
+  private final AtomicLong misses = new AtomicLong(0L);
+
+  public AuthorizationCache(DbClient dbClient, System2 system2) {
+    this.dbClient = dbClient;
+    this.system2 = system2;
+    for (int i = 0; i < SHARDS; i++) {
+      shards[i] = new Shard(MAX_WEIGHT / SHARDS);
+    }
+  }
+
+  /**
+   * Uuids of the root projects on which the user, or anonymous if {@code userId} is {@code null}, has
+   * the specified permission.
+   */
+  public Set<String> getAuthorizedProjectUuids(@Nullable Integer userId, Collection<Long> groupIds, String permission) {
+    Key key = new Key(userId, groupIds, permission);
+    Shard shard = shards[Math.floorMod(key.hashCode(), SHARDS)];
+    long currentVersion = version.get();
+    long now = system2.now();
+    Entry entry = shard.get(key);
+    if (entry != null && entry.version == currentVersion && now < entry.loadedAt + TIME_TO_LIVE_MS) {
+      hits.incrementAndGet();
+      return entry.projectUuids;
+    }
+    misses.incrementAndGet();
+    Set<String> projectUuids;
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      projectUuids = ImmutableSet.copyOf(dbClient.authorizationDao().selectAuthorizedRootProjectsUuids(dbSession, userId, permission));
+    }
+    // version read before loading: entry is considered as stale if permissions
+    // have been changed in the meantime
+    shard.put(key, new Entry(currentVersion, now, projectUuids));
+    return projectUuids;
+  }
+
+  /**
+   * Drops all the entries. To be called once changes of permissions are committed.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+    for (Shard shard : shards) {
+      shard.clear();
+    }
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * Ratio of lookups which did not request db, between 0 and 1.
+   */
+  public double getHitRatio() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0d : ((double) h / total);
+  }
+
+  public int getSize() {
+    int size = 0;
+    for (Shard shard : shards) {
+      size += shard.size();
+    }
+    return size;
+  }
+
+  /**
+   * Number of project uuids kept in cache, all entries included
+   */
+  public int getWeight() {
+    int weight = 0;
+    for (Shard shard : shards) {
+      weight += shard.weight();
+    }
+    return weight;
+  }
+
+  private static final class Shard {
+    private final int maxWeight;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int weight = 0;
+
+    private Shard(int maxWeight) {
+      this.maxWeight = maxWeight;
+    }
+
+    @CheckForNull
+    synchronized Entry get(Key key) {
+      return entries.get(key);
+    }
+
+    synchronized void put(Key key, Entry entry) {
+      if (entry.weight > maxWeight) {
+        return;
+      }
+      Entry previous = entries.put(key, entry);
+      if (previous != null) {
+        weight -= previous.weight;
+      }
+      weight += entry.weight;
+      Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+      while (weight > maxWeight && leastRecentlyUsed.hasNext()) {
+        weight -= leastRecentlyUsed.next().weight;
+        leastRecentlyUsed.remove();
+      }
+    }
+
+    synchronized void clear() {
+      entries.clear();
+      weight = 0;
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+
+    synchronized int weight() {
+      return weight;
+    }
+  }
+
+  @Immutable
+  private static final class Key {
+    @Nullable
+    private final Integer userId;
+    private final long[] groupIds;
+    private final String permission;
+    private final int hashCode;
+
+    private Key(@Nullable Integer userId, Collection<Long> groupIds, String permission) {
+      this.userId = userId;
+      this.groupIds = groupIds.stream().mapToLong(Long::longValue).sorted().toArray();
+      this.permission = permission;
+      this.hashCode = Objects.hash(userId, Arrays.hashCode(this.groupIds), permission);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Objects.equals(userId, other.userId) && Arrays.equals(groupIds, other.groupIds) && permission.equals(other.permission);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  @Immutable
+  private static final class Entry {
+    private final long version;
+    private final long loadedAt;
+    private final Set<String> projectUuids;
+    private final int weight;
+
+    private Entry(long version, long loadedAt, Set<String> projectUuids) {
+      this.version = version;
+      this.loadedAt = loadedAt;
+      this.projectUuids = projectUuids;
+      this.weight = Math.max(1, projectUuids.size());
+    }
+  }
+}
@@ -23,7 +23,6 @@ import java.util.Iterator;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
 import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.EsClient;
@@ -42,14 +41,8 @@ public class UserIndexer extends BaseIndexer {
     final BulkIndexer bulk = new BulkIndexer(esClient, UserIndexDefinition.INDEX);
     bulk.setLarge(lastUpdatedAt == 0L);
 
-    DbSession dbSession = dbClient.openSession(false);
-    try {
-      UserResultSetIterator rowIt = UserResultSetIterator.create(dbClient, dbSession, lastUpdatedAt);
-      long maxUpdatedAt = doIndex(bulk, rowIt);
-      rowIt.close();
-      return maxUpdatedAt;
-    } finally {
-      dbSession.close();
+    try (UserResultSetIterator rowIt = UserResultSetIterator.create(dbClient, lastUpdatedAt)) {
+      return doIndex(bulk, rowIt);
     }
   }
 
@@ -20,19 +20,22 @@
 package org.sonar.server.user.index;
 
 import com.google.common.collect.Maps;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
-import org.sonar.db.ResultSetIterator;
+import org.sonar.db.KeysetPaginatedIterator;
 import org.sonar.db.user.UserDto;
 
 /**
- * Scrolls over table USERS and reads documents to populate the user index
+ * Scrolls over table USERS, by pages ordered by login, and reads documents to populate the user index
  */
-class UserResultSetIterator extends ResultSetIterator<UserDoc> {
+class UserResultSetIterator extends KeysetPaginatedIterator<UserDoc> {
 
   private static final String[] FIELDS = {
     // column 1
@@ -47,23 +50,45 @@ class UserResultSetIterator extends ResultSetIterator<UserDoc> {
 
   private static final String SQL_ALL = "select " + StringUtils.join(FIELDS, ",") + " from users u ";
 
-  private static final String SQL_AFTER_DATE = SQL_ALL + " where u.updated_at>?";
+  private final long afterDate;
 
-  private UserResultSetIterator(PreparedStatement stmt) throws SQLException {
-    super(stmt);
+  private UserResultSetIterator(DbClient dbClient, long afterDate) {
+    super(dbClient.getDatabase(), DEFAULT_PAGE_SIZE, null);
+    this.afterDate = afterDate;
   }
 
-  static UserResultSetIterator create(DbClient dbClient, DbSession session, long afterDate) {
-    try {
-      String sql = afterDate > 0L ? SQL_AFTER_DATE : SQL_ALL;
-      PreparedStatement stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, sql);
-      if (afterDate > 0L) {
-        stmt.setLong(1, afterDate);
-      }
-      return new UserResultSetIterator(stmt);
-    } catch (SQLException e) {
-      throw new IllegalStateException("Fail to prepare SQL request to select all users", e);
+  static UserResultSetIterator create(DbClient dbClient, long afterDate) {
+    return new UserResultSetIterator(dbClient, afterDate);
+  }
+
+  @Override
+  protected PreparedStatement prepareStatement(Connection connection, @Nullable String afterLogin) throws SQLException {
+    List<String> conditions = new ArrayList<>(2);
+    if (afterDate > 0L) {
+      conditions.add("u.updated_at>?");
+    }
+    if (afterLogin != null) {
+      conditions.add("u.login>?");
+    }
+    String sql = SQL_ALL;
+    if (!conditions.isEmpty()) {
+      sql += " where " + String.join(" and ", conditions);
     }
+    PreparedStatement stmt = connection.prepareStatement(sql + " order by u.login");
+    int index = 1;
+    if (afterDate > 0L) {
+      stmt.setLong(index, afterDate);
+      index++;
+    }
+    if (afterLogin != null) {
+      stmt.setString(index, afterLogin);
+    }
+    return stmt;
+  }
+
+  @Override
+  protected String readKey(ResultSet rs) throws SQLException {
+    return rs.getString(1);
   }
 
   @Override
@@ -0,0 +1,177 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.FileUtils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cache of values which are kept in memory as long as their total weight does not exceed
+ * a given budget. The values put beyond the budget are serialized into a file, which is only
+ * appended to, and an index of their positions is kept in memory.
+ * <br/>
+ * Values are read only once: {@link #remove(Object)} releases the memory of the value.
+ * Note that space of the file is not reclaimed.
+ */
+public class SpillingCache<K, V extends Serializable> implements AutoCloseable {
+
+  private final File file;
+  private final long memoryBudget;
+  private final ToLongFunction<V> weigher;
+  private final Map<K, V> inMemory = new HashMap<>();
+  private final Map<K, Segment> onDisk = new HashMap<>();
+  private long memoryWeight = 0L;
+  private RandomAccessFile randomAccessFile;
+
+  /**
+   * @param file the file where values are spilled. It is overwritten.
+   * @param memoryBudget maximum total weight of the values kept in memory
+   * @param weigher computes the weight of a value, for example the number of elements of a collection
+   */
+  public SpillingCache(File file, long memoryBudget, ToLongFunction<V> weigher) {
+    checkArgument(memoryBudget >= 0, "Memory budget must be positive or zero");
+    this.file = file;
+    this.memoryBudget = memoryBudget;
+    this.weigher = weigher;
+  }
+
+  public SpillingCache<K, V> put(K key, V value) {
+    checkArgument(!inMemory.containsKey(key) && !onDisk.containsKey(key), "Key %s is already in cache", key);
+    long weight = weigher.applyAsLong(value);
+    if (memoryWeight + weight <= memoryBudget) {
+      inMemory.put(key, value);
+      memoryWeight += weight;
+    } else {
+      onDisk.put(key, write(value));
+    }
+    return this;
+  }
+
+  /**
+   * Removes the value associated to the key and returns it, or {@code null} if
+   * the key is unknown.
+   */
+  @CheckForNull
+  public V remove(K key) {
+    V value = inMemory.remove(key);
+    if (value != null) {
+      memoryWeight -= weigher.applyAsLong(value);
+      return value;
+    }
+    Segment segment = onDisk.remove(key);
+    if (segment != null) {
+      return read(segment);
+    }
+    return null;
+  }
+
+  public boolean isEmpty() {
+    return inMemory.isEmpty() && onDisk.isEmpty();
+  }
+
+  /**
+   * Number of values which are currently stored in the file
+   */
+  public int spilledSize() {
+    return onDisk.size();
+  }
+
+  /**
+   * Clears the cache, then closes and deletes the file
+   */
+  @Override
+  public void close() {
+    inMemory.clear();
+    onDisk.clear();
+    memoryWeight = 0L;
+    if (randomAccessFile != null) {
+      try {
+        randomAccessFile.close();
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to close file " + file, e);
+      } finally {
+        randomAccessFile = null;
+      }
+    }
+    FileUtils.deleteQuietly(file);
+  }
+
+  private Segment write(V value) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+        objectOutput.writeObject(value);
+      }
+      RandomAccessFile spillFile = openFile();
+      long offset = spillFile.length();
+      spillFile.seek(offset);
+      spillFile.write(bytes.toByteArray());
+      return new Segment(offset, bytes.size());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write into file " + file, e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private V read(Segment segment) {
+    try {
+      byte[] bytes = new byte[segment.length];
+      RandomAccessFile spillFile = openFile();
+      spillFile.seek(segment.offset);
+      spillFile.readFully(bytes);
+      try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+        return (V) objectInput.readObject();
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to read file " + file, e);
+    }
+  }
+
+  private RandomAccessFile openFile() throws IOException {
+    if (randomAccessFile == null) {
+      randomAccessFile = new RandomAccessFile(file, "rw");
+      randomAccessFile.setLength(0L);
+    }
+    return randomAccessFile;
+  }
+
+  private static class Segment {
+    private final long offset;
+    private final int length;
+
+    private Segment(long offset, int length) {
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
@@ -36,6 +36,7 @@ import org.sonar.api.server.ws.internal.ValidatingRequest;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.db.profiling.ConnectionCaller;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.Errors;
 import org.sonar.server.exceptions.Message;
@@ -91,10 +92,12 @@ public class WebServiceEngine implements LocalConnector, Startable {
   }
 
   public void execute(Request request, Response response) {
+    String previousConnectionCaller = ConnectionCaller.get();
     try {
       ActionExtractor actionExtractor = new ActionExtractor(request.getPath());
       WebService.Action action = getAction(actionExtractor);
       checkFound(action, "Unknown url : %s", request.getPath());
+      ConnectionCaller.set(action.path());
       if (request instanceof ValidatingRequest) {
         ((ValidatingRequest) request).setAction(action);
         ((ValidatingRequest) request).setLocalConnector(this);
@@ -119,6 +122,8 @@ public class WebServiceEngine implements LocalConnector, Startable {
       // Sending exception message into response is a vulnerability. Error must be
       // displayed only in logs.
       sendErrors(response, 500, new Errors().add(Message.of("An error has occurred. Please contact your administrator")));
+    } finally {
+      ConnectionCaller.set(previousConnectionCaller);
     }
   }
 
@@ -37,6 +37,7 @@ import org.sonar.scanner.protocol.input.ProjectRepositories;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.setting.SettingsCache;
 import org.sonar.server.tester.UserSessionRule;
 
 import static java.lang.String.format;
@@ -54,7 +55,7 @@ public class ProjectDataLoaderTest {
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession dbSession = dbTester.getSession();
 
-  private ProjectDataLoader underTest = new ProjectDataLoader(dbClient, userSession);
+  private ProjectDataLoader underTest = new ProjectDataLoader(dbClient, userSession, new SettingsCache(dbClient, System2.INSTANCE));
 
   @After
   public void tearDown() throws Exception {
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.component.index;
 
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -35,6 +36,9 @@ import org.sonar.db.organization.OrganizationTesting;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 import static org.sonar.server.component.index.ComponentIndexDefinition.FIELD_NAME;
@@ -143,6 +147,65 @@ public class ComponentIndexerTest {
     assertMatches("NewFile", 1);
   }
 
+  @Test
+  public void index_only_changed_and_removed_components() {
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto file1 = dbTester.components().insertComponent(ComponentTesting.newFileDto(project).setName("OldFile"));
+    ComponentDto file2 = dbTester.components().insertComponent(ComponentTesting.newFileDto(project).setName("RemovedFile"));
+    ComponentDto unchangedFile = dbTester.components().insertComponent(ComponentTesting.newFileDto(project).setName("UnchangedFile"));
+    index(project);
+    assertThat(count()).isEqualTo(4);
+
+    file1.setName("NewFile");
+    update(file1);
+    file2.setEnabled(false);
+    update(file2);
+    ComponentDto file3 = dbTester.components().insertComponent(ComponentTesting.newFileDto(project).setName("AddedFile"));
+
+    createIndexer().indexAnalysis(project.uuid(), asList(file1.uuid(), file3.uuid()), singletonList(file2.uuid()));
+
+    assertThat(count()).isEqualTo(4);
+    assertMatches("OldFile", 0);
+    assertMatches("NewFile", 1);
+    assertMatches("RemovedFile", 0);
+    assertMatches("AddedFile", 1);
+    assertMatches("UnchangedFile", 1);
+    assertConsistentWithFullIndexing(project);
+  }
+
+  @Test
+  public void remove_document_of_changed_component_which_is_disabled() {
+    ComponentDto project = dbTester.components().insertProject();
+    ComponentDto file = dbTester.components().insertComponent(ComponentTesting.newFileDto(project).setName("DisabledFile"));
+    index(project);
+
+    file.setEnabled(false);
+    update(file);
+    createIndexer().indexAnalysis(project.uuid(), singletonList(file.uuid()), emptyList());
+
+    assertMatches("DisabledFile", 0);
+    assertConsistentWithFullIndexing(project);
+  }
+
+  @Test
+  public void index_analysis_does_nothing_if_no_changes() {
+    ComponentDto project = dbTester.components().insertProject();
+    dbTester.components().insertComponent(ComponentTesting.newFileDto(project));
+
+    createIndexer().indexAnalysis(project.uuid(), emptyList(), emptyList());
+
+    assertThat(count()).isZero();
+  }
+
+  /**
+   * Verifies that the documents of the project are the same as the ones of a full re-indexing of the project
+   */
+  private void assertConsistentWithFullIndexing(ComponentDto project) {
+    List<String> incrementalIds = esTester.getIds(INDEX_COMPONENTS, TYPE_COMPONENT);
+    createIndexer().indexProject(project.uuid(), ProjectIndexer.Cause.NEW_ANALYSIS);
+    assertThat(esTester.getIds(INDEX_COMPONENTS, TYPE_COMPONENT)).containsOnlyElementsOf(incrementalIds).hasSameSizeAs(incrementalIds);
+  }
+
   private void insert(ComponentDto component) {
     dbTester.components().insertComponent(component);
   }
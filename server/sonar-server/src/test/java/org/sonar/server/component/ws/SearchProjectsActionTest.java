@@ -23,6 +23,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
@@ -358,6 +359,27 @@ public class SearchProjectsActionTest {
     call(request);
   }
 
+  @Test
+  public void sort_by_metric_value() {
+    OrganizationDto organization = db.organizations().insert();
+    insertProjectInDbAndEs(newProjectDto(organization).setName("Sonar Java"), newArrayList(newMeasure(COVERAGE, 81), newMeasure(NCLOC, 5d)));
+    insertProjectInDbAndEs(newProjectDto(organization).setName("Sonar Groovy"), newArrayList(newMeasure(COVERAGE, 10), newMeasure(NCLOC, 5d)));
+    insertProjectInDbAndEs(newProjectDto(organization).setName("Sonar Markdown"), newArrayList(newMeasure(NCLOC, 10_000d)));
+    insertMetrics(COVERAGE, NCLOC);
+
+    SearchProjectsWsResponse result = call(request.setSort(COVERAGE).setAsc(false));
+
+    assertThat(result.getComponentsList()).extracting(Component::getName).containsExactly("Sonar Java", "Sonar Groovy", "Sonar Markdown");
+  }
+
+  @Test
+  public void fail_to_sort_by_unknown_metric() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unknown metric(s) [unknown]");
+
+    call(request.setSort("unknown"));
+  }
+
   @Test
   public void fail_if_page_size_greater_than_500() {
     expectedException.expect(IllegalArgumentException.class);
@@ -381,6 +403,14 @@ public class SearchProjectsActionTest {
       httpRequest.setParam(PARAM_FILTER, filter);
     }
     httpRequest.setParam(Param.FACETS, Joiner.on(",").join(wsRequest.getFacets()));
+    String sort = wsRequest.getSort();
+    if (sort != null) {
+      httpRequest.setParam(Param.SORT, sort);
+    }
+    Boolean asc = wsRequest.getAsc();
+    if (asc != null) {
+      httpRequest.setParam(Param.ASCENDING, asc.toString());
+    }
 
     try {
       return SearchProjectsWsResponse.parseFrom(httpRequest.execute().getInputStream());
@@ -396,8 +426,10 @@ public class SearchProjectsActionTest {
   private ComponentDto insertProjectInDbAndEs(ComponentDto project, List<Map<String, Object>> measures) {
     ComponentDto res = componentDb.insertComponent(project);
     try {
+      Map<String, Double> measuresByMetricKey = new HashMap<>();
+      measures.forEach(measure -> measuresByMetricKey.put((String) measure.get("key"), (Double) measure.get("value")));
       es.putDocuments(INDEX_PROJECT_MEASURES, TYPE_PROJECT_MEASURE,
-        new ProjectMeasuresDoc().setId(project.uuid()).setKey(project.key()).setName(project.name()).setMeasures(measures));
+        new ProjectMeasuresDoc().setId(project.uuid()).setKey(project.key()).setName(project.name()).setMeasures(measuresByMetricKey));
       authorizationIndexerTester.allowOnlyAnyone(project);
     } catch (Exception e) {
       Throwables.propagate(e);
@@ -35,6 +35,7 @@ import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.db.purge.period.DefaultPeriodCleaner;
 
 import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
@@ -42,6 +43,8 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 public class ProjectCleanerTest {
 
@@ -61,7 +64,7 @@ public class ProjectCleanerTest {
   public void no_profiling_when_property_is_false() {
     settings.setProperty(CoreProperties.PROFILING_LOG_PROPERTY, false);
 
-    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
+    underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings);
 
     verify(profiler, never()).dump(anyLong(), any(Logger.class));
   }
@@ -70,35 +73,56 @@ public class ProjectCleanerTest {
   public void profiling_when_property_is_true() {
     settings.setProperty(CoreProperties.PROFILING_LOG_PROPERTY, true);
 
-    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
+    underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings);
 
     verify(profiler).dump(anyLong(), any(Logger.class));
   }
 
   @Test
-  public void call_period_cleaner_index_client_and_purge_dao() {
-    settings.setProperty(PurgeConstants.DAYS_BEFORE_DELETING_CLOSED_ISSUES, 5);
+  public void purge_only_leftovers_of_analysis() {
+    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
+
+    verify(dao).purgeAnalysisLeftovers(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verifyNoMoreInteractions(dao, periodCleaner);
+  }
+
+  @Test
+  public void if_dao_purge_of_analysis_leftovers_fails_it_should_not_interrupt_program_execution() {
+    doThrow(RuntimeException.class).when(dao).purgeAnalysisLeftovers(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class),
+      any(PurgeProfiler.class));
 
     underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
 
+    verify(dao).purgeAnalysisLeftovers(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+  }
+
+  @Test
+  public void purge_history_calls_period_cleaner_and_purge_dao() {
+    settings.setProperty(PurgeConstants.DAYS_BEFORE_DELETING_CLOSED_ISSUES, 5);
+    when(dao.purgeHistory(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class))).thenReturn(3);
+
+    int purged = underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings);
+
+    assertThat(purged).isEqualTo(3);
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
-    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    verify(dao).purgeHistory(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
   }
 
   @Test
   public void if_dao_purge_fails_it_should_not_interrupt_program_execution() {
-    doThrow(RuntimeException.class).when(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    doThrow(RuntimeException.class).when(dao).purgeHistory(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
 
-    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
+    int purged = underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings);
 
-    verify(dao).purge(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
+    assertThat(purged).isZero();
+    verify(dao).purgeHistory(any(DbSession.class), any(PurgeConfiguration.class), any(PurgeListener.class), any(PurgeProfiler.class));
   }
 
   @Test
   public void if_profiler_cleaning_fails_it_should_not_interrupt_program_execution() {
     doThrow(RuntimeException.class).when(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
 
-    underTest.purge(mock(DbSession.class), mock(IdUuidPair.class), settings, emptyList());
+    underTest.purgeHistory(mock(DbSession.class), mock(IdUuidPair.class), settings);
 
     verify(periodCleaner).clean(any(DbSession.class), anyString(), any(Settings.class));
   }
@@ -0,0 +1,165 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.dbcleaner;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.settings.ProjectSettingsFactory;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.purge.IdUuidPair;
+import org.sonar.server.computation.monitoring.ProjectPurgeMBeanImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.component.SnapshotTesting.newAnalysis;
+
+public class ProjectPurgeSchedulerTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ProjectPurgeExecutorService executorService = mock(ProjectPurgeExecutorService.class);
+  private ProjectCleaner projectCleaner = mock(ProjectCleaner.class);
+  private ProjectSettingsFactory projectSettingsFactory = mock(ProjectSettingsFactory.class);
+  private ProjectPurgeMBeanImpl purgeStatus = new ProjectPurgeMBeanImpl();
+  private Settings settings = new MapSettings();
+
+  private ProjectPurgeScheduler underTest = new ProjectPurgeScheduler(executorService, db.getDbClient(), projectCleaner, projectSettingsFactory,
+    purgeStatus, new MapSettings(), System2.INSTANCE);
+
+  @Test
+  public void start_schedules_purge_with_default_delay() {
+    underTest.start();
+
+    verify(executorService).scheduleWithFixedDelay(any(Runnable.class), eq(60L), eq(10L), eq(TimeUnit.SECONDS));
+    assertThat(purgeStatus.getDelayBetweenPurges()).isEqualTo(10L);
+  }
+
+  @Test
+  public void start_schedules_purge_with_configured_delay() {
+    Settings globalSettings = new MapSettings().setProperty(ProjectPurgeScheduler.DELAY_PROPERTY, "120");
+
+    new ProjectPurgeScheduler(executorService, db.getDbClient(), projectCleaner, projectSettingsFactory, purgeStatus, globalSettings, System2.INSTANCE).start();
+
+    verify(executorService).scheduleWithFixedDelay(any(Runnable.class), eq(60L), eq(120L), eq(TimeUnit.SECONDS));
+    assertThat(purgeStatus.getDelayBetweenPurges()).isEqualTo(120L);
+  }
+
+  @Test
+  public void fail_if_configured_delay_is_not_strictly_positive() {
+    Settings globalSettings = new MapSettings().setProperty(ProjectPurgeScheduler.DELAY_PROPERTY, "0");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value '0' of property sonar.ce.purge.delayInSeconds is invalid. It must be an integer strictly greater than 0.");
+
+    new ProjectPurgeScheduler(executorService, db.getDbClient(), projectCleaner, projectSettingsFactory, purgeStatus, globalSettings, System2.INSTANCE);
+  }
+
+  @Test
+  public void fail_if_configured_delay_is_not_a_number() {
+    Settings globalSettings = new MapSettings().setProperty(ProjectPurgeScheduler.DELAY_PROPERTY, "ten");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value 'ten' of property sonar.ce.purge.delayInSeconds is invalid");
+
+    new ProjectPurgeScheduler(executorService, db.getDbClient(), projectCleaner, projectSettingsFactory, purgeStatus, globalSettings, System2.INSTANCE);
+  }
+
+  @Test
+  public void do_nothing_when_no_project_is_waiting_for_purge() {
+    ComponentDto project = db.components().insertProject();
+    db.components().insertSnapshot(newAnalysis(project));
+
+    underTest.purgeNextProject();
+
+    verifyZeroInteractions(projectCleaner);
+    assertThat(purgeStatus.getPendingProjectCount()).isZero();
+    assertThat(purgeStatus.getPendingAnalysisCount()).isZero();
+  }
+
+  @Test
+  public void purge_history_of_a_single_project_waiting_for_purge() {
+    ComponentDto project1 = insertProjectWithAnalysesToPurge("P1");
+    insertProjectWithAnalysesToPurge("P2");
+    when(projectSettingsFactory.newProjectSettings(project1.uuid())).thenReturn(settings);
+    when(projectCleaner.purgeHistory(any(DbSession.class), any(IdUuidPair.class), eq(settings))).thenReturn(1);
+
+    underTest.purgeNextProject();
+
+    ArgumentCaptor<IdUuidPair> idUuidPair = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(projectCleaner).purgeHistory(any(DbSession.class), idUuidPair.capture(), any(Settings.class));
+    assertThat(idUuidPair.getValue().getUuid()).isEqualTo(project1.uuid());
+    assertThat(idUuidPair.getValue().getId()).isEqualTo(project1.getId());
+    assertThat(purgeStatus.getPendingProjectCount()).isEqualTo(2);
+    assertThat(purgeStatus.getPendingAnalysisCount()).isEqualTo(2);
+    assertThat(purgeStatus.getPurgedProjectCount()).isEqualTo(1);
+    assertThat(purgeStatus.getPurgedAnalysisCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void projects_are_purged_in_turn() {
+    ComponentDto project1 = insertProjectWithAnalysesToPurge("P1");
+    ComponentDto project2 = insertProjectWithAnalysesToPurge("P2");
+    when(projectSettingsFactory.newProjectSettings(any(String.class))).thenReturn(settings);
+
+    // purge is mocked, so projects are still waiting for purge after each execution
+    underTest.purgeNextProject();
+    underTest.purgeNextProject();
+    underTest.purgeNextProject();
+
+    ArgumentCaptor<IdUuidPair> idUuidPair = ArgumentCaptor.forClass(IdUuidPair.class);
+    verify(projectCleaner, times(3)).purgeHistory(any(DbSession.class), idUuidPair.capture(), any(Settings.class));
+    assertThat(idUuidPair.getAllValues()).extracting(IdUuidPair::getUuid).containsExactly(project1.uuid(), project2.uuid(), project1.uuid());
+  }
+
+  @Test
+  public void failure_does_not_propagate() {
+    insertProjectWithAnalysesToPurge("P1");
+    when(projectSettingsFactory.newProjectSettings(any(String.class))).thenThrow(new IllegalStateException("Faking failure"));
+
+    underTest.purgeNextProject();
+
+    assertThat(purgeStatus.getPurgedProjectCount()).isZero();
+  }
+
+  private ComponentDto insertProjectWithAnalysesToPurge(String uuid) {
+    ComponentDto project = db.components().insertProject(db.getDefaultOrganization(), uuid);
+    db.components().insertSnapshot(newAnalysis(project));
+    db.components().insertSnapshot(newAnalysis(project).setLast(false));
+    return project;
+  }
+}
@@ -54,7 +54,7 @@ public class CeDatabaseMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Database Connection");
-    assertThat(section.getAttributesCount()).isEqualTo(9);
+    assertThat(section.getAttributesCount()).isEqualTo(15);
     assertThat(section.getAttributes(0).getKey()).isEqualTo("Pool Initial Size");
     assertThat(section.getAttributes(0).getLongValue()).isGreaterThanOrEqualTo(0);
   }
@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.lang.management.ManagementFactory;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectPurgeMBeanImplTest {
+
+  private ProjectPurgeMBeanImpl underTest = new ProjectPurgeMBeanImpl();
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @Test
+  public void pending_counts_are_replaced() {
+    underTest.setPending(3, 10);
+    underTest.setPending(2, 7);
+
+    assertThat(underTest.getPendingProjectCount()).isEqualTo(2);
+    assertThat(underTest.getPendingAnalysisCount()).isEqualTo(7);
+  }
+
+  @Test
+  public void purged_counts_are_cumulated() {
+    assertThat(underTest.getAnalysisPurgeRate()).isZero();
+
+    underTest.addPurgedProject(10, 500);
+    underTest.addPurgedProject(30, 1500);
+
+    assertThat(underTest.getPurgedProjectCount()).isEqualTo(2);
+    assertThat(underTest.getPurgedAnalysisCount()).isEqualTo(40);
+    assertThat(underTest.getPurgeTime()).isEqualTo(2000);
+    assertThat(underTest.getAnalysisPurgeRate()).isEqualTo(20.0);
+  }
+
+  @Test
+  public void export_system_info() {
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+    assertThat(section.getName()).isEqualTo("Compute Engine Project Purge");
+    assertThat(section.getAttributesCount()).isEqualTo(7);
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(ProjectPurgeMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.monitoring;
+
+import java.lang.management.ManagementFactory;
+import javax.annotation.CheckForNull;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import org.junit.Test;
+import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WebhookDeliveryMBeanImplTest {
+
+  private WebhookDeliveryMBeanImpl underTest = new WebhookDeliveryMBeanImpl();
+
+  @Test
+  public void register_and_unregister() throws Exception {
+    assertThat(getMBean()).isNull();
+
+    underTest.start();
+    assertThat(getMBean()).isNotNull();
+
+    underTest.stop();
+    assertThat(getMBean()).isNull();
+  }
+
+  @Test
+  public void pending_count_is_incremented_and_decremented() {
+    underTest.addPending();
+    underTest.addPending();
+    underTest.removePending();
+
+    assertThat(underTest.getPendingCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void counts_are_cumulated() {
+    assertThat(underTest.getFailureRate()).isZero();
+    assertThat(underTest.getAverageResponseTime()).isZero();
+
+    underTest.addSuccess();
+    underTest.addSuccess();
+    underTest.addFailure();
+    underTest.addRejected();
+    underTest.addRetry();
+    underTest.addResponse(100);
+    underTest.addResponse(300);
+
+    assertThat(underTest.getSuccessCount()).isEqualTo(2);
+    assertThat(underTest.getFailureCount()).isEqualTo(1);
+    assertThat(underTest.getRejectedCount()).isEqualTo(1);
+    assertThat(underTest.getRetryCount()).isEqualTo(1);
+    assertThat(underTest.getResponseTime()).isEqualTo(400);
+    assertThat(underTest.getAverageResponseTime()).isEqualTo(200.0);
+    assertThat(underTest.getFailureRate()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void export_system_info() {
+    ProtobufSystemInfo.Section section = underTest.toProtobuf();
+    assertThat(section.getName()).isEqualTo("Compute Engine Webhook Deliveries");
+    assertThat(section.getAttributesCount()).isEqualTo(8);
+  }
+
+  @CheckForNull
+  private ObjectInstance getMBean() throws Exception {
+    try {
+      return ManagementFactory.getPlatformMBeanServer().getObjectInstance(new ObjectName(WebhookDeliveryMBean.OBJECT_NAME));
+    } catch (InstanceNotFoundException e) {
+      return null;
+    }
+  }
+}
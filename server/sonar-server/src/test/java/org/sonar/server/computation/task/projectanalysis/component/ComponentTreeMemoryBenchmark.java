@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository;
+import org.sonar.server.computation.task.projectanalysis.measure.Measure;
+import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentFunctions.toReportRef;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+/**
+ * Not a unit test. Prints the heap retained by the component tree, the component ids and the raw measures of a
+ * synthetic project, in bytes per file:
+ * <pre>
+ *   java -Xmx8g -cp ... org.sonar.server.computation.task.projectanalysis.component.ComponentTreeMemoryBenchmark [number of files]
+ * </pre>
+ * Ids and measures are also stored in maps of boxed values, as done before, for comparison.
+ */
+public class ComponentTreeMemoryBenchmark {
+
+  private static final int DEFAULT_FILES = 1_000_000;
+  private static final int FILES_PER_DIRECTORY = 20;
+  private static final int MEASURES_PER_FILE = 25;
+
+  private ComponentTreeMemoryBenchmark() {
+    // only main
+  }
+
+  public static void main(String[] args) {
+    int files = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILES;
+    List<Metric> metrics = new ArrayList<>();
+    for (int i = 0; i < MEASURES_PER_FILE; i++) {
+      metrics.add(new MetricImpl(i, "metric_" + i, "Metric " + i, Metric.MetricType.INT));
+    }
+
+    Component[] root = new Component[1];
+    measure("component tree", files, () -> root[0] = buildTree(files));
+    List<Component> components = new ArrayList<>();
+    new DepthTraversalTypeAwareCrawler(new TypeAwareVisitorAdapter(CrawlerDepthLimit.LEAVES, ComponentVisitor.Order.PRE_ORDER) {
+      @Override
+      public void visitAny(Component component) {
+        components.add(component);
+      }
+    }).visit(root[0]);
+
+    measure("component ids (array)", files, () -> {
+      DbIdsRepositoryImpl ids = new DbIdsRepositoryImpl();
+      components.forEach(c -> ids.setComponentId(c, c.getReportAttributes().getRef() + 1_000L));
+      return ids;
+    });
+    measure("component ids (map)", files, () -> {
+      MapBasedDbIdsRepository<Integer> ids = new MapBasedDbIdsRepository<>(toReportRef());
+      components.forEach(c -> ids.setComponentId(c, c.getReportAttributes().getRef() + 1_000L));
+      return ids;
+    });
+    Measure measure = newMeasureBuilder().create(42);
+    measure("raw measures (arrays)", files, () -> {
+      MapBasedRawMeasureRepository<Integer> measures = new MapBasedRawMeasureRepository<>(toReportRef());
+      components.forEach(c -> metrics.forEach(m -> measures.add(c, m, measure)));
+      return measures;
+    });
+    measure("raw measures (maps)", files, () -> {
+      Map<Integer, Map<MeasureKey, Measure>> measures = new HashMap<>();
+      components.forEach(c -> {
+        Map<MeasureKey, Measure> byKey = new HashMap<>();
+        metrics.forEach(m -> byKey.put(new MeasureKey(m.getKey(), null), measure));
+        measures.put(c.getReportAttributes().getRef(), byKey);
+      });
+      return measures;
+    });
+  }
+
+  private static Component buildTree(int files) {
+    int ref = 1;
+    ComponentImpl.Builder project = newComponent(Component.Type.PROJECT, ref++, "project");
+    int directories = (files + FILES_PER_DIRECTORY - 1) / FILES_PER_DIRECTORY;
+    int fileIndex = 0;
+    for (int d = 0; d < directories; d++) {
+      String directoryPath = "src/main/java/org/sonar/module" + (d % 100) + "/package" + d;
+      ComponentImpl.Builder directory = newComponent(Component.Type.DIRECTORY, ref++, directoryPath);
+      for (int f = 0; f < FILES_PER_DIRECTORY && fileIndex < files; f++, fileIndex++) {
+        directory.addChildren(newComponent(Component.Type.FILE, ref++, directoryPath + "/File" + f + ".java")
+          .setFileAttributes(new FileAttributes(false, "java", 100))
+          .build());
+      }
+      project.addChildren(directory.build());
+    }
+    return project.build();
+  }
+
+  private static ComponentImpl.Builder newComponent(Component.Type type, int ref, String path) {
+    return ComponentImpl.builder(type)
+      .setUuid("AVpBNGwMZ9DFa3KbLsE" + ref)
+      .setKey("org.sonar:project:" + path)
+      .setName(path.substring(path.lastIndexOf('/') + 1))
+      .setReportAttributes(ReportAttributes.newBuilder(ref).setPath(path).setVersion("1.0-SNAPSHOT").build());
+  }
+
+  private static void measure(String label, int files, Supplier<Object> supplier) {
+    long before = usedHeap();
+    Object retained = supplier.get();
+    long after = usedHeap();
+    System.out.println(String.format("%-25s %10d bytes per file (%s)", label, (after - before) / files, retained.getClass().getSimpleName()));
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
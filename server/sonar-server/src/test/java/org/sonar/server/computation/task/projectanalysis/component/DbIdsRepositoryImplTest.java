@@ -24,6 +24,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 
 public class DbIdsRepositoryImplTest {
@@ -61,6 +62,28 @@ public class DbIdsRepositoryImplTest {
     cache.setComponentId(SOME_COMPONENT, 11L);
   }
 
+  @Test
+  public void add_and_get_component_ids_of_many_components() {
+    DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
+    Component otherComponent = ReportComponent.builder(FILE, 1_000).setKey("OTHER_COMPONENT_KEY").build();
+    cache.setComponentId(otherComponent, 20L);
+    cache.setComponentId(SOME_COMPONENT, 10L);
+
+    assertThat(cache.getComponentId(SOME_COMPONENT)).isEqualTo(10L);
+    assertThat(cache.getComponentId(otherComponent)).isEqualTo(20L);
+  }
+
+  @Test
+  public void fail_to_get_component_id_on_ref_beyond_registered_ones() {
+    DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
+    cache.setComponentId(SOME_COMPONENT, 10L);
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("No component id registered in repository for Component 'OTHER_COMPONENT_KEY'");
+
+    cache.getComponentId(ReportComponent.builder(FILE, 1_000).setKey("OTHER_COMPONENT_KEY").build());
+  }
+
   @Test
   public void add_and_get_developer_id() {
     DbIdsRepositoryImpl cache = new DbIdsRepositoryImpl();
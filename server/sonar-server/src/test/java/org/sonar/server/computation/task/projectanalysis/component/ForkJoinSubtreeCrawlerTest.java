@@ -0,0 +1,186 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+
+public class ForkJoinSubtreeCrawlerTest {
+
+  private static final Component TREE = createTree(4, 10, 50);
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private ForkJoinSubtreeCrawler underTest = new ForkJoinSubtreeCrawler(4);
+
+  @Test
+  public void gives_same_results_in_same_order_as_sequential_visit() {
+    SequentialSumVisitor sequentialVisitor = new SequentialSumVisitor();
+    new DepthTraversalTypeAwareCrawler(sequentialVisitor).visit(TREE);
+
+    SumVisitor visitor = new SumVisitor(CrawlerDepthLimit.FILE);
+    underTest.crawl(TREE, visitor);
+
+    assertThat(visitor.sumByRef).hasSize(1 + 4 + 4 * 10 + 4 * 10 * 50);
+    assertThat(new ArrayList<>(visitor.sumByRef.entrySet())).isEqualTo(new ArrayList<>(sequentialVisitor.sumByRef.entrySet()));
+  }
+
+  @Test
+  public void complete_is_called_on_the_crawling_thread() {
+    SumVisitor visitor = new SumVisitor(CrawlerDepthLimit.FILE);
+    underTest.crawl(TREE, visitor);
+
+    assertThat(visitor.completingThreads).containsOnly(Thread.currentThread());
+  }
+
+  @Test
+  public void components_deeper_than_max_depth_are_not_visited() {
+    SumVisitor visitor = new SumVisitor(CrawlerDepthLimit.DIRECTORY);
+    underTest.crawl(TREE, visitor);
+
+    assertThat(visitor.sumByRef).hasSize(1 + 4 + 4 * 10);
+    assertThat(visitor.sumByRef.get(1)).isEqualTo(0L);
+  }
+
+  @Test
+  public void crawl_of_root_deeper_than_max_depth_does_nothing() {
+    SumVisitor visitor = new SumVisitor(CrawlerDepthLimit.PROJECT);
+    underTest.crawl(builder(FILE, 1).build(), visitor);
+
+    assertThat(visitor.sumByRef).isEmpty();
+  }
+
+  @Test
+  public void crawl_of_single_component() {
+    SumVisitor visitor = new SumVisitor(CrawlerDepthLimit.FILE);
+    underTest.crawl(builder(FILE, 98).build(), visitor);
+
+    assertThat(visitor.sumByRef).containsOnly(entry(98, 1L));
+  }
+
+  @Test
+  public void exception_thrown_by_visitor_is_wrapped_with_the_component_which_failed() {
+    SumVisitor failingVisitor = new SumVisitor(CrawlerDepthLimit.FILE) {
+      @Override
+      public long[] visit(Component component) {
+        if (component.getReportAttributes().getRef() == 4_000_002) {
+          throw new IllegalStateException("failure");
+        }
+        return super.visit(component);
+      }
+    };
+
+    expectedException.expect(VisitException.class);
+    expectedException.expectMessage("Visit of Component {key=key_4000002,uuid=uuid_4000002,type=FILE} failed");
+
+    underTest.crawl(TREE, failingVisitor);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fail_if_parallelism_is_not_strictly_positive() {
+    new ForkJoinSubtreeCrawler(0);
+  }
+
+  private static Component createTree(int modules, int directoriesPerModule, int filesPerDirectory) {
+    List<Component> moduleComponents = new ArrayList<>();
+    for (int m = 1; m <= modules; m++) {
+      List<Component> directoryComponents = new ArrayList<>();
+      for (int d = 1; d <= directoriesPerModule; d++) {
+        List<Component> fileComponents = new ArrayList<>();
+        for (int f = 1; f <= filesPerDirectory; f++) {
+          fileComponents.add(builder(FILE, m * 1_000_000 + d * 1_000 + f).build());
+        }
+        directoryComponents.add(builder(DIRECTORY, m * 1_000_000 + d * 1_000).addChildren(fileComponents.toArray(new Component[0])).build());
+      }
+      moduleComponents.add(builder(MODULE, m * 1_000_000).addChildren(directoryComponents.toArray(new Component[0])).build());
+    }
+    return builder(PROJECT, 1).addChildren(moduleComponents.toArray(new Component[0])).build();
+  }
+
+  private static long valueOf(Component file) {
+    return file.getReportAttributes().getRef() % 97;
+  }
+
+  /**
+   * Sum of a value computed on files. State is an array so that it can be merged in place.
+   */
+  private static class SumVisitor implements SubtreeVisitor<long[]> {
+    private final CrawlerDepthLimit maxDepth;
+    private final Map<Integer, Long> sumByRef = new LinkedHashMap<>();
+    private final List<Thread> completingThreads = new ArrayList<>();
+
+    SumVisitor(CrawlerDepthLimit maxDepth) {
+      this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public CrawlerDepthLimit getMaxDepth() {
+      return maxDepth;
+    }
+
+    @Override
+    public long[] visit(Component component) {
+      return new long[] {component.getType() == FILE ? valueOf(component) : 0L};
+    }
+
+    @Override
+    public void merge(long[] parentState, long[] childState) {
+      parentState[0] += childState[0];
+    }
+
+    @Override
+    public void complete(Component component, long[] subtreeState) {
+      completingThreads.add(Thread.currentThread());
+      sumByRef.put(component.getReportAttributes().getRef(), subtreeState[0]);
+    }
+  }
+
+  private static class SequentialSumVisitor extends TypeAwareVisitorAdapter {
+    private final Map<Integer, Long> sumByRef = new LinkedHashMap<>();
+
+    SequentialSumVisitor() {
+      super(CrawlerDepthLimit.FILE, POST_ORDER);
+    }
+
+    @Override
+    public void visitAny(Component component) {
+      long sum = component.getType() == FILE ? valueOf(component) : 0L;
+      for (Component child : component.getChildren()) {
+        sum += sumByRef.get(child.getReportAttributes().getRef());
+      }
+      sumByRef.put(component.getReportAttributes().getRef(), sum);
+    }
+  }
+}
@@ -33,6 +33,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.property.PropertyDto;
+import org.sonar.server.setting.SettingsCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
@@ -57,7 +58,7 @@ public class SettingsRepositoryTest {
   public void createDao() {
     globalSettings = new MapSettings();
     session = dbClient.openSession(false);
-    underTest = new SettingsRepositoryImpl(new ProjectSettingsFactory(globalSettings, dbClient));
+    underTest = new SettingsRepositoryImpl(new ProjectSettingsFactory(globalSettings, new SettingsCache(dbClient, System2.INSTANCE)));
   }
 
   @After
@@ -76,7 +77,7 @@ public class SettingsRepositoryTest {
 
   @Test
   public void get_project_settings_from_db() {
-    ComponentDto project = ComponentTesting.newProjectDto(dbTester.organizations().insert()).setKey(ROOT.getKey());
+    ComponentDto project = ComponentTesting.newProjectDto(dbTester.organizations().insert(), ROOT.getUuid()).setKey(ROOT.getKey());
     dbClient.componentDao().insert(session, project);
     dbClient.propertiesDao().saveProperty(session, new PropertyDto().setResourceId(project.getId()).setKey("key").setValue("value"));
     session.commit();
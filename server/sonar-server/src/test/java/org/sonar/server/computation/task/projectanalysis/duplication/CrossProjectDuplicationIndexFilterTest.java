@@ -0,0 +1,198 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.duplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.component.SnapshotDto;
+import org.sonar.db.component.SnapshotTesting;
+import org.sonar.db.duplication.DuplicationDao;
+import org.sonar.db.duplication.DuplicationUnitDto;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CrossProjectDuplicationIndexFilterTest {
+
+  private static final String JAVA = "java";
+  private static final String HASH = "a8998353e96320ec";
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private DbClient dbClient = dbTester.getDbClient();
+  private DbSession dbSession = dbTester.getSession();
+
+  private CrossProjectDuplicationIndexFilter underTest = new CrossProjectDuplicationIndexFilter(dbClient);
+
+  @Test
+  public void nothing_is_indexed_when_table_is_empty() {
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isFalse();
+  }
+
+  @Test
+  public void load_hashes_of_language_from_db() {
+    insertBlock(JAVA, HASH);
+
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isTrue();
+    assertThat(underTest.mightBeIndexed(JAVA, "b1234353e96320ff")).isFalse();
+    assertThat(underTest.mightBeIndexed("js", HASH)).isFalse();
+  }
+
+  @Test
+  public void hashes_are_loaded_once_per_language() {
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isFalse();
+
+    // inserted without calling add(), so not seen until the filter is reloaded
+    insertBlock(JAVA, HASH);
+
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isFalse();
+  }
+
+  @Test
+  public void added_hash_is_indexed_once_filter_is_loaded() {
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isFalse();
+
+    underTest.add(JAVA, singletonList(HASH));
+
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isTrue();
+  }
+
+  @Test
+  public void add_does_nothing_if_filter_of_language_is_not_loaded() {
+    underTest.add(JAVA, singletonList(HASH));
+
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isFalse();
+  }
+
+  @Test
+  public void filter_is_reloaded_from_db_when_full() {
+    logTester.setLevel(LoggerLevel.DEBUG);
+    insertBlock(JAVA, HASH);
+    assertThat(underTest.mightBeIndexed(JAVA, "not_indexed")).isFalse();
+    logTester.clear();
+
+    List<String> hashes = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      hashes.add("hash" + i);
+    }
+    underTest.add(JAVA, hashes);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).containsOnly("Cross project duplication index filter of language java is full, it will be reloaded");
+    assertThat(underTest.mightBeIndexed(JAVA, HASH)).isTrue();
+    assertThat(underTest.mightBeIndexed(JAVA, "hash0")).isFalse();
+  }
+
+  @Test
+  public void filter_is_not_reloaded_when_full_at_max_size() {
+    logTester.setLevel(LoggerLevel.DEBUG);
+    CrossProjectDuplicationIndexFilter filter = new CrossProjectDuplicationIndexFilter(dbClient, 100);
+    assertThat(filter.mightBeIndexed(JAVA, HASH)).isFalse();
+    logTester.clear();
+
+    List<String> hashes = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      hashes.add("hash" + i);
+    }
+    filter.add(JAVA, hashes);
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).isEmpty();
+    assertThat(hashes.stream().allMatch(hash -> filter.mightBeIndexed(JAVA, hash))).isTrue();
+  }
+
+  @Test
+  public void any_hash_might_be_indexed_while_filter_is_loading() {
+    DuplicationDao duplicationDao = mock(DuplicationDao.class);
+    DbClient mockedDbClient = mock(DbClient.class);
+    when(mockedDbClient.duplicationDao()).thenReturn(duplicationDao);
+    CrossProjectDuplicationIndexFilter filter = new CrossProjectDuplicationIndexFilter(mockedDbClient);
+    List<Boolean> mightBeIndexedWhileLoading = new ArrayList<>();
+    doAnswer(invocation -> {
+      mightBeIndexedWhileLoading.add(filter.mightBeIndexed(JAVA, "not_indexed"));
+      // committed by another task once the table has been read
+      filter.add(JAVA, singletonList("added_while_loading"));
+      return null;
+    }).when(duplicationDao).scrollHashes(any(DbSession.class), eq(JAVA), any(ResultHandler.class));
+
+    assertThat(filter.mightBeIndexed(JAVA, HASH)).isFalse();
+
+    assertThat(mightBeIndexedWhileLoading).containsExactly(true);
+    assertThat(filter.mightBeIndexed(JAVA, "added_while_loading")).isTrue();
+  }
+
+  @Test
+  public void filter_is_reloaded_if_loading_fails() {
+    DuplicationDao duplicationDao = mock(DuplicationDao.class);
+    DbClient mockedDbClient = mock(DbClient.class);
+    when(mockedDbClient.duplicationDao()).thenReturn(duplicationDao);
+    CrossProjectDuplicationIndexFilter filter = new CrossProjectDuplicationIndexFilter(mockedDbClient);
+    doThrow(new IllegalStateException("Faking failure")).doNothing()
+      .when(duplicationDao).scrollHashes(any(DbSession.class), eq(JAVA), any(ResultHandler.class));
+
+    try {
+      filter.mightBeIndexed(JAVA, HASH);
+      fail("An IllegalStateException should have been raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Faking failure");
+    }
+
+    assertThat(filter.mightBeIndexed(JAVA, HASH)).isFalse();
+    verify(duplicationDao, times(2)).scrollHashes(any(DbSession.class), eq(JAVA), any(ResultHandler.class));
+  }
+
+  private void insertBlock(String language, String hash) {
+    ComponentDto project = ComponentTesting.newProjectDto(dbTester.organizations().insert());
+    dbClient.componentDao().insert(dbSession, project);
+    ComponentDto file = ComponentTesting.newFileDto(project, null).setLanguage(language);
+    dbClient.componentDao().insert(dbSession, file);
+    SnapshotDto analysis = SnapshotTesting.newAnalysis(project);
+    dbClient.snapshotDao().insert(dbSession, analysis);
+    dbClient.duplicationDao().insert(dbSession, new DuplicationUnitDto()
+      .setHash(hash)
+      .setStartLine(1)
+      .setEndLine(10)
+      .setIndexInFile(0)
+      .setAnalysisUuid(analysis.getUuid())
+      .setComponentUuid(file.uuid()));
+    dbSession.commit();
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.issue.Issue;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.internal.JUnitTempFolder;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.issue.IssueTesting;
+import org.sonar.db.rule.RuleDto;
+import org.sonar.db.rule.RuleTesting;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.qualityprofile.ActiveRulesHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BaseInputPrefetcherTest {
+
+  private static final String PROJECT_UUID = "PROJECT_UUID";
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+  @Rule
+  public ActiveRulesHolderRule activeRulesHolder = new ActiveRulesHolderRule();
+  @Rule
+  public RuleRepositoryRule ruleRepository = new RuleRepositoryRule();
+
+  private BaseIssuesLoader baseIssuesLoader = new BaseIssuesLoader(treeRootHolder, dbTester.getDbClient(), ruleRepository, activeRulesHolder);
+
+  private ComponentDto project;
+  private ComponentDto file1;
+  private ComponentDto file2;
+  private RuleDto rule;
+
+  @Before
+  public void setUp() throws Exception {
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).build());
+    project = ComponentTesting.newProjectDto(dbTester.organizations().insert(), PROJECT_UUID);
+    file1 = ComponentTesting.newFileDto(project, null, "FILE1_UUID");
+    file2 = ComponentTesting.newFileDto(project, null, "FILE2_UUID");
+    dbTester.getDbClient().componentDao().insert(dbTester.getSession(), project, file1, file2);
+    rule = RuleTesting.newDto(RuleKey.of("xoo", "x1"));
+    dbTester.getDbClient().ruleDao().insert(dbTester.getSession(), rule);
+    dbTester.getSession().commit();
+  }
+
+  @Test
+  public void return_issues_of_components() {
+    insertIssue("ISSUE_1", file1, Issue.STATUS_OPEN);
+    insertIssue("ISSUE_2", file2, Issue.STATUS_CONFIRMED);
+    insertIssue("ISSUE_3", file1, Issue.STATUS_REOPENED);
+    insertIssue("ISSUE_4", file2, Issue.STATUS_CLOSED);
+
+    BaseInputPrefetcher underTest = newPrefetcher(1_000L, 1_000L);
+
+    assertThat(underTest.removeIssues(file2.uuid())).extracting(DefaultIssue::key).containsOnly("ISSUE_2");
+    assertThat(underTest.removeIssues(file1.uuid())).extracting(DefaultIssue::key).containsOnly("ISSUE_1", "ISSUE_3");
+    assertThat(underTest.removeIssues(PROJECT_UUID)).isEmpty();
+  }
+
+  @Test
+  public void return_line_hashes_of_files_with_open_issues() {
+    insertIssue("ISSUE_1", file1, Issue.STATUS_OPEN);
+    insertIssue("ISSUE_2", file2, Issue.STATUS_CLOSED);
+    insertSource(file1, "h1\nh2");
+    insertSource(file2, "h3");
+
+    BaseInputPrefetcher underTest = newPrefetcher(1_000L, 1_000L);
+
+    assertThat(underTest.removeLineHashes(file1.uuid())).containsExactly("h1", "h2");
+    assertThat(underTest.removeLineHashes(file2.uuid())).isNull();
+  }
+
+  @Test
+  public void spill_data_to_disk_beyond_memory_budget() {
+    insertIssue("ISSUE_1", file1, Issue.STATUS_OPEN);
+    insertIssue("ISSUE_2", file2, Issue.STATUS_OPEN);
+    insertIssue("ISSUE_3", file2, Issue.STATUS_OPEN);
+    insertSource(file1, "h1\nh2");
+    insertSource(file2, "h3\nh4");
+
+    BaseInputPrefetcher underTest = newPrefetcher(0L, 0L);
+
+    assertThat(underTest.removeIssues(file1.uuid())).extracting(DefaultIssue::key).containsOnly("ISSUE_1");
+    assertThat(underTest.removeIssues(file2.uuid())).extracting(DefaultIssue::key).containsOnly("ISSUE_2", "ISSUE_3");
+    assertThat(underTest.removeLineHashes(file1.uuid())).containsExactly("h1", "h2");
+    assertThat(underTest.removeLineHashes(file2.uuid())).containsExactly("h3", "h4");
+  }
+
+  @Test
+  public void data_of_a_component_are_returned_only_once() {
+    insertIssue("ISSUE_1", file1, Issue.STATUS_OPEN);
+    insertSource(file1, "h1");
+
+    BaseInputPrefetcher underTest = newPrefetcher(1_000L, 1_000L);
+
+    assertThat(underTest.removeIssues(file1.uuid())).hasSize(1);
+    assertThat(underTest.removeLineHashes(file1.uuid())).hasSize(1);
+    assertThat(underTest.removeIssues(file1.uuid())).isEmpty();
+    assertThat(underTest.removeLineHashes(file1.uuid())).isNull();
+  }
+
+  @Test
+  public void issues_on_inactive_rules_are_being_closed() {
+    insertIssue("ISSUE_1", file1, Issue.STATUS_OPEN);
+
+    DefaultIssue issue = newPrefetcher(1_000L, 1_000L).removeIssues(file1.uuid()).get(0);
+
+    assertThat(issue.isOnDisabledRule()).isTrue();
+    assertThat(issue.isBeingClosed()).isTrue();
+    assertThat(issue.selectedAt()).isNotNull();
+  }
+
+  @Test
+  public void stop_releases_temporary_files() {
+    insertIssue("ISSUE_1", file1, Issue.STATUS_OPEN);
+    insertIssue("ISSUE_2", file2, Issue.STATUS_OPEN);
+    insertSource(file1, "h1\nh2");
+    List<File> createdFiles = new ArrayList<>();
+    TempFolder recordingTempFolder = mock(TempFolder.class);
+    when(recordingTempFolder.newFile(anyString(), anyString())).thenAnswer(invocation -> {
+      File file = tempFolder.newFile((String) invocation.getArguments()[0], (String) invocation.getArguments()[1]);
+      createdFiles.add(file);
+      return file;
+    });
+    BaseInputPrefetcher underTest = new BaseInputPrefetcher(treeRootHolder, dbTester.getDbClient(), baseIssuesLoader, recordingTempFolder, 0L, 0L);
+    underTest.start();
+    underTest.removeIssues(file1.uuid());
+    assertThat(createdFiles).hasSize(2);
+    assertThat(createdFiles.stream().allMatch(File::exists)).isTrue();
+
+    underTest.stop();
+
+    assertThat(createdFiles.stream().noneMatch(File::exists)).isTrue();
+  }
+
+  @Test
+  public void stop_does_nothing_if_data_have_not_been_requested() {
+    BaseInputPrefetcher underTest = newPrefetcher(1_000L, 1_000L);
+    underTest.start();
+
+    underTest.stop();
+  }
+
+  private BaseInputPrefetcher newPrefetcher(long issuesMemoryBudget, long lineHashesMemoryBudget) {
+    return new BaseInputPrefetcher(treeRootHolder, dbTester.getDbClient(), baseIssuesLoader, tempFolder, issuesMemoryBudget, lineHashesMemoryBudget);
+  }
+
+  private void insertIssue(String key, ComponentDto file, String status) {
+    IssueDto issue = IssueTesting.newDto(rule, file, project)
+      .setKee(key)
+      .setStatus(status);
+    dbTester.getDbClient().issueDao().insert(dbTester.getSession(), issue);
+    dbTester.getSession().commit();
+  }
+
+  private void insertSource(ComponentDto file, String lineHashes) {
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(file.uuid())
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setLineHashes(lineHashes));
+    dbTester.getSession().commit();
+  }
+}
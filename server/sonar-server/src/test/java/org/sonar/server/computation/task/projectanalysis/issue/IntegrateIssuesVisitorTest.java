@@ -31,6 +31,7 @@ import org.sonar.api.issue.Issue;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.db.DbTester;
@@ -85,6 +86,8 @@ public class IntegrateIssuesVisitorTest {
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
   @Rule
+  public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
   @Rule
   public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
@@ -105,7 +108,8 @@ public class IntegrateIssuesVisitorTest {
 
   BaseIssuesLoader baseIssuesLoader = new BaseIssuesLoader(treeRootHolder, dbTester.getDbClient(), ruleRepositoryRule, activeRulesHolderRule);
   MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
-  TrackerExecution tracker = new TrackerExecution(new TrackerBaseInputFactory(baseIssuesLoader, dbTester.getDbClient(), movedFilesRepository),
+  BaseInputPrefetcher baseInputPrefetcher = new BaseInputPrefetcher(treeRootHolder, dbTester.getDbClient(), baseIssuesLoader, tempFolder);
+  TrackerExecution tracker = new TrackerExecution(new TrackerBaseInputFactory(baseInputPrefetcher, movedFilesRepository),
     new TrackerRawInputFactory(treeRootHolder, reportReader,
       fileSourceRepository, new CommonRuleEngineImpl(), issueFilter),
     new Tracker<>());
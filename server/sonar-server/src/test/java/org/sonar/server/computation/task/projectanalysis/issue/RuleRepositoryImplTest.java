@@ -56,7 +56,9 @@ public class RuleRepositoryImplTest {
   private DbSession dbSession = mock(DbSession.class);
   private RuleDao ruleDao = mock(RuleDao.class);
 
-  RuleRepositoryImpl underTest = new RuleRepositoryImpl(dbClient);
+  private RuleCache ruleCache = new RuleCache(dbClient);
+
+  RuleRepositoryImpl underTest = new RuleRepositoryImpl(dbClient, ruleCache);
 
   @Before
   public void setUp() throws Exception {
@@ -106,6 +108,23 @@ public class RuleRepositoryImplTest {
     verifyNoMethodCallTriggersCallToDB();
   }
 
+  @Test
+  public void rules_are_shared_by_repositories_while_version_of_rules_does_not_change() {
+    when(ruleDao.selectMaxUpdatedAt(any(DbSession.class))).thenReturn(1_000L);
+    underTest.getByKey(AB_RULE.getKey());
+    new RuleRepositoryImpl(dbClient, ruleCache).getByKey(AB_RULE.getKey());
+
+    verify(ruleDao, times(1)).selectAll(any(DbSession.class));
+    assertThat(ruleCache.getCache().getHits()).isEqualTo(1L);
+    assertThat(ruleCache.getCache().getMisses()).isEqualTo(1L);
+
+    when(ruleDao.selectMaxUpdatedAt(any(DbSession.class))).thenReturn(2_000L);
+    new RuleRepositoryImpl(dbClient, ruleCache).getByKey(AB_RULE.getKey());
+
+    verify(ruleDao, times(2)).selectAll(any(DbSession.class));
+    assertThat(ruleCache.getCache().getMisses()).isEqualTo(2L);
+  }
+
   @Test
   public void getByKey_throws_NPE_if_key_argument_is_null() {
     expectNullRuleKeyNPE();
@@ -22,36 +22,31 @@ package org.sonar.server.computation.task.projectanalysis.issue;
 import com.google.common.base.Optional;
 import org.junit.Before;
 import org.junit.Test;
-import org.sonar.db.DbClient;
-import org.sonar.db.DbSession;
-import org.sonar.db.source.FileSourceDao;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class TrackerBaseInputFactoryTest {
   private static final String FILE_UUID = "uuid";
   private static final ReportComponent FILE = ReportComponent.builder(Component.Type.FILE, 1).setUuid(FILE_UUID).build();
 
-  private BaseIssuesLoader baseIssuesLoader = mock(BaseIssuesLoader.class);
-  private DbClient dbClient = mock(DbClient.class);
-  private DbSession dbSession = mock(DbSession.class);
-  private FileSourceDao fileSourceDao = mock(FileSourceDao.class);
+  private BaseInputPrefetcher baseInputPrefetcher = mock(BaseInputPrefetcher.class);
 
   private MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
 
-  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseIssuesLoader, dbClient, movedFilesRepository);
+  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseInputPrefetcher, movedFilesRepository);
 
   @Before
   public void setUp() throws Exception {
-    when(dbClient.openSession(false)).thenReturn(dbSession);
-    when(dbClient.fileSourceDao()).thenReturn(fileSourceDao);
     when(movedFilesRepository.getOriginalFile(any(Component.class)))
       .thenReturn(Optional.<MovedFilesRepository.OriginalFile>absent());
   }
@@ -60,7 +55,7 @@ public class TrackerBaseInputFactoryTest {
   public void create_returns_Input_which_retrieves_lines_hashes_of_specified_file_component_when_it_has_no_original_file() {
     underTest.create(FILE).getLineHashSequence();
 
-    verify(fileSourceDao).selectLineHashes(dbSession, FILE_UUID);
+    verify(baseInputPrefetcher).removeLineHashes(FILE_UUID);
   }
 
   @Test
@@ -73,15 +68,15 @@ public class TrackerBaseInputFactoryTest {
 
     underTest.create(FILE).getLineHashSequence();
 
-    verify(fileSourceDao).selectLineHashes(dbSession, originalUuid);
-    verify(fileSourceDao, times(0)).selectLineHashes(dbSession, FILE_UUID);
+    verify(baseInputPrefetcher).removeLineHashes(originalUuid);
+    verify(baseInputPrefetcher, times(0)).removeLineHashes(FILE_UUID);
   }
 
   @Test
   public void create_returns_Input_which_retrieves_issues_of_specified_file_component_when_it_has_no_original_file() {
     underTest.create(FILE).getIssues();
 
-    verify(baseIssuesLoader).loadForComponentUuid(FILE_UUID);
+    verify(baseInputPrefetcher).removeIssues(FILE_UUID);
   }
 
   @Test
@@ -94,7 +89,29 @@ public class TrackerBaseInputFactoryTest {
 
     underTest.create(FILE).getIssues();
 
-    verify(baseIssuesLoader).loadForComponentUuid(originalUuid);
-    verify(baseIssuesLoader, times(0)).loadForComponentUuid(FILE_UUID);
+    verify(baseInputPrefetcher).removeIssues(originalUuid);
+    verify(baseInputPrefetcher, times(0)).removeIssues(FILE_UUID);
+  }
+
+  @Test
+  public void create_returns_Input_with_empty_line_hashes_when_file_has_no_prefetched_hashes() {
+    when(baseInputPrefetcher.removeLineHashes(FILE_UUID)).thenReturn(null);
+
+    assertThat(underTest.create(FILE).getLineHashSequence().length()).isEqualTo(0);
+  }
+
+  @Test
+  public void create_returns_Input_with_prefetched_line_hashes() {
+    when(baseInputPrefetcher.removeLineHashes(FILE_UUID)).thenReturn(asList("hash1", "hash2"));
+
+    assertThat(underTest.create(FILE).getLineHashSequence().getHashForLine(2)).isEqualTo("hash2");
+  }
+
+  @Test
+  public void create_returns_Input_without_line_hashes_for_non_file_component() {
+    ReportComponent directory = ReportComponent.builder(Component.Type.DIRECTORY, 2).setUuid("dir uuid").build();
+
+    assertThat(underTest.create(directory).getLineHashSequence().length()).isEqualTo(0);
+    verifyZeroInteractions(baseInputPrefetcher);
   }
 }
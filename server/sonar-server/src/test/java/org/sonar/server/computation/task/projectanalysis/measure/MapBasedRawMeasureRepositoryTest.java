@@ -23,6 +23,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.SetMultimap;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
@@ -291,4 +292,39 @@ public class MapBasedRawMeasureRepositoryTest {
     assertThat(measures.iterator().next()).isSameAs(devMeasure);
   }
 
+  @Test
+  public void getRawMeasures_returns_measures_of_many_metrics() {
+    for (int i = 0; i < 20; i++) {
+      underTest.add(FILE_COMPONENT, new MetricImpl(i, "metric_" + i, "Metric " + i, Metric.MetricType.INT), Measure.newMeasureBuilder().create(i));
+    }
+
+    SetMultimap<String, Measure> measures = underTest.getRawMeasures(FILE_COMPONENT);
+    assertThat(measures.keySet()).hasSize(20);
+    assertThat(measures.get("metric_17").iterator().next().getIntValue()).isEqualTo(17);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, new MetricImpl(3, "metric_3", "Metric 3", Metric.MetricType.INT)).get().getIntValue()).isEqualTo(3);
+    assertThat(underTest.getRawMeasures(OTHER_COMPONENT)).isEmpty();
+  }
+
+  @Test
+  public void measures_of_developer_and_of_component_are_stored_apart() {
+    Measure devMeasure = Measure.newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create("dev value");
+    Measure measure = Measure.newMeasureBuilder().create("value");
+
+    underTest.add(FILE_COMPONENT, metric1, devMeasure);
+    underTest.add(FILE_COMPONENT, metric1, measure);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1).get()).isSameAs(measure);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, metric1)).containsOnly(measure, devMeasure);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT).get(METRIC_KEY_1)).containsOnly(measure, devMeasure);
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_policy_keeps_existing_measure() {
+    Measure measure = Measure.newMeasureBuilder().create("value");
+
+    underTest.add(FILE_COMPONENT, metric1, measure);
+    underTest.add(FILE_COMPONENT, metric1, Measure.newMeasureBuilder().create("other value"), MapBasedRawMeasureRepository.OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, metric1).get()).isSameAs(measure);
+  }
 }
@@ -41,6 +41,7 @@ import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolderRule;
 import org.sonar.server.computation.task.projectanalysis.qualitymodel.RatingGrid.Rating;
 import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLinesRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -98,8 +99,8 @@ public class NewMaintainabilityMeasuresVisitorTest {
   @Before
   public void setUp() throws Exception {
     when(ratingSettings.getRatingGrid()).thenReturn(new RatingGrid(RATING_GRID));
-    underTest = new VisitorsCrawler(Arrays.asList(new NewMaintainabilityMeasuresVisitor(metricRepository, measureRepository, scmInfoRepository,
-      periodsHolder, ratingSettings)));
+    underTest = new VisitorsCrawler(Arrays.asList(new NewMaintainabilityMeasuresVisitor(metricRepository, measureRepository,
+      new NewLinesRepositoryImpl(scmInfoRepository, periodsHolder), periodsHolder, ratingSettings)));
   }
 
   @Test
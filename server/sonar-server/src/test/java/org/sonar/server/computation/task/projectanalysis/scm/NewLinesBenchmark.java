@@ -0,0 +1,96 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.scm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+import org.sonar.server.computation.task.projectanalysis.period.Period;
+
+/**
+ * Not a unit test. Prints the time spent to find the new lines of a large file by the three consumers of new lines
+ * (new size, new coverage and new maintainability), when each of them reads the changeset of every line as done before,
+ * and when they share {@link NewLines}:
+ * <pre>
+ *   java -cp ... org.sonar.server.computation.task.projectanalysis.scm.NewLinesBenchmark [number of lines]
+ * </pre>
+ */
+public class NewLinesBenchmark {
+
+  private static final int DEFAULT_LINES = 100_000;
+  private static final int CONSUMERS = 3;
+  private static final int ITERATIONS = 50;
+
+  private NewLinesBenchmark() {
+    // only main
+  }
+
+  public static void main(String[] args) {
+    int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+    List<Changeset> changesets = new ArrayList<>(lines);
+    for (int line = 1; line <= lines; line++) {
+      // a new revision every 100 lines, half of them in the period
+      long date = (line / 100) * 1_000L;
+      changesets.add(Changeset.newChangesetBuilder().setDate(date).setRevision("rev-" + (line / 100)).build());
+    }
+    ScmInfo scmInfo = new ScmInfoImpl(changesets);
+    Period period = new Period("mode_p_1", null, (lines / 200) * 1_000L, "u1");
+
+    for (int i = 0; i < 2; i++) {
+      measure("changeset of each line", lines, () -> {
+        long snapshotDate = period.getSnapshotDate();
+        long count = 0;
+        for (int consumer = 0; consumer < CONSUMERS; consumer++) {
+          count += countNewLines(lines, line -> scmInfo.getChangesetForLine(line).getDate() > snapshotDate);
+        }
+        return count;
+      });
+      measure("shared new lines", lines, () -> {
+        NewLines newLines = NewLines.of(scmInfo, period);
+        long count = 0;
+        for (int consumer = 0; consumer < CONSUMERS; consumer++) {
+          count += countNewLines(lines, newLines::isNew);
+        }
+        return count;
+      });
+    }
+  }
+
+  private static long countNewLines(int lines, IntPredicate isNew) {
+    long count = 0;
+    for (int line = 1; line <= lines; line++) {
+      if (isNew.test(line)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static void measure(String label, int lines, LongSupplier consumers) {
+    long start = System.nanoTime();
+    long count = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      count += consumers.getAsLong();
+    }
+    long durationMs = (System.nanoTime() - start) / 1_000_000;
+    System.out.printf("%-25s %6d ms for %d iterations on %d lines (%d new lines)%n", label, durationMs, ITERATIONS, lines, count / ITERATIONS / CONSUMERS);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.scm;
+
+import com.google.common.base.Optional;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.period.Period;
+import org.sonar.server.computation.task.projectanalysis.period.PeriodHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+
+public class NewLinesRepositoryImplTest {
+
+  private static final int FILE_REF = 2;
+  private static final Component FILE_COMPONENT = ReportComponent.builder(FILE, FILE_REF).build();
+  private static final long PERIOD_DATE = 1_000L;
+
+  @Rule
+  public ScmInfoRepositoryRule scmInfoRepository = new ScmInfoRepositoryRule();
+  @Rule
+  public PeriodHolderRule periodHolder = new PeriodHolderRule().setPeriod(new Period("mode_p_1", null, PERIOD_DATE, "u1"));
+
+  private ScmInfoRepository spiedScmInfoRepository = spy(scmInfoRepository);
+  private NewLinesRepositoryImpl underTest = new NewLinesRepositoryImpl(spiedScmInfoRepository, periodHolder);
+
+  @Test
+  public void return_new_lines_of_file() {
+    scmInfoRepository.setScmInfo(FILE_REF, changeset(PERIOD_DATE - 1), changeset(PERIOD_DATE + 1));
+
+    Optional<NewLines> newLines = underTest.getNewLines(FILE_COMPONENT);
+
+    assertThat(newLines.isPresent()).isTrue();
+    assertThat(newLines.get().isNew(1)).isFalse();
+    assertThat(newLines.get().isNew(2)).isTrue();
+  }
+
+  @Test
+  public void new_lines_are_computed_once_per_file() {
+    scmInfoRepository.setScmInfo(FILE_REF, changeset(PERIOD_DATE + 1));
+
+    Optional<NewLines> newLines = underTest.getNewLines(FILE_COMPONENT);
+
+    assertThat(underTest.getNewLines(FILE_COMPONENT).get()).isSameAs(newLines.get());
+    verify(spiedScmInfoRepository, times(1)).getScmInfo(FILE_COMPONENT);
+  }
+
+  @Test
+  public void return_absent_when_file_has_no_scm_info() {
+    assertThat(underTest.getNewLines(FILE_COMPONENT).isPresent()).isFalse();
+  }
+
+  @Test
+  public void return_absent_when_there_is_no_period() {
+    periodHolder.setPeriod(null);
+    scmInfoRepository.setScmInfo(FILE_REF, changeset(PERIOD_DATE + 1));
+
+    assertThat(underTest.getNewLines(FILE_COMPONENT).isPresent()).isFalse();
+  }
+
+  @Test
+  public void return_absent_for_components_which_are_not_files() {
+    assertThat(underTest.getNewLines(ReportComponent.builder(DIRECTORY, 1).build()).isPresent()).isFalse();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void fail_with_NPE_when_component_is_null() {
+    underTest.getNewLines(null);
+  }
+
+  private static Changeset changeset(long date) {
+    return Changeset.newChangesetBuilder().setDate(date).setRevision("rev-" + date).build();
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.scm;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.period.Period;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NewLinesTest {
+
+  private static final long PERIOD_DATE = 1_000L;
+  private static final Period PERIOD = new Period("mode_p_1", null, PERIOD_DATE, "u1");
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private NewLines underTest = NewLines.of(new ScmInfoImpl(asList(
+    changeset(PERIOD_DATE - 1),
+    changeset(PERIOD_DATE + 1),
+    changeset(PERIOD_DATE),
+    changeset(PERIOD_DATE + 10))), PERIOD);
+
+  @Test
+  public void lines_more_recent_than_period_are_new() {
+    assertThat(underTest.isNew(1)).isFalse();
+    assertThat(underTest.isNew(2)).isTrue();
+    assertThat(underTest.isNew(3)).isFalse();
+    assertThat(underTest.isNew(4)).isTrue();
+    assertThat(underTest.count()).isEqualTo(2);
+  }
+
+  @Test
+  public void fail_with_IAE_when_line_is_zero() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("There's no changeset on line 0");
+
+    underTest.isNew(0);
+  }
+
+  @Test
+  public void fail_with_IAE_when_line_is_greater_than_line_count() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("There's no changeset on line 5");
+
+    underTest.isNew(5);
+  }
+
+  private static Changeset changeset(long date) {
+    return Changeset.newChangesetBuilder().setDate(date).setRevision("rev-" + date).build();
+  }
+}
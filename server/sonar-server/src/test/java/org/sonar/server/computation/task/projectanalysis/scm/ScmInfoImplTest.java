@@ -20,6 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -102,6 +104,33 @@ public class ScmInfoImplTest {
     scmInfo.getChangesetForLine(5);
   }
 
+  @Test
+  public void support_more_distinct_changesets_than_char_index_allows() throws Exception {
+    List<Changeset> lineChangesets = new ArrayList<>();
+    for (int i = 0; i < 70_000; i++) {
+      lineChangesets.add(Changeset.newChangesetBuilder()
+        .setDate((long) i)
+        .setRevision("rev-" + i)
+        .build());
+    }
+
+    ScmInfo scmInfo = new ScmInfoImpl(lineChangesets);
+
+    assertThat(scmInfo.getChangesetForLine(70_000).getRevision()).isEqualTo("rev-69999");
+    assertThat(scmInfo.getLatestChangeset().getRevision()).isEqualTo("rev-69999");
+    assertThat(scmInfo.getAllChangesets()).hasSize(70_000);
+  }
+
+  @Test
+  public void memory_size_grows_with_lines_and_distinct_changesets() throws Exception {
+    ScmInfoImpl oneLine = new ScmInfoImpl(newArrayList(CHANGESET_1));
+    ScmInfoImpl twoLines = new ScmInfoImpl(newArrayList(CHANGESET_1, CHANGESET_1));
+    ScmInfoImpl twoChangesets = new ScmInfoImpl(newArrayList(CHANGESET_1, CHANGESET_2));
+
+    assertThat(twoLines.getMemorySize()).isEqualTo(oneLine.getMemorySize() + Character.BYTES);
+    assertThat(twoChangesets.getMemorySize()).isGreaterThan(twoLines.getMemorySize());
+  }
+
   @Test
   public void test_to_string() throws Exception {
     ScmInfo scmInfo = createScmInfoWithTwoChangestOnFourLines();
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import com.tngtech.java.junit.dataprovider.DataProvider;
 import com.tngtech.java.junit.dataprovider.DataProviderRunner;
 import com.tngtech.java.junit.dataprovider.UseDataProvider;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
@@ -31,6 +32,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.core.hash.SourceHashComputer;
@@ -50,6 +52,7 @@ import org.sonar.server.computation.task.projectanalysis.component.ViewsComponen
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepository;
 import org.sonar.server.computation.task.projectanalysis.source.SourceHashRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryImpl;
+import org.sonar.server.source.SourceDictionaryRepository;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.guava.api.Assertions.assertThat;
@@ -86,7 +89,7 @@ public class ScmInfoRepositoryImplTest {
   DbClient dbClient = dbTester.getDbClient();
 
   ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(reportReader, analysisMetadataHolder, dbClient,
-    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)));
+    new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)), new SourceDictionaryRepository(dbClient, new MapSettings()));
 
   @Test
   public void read_from_report() throws Exception {
@@ -210,7 +213,8 @@ public class ScmInfoRepositoryImplTest {
     AnalysisMetadataHolder analysisMetadataHolder = mock(AnalysisMetadataHolder.class);
     DbClient dbClient = mock(DbClient.class);
     SourceHashRepository sourceHashRepository = mock(SourceHashRepository.class);
-    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository);
+    ScmInfoRepositoryImpl underTest = new ScmInfoRepositoryImpl(batchReportReader, analysisMetadataHolder, dbClient, sourceHashRepository,
+      new SourceDictionaryRepository(dbClient, new MapSettings()));
 
     assertThat(underTest.getScmInfo(component)).isAbsent();
 
@@ -231,6 +235,86 @@ public class ScmInfoRepositoryImplTest {
     assertThat(logTester.logs(TRACE)).isEmpty();
   }
 
+  @Test
+  public void evict_least_recently_used_files_when_cache_is_full() throws Exception {
+    Component file2 = newFile(2);
+    // enough memory for the SCM info of a single file with a single line
+    ScmInfoRepositoryImpl underTest = newRepository(400L);
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    addChangesetInReport("john", DATE_1, "rev-1");
+    addChangesetInReport(2, "henry", DATE_2, "rev-2");
+
+    underTest.getScmInfo(FILE);
+    underTest.getScmInfo(file2);
+    logTester.clear();
+
+    assertThat(underTest.getScmInfo(file2).get().getLatestChangeset().getRevision()).isEqualTo("rev-2");
+    assertThat(logTester.logs(TRACE)).isEmpty();
+    assertThat(underTest.getScmInfo(FILE).get().getLatestChangeset().getRevision()).isEqualTo("rev-1");
+    assertThat(logTester.logs(TRACE)).containsOnly("Reading SCM info from report for file 'FILE_KEY'");
+  }
+
+  @Test
+  public void read_again_scm_info_of_files_evicted_by_crawls_of_more_files_than_cache_holds() throws Exception {
+    // enough memory for the SCM info of 3 files with a single line
+    ScmInfoRepositoryImpl underTest = newRepository(1_000L);
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    List<Component> files = new ArrayList<>();
+    for (int ref = 2; ref < 12; ref++) {
+      files.add(newFile(ref));
+      addChangesetInReport(ref, "john", DATE_1, "rev-" + ref);
+    }
+
+    for (int crawl = 0; crawl < 2; crawl++) {
+      for (Component file : files) {
+        assertThat(underTest.getScmInfo(file).get().getLatestChangeset().getRevision()).isEqualTo("rev-" + file.getReportAttributes().getRef());
+      }
+    }
+
+    assertThat(logTester.logs(TRACE)).hasSize(2 * files.size());
+  }
+
+  @Test
+  public void keep_scm_info_of_all_files_of_large_project_in_memory() throws Exception {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    List<Component> files = new ArrayList<>();
+    for (int ref = 2; ref < 10_002; ref++) {
+      files.add(newFile(ref));
+      addChangesetInReport(ref, "john", DATE_1, "rev-" + ref);
+    }
+
+    for (int crawl = 0; crawl < 3; crawl++) {
+      files.forEach(underTest::getScmInfo);
+    }
+
+    assertThat(logTester.logs(TRACE)).hasSize(files.size());
+  }
+
+  @Test
+  public void read_from_db_when_scm_is_stored_with_text_of_lines() throws Exception {
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    DbFileSources.Data.Builder fileDataBuilder = DbFileSources.Data.newBuilder();
+    fileDataBuilder.addLinesBuilder()
+      .setLine(1)
+      .setScmAuthor("henry")
+      .setScmDate(DATE_1)
+      .setScmRevision("rev-1");
+    // row inserted before 6.3: no LINE_DATA
+    dbTester.getDbClient().fileSourceDao().insert(new FileSourceDto()
+      .setFileUuid(FILE.getUuid())
+      .setProjectUuid("PROJECT_UUID")
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setBinaryData(FileSourceDto.encodeSourceData(fileDataBuilder.build()))
+      .setSrcHash(computeSourceHash(1)));
+    addFileSourceInReport(1);
+    addCopyFromPreviousChangesetInReport();
+
+    ScmInfo scmInfo = underTest.getScmInfo(FILE).get();
+
+    assertThat(scmInfo.getLatestChangeset().getAuthor()).isEqualTo("henry");
+    assertThat(scmInfo.getAllChangesets()).hasSize(1);
+  }
+
   @Test
   public void not_read_in_db_on_first_analysis_when_CopyFromPrevious_is_true() throws Exception {
     analysisMetadataHolder.setBaseAnalysis(null);
@@ -273,6 +357,27 @@ public class ScmInfoRepositoryImplTest {
     addChangesetInReport(author, date, revision, false);
   }
 
+  private void addChangesetInReport(int ref, String author, Long date, String revision) {
+    reportReader.putChangesets(ScannerReport.Changesets.newBuilder()
+      .setComponentRef(ref)
+      .addChangeset(ScannerReport.Changesets.Changeset.newBuilder()
+        .setAuthor(author)
+        .setDate(date)
+        .setRevision(revision)
+        .build())
+      .addChangesetIndexByLine(0)
+      .build());
+  }
+
+  private ScmInfoRepositoryImpl newRepository(long maxMemorySize) {
+    return new ScmInfoRepositoryImpl(reportReader, analysisMetadataHolder, dbClient,
+      new SourceHashRepositoryImpl(new SourceLinesRepositoryImpl(reportReader)), new SourceDictionaryRepository(dbClient, new MapSettings()), maxMemorySize);
+  }
+
+  private static Component newFile(int ref) {
+    return builder(Component.Type.FILE, ref).setKey("FILE" + ref + "_KEY").setUuid("FILE" + ref + "_UUID").build();
+  }
+
   private void addChangesetInReport(String author, Long date, String revision, boolean copyFromPrevious) {
     reportReader.putChangesets(ScannerReport.Changesets.newBuilder()
       .setComponentRef(FILE_REF)
@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.computation.task.ChangeLogLevel;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.MODULE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+
+public class ExecuteMeasureVisitorsStepTest {
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private List<String> visits = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    treeRootHolder.setRoot(
+      builder(PROJECT, 1).setKey("project")
+        .addChildren(
+          builder(MODULE, 12).setKey("module")
+            .addChildren(
+              builder(DIRECTORY, 123).setKey("directory")
+                .addChildren(
+                  builder(FILE, 1231).setKey("file1").build(),
+                  builder(FILE, 1232).setKey("file2").build())
+                .build())
+            .build())
+        .build());
+  }
+
+  @Test
+  public void execute_visitors_of_all_steps_in_a_single_crawl() {
+    ExecuteMeasureVisitorsStep underTest = new ExecuteMeasureVisitorsStep(treeRootHolder, asList(new StepA(), new StepB()));
+
+    underTest.execute();
+
+    assertThat(visits).containsExactly(
+      "A1:file1", "A2:file1", "B:file1",
+      "A1:file2", "A2:file2", "B:file2",
+      "A1:directory", "A2:directory", "B:directory",
+      "A1:module", "A2:module", "B:module",
+      "A1:project", "A2:project", "B:project");
+  }
+
+  @Test
+  public void execute_logs_at_debug_level_execution_duration_of_each_step() {
+    try (ChangeLogLevel executor = new ChangeLogLevel(ExecuteMeasureVisitorsStep.class, LoggerLevel.DEBUG)) {
+      ExecuteMeasureVisitorsStep underTest = new ExecuteMeasureVisitorsStep(treeRootHolder, asList(new StepA(), new StepB()));
+
+      underTest.execute();
+
+      List<String> logs = logTester.logs(LoggerLevel.DEBUG);
+      assertThat(logs).hasSize(3);
+      assertThat(logs.get(0)).isEqualTo("  Execution time for each measure step:");
+      assertThat(logs.get(1)).startsWith("  - StepA | time=");
+      assertThat(logs.get(2)).startsWith("  - StepB | time=");
+    }
+  }
+
+  private class StepA extends FakeStep {
+    @Override
+    public List<ComponentVisitor> getVisitors() {
+      return asList(new RecordingVisitor("A1"), new RecordingVisitor("A2"));
+    }
+  }
+
+  private class StepB extends FakeStep {
+    @Override
+    public List<ComponentVisitor> getVisitors() {
+      return singletonList(new RecordingVisitor("B"));
+    }
+  }
+
+  private abstract static class FakeStep implements MeasureVisitorsStep {
+    @Override
+    public void execute() {
+      throw new UnsupportedOperationException("visitors of step must be executed by ExecuteMeasureVisitorsStep");
+    }
+
+    @Override
+    public String getDescription() {
+      return getClass().getSimpleName();
+    }
+  }
+
+  private class RecordingVisitor extends TypeAwareVisitorAdapter {
+    private final String name;
+
+    private RecordingVisitor(String name) {
+      super(CrawlerDepthLimit.FILE, ComponentVisitor.Order.POST_ORDER);
+      this.name = name;
+    }
+
+    @Override
+    public void visitAny(Component any) {
+      visits.add(name + ":" + any.getKey());
+    }
+  }
+}
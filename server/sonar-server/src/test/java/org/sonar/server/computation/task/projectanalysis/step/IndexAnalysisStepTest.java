@@ -19,17 +19,26 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
+import org.sonar.server.computation.task.projectanalysis.component.ChangedComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.DisabledComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.ViewsComponent;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.es.ProjectIndexer;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.VIEW;
@@ -44,27 +53,70 @@ public class IndexAnalysisStepTest extends BaseStepTest {
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
+  private ChangedComponentsHolderImpl changedComponentsHolder = new ChangedComponentsHolderImpl();
+  private DisabledComponentsHolderImpl disabledComponentsHolder = new DisabledComponentsHolderImpl();
   private ProjectIndexer componentIndexer = mock(ProjectIndexer.class);
-  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, componentIndexer);
+  private IndexAnalysisStep underTest = new IndexAnalysisStep(treeRootHolder, changedComponentsHolder, disabledComponentsHolder, componentIndexer);
 
   @Test
   public void call_indexByProjectUuid_of_indexer_for_project() {
     Component project = ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
     treeRootHolder.setRoot(project);
+    changedComponentsHolder.setUuids(emptyList());
+    disabledComponentsHolder.setUuids(emptyList());
 
     underTest.execute();
 
-    verify(componentIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(componentIndexer).indexAnalysis(PROJECT_UUID, emptyList(), emptyList());
   }
 
   @Test
   public void call_indexByProjectUuid_of_indexer_for_view() {
     Component view = ViewsComponent.builder(VIEW, PROJECT_KEY).setUuid(PROJECT_UUID).build();
     treeRootHolder.setRoot(view);
+    changedComponentsHolder.setUuids(emptyList());
+    disabledComponentsHolder.setUuids(emptyList());
 
     underTest.execute();
 
-    verify(componentIndexer).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+    verify(componentIndexer).indexAnalysis(PROJECT_UUID, emptyList(), emptyList());
+  }
+
+  @Test
+  public void pass_changed_and_disabled_components_to_indexers() {
+    Component project = ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    treeRootHolder.setRoot(project);
+    changedComponentsHolder.setUuids(asList("FILE_1", "FILE_2"));
+    disabledComponentsHolder.setUuids(singletonList("FILE_3"));
+
+    underTest.execute();
+
+    verify(componentIndexer).indexAnalysis(PROJECT_UUID, asList("FILE_1", "FILE_2"), singletonList("FILE_3"));
+    verify(componentIndexer, never()).indexProject(PROJECT_UUID, ProjectIndexer.Cause.NEW_ANALYSIS);
+  }
+
+  @Test
+  public void indexers_reindex_whole_project_by_default() {
+    Component project = ReportComponent.builder(PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).build();
+    treeRootHolder.setRoot(project);
+    changedComponentsHolder.setUuids(singletonList("FILE_1"));
+    disabledComponentsHolder.setUuids(emptyList());
+    List<String> indexedProjects = new ArrayList<>();
+    ProjectIndexer indexer = new ProjectIndexer() {
+      @Override
+      public void indexProject(String projectUuid, Cause cause) {
+        indexedProjects.add(projectUuid + ":" + cause);
+      }
+
+      @Override
+      public void deleteProject(String projectUuid) {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    new IndexAnalysisStep(treeRootHolder, changedComponentsHolder, disabledComponentsHolder, indexer).execute();
+
+    assertThat(indexedProjects).containsExactly(PROJECT_UUID + ":" + ProjectIndexer.Cause.NEW_ANALYSIS);
   }
 
   @Override
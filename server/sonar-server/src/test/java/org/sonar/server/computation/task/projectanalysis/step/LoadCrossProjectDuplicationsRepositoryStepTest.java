@@ -49,12 +49,15 @@ import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationIndexFilter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
 import org.sonar.server.computation.task.projectanalysis.duplication.IntegrateCrossProjectDuplications;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -101,10 +104,12 @@ public class LoadCrossProjectDuplicationsRepositoryStepTest {
 
   IntegrateCrossProjectDuplications integrateCrossProjectDuplications = mock(IntegrateCrossProjectDuplications.class);
 
+  CrossProjectDuplicationIndexFilter indexFilter = new CrossProjectDuplicationIndexFilter(dbClient);
+
   Analysis baseProjectAnalysis;
 
   ComputationStep underTest = new LoadCrossProjectDuplicationsRepositoryStep(treeRootHolder, batchReportReader, analysisMetadataHolder, crossProjectDuplicationStatusHolder,
-    integrateCrossProjectDuplications, dbClient);
+    integrateCrossProjectDuplications, indexFilter, dbClient);
 
   @Before
   public void setUp() throws Exception {
@@ -259,6 +264,50 @@ public class LoadCrossProjectDuplicationsRepositoryStepTest {
         .build());
   }
 
+  @Test
+  public void call_compute_cpd_on_each_file_of_a_batch() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+    Component otherCurrentFile = ReportComponent.builder(FILE, 3)
+      .setKey("OTHER_CURRENT_FILE_KEY")
+      .setFileAttributes(new FileAttributes(false, XOO_LANGUAGE, 1))
+      .build();
+    treeRootHolder.setRoot(ReportComponent.builder(PROJECT, PROJECT_REF).addChildren(CURRENT_FILE, otherCurrentFile).build());
+
+    ComponentDto otherProject = createProject("OTHER_PROJECT_KEY");
+    SnapshotDto otherProjectSnapshot = createProjectSnapshot(otherProject);
+    ComponentDto otherFile = createFile("OTHER_FILE_KEY", otherProject);
+    DuplicationUnitDto duplicate1 = createDuplicate("a8998353e96320ec", 0, otherProjectSnapshot, otherFile);
+    DuplicationUnitDto duplicate2 = createDuplicate("b1234353e96320ff", 1, otherProjectSnapshot, otherFile);
+
+    batchReportReader.putDuplicationBlocks(FILE_REF, asList(newCpdTextBlock(duplicate1.getHash())));
+    batchReportReader.putDuplicationBlocks(3, asList(newCpdTextBlock(duplicate2.getHash()), newCpdTextBlock("not_indexed_hash")));
+
+    underTest.execute();
+
+    verify(integrateCrossProjectDuplications).computeCpd(eq(CURRENT_FILE), anyCollectionOf(Block.class), eq(singletonList(toBlock(duplicate1, otherFile))));
+    verify(integrateCrossProjectDuplications).computeCpd(eq(otherCurrentFile), anyCollectionOf(Block.class), eq(singletonList(toBlock(duplicate2, otherFile))));
+  }
+
+  @Test
+  public void nothing_to_do_when_hashes_are_not_in_index_filter() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    analysisMetadataHolder.setBaseAnalysis(baseProjectAnalysis);
+
+    ComponentDto otherProject = createProject("OTHER_PROJECT_KEY");
+    SnapshotDto otherProjectSnapshot = createProjectSnapshot(otherProject);
+    ComponentDto otherFile = createFile("OTHER_FILE_KEY", otherProject);
+    DuplicationUnitDto duplicate = createDuplicate("a8998353e96320ec", 0, otherProjectSnapshot, otherFile);
+    batchReportReader.putDuplicationBlocks(FILE_REF, asList(newCpdTextBlock(duplicate.getHash())));
+    CrossProjectDuplicationIndexFilter emptyIndexFilter = mock(CrossProjectDuplicationIndexFilter.class);
+
+    new LoadCrossProjectDuplicationsRepositoryStep(treeRootHolder, batchReportReader, analysisMetadataHolder, crossProjectDuplicationStatusHolder,
+      integrateCrossProjectDuplications, emptyIndexFilter, dbClient).execute();
+
+    verify(emptyIndexFilter).mightBeIndexed(XOO_LANGUAGE, duplicate.getHash());
+    verifyZeroInteractions(integrateCrossProjectDuplications);
+  }
+
   @Test
   public void nothing_to_do_when_cross_project_duplication_is_disabled() throws Exception {
     when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(false);
@@ -348,6 +397,38 @@ public class LoadCrossProjectDuplicationsRepositoryStepTest {
     return file;
   }
 
+  private DuplicationUnitDto createDuplicate(String hash, int indexInFile, SnapshotDto projectSnapshot, ComponentDto file) {
+    DuplicationUnitDto duplicate = new DuplicationUnitDto()
+      .setHash(hash)
+      .setStartLine(40)
+      .setEndLine(55)
+      .setIndexInFile(indexInFile)
+      .setAnalysisUuid(projectSnapshot.getUuid())
+      .setComponentUuid(file.uuid());
+    dbClient.duplicationDao().insert(dbSession, duplicate);
+    dbSession.commit();
+    return duplicate;
+  }
+
+  private static ScannerReport.CpdTextBlock newCpdTextBlock(String hash) {
+    return ScannerReport.CpdTextBlock.newBuilder()
+      .setHash(hash)
+      .setStartLine(30)
+      .setEndLine(45)
+      .setStartTokenIndex(0)
+      .setEndTokenIndex(10)
+      .build();
+  }
+
+  private static Block toBlock(DuplicationUnitDto duplicate, ComponentDto file) {
+    return new Block.Builder()
+      .setResourceId(file.getKey())
+      .setBlockHash(new ByteArray(duplicate.getHash()))
+      .setIndexInFile(duplicate.getIndexInFile())
+      .setLines(duplicate.getStartLine(), duplicate.getEndLine())
+      .build();
+  }
+
   private static Map<Integer, Block> blocksByIndexInFile(List<Block> blocks) {
     Map<Integer, Block> blocksByIndexInFile = new HashMap<>();
     for (Block block : blocks) {
@@ -31,6 +31,7 @@ import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository
 import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolderRule;
 import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
+import org.sonar.server.computation.task.projectanalysis.scm.NewLinesRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -111,8 +112,8 @@ public class NewSizeMeasuresStepTest {
   @Rule
   public DuplicationRepositoryRule duplicationRepository = DuplicationRepositoryRule.create(treeRootHolder);
 
-  NewSizeMeasuresStep underTest = new NewSizeMeasuresStep(treeRootHolder, periodsHolder, metricRepository, measureRepository, scmInfoRepository,
-    duplicationRepository);
+  NewSizeMeasuresStep underTest = new NewSizeMeasuresStep(treeRootHolder, periodsHolder, metricRepository, measureRepository,
+    new NewLinesRepositoryImpl(scmInfoRepository, periodsHolder), duplicationRepository);
 
   @Test
   public void compute_new_lines() {
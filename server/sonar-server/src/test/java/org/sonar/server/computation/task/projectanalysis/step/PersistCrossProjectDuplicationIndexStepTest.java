@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import org.junit.Before;
@@ -34,19 +35,28 @@ import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetada
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationIndexFilter;
 import org.sonar.server.computation.task.projectanalysis.duplication.CrossProjectDuplicationStatusHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class PersistCrossProjectDuplicationIndexStepTest {
 
   private static final int FILE_REF = 2;
-  private static final Component FILE = ReportComponent.builder(Component.Type.FILE, FILE_REF).build();
+  private static final String LANGUAGE = "java";
+  private static final Component FILE = ReportComponent.builder(Component.Type.FILE, FILE_REF)
+    .setFileAttributes(new FileAttributes(false, LANGUAGE, 1))
+    .build();
 
   private static final Component PROJECT = ReportComponent.builder(Component.Type.PROJECT, 1)
     .addChildren(FILE)
@@ -70,9 +80,12 @@ public class PersistCrossProjectDuplicationIndexStepTest {
 
   CrossProjectDuplicationStatusHolder crossProjectDuplicationStatusHolder = mock(CrossProjectDuplicationStatusHolder.class);
 
+  CrossProjectDuplicationIndexFilter indexFilter = mock(CrossProjectDuplicationIndexFilter.class);
+
   DbClient dbClient = dbTester.getDbClient();
 
-  ComputationStep underTest = new PersistCrossProjectDuplicationIndexStep(crossProjectDuplicationStatusHolder, dbClient, treeRootHolder, analysisMetadataHolder, reportReader);
+  ComputationStep underTest = new PersistCrossProjectDuplicationIndexStep(crossProjectDuplicationStatusHolder, dbClient, treeRootHolder, analysisMetadataHolder, reportReader,
+    indexFilter);
 
   @Before
   public void setUp() throws Exception {
@@ -117,6 +130,40 @@ public class PersistCrossProjectDuplicationIndexStepTest {
     assertThat(dtos).extracting("ANALYSIS_UUID").containsOnly(ANALYSIS_UUID);
   }
 
+  @Test
+  public void register_persisted_hashes_in_index_filter() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    reportReader.putDuplicationBlocks(FILE_REF, singletonList(CPD_TEXT_BLOCK));
+
+    underTest.execute();
+
+    verify(indexFilter).add(LANGUAGE, singleton(CPD_TEXT_BLOCK.getHash()));
+  }
+
+  @Test
+  public void register_distinct_hashes_of_language_in_index_filter_at_once() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    reportReader.putDuplicationBlocks(FILE_REF, Arrays.asList(
+      CPD_TEXT_BLOCK,
+      ScannerReport.CpdTextBlock.newBuilder().setHash("b1234353e96320ff").setStartLine(20).setEndLine(15).build(),
+      ScannerReport.CpdTextBlock.newBuilder().setHash(CPD_TEXT_BLOCK.getHash()).setStartLine(50).setEndLine(65).build()));
+
+    underTest.execute();
+
+    verify(indexFilter).add(LANGUAGE, new HashSet<>(Arrays.asList(CPD_TEXT_BLOCK.getHash(), "b1234353e96320ff")));
+    verifyNoMoreInteractions(indexFilter);
+  }
+
+  @Test
+  public void do_not_register_hashes_in_index_filter_when_no_cpd_text_blocks_in_report() throws Exception {
+    when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
+    reportReader.putDuplicationBlocks(FILE_REF, Collections.<ScannerReport.CpdTextBlock>emptyList());
+
+    underTest.execute();
+
+    verifyZeroInteractions(indexFilter);
+  }
+
   @Test
   public void nothing_to_persist_when_no_cpd_text_blocks_in_report() throws Exception {
     when(crossProjectDuplicationStatusHolder.isEnabled()).thenReturn(true);
@@ -135,6 +182,7 @@ public class PersistCrossProjectDuplicationIndexStepTest {
     underTest.execute();
 
     assertThat(dbTester.countRowsOfTable("duplications_index")).isEqualTo(0);
+    verifyZeroInteractions(indexFilter);
   }
 
 }
@@ -19,11 +19,15 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.primitives.Bytes;
 import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -31,6 +35,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
+import org.sonar.db.source.SourceDictionary;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReport.Component.ComponentType;
 import org.sonar.scanner.protocol.output.ScannerReport.SyntaxHighlightingRule.HighlightingType;
@@ -48,11 +53,14 @@ import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.source.SourceDictionaryRepository;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.sonar.core.config.CorePropertyDefinitions.SOURCES_DICTIONARY_COMPRESSION;
 
 public class PersistFileSourcesStepTest extends BaseStepTest {
 
@@ -63,6 +71,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   private static final long NOW = 123456789L;
 
   private System2 system2 = mock(System2.class);
+  private MapSettings settings = new MapSettings();
 
   @Rule
   public ExpectedException thrown = ExpectedException.none();
@@ -83,12 +92,14 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession session = dbTester.getSession();
 
+  private SourceDictionaryRepository sourceDictionaryRepository = new SourceDictionaryRepository(dbClient, settings);
   private PersistFileSourcesStep underTest;
 
   @Before
   public void setup() {
     when(system2.now()).thenReturn(NOW);
-    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository,
+      sourceDictionaryRepository);
   }
 
   @Override
@@ -107,7 +118,9 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getProjectUuid()).isEqualTo(PROJECT_UUID);
     assertThat(fileSourceDto.getFileUuid()).isEqualTo(FILE_UUID);
     assertThat(fileSourceDto.getBinaryData()).isNotEmpty();
+    assertThat(fileSourceDto.getLineData()).isNotEmpty();
     assertThat(fileSourceDto.getDataHash()).isNotEmpty();
+    assertThat(fileSourceDto.getTextHash()).isEqualTo(DigestUtils.md5Hex(fileSourceDto.getBinaryData()));
     assertThat(fileSourceDto.getLineHashes()).isNotEmpty();
     assertThat(fileSourceDto.getCreatedAt()).isEqualTo(NOW);
     assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
@@ -120,6 +133,46 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(data.getLines(1).getSource()).isEqualTo("line2");
   }
 
+  @Test
+  public void train_dictionary_when_dictionary_compression_is_enabled_and_language_has_no_dictionary() {
+    settings.setProperty(SOURCES_DICTIONARY_COMPRESSION, true);
+    initReport("java", "import java.util.List;", "  }", "import java.util.List;", "  }");
+
+    underTest.execute();
+
+    SourceDictionary dictionary = sourceDictionaryRepository.getCurrent(session, "java").get();
+    assertThat(new String(dictionary.getBytes(), UTF_8)).isEqualTo("import java.util.List;\n");
+    // dictionary is used by next analyses only
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getSourceData().getLinesCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void compress_sources_with_dictionary_of_language_when_dictionary_compression_is_enabled() {
+    settings.setProperty(SOURCES_DICTIONARY_COMPRESSION, true);
+    sourceDictionaryRepository.setCurrent(session, new SourceDictionary("java", "line1\nline2\n".getBytes(UTF_8)));
+    initReport("java", "line1", "line2");
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    DbFileSources.Data data = fileSourceDto.getSourceData(sourceDictionaryRepository);
+    assertThat(data.getLinesList()).extracting(DbFileSources.Line::getSource).containsExactly("line1", "line2");
+    thrown.expect(IllegalStateException.class);
+    fileSourceDto.getSourceData();
+  }
+
+  @Test
+  public void do_not_use_dictionaries_when_dictionary_compression_is_disabled() {
+    sourceDictionaryRepository.setCurrent(session, new SourceDictionary("java", "line1\nline2\n".getBytes(UTF_8)));
+    initReport("java", "line1", "line2");
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getSourceData().getLinesCount()).isEqualTo(2);
+  }
+
   @Test
   public void persist_source_hashes() {
     initBasicReport(2);
@@ -281,14 +334,11 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     long past = 150000L;
     String srcHash = "137f72c3708c6bd0de00a0e5a69c699b";
     String lineHashes = "137f72c3708c6bd0de00a0e5a69c699b";
-    String dataHash = "29f25900140c94db38035128cb6de6a2";
-
-    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+    FileSourceDto existing = new FileSourceDto()
       .setProjectUuid(PROJECT_UUID)
       .setFileUuid(FILE_UUID)
       .setSrcHash(srcHash)
       .setLineHashes(lineHashes)
-      .setDataHash(dataHash)
       .setSourceData(DbFileSources.Data.newBuilder()
         .addLines(DbFileSources.Line.newBuilder()
           .setLine(1)
@@ -296,7 +346,9 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
           .build())
         .build())
       .setCreatedAt(past)
-      .setUpdatedAt(past));
+      .setUpdatedAt(past);
+    String dataHash = dataHashOf(existing);
+    dbClient.fileSourceDao().insert(dbTester.getSession(), existing.setDataHash(dataHash));
     dbTester.getSession().commit();
 
     // Sources from the report
@@ -350,6 +402,53 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getCreatedAt()).isEqualTo(past);
     assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
     assertThat(fileSourceDto.getRevision()).isEqualTo("rev-1");
+    assertThat(fileSourceDto.getSourceData().getLines(0).getSource()).isEqualTo("line1");
+    assertThat(fileSourceDto.getTextHash()).isEqualTo(DigestUtils.md5Hex(fileSourceDto.getBinaryData()));
+  }
+
+  @Test
+  public void update_only_line_data_when_text_has_not_changed() {
+    // Existing sources
+    long past = 150000L;
+    FileSourceDto existing = new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setSrcHash("137f72c3708c6bd0de00a0e5a69c699b")
+      .setLineHashes("hashes are not rewritten")
+      .setDataHash("6cad150e3d065976c230cddc5a09efaa")
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder()
+          .setLine(1)
+          .setSource("line1")
+          .setScmRevision("rev-0")
+          .build())
+        .build())
+      .setCreatedAt(past)
+      .setUpdatedAt(past)
+      .setRevision("rev-0");
+    String textHash = DigestUtils.md5Hex(existing.getBinaryData());
+    dbClient.fileSourceDao().insert(dbTester.getSession(), existing.setTextHash(textHash));
+    dbTester.getSession().commit();
+
+    initBasicReport(1);
+
+    scmInfoRepository.setScmInfo(FILE_REF, Changeset.newChangesetBuilder()
+      .setAuthor("john")
+      .setDate(123456789L)
+      .setRevision("rev-1")
+      .build());
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+    assertThat(fileSourceDto.getRevision()).isEqualTo("rev-1");
+    assertThat(fileSourceDto.getTextHash()).isEqualTo(textHash);
+    assertThat(fileSourceDto.getLineHashes()).isEqualTo("hashes are not rewritten");
+    DbFileSources.Line line = fileSourceDto.getSourceData().getLines(0);
+    assertThat(line.getSource()).isEqualTo("line1");
+    assertThat(line.getScmRevision()).isEqualTo("rev-1");
+    assertThat(line.getScmAuthor()).isEqualTo("john");
   }
 
   @Test
@@ -456,11 +555,24 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isNull();
   }
 
+  private static String dataHashOf(FileSourceDto dto) {
+    return DigestUtils.md5Hex(Bytes.concat(dto.getBinaryData(), dto.getLineData()));
+  }
+
   private void initBasicReport(int numberOfLines) {
+    String[] lines = new String[numberOfLines];
+    for (int i = 0; i < numberOfLines; i++) {
+      lines[i] = "line" + (i + 1);
+    }
+    initReport(null, lines);
+  }
+
+  private void initReport(@Nullable String language, String... lines) {
+    int numberOfLines = lines.length;
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
         ReportComponent.builder(Component.Type.FILE, FILE_REF).setUuid(FILE_UUID).setKey("MODULE_KEY:src/Foo.java")
-          .setFileAttributes(new FileAttributes(false, null, numberOfLines)).build())
+          .setFileAttributes(new FileAttributes(false, language, numberOfLines)).build())
         .build())
       .build());
 
@@ -480,8 +592,8 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
       .setLines(numberOfLines)
       .build());
 
-    for (int i = 1; i <= numberOfLines; i++) {
-      fileSourceRepository.addLine(FILE_REF, "line" + i);
+    for (String line : lines) {
+      fileSourceRepository.addLine(FILE_REF, line);
     }
   }
 
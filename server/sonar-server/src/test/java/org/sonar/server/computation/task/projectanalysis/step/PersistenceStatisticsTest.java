@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.api.utils.log.Loggers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PersistenceStatisticsTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private System2 system2 = mock(System2.class);
+  private PersistenceStatistics underTest;
+
+  @Before
+  public void setUp() {
+    when(system2.now()).thenReturn(1_000L);
+    underTest = new PersistenceStatistics(system2);
+  }
+
+  @Test
+  public void count_rows_by_table() {
+    underTest.increment("issues");
+    underTest.add("issues", 2);
+    underTest.increment("issue_changes");
+
+    assertThat(underTest.getRows("issues")).isEqualTo(3);
+    assertThat(underTest.getRows("issue_changes")).isEqualTo(1);
+    assertThat(underTest.getRows("project_measures")).isZero();
+  }
+
+  @Test
+  public void log_throughput_of_each_table_in_debug() {
+    logTester.setLevel(LoggerLevel.DEBUG);
+    underTest.add("issues", 10);
+    underTest.add("issue_changes", 5);
+    when(system2.now()).thenReturn(3_000L);
+
+    underTest.log(Loggers.get(PersistenceStatisticsTest.class));
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).containsExactly(
+      "10 rows persisted in issues in 2000ms (5 rows/s)",
+      "5 rows persisted in issue_changes in 2000ms (2 rows/s)");
+  }
+
+  @Test
+  public void do_not_log_throughput_if_duration_is_zero() {
+    logTester.setLevel(LoggerLevel.DEBUG);
+    underTest.add("issues", 10);
+
+    underTest.log(Loggers.get(PersistenceStatisticsTest.class));
+
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).containsExactly("10 rows persisted in issues in 0ms");
+  }
+
+  @Test
+  public void do_not_log_if_debug_is_disabled() {
+    logTester.setLevel(LoggerLevel.INFO);
+    underTest.add("issues", 10);
+
+    underTest.log(Loggers.get(PersistenceStatisticsTest.class));
+
+    assertThat(logTester.logs()).isEmpty();
+  }
+}
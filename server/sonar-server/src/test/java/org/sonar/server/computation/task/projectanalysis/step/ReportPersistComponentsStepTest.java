@@ -32,6 +32,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderRule;
+import org.sonar.server.computation.task.projectanalysis.component.ChangedComponentsHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
 import org.sonar.server.computation.task.projectanalysis.component.MutableDbIdsRepositoryRule;
@@ -72,6 +73,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
   private DbClient dbClient = dbTester.getDbClient();
   private Date now;
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
+  private ChangedComponentsHolderImpl changedComponentsHolder = new ChangedComponentsHolderImpl();
   private PersistComponentsStep underTest;
 
   @Before
@@ -80,7 +82,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(now.getTime());
 
     dbTester.organizations().insertForUuid(ORGANIZATION_UUID);
-    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, analysisMetadataHolder);
+    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, changedComponentsHolder, analysisMetadataHolder);
   }
 
   @Override
@@ -114,6 +116,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     underTest.execute();
 
     assertThat(dbTester.countRowsOfTable("projects")).isEqualTo(4);
+    assertThat(changedComponentsHolder.getUuids()).containsOnly("ABCD", "BCDE", "CDEF", "DEFG");
 
     ComponentDto projectDto = dbClient.componentDao().selectByKey(dbTester.getSession(), PROJECT_KEY).get();
     assertThat(projectDto.getOrganizationUuid()).isEqualTo(ORGANIZATION_UUID);
@@ -259,6 +262,7 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
     underTest.execute();
 
     assertThat(dbTester.countRowsOfTable("projects")).isEqualTo(4);
+    assertThat(changedComponentsHolder.getUuids()).contains("CDEF", "DEFG");
 
     ComponentDto projectReloaded = dbClient.componentDao().selectByKey(dbTester.getSession(), PROJECT_KEY).get();
     assertThat(projectReloaded.getId()).isEqualTo(project.getId());
@@ -661,6 +665,8 @@ public class ReportPersistComponentsStepTest extends BaseStepTest {
 
     underTest.execute();
 
+    assertThat(changedComponentsHolder.getUuids()).contains("BCDE", "CDEF", "DEFG");
+
     assertThat(dbTester.countRowsOfTable("projects")).isEqualTo(4);
     assertThat(dbClient.componentDao().selectByKey(dbTester.getSession(), PROJECT_KEY).get().getId()).isEqualTo(project.getId());
     assertThat(dbClient.componentDao().selectByKey(dbTester.getSession(), MODULE_KEY).get().getId()).isEqualTo(removedModule.getId());
@@ -19,12 +19,15 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import java.util.Collection;
 import java.util.Date;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.notifications.Notification;
+import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.utils.Duration;
 import org.sonar.api.utils.System2;
@@ -42,7 +45,10 @@ import org.sonar.server.issue.notification.NewIssuesNotification;
 import org.sonar.server.issue.notification.NewIssuesNotificationFactory;
 import org.sonar.server.issue.notification.NewIssuesStatistics;
 import org.sonar.server.notification.NotificationService;
+import org.sonar.server.util.cache.DiskCache;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.any;
@@ -82,15 +88,20 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
   NewIssuesNotification newIssuesNotificationMock = createNewIssuesNotificationMock();
   MyNewIssuesNotification myNewIssuesNotificationMock = createMyNewIssuesNotificationMock();
 
+  RuleRepository ruleRepository = mock(RuleRepository.class);
   IssueCache issueCache;
   SendIssueNotificationsStep underTest;
 
   @Before
   public void setUp() throws Exception {
     issueCache = new IssueCache(temp.newFile(), System2.INSTANCE);
-    underTest = new SendIssueNotificationsStep(issueCache, mock(RuleRepository.class), treeRootHolder, notificationService, analysisMetadataHolder,
+    underTest = new SendIssueNotificationsStep(issueCache, ruleRepository, treeRootHolder, notificationService, analysisMetadataHolder,
       newIssuesNotificationFactory);
 
+    org.sonar.server.computation.task.projectanalysis.issue.Rule rule = mock(org.sonar.server.computation.task.projectanalysis.issue.Rule.class);
+    when(rule.getName()).thenReturn("Rule name");
+    when(ruleRepository.getByKey(any(RuleKey.class))).thenReturn(rule);
+
     when(newIssuesNotificationFactory.newNewIssuesNotication()).thenReturn(newIssuesNotificationMock);
     when(newIssuesNotificationFactory.newMyNewIssuesNotification()).thenReturn(myNewIssuesNotificationMock);
   }
@@ -102,6 +113,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
     underTest.execute();
 
     verify(notificationService, never()).deliver(any(Notification.class));
+    verify(notificationService, never()).deliver(anyCollectionOf(Notification.class));
   }
 
   @Test
@@ -114,7 +126,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verify(notificationService).deliver(any(NewIssuesNotification.class));
+    assertThat(deliveredNotifications()).containsExactly(newIssuesNotificationMock);
     verify(newIssuesNotificationMock).setProject(PROJECT_KEY, PROJECT_UUID, PROJECT_NAME);
     verify(newIssuesNotificationMock).setAnalysisDate(new Date(ANALYSE_DATE));
     verify(newIssuesNotificationMock).setStatistics(eq(PROJECT_NAME), any(NewIssuesStatistics.Stats.class));
@@ -131,7 +143,7 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verify(notificationService, times(2)).deliver(any(Notification.class));
+    assertThat(deliveredNotifications()).containsExactly(newIssuesNotificationMock, myNewIssuesNotificationMock);
     verify(myNewIssuesNotificationMock).setAssignee(ISSUE_ASSIGNEE);
     verify(myNewIssuesNotificationMock).setProject(PROJECT_KEY, PROJECT_UUID, PROJECT_NAME);
     verify(myNewIssuesNotificationMock).setAnalysisDate(new Date(ANALYSE_DATE));
@@ -148,7 +160,32 @@ public class SendIssueNotificationsStepTest extends BaseStepTest {
 
     underTest.execute();
 
-    verify(notificationService).deliver(any(IssueChangeNotification.class));
+    assertThat(deliveredNotifications()).hasSize(1).hasOnlyElementsOfType(IssueChangeNotification.class);
+  }
+
+  @Test
+  public void send_issues_change_notifications_in_batches() throws Exception {
+    DiskCache<DefaultIssue>.DiskAppender appender = issueCache.newAppender();
+    for (int i = 0; i < SendIssueNotificationsStep.CHANGE_NOTIFICATIONS_BATCH_SIZE + 1; i++) {
+      appender.append(new DefaultIssue().setKey("ISSUE_" + i).setSeverity(Severity.BLOCKER).setChanged(true).setSendNotifications(true));
+    }
+    appender.close();
+
+    when(notificationService.hasProjectSubscribersForTypes(PROJECT_UUID, SendIssueNotificationsStep.NOTIF_TYPES)).thenReturn(true);
+
+    underTest.execute();
+
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(notificationService, times(2)).deliver(captor.capture());
+    assertThat(captor.getAllValues()).extracting(Collection::size).containsExactly(SendIssueNotificationsStep.CHANGE_NOTIFICATIONS_BATCH_SIZE, 1);
+    verify(notificationService, never()).deliver(any(Notification.class));
+  }
+
+  private Collection<Notification> deliveredNotifications() {
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(notificationService).deliver(captor.capture());
+    verify(notificationService, never()).deliver(any(Notification.class));
+    return captor.getValue();
   }
 
   private NewIssuesNotification createNewIssuesNotificationMock() {
@@ -83,6 +83,7 @@ public class ViewsPersistComponentsStepTest extends BaseStepTest {
   private Date now;
   private ComponentDbTester componentDbTester = new ComponentDbTester(dbTester);
   private MutableDisabledComponentsHolder disabledComponentsHolder = mock(MutableDisabledComponentsHolder.class, RETURNS_DEEP_STUBS);
+  private ChangedComponentsHolderImpl changedComponentsHolder = new ChangedComponentsHolderImpl();
   private PersistComponentsStep underTest;
 
   @Before
@@ -91,7 +92,7 @@ public class ViewsPersistComponentsStepTest extends BaseStepTest {
     when(system2.now()).thenReturn(now.getTime());
 
     dbTester.organizations().insertForUuid(ORGANIZATION_UUID);
-    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, analysisMetadataHolder);
+    underTest = new PersistComponentsStep(dbClient, treeRootHolder, dbIdsRepository, system2, disabledComponentsHolder, changedComponentsHolder, analysisMetadataHolder);
   }
 
   @Override
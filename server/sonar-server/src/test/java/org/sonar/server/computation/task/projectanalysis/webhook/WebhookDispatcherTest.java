@@ -0,0 +1,320 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.computation.monitoring.WebhookDeliveryMBeanImpl;
+import org.sonar.server.util.OkHttpClientProvider;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.sonar.server.computation.task.projectanalysis.webhook.WebhookDispatcher.CIRCUIT_BREAKER_DELAY_MS;
+import static org.sonar.server.computation.task.projectanalysis.webhook.WebhookDispatcher.MAX_CONCURRENT_CALLS_PER_ENDPOINT;
+import static org.sonar.server.computation.task.projectanalysis.webhook.WebhookDispatcher.MAX_PENDING_DELIVERIES;
+
+public class WebhookDispatcherTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+  private static final long VERIFY_TIMEOUT_MS = 10_000L;
+  private static final WebhookPayload PAYLOAD = new WebhookPayload("P1", "{the payload}");
+
+  @Rule
+  public MockWebServer server = new MockWebServer();
+  @Rule
+  public Timeout timeout = Timeout.seconds(60);
+  @Rule
+  public LogTester logTester = new LogTester().setLevel(LoggerLevel.DEBUG);
+
+  private TestSystem2 system = new TestSystem2().setNow(NOW);
+  private WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private WebhookDeliveryExecutorServiceImpl executorService = new WebhookDeliveryExecutorServiceImpl();
+  private WebhookDeliveryMBeanImpl deliveryStatus = new WebhookDeliveryMBeanImpl();
+
+  @After
+  public void tearDown() {
+    executorService.stop();
+  }
+
+  @Test
+  public void deliver_webhook_in_background() {
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    newDispatcher().dispatch(newWebhook("First"), PAYLOAD);
+
+    WebhookDelivery delivery = awaitPersistedDeliveries(1).get(0);
+    assertThat(delivery.getWebhook().getName()).isEqualTo("First");
+    assertThat(delivery.getHttpStatus()).contains(200);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+    assertThat(deliveryStatus.getSuccessCount()).isEqualTo(1);
+    assertThat(deliveryStatus.getPendingCount()).isEqualTo(0);
+    assertThat(logTester.logs(LoggerLevel.DEBUG).stream().anyMatch(log -> log.startsWith("Sent webhook 'First' | url=" + server.url("/ping") + " | time="))).isTrue();
+  }
+
+  @Test
+  public void retry_attempt_which_failed_with_server_error() {
+    server.enqueue(new MockResponse().setResponseCode(500));
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    newDispatcher().dispatch(newWebhook("First"), PAYLOAD);
+
+    assertThat(awaitPersistedDeliveries(1).get(0).getHttpStatus()).contains(200);
+    assertThat(server.getRequestCount()).isEqualTo(3);
+    assertThat(deliveryStatus.getRetryCount()).isEqualTo(2);
+    assertThat(deliveryStatus.getSuccessCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void persist_last_attempt_when_all_attempts_failed() {
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(new MockResponse().setResponseCode(503));
+    }
+
+    newDispatcher().dispatch(newWebhook("First"), PAYLOAD);
+
+    assertThat(awaitPersistedDeliveries(1).get(0).getHttpStatus()).contains(503);
+    assertThat(server.getRequestCount()).isEqualTo(3);
+    assertThat(deliveryStatus.getFailureCount()).isEqualTo(1);
+    assertThat(deliveryStatus.getFailureRate()).isEqualTo(1.0);
+  }
+
+  @Test
+  public void do_not_retry_attempt_which_failed_with_client_error() {
+    server.enqueue(new MockResponse().setResponseCode(404));
+
+    newDispatcher().dispatch(newWebhook("First"), PAYLOAD);
+
+    assertThat(awaitPersistedDeliveries(1).get(0).getHttpStatus()).contains(404);
+    assertThat(server.getRequestCount()).isEqualTo(1);
+    assertThat(deliveryStatus.getRetryCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void open_circuit_breaker_of_endpoint_after_failed_attempts_in_a_row() {
+    for (int i = 0; i < 5; i++) {
+      server.enqueue(new MockResponse().setResponseCode(503));
+    }
+    WebhookDispatcher underTest = newDispatcher();
+
+    underTest.dispatch(newWebhook("First"), PAYLOAD);
+    awaitPersistedDeliveries(1);
+    // the third attempt of this delivery is not made
+    underTest.dispatch(newWebhook("Second"), PAYLOAD);
+
+    WebhookDelivery rejected = awaitPersistedDeliveries(2).get(1);
+    assertThat(rejected.getWebhook().getName()).isEqualTo("Second");
+    assertThat(rejected.getHttpStatus()).isEmpty();
+    assertThat(rejected.getErrorMessage()).contains("Circuit breaker is open after 5 failed attempts in a row");
+    assertThat(server.getRequestCount()).isEqualTo(5);
+    assertThat(deliveryStatus.getRejectedCount()).isEqualTo(1);
+
+    // endpoint is called again once circuit breaker delay is elapsed
+    system.setNow(NOW + CIRCUIT_BREAKER_DELAY_MS);
+    server.enqueue(new MockResponse().setResponseCode(200));
+    underTest.dispatch(newWebhook("Third"), PAYLOAD);
+
+    assertThat(awaitPersistedDeliveries(3).get(2).getHttpStatus()).contains(200);
+    assertThat(server.getRequestCount()).isEqualTo(6);
+    assertThat(underTest.countEndpoints()).isEqualTo(0);
+  }
+
+  @Test
+  public void drop_state_of_endpoint_when_no_delivery_is_pending() {
+    server.enqueue(new MockResponse().setResponseCode(200));
+    WebhookDispatcher underTest = newDispatcher();
+
+    underTest.dispatch(newWebhook("First"), PAYLOAD);
+
+    awaitPersistedDeliveries(1);
+    assertThat(underTest.countEndpoints()).isEqualTo(0);
+  }
+
+  @Test
+  public void keep_state_of_endpoint_during_circuit_breaker_delay_after_failure() {
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(new MockResponse().setResponseCode(503));
+    }
+    WebhookDispatcher underTest = newDispatcher();
+
+    underTest.dispatch(newWebhook("First"), PAYLOAD);
+
+    awaitPersistedDeliveries(1);
+    assertThat(underTest.countEndpoints()).isEqualTo(1);
+  }
+
+  @Test
+  public void stop_persists_as_failed_the_deliveries_waiting_for_their_turn() throws Exception {
+    CountDownLatch started = new CountDownLatch(MAX_CONCURRENT_CALLS_PER_ENDPOINT);
+    CountDownLatch release = new CountDownLatch(1);
+    WebhookCaller blockedCaller = (webhook, payload) -> {
+      started.countDown();
+      awaitUninterruptibly(release);
+      return newDelivery(webhook, payload, 200);
+    };
+    WebhookDispatcher underTest = newDispatcher(blockedCaller);
+    for (int i = 0; i < 5; i++) {
+      underTest.dispatch(newWebhook("Webhook " + i), PAYLOAD);
+    }
+    started.await();
+
+    underTest.stop();
+
+    List<WebhookDelivery> stopped = awaitPersistedDeliveries(3);
+    assertThat(stopped.stream().allMatch(delivery -> delivery.getErrorMessage().get().contains("Compute Engine is stopping"))).isTrue();
+
+    release.countDown();
+    List<WebhookDelivery> deliveries = awaitPersistedDeliveries(5);
+    assertThat(deliveries.stream().filter(WebhookDelivery::isSuccess).count()).isEqualTo(MAX_CONCURRENT_CALLS_PER_ENDPOINT);
+    assertThat(deliveryStatus.getPendingCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void stop_persists_as_failed_the_deliveries_waiting_for_retry() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    SonarRuntime runtime = SonarRuntimeImpl.forSonarQube(Version.parse("6.2"), SonarQubeSide.COMPUTE_ENGINE);
+    WebhookCaller caller = new WebhookCallerImpl(system, new OkHttpClientProvider().provide(new MapSettings(), runtime));
+    WebhookDispatcher underTest = new WebhookDispatcher(caller, deliveryStorage, executorService, deliveryStatus, system, VERIFY_TIMEOUT_MS);
+
+    underTest.dispatch(newWebhook("First"), PAYLOAD);
+    while (deliveryStatus.getRetryCount() == 0) {
+      Thread.sleep(1L);
+    }
+    underTest.stop();
+
+    WebhookDelivery delivery = awaitPersistedDeliveries(1).get(0);
+    assertThat(delivery.getErrorMessage()).contains("Compute Engine is stopping");
+    assertThat(server.getRequestCount()).isEqualTo(1);
+    assertThat(deliveryStatus.getPendingCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void reject_delivery_when_stopping() {
+    WebhookDispatcher underTest = newDispatcher();
+    underTest.stop();
+
+    underTest.dispatch(newWebhook("First"), PAYLOAD);
+
+    assertThat(awaitPersistedDeliveries(1).get(0).getErrorMessage()).contains("Compute Engine is stopping");
+    assertThat(server.getRequestCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void limit_concurrent_calls_per_endpoint() {
+    AtomicInteger runningCalls = new AtomicInteger(0);
+    AtomicInteger maxRunningCalls = new AtomicInteger(0);
+    WebhookCaller slowCaller = (webhook, payload) -> {
+      maxRunningCalls.accumulateAndGet(runningCalls.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      runningCalls.decrementAndGet();
+      return newDelivery(webhook, payload, 200);
+    };
+    WebhookDispatcher underTest = newDispatcher(slowCaller);
+
+    for (int i = 0; i < 10; i++) {
+      underTest.dispatch(newWebhook("Webhook " + i), PAYLOAD);
+    }
+
+    assertThat(awaitPersistedDeliveries(10).stream().allMatch(WebhookDelivery::isSuccess)).isTrue();
+    assertThat(maxRunningCalls.get()).isEqualTo(MAX_CONCURRENT_CALLS_PER_ENDPOINT);
+  }
+
+  @Test
+  public void reject_delivery_when_too_many_deliveries_are_pending() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    WebhookCaller blockedCaller = (webhook, payload) -> {
+      try {
+        release.await(VERIFY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return newDelivery(webhook, payload, 200);
+    };
+    WebhookDispatcher underTest = newDispatcher(blockedCaller);
+    for (int i = 0; i < MAX_PENDING_DELIVERIES; i++) {
+      underTest.dispatch(newWebhook("Webhook " + i), PAYLOAD);
+    }
+
+    underTest.dispatch(newWebhook("Rejected"), PAYLOAD);
+
+    WebhookDelivery rejected = awaitPersistedDeliveries(1).get(0);
+    assertThat(rejected.getWebhook().getName()).isEqualTo("Rejected");
+    assertThat(rejected.getErrorMessage()).contains("More than 1000 webhook deliveries are pending");
+    assertThat(deliveryStatus.getPendingCount()).isEqualTo(MAX_PENDING_DELIVERIES);
+    assertThat(deliveryStatus.getRejectedCount()).isEqualTo(1);
+
+    release.countDown();
+    awaitPersistedDeliveries(MAX_PENDING_DELIVERIES + 1);
+    assertThat(deliveryStatus.getPendingCount()).isEqualTo(0);
+  }
+
+  private WebhookDispatcher newDispatcher() {
+    SonarRuntime runtime = SonarRuntimeImpl.forSonarQube(Version.parse("6.2"), SonarQubeSide.COMPUTE_ENGINE);
+    return newDispatcher(new WebhookCallerImpl(system, new OkHttpClientProvider().provide(new MapSettings(), runtime)));
+  }
+
+  private WebhookDispatcher newDispatcher(WebhookCaller caller) {
+    return new WebhookDispatcher(caller, deliveryStorage, executorService, deliveryStatus, system, 1L);
+  }
+
+  private Webhook newWebhook(String name) {
+    return new Webhook("P_UUID1", "CE_UUID1", name, server.url("/ping").toString());
+  }
+
+  private WebhookDelivery newDelivery(Webhook webhook, WebhookPayload payload, int httpStatus) {
+    return new WebhookDelivery.Builder()
+      .setAt(system.now())
+      .setWebhook(webhook)
+      .setPayload(payload)
+      .setHttpStatus(httpStatus)
+      .setDurationInMs(1)
+      .build();
+  }
+
+  private List<WebhookDelivery> awaitPersistedDeliveries(int count) {
+    ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage, timeout(VERIFY_TIMEOUT_MS).times(count)).persist(captor.capture());
+    return captor.getAllValues();
+  }
+}
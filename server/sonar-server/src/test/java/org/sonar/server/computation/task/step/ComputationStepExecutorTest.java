@@ -96,6 +96,14 @@ public class ComputationStepExecutorTest {
     assertThat(infoLogs.get(1)).contains("step2 | time=");
   }
 
+  @Test
+  public void execute_logs_used_heap_for_each_ComputationStep_called_when_level_is_DEBUG() {
+    List<String> infoLogs = execute_logs_end_timing_for_each_ComputationStep_called_when_(LoggerLevel.DEBUG);
+    assertThat(infoLogs).hasSize(2);
+    assertThat(infoLogs.get(0)).containsPattern("step1 \\| time=\\d+ms \\| heapBefore=\\d+MB \\| heapAfter=\\d+MB");
+    assertThat(infoLogs.get(1)).containsPattern("step2 \\| time=\\d+ms \\| heapBefore=\\d+MB \\| heapAfter=\\d+MB");
+  }
+
   @Test
   public void execute_logs_end_timing_for_each_ComputationStep_called_when_level_is_TRACE() {
     List<String> infoLogs = execute_logs_end_timing_for_each_ComputationStep_called_when_(LoggerLevel.TRACE);
@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.sonar.db.DbSession;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class VersionedCacheTest {
+
+  private DbSession dbSession = mock(DbSession.class);
+  private AtomicLong version = new AtomicLong(1L);
+  private AtomicInteger loads = new AtomicInteger(0);
+
+  private VersionedCache<String> underTest = new VersionedCache<>(s -> version.get(), s -> "value" + loads.incrementAndGet());
+
+  @Test
+  public void hit_ratio_is_zero_when_cache_is_not_used() {
+    assertThat(underTest.getHits()).isZero();
+    assertThat(underTest.getMisses()).isZero();
+    assertThat(underTest.getHitRatio()).isZero();
+  }
+
+  @Test
+  public void value_is_loaded_once_while_version_does_not_change() {
+    assertThat(underTest.get(dbSession)).isEqualTo("value1");
+    assertThat(underTest.get(dbSession)).isEqualTo("value1");
+    assertThat(underTest.get(dbSession)).isEqualTo("value1");
+
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(underTest.getHits()).isEqualTo(2L);
+    assertThat(underTest.getMisses()).isEqualTo(1L);
+    assertThat(underTest.getHitRatio()).isEqualTo(2d / 3);
+  }
+
+  @Test
+  public void value_is_reloaded_when_version_changes() {
+    assertThat(underTest.get(dbSession)).isEqualTo("value1");
+
+    version.set(2L);
+    assertThat(underTest.get(dbSession)).isEqualTo("value2");
+    assertThat(underTest.get(dbSession)).isEqualTo("value2");
+
+    assertThat(underTest.getHits()).isEqualTo(1L);
+    assertThat(underTest.getMisses()).isEqualTo(2L);
+  }
+
+  @Test
+  public void value_is_reloaded_after_invalidation() {
+    underTest.get(dbSession);
+    underTest.invalidate();
+
+    assertThat(underTest.get(dbSession)).isEqualTo("value2");
+    assertThat(underTest.getMisses()).isEqualTo(2L);
+  }
+
+  @Test
+  public void value_is_loaded_once_by_concurrent_calls() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    VersionedCache<String> cache = new VersionedCache<>(s -> version.get(), s -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      awaitUninterruptibly(release);
+      return "value";
+    });
+    AtomicReference<String> first = new AtomicReference<>();
+    AtomicReference<String> second = new AtomicReference<>();
+    Thread firstThread = new Thread(() -> first.set(cache.get(dbSession)));
+    Thread secondThread = new Thread(() -> second.set(cache.get(dbSession)));
+
+    firstThread.start();
+    loading.await();
+    secondThread.start();
+    while (secondThread.getState() != Thread.State.BLOCKED) {
+      Thread.sleep(1L);
+    }
+    release.countDown();
+    firstThread.join();
+    secondThread.join();
+
+    assertThat(first.get()).isEqualTo("value");
+    assertThat(second.get()).isEqualTo("value");
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getHits()).isEqualTo(1L);
+    assertThat(cache.getMisses()).isEqualTo(1L);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchAfterCursorTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void encode_and_parse_sort_values() {
+    SearchAfterCursor cursor = SearchAfterCursor.of(new Object[] {1_484_000_000_000L, "AVq-é/+", null, 3.14d, 42, true});
+
+    SearchAfterCursor parsed = SearchAfterCursor.parse(cursor.encode());
+
+    assertThat(parsed.isStart()).isFalse();
+    assertThat(parsed.getSortValues()).containsExactly(1_484_000_000_000L, "AVq-é/+", null, 3.14d, 42L, true);
+  }
+
+  @Test
+  public void encoded_value_is_url_safe() {
+    String encoded = SearchAfterCursor.of(new Object[] {"???>>>", 255L}).encode();
+
+    assertThat(encoded).matches("[A-Za-z0-9_-]+");
+  }
+
+  @Test
+  public void start_cursor() {
+    assertThat(SearchAfterCursor.parse("*")).isSameAs(SearchAfterCursor.START);
+    assertThat(SearchAfterCursor.START.isStart()).isTrue();
+    assertThat(SearchAfterCursor.START.getSortValues()).isEmpty();
+    assertThat(SearchAfterCursor.START.encode()).isEqualTo("*");
+  }
+
+  @Test
+  public void fail_to_parse_invalid_value() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Invalid cursor 'foo'");
+
+    SearchAfterCursor.parse("foo");
+  }
+
+  @Test
+  public void fail_to_create_filter_if_cursor_does_not_match_sort() {
+    SearchAfterCursor cursor = SearchAfterCursor.of(new Object[] {"foo", 42L});
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Cursor does not match sort of request");
+
+    cursor.createFilter(singletonList(new Sorting.Criterion("key", true, false)));
+  }
+}
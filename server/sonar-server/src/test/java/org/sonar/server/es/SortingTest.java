@@ -31,6 +31,7 @@ import org.junit.Test;
 import org.sonar.server.exceptions.BadRequestException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
@@ -53,6 +54,20 @@ public class SortingTest {
     assertThat(fields.get(1).isMissingLast()).isTrue();
   }
 
+  @Test
+  public void get_effective_criteria() {
+    Sorting sorting = new Sorting();
+    sorting.add("fileLine", "file");
+    sorting.add("fileLine", "line").missingLast().reverse();
+    sorting.addDefault("key");
+
+    List<Sorting.Criterion> criteria = sorting.getCriteria("fileLine", false);
+    assertThat(criteria).extracting(Sorting.Criterion::getFieldName, Sorting.Criterion::isAsc, Sorting.Criterion::isMissingLast)
+      .containsExactly(tuple("file", false, true), tuple("line", true, false));
+    assertThat(sorting.getDefaultCriteria()).extracting(Sorting.Criterion::getFieldName, Sorting.Criterion::isAsc, Sorting.Criterion::isMissingLast)
+      .containsExactly(tuple("key", true, false));
+  }
+
   @Test
   public void ascending_sort_on_single_field() throws Exception {
     Sorting sorting = new Sorting();
@@ -64,6 +64,15 @@ public class ActionFinderTest {
     assertThat(underTest.listAvailableActions(issue)).containsOnly("comment", "assign", "set_tags", "set_type", "assign_to_me", "set_severity");
   }
 
+  @Test
+  public void check_issue_admin_permission_on_given_project() {
+    userSession.addProjectUuidPermissions(ISSUE_ADMIN, PROJECT_UUID);
+    assertThat(underTest.listAvailableActions(issue, project)).containsOnly("comment", "assign", "set_tags", "set_type", "assign_to_me", "set_severity");
+
+    userSession.logIn("ford");
+    assertThat(underTest.listAvailableActions(issue, project)).containsOnly("comment", "assign", "set_tags", "assign_to_me");
+  }
+
   @Test
   public void return_no_actions_when_not_logged() {
     userSession.anonymous();
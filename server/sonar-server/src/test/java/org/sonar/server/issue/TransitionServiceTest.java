@@ -79,6 +79,17 @@ public class TransitionServiceTest {
     assertThat(result).extracting(Transition::key).containsOnly("confirm", "resolve");
   }
 
+  @Test
+  public void list_transitions_with_permissions_checked_on_given_project() throws Exception {
+    ComponentDto project = ComponentTesting.newProjectDto(OrganizationTesting.newOrganizationDto());
+    IssueDto issue = newDto(newRuleDto().setId(10), newFileDto(project), project).setStatus(STATUS_OPEN).setResolution(null);
+    userSession.logIn("john").addProjectUuidPermissions(ISSUE_ADMIN, project.uuid());
+
+    List<Transition> result = underTest.listTransitions(issue.toDefaultIssue(), project);
+
+    assertThat(result).extracting(Transition::key).containsOnly("confirm", "resolve", "falsepositive", "wontfix");
+  }
+
   @Test
   public void list_transitions_returns_nothing_when_not_logged() throws Exception {
     IssueDto issue = newIssue().setStatus(STATUS_OPEN).setResolution(null);
@@ -46,6 +46,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.es.EsTester;
+import org.sonar.server.es.SearchAfterCursor;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
 import org.sonar.server.issue.IssueDocTesting;
@@ -934,6 +935,79 @@ public class IssueIndexTest {
     assertThat(result.getDocs()).hasSize(SearchOptions.MAX_LIMIT);
   }
 
+  @Test
+  public void paging_with_cursor() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    for (int i = 0; i < 12; i++) {
+      indexIssues(IssueDocTesting.newDoc("ISSUE" + i, file));
+    }
+
+    IssueQuery query = IssueQuery.builder().sort(IssueQuery.SORT_BY_STATUS).asc(true).build();
+    List<String> keys = newArrayList();
+    SearchAfterCursor cursor = SearchAfterCursor.START;
+    for (int page = 0; page < 3; page++) {
+      SearchResult<IssueDoc> result = underTest.search(query, new SearchOptions().setLimit(5), cursor);
+      assertThat(result.getTotal()).isEqualTo(12);
+      result.getDocs().forEach(doc -> keys.add(doc.key()));
+      cursor = SearchAfterCursor.parse(result.getNextCursor().encode());
+    }
+
+    // all issues have the same status. Issue key is used to make order stable between pages.
+    assertThat(keys).hasSize(12).doesNotHaveDuplicates();
+    assertThat(underTest.search(query, new SearchOptions().setLimit(5), cursor).getDocs()).isEmpty();
+  }
+
+  @Test
+  public void paging_with_cursor_when_sorted_values_are_missing() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    for (int i = 0; i < 9; i++) {
+      String assignee = i % 3 == 0 ? null : (i % 3 == 1 ? "alice" : "bob");
+      indexIssues(IssueDocTesting.newDoc("ISSUE" + i, file).setAssignee(assignee).setLine(i % 2 == 0 ? null : i));
+    }
+
+    assertThat(browseWithCursor(IssueQuery.builder().sort(IssueQuery.SORT_BY_ASSIGNEE).asc(true).build()))
+      .hasSize(9).doesNotHaveDuplicates();
+    assertThat(browseWithCursor(IssueQuery.builder().sort(IssueQuery.SORT_BY_ASSIGNEE).asc(false).build()))
+      .hasSize(9).doesNotHaveDuplicates();
+    assertThat(browseWithCursor(IssueQuery.builder().sort(IssueQuery.SORT_BY_FILE_LINE).asc(true).build()))
+      .hasSize(9).doesNotHaveDuplicates();
+    assertThat(browseWithCursor(IssueQuery.builder().build()))
+      .hasSize(9).doesNotHaveDuplicates();
+  }
+
+  private List<String> browseWithCursor(IssueQuery query) {
+    List<String> keys = newArrayList();
+    SearchAfterCursor cursor = SearchAfterCursor.START;
+    for (int page = 0; page < 10; page++) {
+      SearchResult<IssueDoc> result = underTest.search(query, new SearchOptions().setLimit(2), cursor);
+      assertThat(result.getTotal()).isEqualTo(9);
+      if (result.getDocs().isEmpty()) {
+        break;
+      }
+      result.getDocs().forEach(doc -> keys.add(doc.key()));
+      cursor = SearchAfterCursor.parse(result.getNextCursor().encode());
+    }
+    return keys;
+  }
+
+  @Test
+  public void scroll_returns_all_issues_matching_query() {
+    ComponentDto project = newProjectDto(newOrganizationDto());
+    ComponentDto file = newFileDto(project, null);
+    List<IssueDoc> issues = newArrayList();
+    for (int i = 0; i < 600; i++) {
+      issues.add(IssueDocTesting.newDoc("ISSUE" + i, file).setSeverity(i % 2 == 0 ? Severity.MAJOR : Severity.MINOR));
+    }
+    indexIssues(issues.toArray(new IssueDoc[] {}));
+
+    IssueQuery query = IssueQuery.builder().severities(newArrayList(Severity.MAJOR)).build();
+    List<IssueDoc> result = Lists.newArrayList(underTest.scroll(query));
+
+    assertThat(result).hasSize(300).extracting(IssueDoc::severity).containsOnly(Severity.MAJOR);
+  }
+
   @Test
   public void sort_by_status() {
     ComponentDto project = newProjectDto(newOrganizationDto());
@@ -21,6 +21,8 @@ package org.sonar.server.issue.index;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
 import org.junit.Rule;
@@ -39,7 +41,7 @@ public class IssueResultSetIteratorTest {
   @Test
   public void iterator_over_one_issue() {
     dbTester.prepareDbUnit(getClass(), "one_issue.xml");
-    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 0L, null);
     Map<String, IssueDoc> issuesByKey = issuesByKey(it);
     it.close();
 
@@ -72,7 +74,7 @@ public class IssueResultSetIteratorTest {
   @Test
   public void iterator_over_issues() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
-    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 0L, null);
     Map<String, IssueDoc> issuesByKey = issuesByKey(it);
     it.close();
 
@@ -134,7 +136,7 @@ public class IssueResultSetIteratorTest {
   @Test
   public void iterator_over_issue_from_project() {
     dbTester.prepareDbUnit(getClass(), "many_projects.xml");
-    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, "THE_PROJECT_1");
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 0L, "THE_PROJECT_1");
     Map<String, IssueDoc> issuesByKey = issuesByKey(it);
     it.close();
 
@@ -144,7 +146,7 @@ public class IssueResultSetIteratorTest {
   @Test
   public void iterator_over_issue_from_project_and_date() {
     dbTester.prepareDbUnit(getClass(), "many_projects.xml");
-    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 1_600_000_000_000L, "THE_PROJECT_1");
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 1_600_000_000_000L, "THE_PROJECT_1");
     Map<String, IssueDoc> issuesByKey = issuesByKey(it);
     it.close();
 
@@ -154,7 +156,7 @@ public class IssueResultSetIteratorTest {
   @Test
   public void extract_directory_path() {
     dbTester.prepareDbUnit(getClass(), "extract_directory_path.xml");
-    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 0L, null);
     Map<String, IssueDoc> issuesByKey = issuesByKey(it);
     it.close();
 
@@ -173,10 +175,22 @@ public class IssueResultSetIteratorTest {
     assertThat(issuesByKey.get("FGH").filePath()).isNull();
   }
 
+  @Test
+  public void iterator_over_issues_by_pages_ordered_by_key() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 1, 0L, null);
+    List<String> keys = new ArrayList<>();
+    it.forEachRemaining(issue -> keys.add(issue.key()));
+    it.close();
+
+    assertThat(keys).hasSize(4).isSorted();
+    assertThat(it.getLastKey()).isEqualTo(keys.get(3));
+  }
+
   @Test
   public void extract_file_path() {
     dbTester.prepareDbUnit(getClass(), "extract_file_path.xml");
-    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 0L, null);
     Map<String, IssueDoc> issuesByKey = issuesByKey(it);
     it.close();
 
@@ -198,7 +212,7 @@ public class IssueResultSetIteratorTest {
   @Test
   public void select_after_date() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
-    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 1_420_000_000_000L, null);
+    IssueResultSetIterator it = IssueResultSetIterator.create(dbTester.getDbClient(), 1_420_000_000_000L, null);
 
     assertThat(it.hasNext()).isTrue();
     IssueDoc issue = it.next();
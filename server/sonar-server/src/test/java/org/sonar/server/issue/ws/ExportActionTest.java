@@ -0,0 +1,123 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.Durations;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.server.issue.IssueQuery;
+import org.sonar.server.issue.IssueQueryService;
+import org.sonar.server.issue.index.IssueIndex;
+import org.sonar.server.ws.WsActionTester;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.MediaTypes;
+import org.sonarqube.ws.client.issue.SearchWsRequest;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyIterator;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.component.ComponentTesting.newFileDto;
+import static org.sonar.server.issue.IssueDocTesting.newDoc;
+
+public class ExportActionTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private IssueIndex issueIndex = mock(IssueIndex.class);
+  private IssueQueryService issueQueryService = mock(IssueQueryService.class);
+  private IssueQuery query = IssueQuery.builder().build();
+
+  private WsActionTester ws = new WsActionTester(new ExportAction(db.getDbClient(), issueIndex, issueQueryService, new Durations()));
+
+  @Before
+  public void setUp() {
+    when(issueQueryService.createFromRequest(any(SearchWsRequest.class))).thenReturn(query);
+  }
+
+  @Test
+  public void export_issues_as_length_delimited_protobuf() throws IOException {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    when(issueIndex.scroll(query)).thenReturn(asList(newDoc("ISSUE1", file), newDoc("ISSUE2", file)).iterator());
+
+    InputStream input = ws.newRequest()
+      .setParam("componentKeys", project.key())
+      .setMediaType(MediaTypes.PROTOBUF)
+      .execute()
+      .getInputStream();
+
+    List<Issues.Issue> issues = new ArrayList<>();
+    Issues.Issue issue;
+    while ((issue = Issues.Issue.parseDelimitedFrom(input)) != null) {
+      issues.add(issue);
+    }
+    assertThat(issues).extracting(Issues.Issue::getKey).containsExactly("ISSUE1", "ISSUE2");
+    assertThat(issues).extracting(Issues.Issue::getComponent).containsOnly(file.key());
+    assertThat(issues).extracting(Issues.Issue::getProject).containsOnly(project.key());
+  }
+
+  @Test
+  public void export_issues_as_one_json_object_per_line() {
+    ComponentDto project = db.components().insertProject();
+    ComponentDto file = db.components().insertComponent(newFileDto(project));
+    when(issueIndex.scroll(query)).thenReturn(asList(newDoc("ISSUE1", file), newDoc("ISSUE2", file)).iterator());
+
+    String result = ws.newRequest()
+      .setParam("componentKeys", project.key())
+      .execute()
+      .getInput();
+
+    String[] lines = result.split("\n");
+    assertThat(lines).hasSize(2);
+    assertThat(lines[0]).startsWith("{").contains("\"key\":\"ISSUE1\"").contains("\"component\":\"" + file.key() + "\"");
+    assertThat(lines[1]).startsWith("{").contains("\"key\":\"ISSUE2\"");
+  }
+
+  @Test
+  public void export_nothing_when_no_issues() {
+    when(issueIndex.scroll(query)).thenReturn(emptyIterator());
+
+    String result = ws.newRequest()
+      .setParam("componentKeys", "unknown")
+      .execute()
+      .getInput();
+
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  public void define_export_action() {
+    assertThat(ws.getDef().key()).isEqualTo("export");
+    assertThat(ws.getDef().isInternal()).isTrue();
+    assertThat(ws.getDef().param("componentKeys").isRequired()).isTrue();
+  }
+}
@@ -20,6 +20,8 @@
 package org.sonar.server.issue.ws;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -61,6 +63,8 @@ import org.sonar.server.tester.ServerTester;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.usergroups.ws.GroupIdOrAnyone;
 import org.sonar.server.ws.WsTester;
+import org.sonarqube.ws.Issues.SearchWsResponse;
+import org.sonarqube.ws.MediaTypes;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -73,6 +77,7 @@ import static org.sonarqube.ws.client.issue.IssuesWsParameters.FACET_MODE_EFFORT
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_ADDITIONAL_FIELDS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_COMPONENTS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CREATED_AFTER;
+import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_CURSOR;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_HIDE_COMMENTS;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_PAGE_INDEX;
 import static org.sonarqube.ws.client.issue.IssuesWsParameters.PARAM_PAGE_SIZE;
@@ -602,6 +607,44 @@ public class SearchActionMediumTest {
     result.assertJson(this.getClass(), "paging.json");
   }
 
+  @Test
+  public void paging_with_cursor() throws Exception {
+    RuleDto rule = newRule();
+    ComponentDto project = insertComponent(ComponentTesting.newProjectDto(otherOrganization1, "PROJECT_ID").setKey("PROJECT_KEY"));
+    setDefaultProjectPermission(project);
+    ComponentDto file = insertComponent(ComponentTesting.newFileDto(project, null, "FILE_ID").setKey("FILE_KEY"));
+    for (int i = 0; i < 12; i++) {
+      IssueDto issue = IssueTesting.newDto(rule, file, project);
+      tester.get(IssueDao.class).insert(session, issue);
+    }
+    session.commit();
+    tester.get(IssueIndexer.class).indexAll();
+
+    Set<String> issueKeys = new HashSet<>();
+    String cursor = "*";
+    for (int page = 1; page <= 2; page++) {
+      SearchWsResponse response = searchWithCursor(cursor, 6);
+      assertThat(response.getIssuesCount()).isEqualTo(6);
+      assertThat(response.getTotal()).isEqualTo(12);
+      response.getIssuesList().forEach(issue -> issueKeys.add(issue.getKey()));
+      cursor = response.getNextCursor();
+    }
+    assertThat(issueKeys).hasSize(12);
+
+    SearchWsResponse lastPage = searchWithCursor(cursor, 6);
+    assertThat(lastPage.getIssuesCount()).isZero();
+    assertThat(lastPage.hasNextCursor()).isFalse();
+  }
+
+  private SearchWsResponse searchWithCursor(String cursor, int pageSize) throws Exception {
+    WsTester.Result result = wsTester.newGetRequest(CONTROLLER_ISSUES, ACTION_SEARCH)
+      .setParam(PARAM_CURSOR, cursor)
+      .setParam(WebService.Param.PAGE_SIZE, String.valueOf(pageSize))
+      .setMediaType(MediaTypes.PROTOBUF)
+      .execute();
+    return SearchWsResponse.parseFrom(result.output());
+  }
+
   @Test
   public void paging_with_page_size_to_minus_one() throws Exception {
     RuleDto rule = newRule();
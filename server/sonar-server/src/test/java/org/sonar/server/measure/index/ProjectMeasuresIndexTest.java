@@ -23,7 +23,6 @@ import com.google.common.collect.ImmutableMap;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.IntStream;
 import org.junit.Rule;
 import org.junit.Test;
@@ -46,7 +45,6 @@ import org.sonar.server.permission.index.PermissionIndexerDao;
 import org.sonar.server.permission.index.PermissionIndexerTester;
 import org.sonar.server.tester.UserSessionRule;
 
-import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
@@ -115,6 +113,40 @@ public class ProjectMeasuresIndexTest {
     assertThat(result.getTotal()).isEqualTo(9);
   }
 
+  @Test
+  public void sort_by_metric_value() {
+    ComponentDto projectA = newProjectDto(ORG).setName("A");
+    ComponentDto projectB = newProjectDto(ORG).setName("B");
+    ComponentDto projectC = newProjectDto(ORG).setName("C");
+    ComponentDto projectD = newProjectDto(ORG).setName("D");
+    index(
+      newDoc(projectA, COVERAGE, 80d),
+      newDoc(projectB, COVERAGE, 10d),
+      newDoc(projectC, COVERAGE, 80d),
+      newDoc(projectD, NCLOC, 10d));
+
+    assertResults(new ProjectMeasuresQuery().setSort(COVERAGE), projectB, projectA, projectC, projectD);
+    assertResults(new ProjectMeasuresQuery().setSort(COVERAGE).setAsc(false), projectA, projectC, projectB, projectD);
+  }
+
+  @Test
+  public void sort_by_metric_which_is_not_indexed_yet() {
+    ComponentDto projectA = newProjectDto(ORG).setName("A");
+    ComponentDto projectB = newProjectDto(ORG).setName("B");
+    index(newDoc(projectB), newDoc(projectA));
+
+    assertResults(new ProjectMeasuresQuery().setSort("new_coverage"), projectA, projectB);
+  }
+
+  @Test
+  public void sort_by_name_descending() {
+    ComponentDto projectA = newProjectDto(ORG).setName("A");
+    ComponentDto projectB = newProjectDto(ORG).setName("B");
+    index(newDoc(projectA), newDoc(projectB));
+
+    assertResults(new ProjectMeasuresQuery().setAsc(false), projectB, projectA);
+  }
+
   @Test
   public void filter_with_lower_than() {
     index(
@@ -887,31 +919,27 @@ public class ProjectMeasuresIndexTest {
     return newDoc(newProjectDto(ORG));
   }
 
-  private static ProjectMeasuresDoc newDoc(ComponentDto project, String metric1, Object value1) {
-    return newDoc(project).setMeasures(newArrayList(newMeasure(metric1, value1)));
-  }
-
-  private static ProjectMeasuresDoc newDoc(ComponentDto project, String metric1, Object value1, String metric2, Object value2) {
-    return newDoc(project).setMeasures(newArrayList(newMeasure(metric1, value1), newMeasure(metric2, value2)));
+  private static ProjectMeasuresDoc newDoc(ComponentDto project, String metric1, double value1) {
+    return newDoc(project).setMeasures(ImmutableMap.of(metric1, value1));
   }
 
-  private static ProjectMeasuresDoc newDoc(ComponentDto project, String metric1, Object value1, String metric2, Object value2, String metric3, Object value3) {
-    return newDoc(project).setMeasures(newArrayList(newMeasure(metric1, value1), newMeasure(metric2, value2), newMeasure(metric3, value3)));
+  private static ProjectMeasuresDoc newDoc(ComponentDto project, String metric1, double value1, String metric2, double value2) {
+    return newDoc(project).setMeasures(ImmutableMap.of(metric1, value1, metric2, value2));
   }
 
-  private static Map<String, Object> newMeasure(String key, Object value) {
-    return ImmutableMap.of("key", key, "value", value);
+  private static ProjectMeasuresDoc newDoc(ComponentDto project, String metric1, double value1, String metric2, double value2, String metric3, double value3) {
+    return newDoc(project).setMeasures(ImmutableMap.of(metric1, value1, metric2, value2, metric3, value3));
   }
 
-  private static ProjectMeasuresDoc newDoc(String metric1, Object value1) {
+  private static ProjectMeasuresDoc newDoc(String metric1, double value1) {
     return newDoc(newProjectDto(ORG), metric1, value1);
   }
 
-  private static ProjectMeasuresDoc newDoc(String metric1, Object value1, String metric2, Object value2) {
+  private static ProjectMeasuresDoc newDoc(String metric1, double value1, String metric2, double value2) {
     return newDoc(newProjectDto(ORG), metric1, value1, metric2, value2);
   }
 
-  private static ProjectMeasuresDoc newDoc(String metric1, Object value1, String metric2, Object value2, String metric3, Object value3) {
+  private static ProjectMeasuresDoc newDoc(String metric1, double value1, String metric2, double value2, String metric3, double value3) {
     return newDoc(newProjectDto(ORG), metric1, value1, metric2, value2, metric3, value3);
   }
 
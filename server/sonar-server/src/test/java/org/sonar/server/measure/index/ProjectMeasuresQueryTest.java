@@ -42,6 +42,23 @@ public class ProjectMeasuresQueryTest {
   public void empty_query() throws Exception {
     assertThat(underTest.getMetricCriteria()).isEmpty();
     assertThat(underTest.hasQualityGateStatus()).isFalse();
+    assertThat(underTest.getSort()).isEqualTo("name");
+    assertThat(underTest.isAsc()).isTrue();
+  }
+
+  @Test
+  public void set_sort() throws Exception {
+    underTest.setSort("coverage").setAsc(false);
+
+    assertThat(underTest.getSort()).isEqualTo("coverage");
+    assertThat(underTest.isAsc()).isFalse();
+  }
+
+  @Test
+  public void null_sort_means_sort_by_name() throws Exception {
+    underTest.setSort("coverage").setSort(null);
+
+    assertThat(underTest.getSort()).isEqualTo("name");
   }
 
   @Test
@@ -29,6 +29,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.metric.MetricDao;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.db.property.InternalPropertiesDao;
 import org.sonar.server.ws.WsTester;
 import org.sonar.test.JsonAssert;
 
@@ -45,7 +46,7 @@ public class DomainsActionTest {
 
   @Before
   public void setUp() {
-    dbClient = new DbClient(db.database(), db.myBatis(), new MetricDao());
+    dbClient = new DbClient(db.database(), db.myBatis(), new MetricDao(new InternalPropertiesDao(System2.INSTANCE)));
     dbSession = dbClient.openSession(false);
     ws = new WsTester(new MetricsWs(new DomainsAction(dbClient)));
   }
@@ -24,10 +24,13 @@ import com.google.common.collect.Multimap;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentMatcher;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -37,14 +40,19 @@ import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class DefaultNotificationManagerTest {
@@ -121,6 +129,84 @@ public class DefaultNotificationManagerTest {
     verify(manager, times(1)).logDeserializationIssue();
   }
 
+  @Test
+  public void remove_each_notification_from_queue_once_consumed() throws Exception {
+    NotificationQueueDto dto1 = NotificationQueueDto.toNotificationQueueDto(new Notification("test1"));
+    NotificationQueueDto dto2 = mock(NotificationQueueDto.class);
+    when(dto2.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    NotificationQueueDto dto3 = NotificationQueueDto.toNotificationQueueDto(new Notification("test3"));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Arrays.asList(dto1, dto2, dto3));
+    Consumer<Notification> consumer = mock(Consumer.class);
+
+    assertThat(manager.consumeQueue(10, consumer)).isEqualTo(3);
+
+    InOrder inOrder = inOrder(notificationQueueDao, consumer);
+    inOrder.verify(notificationQueueDao).selectOldest(10);
+    inOrder.verify(consumer).accept(argThat(hasType("test1")));
+    inOrder.verify(notificationQueueDao).delete(singletonList(dto1));
+    inOrder.verify(notificationQueueDao).delete(singletonList(dto2));
+    inOrder.verify(consumer).accept(argThat(hasType("test3")));
+    inOrder.verify(notificationQueueDao).delete(singletonList(dto3));
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  public void keep_notifications_not_consumed_yet_in_queue_when_consumer_fails() {
+    NotificationQueueDto dto1 = NotificationQueueDto.toNotificationQueueDto(new Notification("test1"));
+    NotificationQueueDto dto2 = NotificationQueueDto.toNotificationQueueDto(new Notification("test2"));
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Arrays.asList(dto1, dto2));
+
+    try {
+      manager.consumeQueue(10, notification -> {
+        throw new IllegalStateException("Unexpected");
+      });
+      fail("An IllegalStateException should have been raised");
+    } catch (IllegalStateException e) {
+      verify(notificationQueueDao).delete(singletonList(dto1));
+      verify(notificationQueueDao, never()).delete(singletonList(dto2));
+    }
+  }
+
+  @Test
+  public void consume_nothing_when_queue_is_empty() {
+    when(notificationQueueDao.selectOldest(10)).thenReturn(Collections.emptyList());
+    Consumer<Notification> consumer = mock(Consumer.class);
+
+    assertThat(manager.consumeQueue(10, consumer)).isEqualTo(0);
+    verifyZeroInteractions(consumer);
+    verify(notificationQueueDao, never()).delete(any(List.class));
+  }
+
+  @Test
+  public void load_subscribers_once_while_they_are_cached() {
+    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", "uuid_45")).thenReturn(Lists.newArrayList("user1"));
+    when(propertiesDao.selectNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user2"));
+
+    manager.startCachingSubscribers();
+    assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").keySet()).containsOnly("user1");
+    assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").keySet()).containsOnly("user1");
+    assertThat(manager.findNotificationSubscribers(dispatcher, "struts").keySet()).containsOnly("user2");
+    assertThat(manager.findNotificationSubscribers(dispatcher, "struts").keySet()).containsOnly("user2");
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+    verify(propertiesDao, times(1)).selectNotificationSubscribers("NewViolations", "Email", "struts");
+
+    manager.stopCachingSubscribers();
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    manager.findNotificationSubscribers(dispatcher, "struts");
+    verify(propertiesDao, times(2)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+    verify(propertiesDao, times(2)).selectNotificationSubscribers("NewViolations", "Email", "struts");
+  }
+
+  @Test
+  public void subscribers_are_not_cached_by_default() {
+    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", "uuid_45")).thenReturn(Lists.newArrayList("user1"));
+
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+
+    verify(propertiesDao, times(2)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+  }
+
   @Test
   public void shouldFindNoRecipient() {
     assertThat(manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45").asMap().entrySet()).hasSize(0);
@@ -175,4 +261,13 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user2")).containsOnly(emailChannel, twitterChannel);
     assertThat(map.get("other")).isNull();
   }
+
+  private static ArgumentMatcher<Notification> hasType(String type) {
+    return new ArgumentMatcher<Notification>() {
+      @Override
+      public boolean matches(Object notification) {
+        return type.equals(((Notification) notification).getType());
+      }
+    };
+  }
 }
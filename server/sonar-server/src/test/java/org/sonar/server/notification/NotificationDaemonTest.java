@@ -21,7 +21,16 @@ package org.sonar.server.notification;
 
 import com.google.common.collect.Sets;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.sonar.api.config.Settings;
@@ -31,12 +40,18 @@ import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.db.DbClient;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.same;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.timeout;
@@ -56,7 +71,7 @@ public class NotificationDaemonTest {
   private NotificationDispatcher commentOnIssueCreatedByMe = mock(NotificationDispatcher.class);
   private NotificationDispatcher qualityGateChange = mock(NotificationDispatcher.class);
   private DbClient dbClient = mock(DbClient.class);
-  private NotificationService service = new NotificationService(dbClient, new NotificationDispatcher[]{commentOnIssueAssignedToMe, commentOnIssueCreatedByMe, qualityGateChange});
+  private NotificationService service = new NotificationService(dbClient, manager, new NotificationDispatcher[]{commentOnIssueAssignedToMe, commentOnIssueCreatedByMe, qualityGateChange});
   private NotificationDaemon underTest = null;
 
   private void setUpMocks() {
@@ -68,7 +83,7 @@ public class NotificationDaemonTest {
     when(commentOnIssueCreatedByMe.getType()).thenReturn("issue-changes");
     when(qualityGateChange.getKey()).thenReturn("QGateChange");
     when(qualityGateChange.getType()).thenReturn("qgate-changes");
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(null);
+    when(manager.consumeQueue(anyInt(), any(Consumer.class))).thenAnswer(dequeue(singletonList(notification)));
 
     Settings settings = new MapSettings().setProperty("sonar.notifications.delay", 1L);
 
@@ -174,7 +189,8 @@ public class NotificationDaemonTest {
   @Test
   public void shouldNotStopWhenException() {
     setUpMocks();
-    when(manager.getFromQueue()).thenThrow(new RuntimeException("Unexpected exception")).thenReturn(notification).thenReturn(null);
+    when(manager.consumeQueue(anyInt(), any(Consumer.class))).thenThrow(new RuntimeException("Unexpected exception"))
+      .thenAnswer(dequeue(singletonList(notification)));
     doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
     doAnswer(addUser(CREATOR_SIMON, emailChannel)).when(commentOnIssueCreatedByMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
 
@@ -208,7 +224,7 @@ public class NotificationDaemonTest {
   public void getDispatchers_empty() {
     Settings settings = new MapSettings().setProperty("sonar.notifications.delay", 1L);
 
-    service = new NotificationService(dbClient);
+    service = new NotificationService(dbClient, manager);
     assertThat(service.getDispatchers()).hasSize(0);
   }
 
@@ -216,7 +232,7 @@ public class NotificationDaemonTest {
   public void shouldLogEvery10Minutes() {
     setUpMocks();
     // Emulate 2 notifications in DB
-    when(manager.getFromQueue()).thenReturn(notification).thenReturn(notification).thenReturn(null);
+    when(manager.consumeQueue(anyInt(), any(Consumer.class))).thenAnswer(dequeue(singletonList(notification), singletonList(notification)));
     when(manager.count()).thenReturn(1L).thenReturn(0L);
     underTest = spy(underTest);
     // Emulate processing of each notification take 10 min to have a log each time
@@ -227,6 +243,113 @@ public class NotificationDaemonTest {
     underTest.stop();
   }
 
+  @Test
+  public void resolve_subscribers_once_per_batch_of_notifications() {
+    setUpMocks();
+    Notification otherNotification = mock(Notification.class);
+    when(manager.consumeQueue(eq(NotificationDaemon.BATCH_SIZE), any(Consumer.class))).thenAnswer(dequeue(Arrays.asList(notification, otherNotification)));
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    verify(emailChannel, timeout(2000)).deliver(otherNotification, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    InOrder inOrder = inOrder(manager, commentOnIssueAssignedToMe);
+    inOrder.verify(manager).startCachingSubscribers();
+    inOrder.verify(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+    inOrder.verify(commentOnIssueAssignedToMe).dispatch(same(otherNotification), any(NotificationDispatcher.Context.class));
+    inOrder.verify(manager).stopCachingSubscribers();
+  }
+
+  @Test
+  public void deliver_on_a_pool_of_threads_per_channel() {
+    setUpMocks();
+    doAnswer(addUser(ASSIGNEE_SIMON, new NotificationChannel[] {emailChannel, gtalkChannel}))
+      .when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+    Map<String, String> deliveryThreads = new ConcurrentHashMap<>();
+    doAnswer(recordThread(deliveryThreads, "email")).when(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    doAnswer(recordThread(deliveryThreads, "gtalk")).when(gtalkChannel).deliver(notification, ASSIGNEE_SIMON);
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    verify(gtalkChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    assertThat(deliveryThreads.get("email")).startsWith("sq-notification-delivery-email-");
+    assertThat(deliveryThreads.get("gtalk")).startsWith("sq-notification-delivery-gtalk-");
+  }
+
+  @Test
+  public void count_deliveries() {
+    setUpMocks();
+    doAnswer(addUser(ASSIGNEE_SIMON, new NotificationChannel[] {emailChannel, gtalkChannel}))
+      .when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+    doThrow(new IllegalStateException("Unreachable")).when(gtalkChannel).deliver(notification, ASSIGNEE_SIMON);
+
+    underTest.start();
+    verify(emailChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    verify(gtalkChannel, timeout(2000)).deliver(notification, ASSIGNEE_SIMON);
+    underTest.stop();
+
+    assertThat(underTest.getPendingDeliveries()).isEqualTo(0);
+    assertThat(underTest.getDeliveredCount()).isEqualTo(1);
+    assertThat(underTest.getFailedDeliveryCount()).isEqualTo(1);
+    assertThat(underTest.getAverageDeliveryTimeMs()).isGreaterThanOrEqualTo(0);
+  }
+
+  @Test
+  public void stop_waits_for_deliveries_of_dequeued_notifications() throws Exception {
+    setUpMocks();
+    doAnswer(addUser(ASSIGNEE_SIMON, new NotificationChannel[] {emailChannel, gtalkChannel}))
+      .when(commentOnIssueAssignedToMe).dispatch(same(notification), any(NotificationDispatcher.Context.class));
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicInteger done = new AtomicInteger(0);
+    Answer<Object> slowDelivery = invocation -> {
+      started.countDown();
+      Thread.sleep(200L);
+      done.incrementAndGet();
+      return null;
+    };
+    doAnswer(slowDelivery).when(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    doAnswer(slowDelivery).when(gtalkChannel).deliver(notification, ASSIGNEE_SIMON);
+
+    underTest.start();
+    assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+    underTest.stop();
+
+    assertThat(done.get()).isEqualTo(2);
+    assertThat(underTest.getPendingDeliveries()).isEqualTo(0);
+  }
+
+  @Test
+  public void do_not_dequeue_notifications_when_stopping() {
+    setUpMocks();
+    underTest.start();
+    underTest.stop();
+    reset(manager);
+
+    underTest.processQueue();
+
+    verify(manager, never()).consumeQueue(anyInt(), any(Consumer.class));
+  }
+
+  @Test
+  public void deliver_notifications_in_bulk_with_cached_subscribers() {
+    setUpMocks();
+    Notification otherNotification = mock(Notification.class);
+    doAnswer(addUser(ASSIGNEE_SIMON, emailChannel)).when(commentOnIssueAssignedToMe).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+
+    service.deliver(Arrays.asList(notification, otherNotification));
+
+    InOrder inOrder = inOrder(manager, emailChannel);
+    inOrder.verify(manager).startCachingSubscribers();
+    inOrder.verify(emailChannel).deliver(notification, ASSIGNEE_SIMON);
+    inOrder.verify(emailChannel).deliver(otherNotification, ASSIGNEE_SIMON);
+    inOrder.verify(manager).stopCachingSubscribers();
+    verify(gtalkChannel, never()).deliver(any(Notification.class), anyString());
+  }
+
   @Test
   public void hasProjectSubscribersForType() {
     setUpMocks();
@@ -243,6 +366,29 @@ public class NotificationDaemonTest {
     assertThat(service.hasProjectSubscribersForTypes("PROJECT_UUID", Sets.newHashSet("issue-changes"))).isTrue();
   }
 
+  /**
+   * Each call to {@link DefaultNotificationManager#consumeQueue(int, Consumer)} consumes the next batch, then the queue is empty
+   */
+  @SafeVarargs
+  private static Answer<Integer> dequeue(List<Notification>... batches) {
+    Iterator<List<Notification>> remainingBatches = Arrays.asList(batches).iterator();
+    return invocation -> {
+      if (!remainingBatches.hasNext()) {
+        return 0;
+      }
+      List<Notification> batch = remainingBatches.next();
+      batch.forEach((Consumer<Notification>) invocation.getArguments()[1]);
+      return batch.size();
+    };
+  }
+
+  private static Answer<Object> recordThread(Map<String, String> threadsByChannel, String channelKey) {
+    return invocation -> {
+      threadsByChannel.put(channelKey, Thread.currentThread().getName());
+      return null;
+    };
+  }
+
   private static Answer<Object> addUser(final String user, final NotificationChannel channel) {
     return addUser(user, new NotificationChannel[]{channel});
   }
@@ -0,0 +1,133 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.sonar.api.notifications.Notification;
+import org.sonar.api.notifications.NotificationChannel;
+import org.sonar.db.DbClient;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.withSettings;
+
+public class NotificationServiceTest {
+
+  private DefaultNotificationManager manager = mock(DefaultNotificationManager.class);
+  private NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+  private NotificationChannel userCachingChannel = mock(NotificationChannel.class, withSettings().extraInterfaces(UserCachingChannel.class));
+  private NotificationChannel otherChannel = mock(NotificationChannel.class);
+  private Notification notification1 = mock(Notification.class);
+  private Notification notification2 = mock(Notification.class);
+
+  private Map<Notification, Recipient> recipients = new HashMap<>();
+
+  private NotificationService underTest = new NotificationService(mock(DbClient.class), manager, new NotificationDispatcher[] {dispatcher});
+
+  @Before
+  public void setUp() {
+    doAnswer(invocation -> {
+      Recipient recipient = recipients.get(invocation.getArguments()[0]);
+      if (recipient != null) {
+        ((NotificationDispatcher.Context) invocation.getArguments()[1]).addUser(recipient.login, recipient.channel);
+      }
+      return null;
+    }).when(dispatcher).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+  }
+
+  @Test
+  public void deliver_batch_of_notifications_with_subscribers_and_users_loaded_once() {
+    addRecipient(notification1, "simon", userCachingChannel);
+    addRecipient(notification2, "evgeny", userCachingChannel);
+
+    underTest.deliver(asList(notification1, notification2));
+
+    InOrder inOrder = inOrder(manager, dispatcher, userCachingChannel);
+    inOrder.verify(manager).startCachingSubscribers();
+    inOrder.verify(dispatcher).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    inOrder.verify(dispatcher).dispatch(any(Notification.class), any(NotificationDispatcher.Context.class));
+    inOrder.verify(manager).stopCachingSubscribers();
+    ArgumentCaptor<Collection> logins = ArgumentCaptor.forClass(Collection.class);
+    inOrder.verify((UserCachingChannel) userCachingChannel).startCachingUsers(logins.capture());
+    inOrder.verify(userCachingChannel).deliver(notification1, "simon");
+    inOrder.verify(userCachingChannel).deliver(notification2, "evgeny");
+    inOrder.verify((UserCachingChannel) userCachingChannel).stopCachingUsers();
+    assertThat(logins.getValue()).containsOnly("simon", "evgeny");
+  }
+
+  @Test
+  public void deliver_batch_of_notifications_to_channels_which_do_not_cache_users() {
+    addRecipient(notification1, "simon", otherChannel);
+
+    underTest.deliver(asList(notification1, notification2));
+
+    verify(otherChannel).deliver(notification1, "simon");
+    verifyZeroInteractions(userCachingChannel);
+  }
+
+  @Test
+  public void stop_caching_users_when_delivery_fails() {
+    addRecipient(notification1, "simon", userCachingChannel);
+    doThrow(new IllegalStateException("failure")).when(userCachingChannel).deliver(notification1, "simon");
+
+    underTest.deliver(asList(notification1));
+
+    verify((UserCachingChannel) userCachingChannel).stopCachingUsers();
+  }
+
+  @Test
+  public void users_are_not_cached_when_delivering_a_single_notification() {
+    addRecipient(notification1, "simon", userCachingChannel);
+
+    underTest.deliver(notification1);
+
+    verify(userCachingChannel).deliver(notification1, "simon");
+    verify((UserCachingChannel) userCachingChannel, never()).startCachingUsers(anyCollectionOf(String.class));
+  }
+
+  private void addRecipient(Notification notification, String login, NotificationChannel channel) {
+    recipients.put(notification, new Recipient(login, channel));
+  }
+
+  private static class Recipient {
+    private final String login;
+    private final NotificationChannel channel;
+
+    private Recipient(String login, NotificationChannel channel) {
+      this.login = login;
+      this.channel = channel;
+    }
+  }
+}
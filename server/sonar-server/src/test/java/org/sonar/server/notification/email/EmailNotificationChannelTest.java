@@ -28,13 +28,22 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.config.EmailSettings;
+import org.sonar.api.notifications.Notification;
+import org.sonar.api.user.User;
+import org.sonar.api.user.UserFinder;
 import org.sonar.plugins.emailnotifications.api.EmailMessage;
+import org.sonar.plugins.emailnotifications.api.EmailTemplate;
 import org.subethamail.wiser.Wiser;
 import org.subethamail.wiser.WiserMessage;
 
+import static java.util.Arrays.asList;
 import static junit.framework.Assert.fail;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class EmailNotificationChannelTest {
@@ -57,6 +66,7 @@ public class EmailNotificationChannelTest {
 
   @After
   public void tearDown() {
+    underTest.stop();
     smtpServer.stop();
   }
 
@@ -169,6 +179,51 @@ public class EmailNotificationChannelTest {
     underTest.deliver(emailMessage);
   }
 
+  @Test
+  public void reuse_smtp_connection_to_send_emails_of_same_thread() throws Exception {
+    configure();
+
+    for (int i = 0; i < 3; i++) {
+      underTest.deliver(new EmailMessage().setTo("user" + i + "@nowhere").setSubject("Foo " + i).setMessage("Bar"));
+    }
+
+    List<WiserMessage> messages = smtpServer.getMessages();
+    assertThat(messages).extracting(WiserMessage::getEnvelopeReceiver).containsExactly("user0@nowhere", "user1@nowhere", "user2@nowhere");
+    assertThat(messages.get(2).getMimeMessage().getHeader("Subject", null)).isEqualTo("[SONARQUBE] Foo 2");
+    assertThat(underTest.getOpenedConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void open_new_smtp_connection_when_settings_are_changed() {
+    configure();
+    underTest.deliver(new EmailMessage().setTo("user@nowhere").setSubject("Foo").setMessage("Bar"));
+
+    Wiser otherSmtpServer = new Wiser(0);
+    otherSmtpServer.start();
+    try {
+      when(configuration.getSmtpPort()).thenReturn(otherSmtpServer.getServer().getPort());
+      underTest.deliver(new EmailMessage().setTo("user@nowhere").setSubject("Foo").setMessage("Bar"));
+
+      assertThat(smtpServer.getMessages()).hasSize(1);
+      assertThat(otherSmtpServer.getMessages()).hasSize(1);
+      assertThat(underTest.getOpenedConnectionCount()).isEqualTo(2);
+    } finally {
+      underTest.stop();
+      otherSmtpServer.stop();
+    }
+  }
+
+  @Test
+  public void send_each_test_email_on_a_new_connection() throws Exception {
+    configure();
+
+    underTest.sendTestEmail("user@nowhere", "Test Message from SonarQube", "This is a test message from SonarQube.");
+    underTest.sendTestEmail("user@nowhere", "Test Message from SonarQube", "This is a test message from SonarQube.");
+
+    assertThat(smtpServer.getMessages()).hasSize(2);
+    assertThat(underTest.getOpenedConnectionCount()).isEqualTo(0);
+  }
+
   @Test
   public void shouldSendTestEmailWithSTARTTLS() {
     smtpServer.getServer().setEnableTLS(true);
@@ -185,6 +240,55 @@ public class EmailNotificationChannelTest {
     }
   }
 
+  @Test
+  public void deliver_to_users_cached_for_a_batch_of_notifications() throws Exception {
+    configure();
+    UserFinder userFinder = mock(UserFinder.class);
+    when(userFinder.findByLogins(anyListOf(String.class))).thenReturn(asList(user("simon", "simon@nowhere", true), user("evgeny", "evgeny@nowhere", false)));
+    EmailNotificationChannel channel = new EmailNotificationChannel(configuration, new EmailTemplate[] {new TestTemplate()}, userFinder);
+    Notification notification = new Notification("test");
+
+    channel.startCachingUsers(asList("simon", "evgeny", "unknown"));
+    channel.deliver(notification, "simon");
+    channel.deliver(notification, "evgeny");
+    channel.deliver(notification, "unknown");
+    channel.stopCachingUsers();
+    channel.stop();
+
+    verify(userFinder).findByLogins(anyListOf(String.class));
+    verify(userFinder, never()).findByLogin(anyString());
+    List<WiserMessage> messages = smtpServer.getMessages();
+    assertThat(messages).hasSize(1);
+    assertThat(messages.get(0).getMimeMessage().getHeader("To", null)).isEqualTo("<simon@nowhere>");
+  }
+
+  @Test
+  public void deliver_to_user_loaded_by_login_when_users_are_not_cached() {
+    UserFinder userFinder = mock(UserFinder.class);
+    EmailNotificationChannel channel = new EmailNotificationChannel(configuration, new EmailTemplate[] {new TestTemplate()}, userFinder);
+
+    channel.startCachingUsers(asList("simon"));
+    channel.stopCachingUsers();
+    channel.deliver(new Notification("test"), "simon");
+
+    verify(userFinder).findByLogin("simon");
+  }
+
+  private static User user(String login, String email, boolean active) {
+    User user = mock(User.class);
+    when(user.login()).thenReturn(login);
+    when(user.email()).thenReturn(email);
+    when(user.active()).thenReturn(active);
+    return user;
+  }
+
+  private static class TestTemplate extends EmailTemplate {
+    @Override
+    public EmailMessage format(Notification notification) {
+      return new EmailMessage().setSubject("Subject").setMessage("Message");
+    }
+  }
+
   private void configure() {
     when(configuration.getSmtpHost()).thenReturn("localhost");
     when(configuration.getSmtpPort()).thenReturn(smtpServer.getServer().getPort());
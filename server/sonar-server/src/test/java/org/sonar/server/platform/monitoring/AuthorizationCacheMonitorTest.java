@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Test;
+import org.sonar.server.user.AuthorizationCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AuthorizationCacheMonitorTest {
+
+  private AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
+  private AuthorizationCacheMonitor underTest = new AuthorizationCacheMonitor(authorizationCache);
+
+  @Test
+  public void test_monitor_name() {
+    assertThat(underTest.name()).isEqualTo("Authorization Cache");
+  }
+
+  @Test
+  public void return_statistics_of_cache() {
+    when(authorizationCache.getSize()).thenReturn(2);
+    when(authorizationCache.getWeight()).thenReturn(10);
+    when(authorizationCache.getHits()).thenReturn(3L);
+    when(authorizationCache.getMisses()).thenReturn(1L);
+    when(authorizationCache.getHitRatio()).thenReturn(0.75d);
+
+    assertThat(underTest.attributes()).containsExactly(
+      entry("Entries", 2),
+      entry("Cached Project UUIDs", 10),
+      entry("Hits", 3L),
+      entry("Misses", 1L),
+      entry("Hit Ratio", 0.75d));
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Test;
+import org.sonar.server.notification.DefaultNotificationManager;
+import org.sonar.server.notification.NotificationDaemon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationMonitorTest {
+
+  private DefaultNotificationManager manager = mock(DefaultNotificationManager.class);
+  private NotificationDaemon daemon = mock(NotificationDaemon.class);
+  private NotificationMonitor underTest = new NotificationMonitor(manager, daemon);
+
+  @Test
+  public void test_monitor_name() {
+    assertThat(underTest.name()).isEqualTo("Notifications");
+  }
+
+  @Test
+  public void return_statistics_of_notifications() {
+    when(manager.count()).thenReturn(12L);
+    when(daemon.getPendingDeliveries()).thenReturn(3L);
+    when(daemon.getDeliveredCount()).thenReturn(40L);
+    when(daemon.getFailedDeliveryCount()).thenReturn(2L);
+    when(daemon.getAverageDeliveryTimeMs()).thenReturn(150L);
+
+    assertThat(underTest.attributes()).containsExactly(
+      entry("Queue Size", 12L),
+      entry("Pending Deliveries", 3L),
+      entry("Delivered", 40L),
+      entry("Failed Deliveries", 2L),
+      entry("Average Delivery Time (ms)", 150L));
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Test;
+import org.sonar.server.setting.SettingsCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SettingsCacheMonitorTest {
+
+  private SettingsCache settingsCache = mock(SettingsCache.class);
+  private SettingsCacheMonitor underTest = new SettingsCacheMonitor(settingsCache);
+
+  @Test
+  public void test_monitor_name() {
+    assertThat(underTest.name()).isEqualTo("Settings Cache");
+  }
+
+  @Test
+  public void return_statistics_of_cache() {
+    when(settingsCache.getVersion()).thenReturn("AVqaK_mXfCy2cVt1-kTS");
+    when(settingsCache.getHits()).thenReturn(3L);
+    when(settingsCache.getMisses()).thenReturn(1L);
+    when(settingsCache.getHitRatio()).thenReturn(0.75d);
+
+    assertThat(underTest.attributes()).containsExactly(
+      entry("Version", "AVqaK_mXfCy2cVt1-kTS"),
+      entry("Hits", 3L),
+      entry("Misses", 1L),
+      entry("Hit Ratio", 0.75d));
+  }
+
+  @Test
+  public void version_is_not_returned_if_settings_are_not_loaded() {
+    assertThat(underTest.attributes()).doesNotContainKey("Version");
+  }
+}
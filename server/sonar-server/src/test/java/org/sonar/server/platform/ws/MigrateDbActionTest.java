@@ -40,11 +40,13 @@ import org.sonar.server.platform.db.migration.DatabaseMigration;
 import org.sonar.server.platform.db.migration.DatabaseMigrationState.Status;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
 import org.sonar.server.platform.db.migration.DatabaseMigrationState;
+import org.sonar.server.platform.db.migration.MigrationStepStatistics;
 import org.sonar.server.ws.WsTester;
 
 import static com.google.common.base.Predicates.in;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Iterables.filter;
+import static java.util.Arrays.asList;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
@@ -166,6 +168,26 @@ public class MigrateDbActionTest {
     assertJson(response.outputAsString()).isSimilarTo(expectedResponse(STATUS_MIGRATION_RUNNING, MESSAGE_STATUS_RUNNING, SOME_DATE));
   }
 
+  @Test
+  public void steps_statistics_from_database_migration_when_dbmigration_status_is_RUNNING() throws Exception {
+    when(databaseVersion.getStatus()).thenReturn(DatabaseVersion.Status.REQUIRES_UPGRADE);
+    when(dialect.supportsMigration()).thenReturn(true);
+    when(migrationState.getStatus()).thenReturn(RUNNING);
+    when(migrationState.getStartedAt()).thenReturn(SOME_DATE);
+    when(migrationState.getStepStatistics()).thenReturn(asList(
+      new MigrationStepStatistics("#1 'Foo'", 2_000L, 10_000L),
+      new MigrationStepStatistics("#2 'Bar'", 15L, null)));
+
+    underTest.handle(request, response);
+
+    assertJson(response.outputAsString()).isSimilarTo("{" +
+      "\"state\":\"" + STATUS_MIGRATION_RUNNING + "\"," +
+      "\"steps\":[" +
+      "{\"step\":\"#1 'Foo'\",\"durationMs\":2000,\"rows\":10000,\"rowsPerSecond\":5000}," +
+      "{\"step\":\"#2 'Bar'\",\"durationMs\":15}" +
+      "]}");
+  }
+
   @Test
   @UseDataProvider("statusRequiringDbMigration")
   public void state_from_database_migration_and_msg_includes_error_when_dbmigration_status_is_FAILED(DatabaseVersion.Status status) throws Exception {
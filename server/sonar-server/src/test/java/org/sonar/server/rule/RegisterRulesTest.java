@@ -329,6 +329,48 @@ public class RegisterRulesTest {
     assertThat(rule1.getUpdatedAt()).isEqualTo(DATE1.getTime());
   }
 
+  @Test
+  public void store_definition_hash_of_repositories() {
+    execute(new FakeRepositoryV1());
+    String hashV1 = dbClient.ruleRepositoryDao().selectByKey(dbTester.getSession(), "fake").get().getDefinitionHash();
+
+    execute(new FakeRepositoryV2());
+    String hashV2 = dbClient.ruleRepositoryDao().selectByKey(dbTester.getSession(), "fake").get().getDefinitionHash();
+
+    assertThat(hashV1).isNotEmpty();
+    assertThat(hashV2).isNotEmpty().isNotEqualTo(hashV1);
+  }
+
+  @Test
+  public void skip_registration_of_repositories_which_did_not_change() {
+    execute(new FakeRepositoryV1());
+    RuleDto rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Name changed in db"));
+    dbTester.getSession().commit();
+
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1());
+
+    rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    assertThat(rule1.getName()).isEqualTo("Name changed in db");
+    assertThat(rule1.getStatus()).isEqualTo(RuleStatus.BETA);
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY2).getStatus()).isEqualTo(RuleStatus.READY);
+    assertThat(ruleIndex.search(new RuleQuery(), new SearchOptions()).getIds()).containsOnly(RULE_KEY1, RULE_KEY2);
+  }
+
+  @Test
+  public void register_repository_again_if_definition_hash_is_unknown() {
+    execute(new FakeRepositoryV1());
+    RuleDto rule1 = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Name changed in db"));
+    dbClient.ruleRepositoryDao().truncate(dbTester.getSession());
+    dbTester.getSession().commit();
+
+    execute(new FakeRepositoryV1());
+
+    assertThat(dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), RULE_KEY1).getName()).isEqualTo("One");
+  }
+
   @Test
   public void do_not_update_already_removed_rules() {
     execute(new FakeRepositoryV1());
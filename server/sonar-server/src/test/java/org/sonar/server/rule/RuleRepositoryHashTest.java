@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.sonar.api.server.rule.RulesDefinition;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleRepositoryHashTest {
+
+  @Test
+  public void same_definitions_have_same_hash() {
+    String hash1 = hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc"));
+    String hash2 = hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc"));
+
+    assertThat(hash1).isEqualTo(hash2).hasSize(40);
+  }
+
+  @Test
+  public void hash_does_not_depend_on_order_of_rules() {
+    String hash1 = hash(repo -> {
+      repo.createRule("rule1").setName("One").setHtmlDescription("Desc");
+      repo.createRule("rule2").setName("Two").setHtmlDescription("Desc");
+    });
+    String hash2 = hash(repo -> {
+      repo.createRule("rule2").setName("Two").setHtmlDescription("Desc");
+      repo.createRule("rule1").setName("One").setHtmlDescription("Desc");
+    });
+
+    assertThat(hash1).isEqualTo(hash2);
+  }
+
+  @Test
+  public void hash_changes_when_a_rule_attribute_changes() {
+    String hash = hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc"));
+
+    assertThat(hash(repo -> repo.createRule("rule1").setName("One v2").setHtmlDescription("Desc"))).isNotEqualTo(hash);
+    assertThat(hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc v2"))).isNotEqualTo(hash);
+    assertThat(hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc").setTags("tag"))).isNotEqualTo(hash);
+    assertThat(hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc").setInternalKey("key"))).isNotEqualTo(hash);
+    assertThat(hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc").createParam("param"))).isNotEqualTo(hash);
+  }
+
+  @Test
+  public void hash_changes_when_a_param_changes() {
+    String hash = hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc").createParam("param").setDefaultValue("1"));
+
+    assertThat(hash(repo -> repo.createRule("rule1").setName("One").setHtmlDescription("Desc").createParam("param").setDefaultValue("2")))
+      .isNotEqualTo(hash);
+  }
+
+  private static String hash(Consumer<RulesDefinition.NewRepository> definition) {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repository = context.createRepository("fake", "java");
+    definition.accept(repository);
+    repository.done();
+    List<RulesDefinition.ExtendedRepository> repositories = singletonList(context.repository("fake"));
+    return RuleRepositoryHash.of(repositories);
+  }
+}
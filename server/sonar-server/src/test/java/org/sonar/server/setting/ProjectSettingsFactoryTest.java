@@ -19,32 +19,29 @@
  */
 package org.sonar.server.setting;
 
+import com.google.common.collect.ImmutableMap;
 import org.junit.Test;
-import org.mockito.Mockito;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.config.Settings;
 import org.sonar.ce.settings.ProjectSettingsFactory;
-import org.sonar.db.DbClient;
-import org.sonar.db.property.PropertyDto;
 
-import static com.google.common.collect.Lists.newArrayList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class ProjectSettingsFactoryTest {
 
-  static final String PROJECT_KEY = "PROJECT_KEY";
+  static final String PROJECT_UUID = "PROJECT_UUID";
 
   Settings settings = new MapSettings();
-  DbClient dbClient = mock(DbClient.class, Mockito.RETURNS_DEEP_STUBS);
+  SettingsCache settingsCache = mock(SettingsCache.class);
 
-  ProjectSettingsFactory underTest = new ProjectSettingsFactory(settings, dbClient);
+  ProjectSettingsFactory underTest = new ProjectSettingsFactory(settings, settingsCache);
 
   @Test
   public void return_global_settings() {
     settings.setProperty("key", "value");
-    Settings projectSettings = underTest.newProjectSettings(PROJECT_KEY);
+    Settings projectSettings = underTest.newProjectSettings(PROJECT_UUID);
 
     assertThat(projectSettings.getProperties()).hasSize(1);
     assertThat(projectSettings.getString("key")).isEqualTo("value");
@@ -52,13 +49,12 @@ public class ProjectSettingsFactoryTest {
 
   @Test
   public void return_project_settings() {
-    when(dbClient.propertiesDao().selectProjectProperties(PROJECT_KEY)).thenReturn(newArrayList(
-      new PropertyDto().setKey("1").setValue("val1"),
-      new PropertyDto().setKey("2").setValue("val2"),
-      new PropertyDto().setKey("3").setValue("val3"))
-      );
+    when(settingsCache.getComponentProperties(PROJECT_UUID)).thenReturn(ImmutableMap.of(
+      "1", "val1",
+      "2", "val2",
+      "3", "val3"));
 
-    Settings projectSettings = underTest.newProjectSettings(PROJECT_KEY);
+    Settings projectSettings = underTest.newProjectSettings(PROJECT_UUID);
 
     assertThat(projectSettings.getString("1")).isEqualTo("val1");
     assertThat(projectSettings.getString("2")).isEqualTo("val2");
@@ -68,11 +64,9 @@ public class ProjectSettingsFactoryTest {
   @Test
   public void project_settings_override_global_settings() {
     settings.setProperty("key", "value");
-    when(dbClient.propertiesDao().selectProjectProperties(PROJECT_KEY)).thenReturn(newArrayList(
-        new PropertyDto().setKey("key").setValue("value2"))
-    );
+    when(settingsCache.getComponentProperties(PROJECT_UUID)).thenReturn(ImmutableMap.of("key", "value2"));
 
-    Settings projectSettings = underTest.newProjectSettings(PROJECT_KEY);
+    Settings projectSettings = underTest.newProjectSettings(PROJECT_UUID);
     assertThat(projectSettings.getString("key")).isEqualTo("value2");
   }
 }
@@ -0,0 +1,175 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.setting;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.GlobalPropertyChangeHandler;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonar.db.component.ComponentTesting.newProjectDto;
+import static org.sonar.db.property.PropertyTesting.newComponentPropertyDto;
+import static org.sonar.db.property.PropertyTesting.newGlobalPropertyDto;
+
+public class SettingsCacheTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  private System2 system2 = mock(System2.class);
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private SettingsCache underTest = new SettingsCache(db.getDbClient(), system2);
+
+  @Test
+  public void load_global_settings() {
+    when(system2.now()).thenReturn(NOW);
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "bar"));
+    assertThat(underTest.getVersion()).isNotEmpty();
+  }
+
+  @Test
+  public void load_component_settings() {
+    when(system2.now()).thenReturn(NOW);
+    ComponentDto project = db.components().insertProject();
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+    db.properties().insertProperty(newComponentPropertyDto("foo", "baz", project));
+
+    assertThat(underTest.getComponentProperties(project.uuid())).containsOnly(entry("foo", "baz"));
+    assertThat(underTest.getComponentProperties("unknown")).isEmpty();
+  }
+
+  @Test
+  public void settings_are_not_reloaded_before_version_check() {
+    when(system2.now()).thenReturn(NOW);
+    ComponentDto project = db.components().insertProject();
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "bar"));
+    assertThat(underTest.getComponentProperties(project.uuid())).isEmpty();
+
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "changed"));
+    db.properties().insertProperty(newComponentPropertyDto("foo", "baz", project));
+    when(system2.now()).thenReturn(NOW + SettingsCache.VERSION_CHECK_INTERVAL_MS - 1);
+
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "bar"));
+    assertThat(underTest.getComponentProperties(project.uuid())).isEmpty();
+    assertThat(underTest.getHits()).isEqualTo(2L);
+    assertThat(underTest.getMisses()).isEqualTo(2L);
+    assertThat(underTest.getHitRatio()).isEqualTo(0.5d);
+  }
+
+  @Test
+  public void settings_are_reloaded_when_version_changes() {
+    when(system2.now()).thenReturn(NOW);
+    ComponentDto project = db.components().insertProject();
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "bar"));
+    assertThat(underTest.getComponentProperties(project.uuid())).isEmpty();
+    String version = underTest.getVersion();
+
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "changed"));
+    db.properties().insertProperty(newComponentPropertyDto("foo", "baz", project));
+    when(system2.now()).thenReturn(NOW + SettingsCache.VERSION_CHECK_INTERVAL_MS);
+
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "changed"));
+    assertThat(underTest.getComponentProperties(project.uuid())).containsOnly(entry("foo", "baz"));
+    assertThat(underTest.getVersion()).isNotEqualTo(version);
+  }
+
+  @Test
+  public void settings_are_reloaded_when_property_key_is_renamed() {
+    when(system2.now()).thenReturn(NOW);
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "bar"));
+
+    db.getDbClient().propertiesDao().renamePropertyKey("foo", "foo2");
+    when(system2.now()).thenReturn(NOW + SettingsCache.VERSION_CHECK_INTERVAL_MS);
+
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo2", "bar"));
+  }
+
+  @Test
+  public void component_settings_do_not_depend_on_component_key() {
+    when(system2.now()).thenReturn(NOW);
+    ComponentDto project = db.components().insertProject();
+    db.properties().insertProperty(newComponentPropertyDto("foo", "bar", project));
+    assertThat(underTest.getComponentProperties(project.uuid())).containsOnly(entry("foo", "bar"));
+
+    db.getDbClient().componentKeyUpdaterDao().updateKey(project.uuid(), "new_key");
+    ComponentDto otherProject = db.components().insertComponent(newProjectDto(db.getDefaultOrganization()).setKey(project.key()));
+
+    assertThat(underTest.getComponentProperties(project.uuid())).containsOnly(entry("foo", "bar"));
+    assertThat(underTest.getComponentProperties(otherProject.uuid())).isEmpty();
+  }
+
+  @Test
+  public void settings_are_kept_when_version_does_not_change() {
+    when(system2.now()).thenReturn(NOW);
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+    underTest.getGlobalProperties();
+
+    when(system2.now()).thenReturn(NOW + 10 * SettingsCache.VERSION_CHECK_INTERVAL_MS);
+    underTest.getGlobalProperties();
+
+    assertThat(underTest.getHits()).isEqualTo(1L);
+    assertThat(underTest.getMisses()).isEqualTo(1L);
+  }
+
+  @Test
+  public void invalidate_forces_version_check() {
+    when(system2.now()).thenReturn(NOW);
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+    underTest.getGlobalProperties();
+
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "changed"));
+    underTest.invalidate();
+
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "changed"));
+  }
+
+  @Test
+  public void change_of_global_setting_forces_version_check() {
+    when(system2.now()).thenReturn(NOW);
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "bar"));
+    underTest.getGlobalProperties();
+
+    db.properties().insertProperty(newGlobalPropertyDto("foo", "changed"));
+    underTest.onChange(GlobalPropertyChangeHandler.PropertyChange.create("foo", "changed"));
+
+    assertThat(underTest.getGlobalProperties()).containsOnly(entry("foo", "changed"));
+  }
+
+  @Test
+  public void statistics_are_empty_when_cache_is_not_used() {
+    assertThat(underTest.getVersion()).isNull();
+    assertThat(underTest.getHits()).isZero();
+    assertThat(underTest.getMisses()).isZero();
+    assertThat(underTest.getHitRatio()).isZero();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.source;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.source.SourceDictionary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.core.config.CorePropertyDefinitions.SOURCES_DICTIONARY_COMPRESSION;
+
+public class SourceDictionaryRepositoryTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbClient dbClient = db.getDbClient();
+  private DbSession dbSession = db.getSession();
+  private MapSettings settings = new MapSettings();
+  private SourceDictionaryRepository underTest = new SourceDictionaryRepository(dbClient, settings);
+
+  @Test
+  public void dictionary_compression_is_disabled_by_default() {
+    assertThat(underTest.isEnabled()).isFalse();
+
+    settings.setProperty(SOURCES_DICTIONARY_COMPRESSION, true);
+
+    assertThat(underTest.isEnabled()).isTrue();
+  }
+
+  @Test
+  public void get_returns_null_if_dictionary_does_not_exist() {
+    assertThat(underTest.get("java.12345678")).isNull();
+  }
+
+  @Test
+  public void setCurrent_stores_dictionary_and_makes_it_current_dictionary_of_language() {
+    settings.setProperty(SOURCES_DICTIONARY_COMPRESSION, true);
+    SourceDictionary dictionary = new SourceDictionary("java", "import java.util.List;\n".getBytes(UTF_8));
+
+    assertThat(underTest.setCurrent(dbSession, dictionary)).isTrue();
+
+    assertThat(underTest.getCurrent(dbSession, "java").get().getKey()).isEqualTo(dictionary.getKey());
+    assertThat(underTest.getCurrent(dbSession, "js")).isEmpty();
+    SourceDictionary loaded = new SourceDictionaryRepository(dbClient, settings).get(dictionary.getKey());
+    assertThat(loaded.getLanguage()).isEqualTo("java");
+    assertThat(loaded.getBytes()).isEqualTo(dictionary.getBytes());
+  }
+
+  @Test
+  public void previous_dictionaries_are_kept_when_current_dictionary_changes() {
+    settings.setProperty(SOURCES_DICTIONARY_COMPRESSION, true);
+    SourceDictionary first = new SourceDictionary("java", "import java.util.List;\n".getBytes(UTF_8));
+    SourceDictionary second = new SourceDictionary("java", "import java.util.Map;\n".getBytes(UTF_8));
+    underTest.setCurrent(dbSession, first);
+
+    underTest.setCurrent(dbSession, second);
+
+    SourceDictionaryRepository otherNode = new SourceDictionaryRepository(dbClient, settings);
+    assertThat(otherNode.getCurrent(dbSession, "java").get().getKey()).isEqualTo(second.getKey());
+    assertThat(otherNode.get(first.getKey()).getBytes()).isEqualTo(first.getBytes());
+  }
+
+  @Test
+  public void getCurrent_is_empty_when_dictionary_compression_is_disabled() {
+    underTest.setCurrent(dbSession, new SourceDictionary("java", "import java.util.List;\n".getBytes(UTF_8)));
+
+    assertThat(underTest.getCurrent(dbSession, "java")).isEmpty();
+  }
+
+  @Test
+  public void setCurrent_ignores_languages_with_too_long_key() {
+    SourceDictionary dictionary = new SourceDictionary("a_language_with_a_very_very_long_key", "foo".getBytes(UTF_8));
+
+    assertThat(underTest.setCurrent(dbSession, dictionary)).isFalse();
+    assertThat(underTest.get(dictionary.getKey())).isNull();
+  }
+}
@@ -38,6 +38,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
+import org.sonar.server.source.SourceDictionaryRepository;
 import org.sonar.server.source.index.FileSourcesUpdaterHelper;
 import org.sonar.server.test.db.TestTesting;
 import org.sonar.test.TestUtils;
@@ -66,7 +67,8 @@ public class TestIndexerTest {
   @Rule
   public DbTester db = DbTester.create(system2);
 
-  private TestIndexer underTest = new TestIndexer(system2, db.getDbClient(), es.client());
+  private TestIndexer underTest = new TestIndexer(system2, db.getDbClient(), es.client(),
+    new SourceDictionaryRepository(db.getDbClient(), new MapSettings()));
 
   @Test
   public void index_tests() throws Exception {
@@ -32,6 +32,7 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.SourceDictionaries;
 import org.sonar.server.source.index.FileSourcesUpdaterHelper;
 import org.sonar.server.test.db.TestTesting;
 
@@ -57,6 +58,7 @@ public class TestResultSetIteratorTest {
   public LogTester logTester = new LogTester();
 
   TestResultSetIterator underTest;
+  SourceDictionaries sourceDictionaries = key -> null;
 
   private static List<DbFileSources.Test> newFakeTests(int numberOfTests) {
     List<DbFileSources.Test> tests = new ArrayList<>();
@@ -90,7 +92,7 @@ public class TestResultSetIteratorTest {
   public void traverse_db() throws Exception {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
     TestTesting.updateDataColumn(dbTester.getSession(), "F1", newFakeTests(3));
-    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null, sourceDictionaries);
 
     FileSourcesUpdaterHelper.Row row = underTest.next();
     assertThat(row.getProjectUuid()).isEqualTo("P1");
@@ -123,7 +125,7 @@ public class TestResultSetIteratorTest {
         .setName("N1")
         .build());
     TestTesting.updateDataColumn(dbTester.getSession(), "F1", tests);
-    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null, sourceDictionaries);
 
     FileSourcesUpdaterHelper.Row row = underTest.next();
 
@@ -151,7 +153,7 @@ public class TestResultSetIteratorTest {
   @Test
   public void filter_by_date() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
-    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 2000000000000L, null);
+    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 2000000000000L, null, sourceDictionaries);
 
     assertThat(underTest.hasNext()).isFalse();
   }
@@ -161,7 +163,7 @@ public class TestResultSetIteratorTest {
     dbTester.prepareDbUnit(getClass(), "filter_by_project.xml");
     TestTesting.updateDataColumn(dbTester.getSession(), "F1", newFakeTests(1));
 
-    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, "P1");
+    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, "P1", sourceDictionaries);
 
     FileSourcesUpdaterHelper.Row row = underTest.next();
     assertThat(row.getProjectUuid()).isEqualTo("P1");
@@ -176,7 +178,7 @@ public class TestResultSetIteratorTest {
     dbTester.prepareDbUnit(getClass(), "filter_by_project_and_date.xml");
     TestTesting.updateDataColumn(dbTester.getSession(), "F1", newFakeTests(1));
 
-    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 1400000000000L, "P1");
+    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 1400000000000L, "P1", sourceDictionaries);
 
     FileSourcesUpdaterHelper.Row row = underTest.next();
     assertThat(row.getProjectUuid()).isEqualTo("P1");
@@ -192,7 +194,7 @@ public class TestResultSetIteratorTest {
 
     TestTesting.updateDataColumn(dbTester.getSession(), "F1", "THIS_IS_NOT_PROTOBUF".getBytes());
 
-    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null, sourceDictionaries);
     FileSourcesUpdaterHelper.Row row = underTest.next();
     assertThat(row.getFileUuid()).isEqualTo("F1");
     assertThat(row.getUpdateRequests()).isEmpty();
@@ -206,7 +208,7 @@ public class TestResultSetIteratorTest {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
     TestTesting.updateDataColumn(dbTester.getSession(), "F1", (byte[])null);
 
-    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null);
+    underTest = TestResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L, null, sourceDictionaries);
 
     FileSourcesUpdaterHelper.Row row = underTest.next();
     assertThat(row.getFileUuid()).isEqualTo("F1");
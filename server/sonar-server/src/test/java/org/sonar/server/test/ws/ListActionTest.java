@@ -36,6 +36,7 @@ import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.source.SourceDictionaryRepository;
 import org.sonar.server.test.index.TestIndex;
 import org.sonar.server.test.index.TestIndexDefinition;
 import org.sonar.server.test.index.TestIndexer;
@@ -76,7 +77,8 @@ public class ListActionTest {
   private DbClient dbClient = db.getDbClient();
 
   private TestIndex testIndex = new TestIndex(es.client());
-  private TestIndexer testIndexer = new TestIndexer(System2.INSTANCE, db.getDbClient(), es.client());
+  private TestIndexer testIndexer = new TestIndexer(System2.INSTANCE, db.getDbClient(), es.client(),
+    new SourceDictionaryRepository(db.getDbClient(), new MapSettings()));
 
   private ComponentDto project;
   private ComponentDto mainFile;
@@ -0,0 +1,161 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.web.UserRole;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.user.GroupDto;
+import org.sonar.db.user.UserDto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AuthorizationCacheTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  private System2 system2 = mock(System2.class);
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private AuthorizationCache underTest = new AuthorizationCache(db.getDbClient(), system2);
+
+  @Test
+  public void load_authorized_projects_of_user() {
+    when(system2.now()).thenReturn(NOW);
+    UserDto user = db.users().insertUser();
+    ComponentDto project1 = db.components().insertProject();
+    ComponentDto project2 = db.components().insertProject();
+    db.users().insertProjectPermissionOnUser(user, UserRole.USER, project1);
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, project2);
+
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER)).containsOnly(project1.uuid());
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.ADMIN)).containsOnly(project2.uuid());
+  }
+
+  @Test
+  public void load_authorized_projects_of_anonymous() {
+    when(system2.now()).thenReturn(NOW);
+    ComponentDto project = db.components().insertProject();
+    db.users().insertProjectPermissionOnAnyone(UserRole.USER, project);
+
+    assertThat(underTest.getAuthorizedProjectUuids(null, emptyList(), UserRole.USER)).containsOnly(project.uuid());
+  }
+
+  @Test
+  public void projects_are_not_reloaded_until_invalidation() {
+    when(system2.now()).thenReturn(NOW);
+    UserDto user = db.users().insertUser();
+    ComponentDto project1 = db.components().insertProject();
+    ComponentDto project2 = db.components().insertProject();
+    db.users().insertProjectPermissionOnUser(user, UserRole.USER, project1);
+    underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER);
+
+    db.users().insertProjectPermissionOnUser(user, UserRole.USER, project2);
+
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER)).containsOnly(project1.uuid());
+    assertThat(underTest.getHits()).isEqualTo(1L);
+    assertThat(underTest.getMisses()).isEqualTo(1L);
+    assertThat(underTest.getHitRatio()).isEqualTo(0.5d);
+
+    underTest.invalidate();
+
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER)).containsOnly(project1.uuid(), project2.uuid());
+    assertThat(underTest.getMisses()).isEqualTo(2L);
+  }
+
+  @Test
+  public void entries_expire() {
+    when(system2.now()).thenReturn(NOW);
+    UserDto user = db.users().insertUser();
+    ComponentDto project = db.components().insertProject();
+    underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER);
+
+    db.users().insertProjectPermissionOnUser(user, UserRole.USER, project);
+    when(system2.now()).thenReturn(NOW + AuthorizationCache.TIME_TO_LIVE_MS);
+
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER)).containsOnly(project.uuid());
+  }
+
+  @Test
+  public void groups_of_user_are_part_of_the_key() {
+    when(system2.now()).thenReturn(NOW);
+    UserDto user = db.users().insertUser();
+    GroupDto group = db.users().insertGroup();
+    ComponentDto project = db.components().insertProject();
+    db.users().insertProjectPermissionOnGroup(group, UserRole.USER, project);
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER)).isEmpty();
+
+    db.users().insertMember(group, user);
+
+    assertThat(underTest.getAuthorizedProjectUuids(user.getId().intValue(), Collections.singletonList(group.getId()), UserRole.USER))
+      .containsOnly(project.uuid());
+  }
+
+  @Test
+  public void order_of_groups_does_not_matter() {
+    when(system2.now()).thenReturn(NOW);
+    underTest.getAuthorizedProjectUuids(null, asList(2L, 1L), UserRole.USER);
+    underTest.getAuthorizedProjectUuids(null, asList(1L, 2L), UserRole.USER);
+
+    assertThat(underTest.getHits()).isEqualTo(1L);
+    assertThat(underTest.getSize()).isEqualTo(1);
+  }
+
+  @Test
+  public void statistics_are_empty_when_cache_is_not_used() {
+    assertThat(underTest.getSize()).isZero();
+    assertThat(underTest.getWeight()).isZero();
+    assertThat(underTest.getHits()).isZero();
+    assertThat(underTest.getMisses()).isZero();
+    assertThat(underTest.getHitRatio()).isZero();
+  }
+
+  @Test
+  public void weight_is_the_number_of_cached_project_uuids() {
+    when(system2.now()).thenReturn(NOW);
+    UserDto user = db.users().insertUser();
+    ComponentDto project1 = db.components().insertProject();
+    ComponentDto project2 = db.components().insertProject();
+    db.users().insertProjectPermissionOnUser(user, UserRole.USER, project1);
+    db.users().insertProjectPermissionOnUser(user, UserRole.USER, project2);
+
+    underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.USER);
+    underTest.getAuthorizedProjectUuids(user.getId().intValue(), emptyList(), UserRole.ADMIN);
+
+    assertThat(underTest.getSize()).isEqualTo(2);
+    // an empty entry weighs 1
+    assertThat(underTest.getWeight()).isEqualTo(3);
+
+    underTest.invalidate();
+
+    assertThat(underTest.getSize()).isZero();
+    assertThat(underTest.getWeight()).isZero();
+  }
+}
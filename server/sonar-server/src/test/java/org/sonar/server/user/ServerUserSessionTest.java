@@ -301,7 +301,7 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newUserSession(@Nullable UserDto userDto) {
-    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, userDto);
+    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, new AuthorizationCache(dbClient, System2.INSTANCE), userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
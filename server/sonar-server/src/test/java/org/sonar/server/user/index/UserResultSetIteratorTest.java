@@ -37,7 +37,7 @@ public class UserResultSetIteratorTest {
   @Test
   public void iterator_over_users() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
-    UserResultSetIterator it = UserResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 0L);
+    UserResultSetIterator it = UserResultSetIterator.create(dbTester.getDbClient(), 0L);
     Map<String, UserDoc> usersByLogin = Maps.uniqueIndex(it, new Function<UserDoc, String>() {
       @Override
       public String apply(UserDoc user) {
@@ -76,7 +76,7 @@ public class UserResultSetIteratorTest {
   @Test
   public void select_after_date() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
-    UserResultSetIterator it = UserResultSetIterator.create(dbTester.getDbClient(), dbTester.getSession(), 1520000000000L);
+    UserResultSetIterator it = UserResultSetIterator.create(dbTester.getDbClient(), 1520000000000L);
 
     assertThat(it.hasNext()).isTrue();
     UserDoc user = it.next();
@@ -0,0 +1,116 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpillingCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void keep_values_in_memory_within_budget() throws Exception {
+    SpillingCache<String, ArrayList<String>> underTest = new SpillingCache<>(temp.newFile(), 3, ArrayList::size);
+
+    underTest.put("A", newArrayList("a1", "a2"));
+    underTest.put("B", newArrayList("b1"));
+
+    assertThat(underTest.spilledSize()).isEqualTo(0);
+    assertThat(underTest.remove("A")).containsExactly("a1", "a2");
+    assertThat(underTest.remove("B")).containsExactly("b1");
+    assertThat(underTest.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void spill_values_to_disk_beyond_budget() throws Exception {
+    SpillingCache<String, ArrayList<String>> underTest = new SpillingCache<>(temp.newFile(), 2, ArrayList::size);
+
+    underTest.put("A", newArrayList("a1", "a2"));
+    underTest.put("B", newArrayList("b1"));
+    underTest.put("C", newArrayList("c1", "c2", "c3"));
+
+    assertThat(underTest.spilledSize()).isEqualTo(2);
+    assertThat(underTest.remove("C")).containsExactly("c1", "c2", "c3");
+    assertThat(underTest.remove("A")).containsExactly("a1", "a2");
+    assertThat(underTest.remove("B")).containsExactly("b1");
+    assertThat(underTest.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void memory_is_released_when_values_are_removed() throws Exception {
+    SpillingCache<String, ArrayList<String>> underTest = new SpillingCache<>(temp.newFile(), 2, ArrayList::size);
+
+    underTest.put("A", newArrayList("a1", "a2"));
+    underTest.remove("A");
+    underTest.put("B", newArrayList("b1", "b2"));
+
+    assertThat(underTest.spilledSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void remove_returns_null_if_key_is_unknown() throws Exception {
+    SpillingCache<String, ArrayList<String>> underTest = new SpillingCache<>(temp.newFile(), 0, ArrayList::size);
+    underTest.put("A", newArrayList("a1"));
+
+    assertThat(underTest.remove("B")).isNull();
+    assertThat(underTest.remove("A")).containsExactly("a1");
+    assertThat(underTest.remove("A")).isNull();
+  }
+
+  @Test
+  public void fail_to_put_twice_the_same_key() throws Exception {
+    SpillingCache<String, ArrayList<String>> underTest = new SpillingCache<>(temp.newFile(), 10, ArrayList::size);
+    underTest.put("A", newArrayList("a1"));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Key A is already in cache");
+
+    underTest.put("A", newArrayList("a2"));
+  }
+
+  @Test
+  public void close_clears_cache_and_deletes_file() throws Exception {
+    File file = temp.newFile();
+    SpillingCache<String, ArrayList<String>> underTest = new SpillingCache<>(file, 1, ArrayList::size);
+    underTest.put("A", newArrayList("a1"));
+    underTest.put("B", newArrayList("b1"));
+
+    underTest.close();
+
+    assertThat(underTest.isEmpty()).isTrue();
+    assertThat(underTest.remove("A")).isNull();
+    assertThat(file).doesNotExist();
+  }
+
+  private static ArrayList<String> newArrayList(String... values) {
+    return new ArrayList<>(Arrays.asList(values));
+  }
+}
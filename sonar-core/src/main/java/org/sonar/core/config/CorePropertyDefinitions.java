@@ -46,6 +46,8 @@ public class CorePropertyDefinitions {
   public static final String ORGANIZATIONS_ANYONE_CAN_CREATE = "sonar.organizations.anyoneCanCreate";
   public static final String ORGANIZATIONS_CREATE_PERSONAL_ORG = "sonar.organizations.createPersonalOrg";
 
+  public static final String SOURCES_DICTIONARY_COMPRESSION = "sonar.sources.dictionaryCompression";
+
   private CorePropertyDefinitions() {
     // only static stuff
   }
@@ -143,6 +145,14 @@ public class CorePropertyDefinitions {
         .type(PropertyType.BOOLEAN)
         .defaultValue(String.valueOf(false))
         .build(),
+      PropertyDefinition.builder(SOURCES_DICTIONARY_COMPRESSION)
+        .name("Compress sources with dictionaries")
+        .description("Compress sources and tests stored in database with a dictionary trained for each language. " +
+          "Sources stored before enabling this property remain readable, as well as sources stored while it was enabled once it is disabled.")
+        .hidden()
+        .type(PropertyType.BOOLEAN)
+        .defaultValue(String.valueOf(false))
+        .build(),
       PropertyDefinition.builder(CoreProperties.SCM_DISABLED_KEY)
         .name("Disable the SCM Sensor")
         .description("Disable the retrieval of blame information from Source Control Manager")
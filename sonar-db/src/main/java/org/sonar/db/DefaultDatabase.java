@@ -55,6 +55,7 @@ public class DefaultDatabase implements Database {
   private static final String SONAR_JDBC = "sonar.jdbc.";
   private static final String SONAR_JDBC_DIALECT = "sonar.jdbc.dialect";
   private static final String SONAR_JDBC_URL = "sonar.jdbc.url";
+  private static final String SONAR_JDBC_LEAK_DETECTION_THRESHOLD = "sonar.jdbc.leakDetectionThresholdMillis";
 
   private final LogbackHelper logbackHelper;
   private final Settings settings;
@@ -97,6 +98,7 @@ public class DefaultDatabase implements Database {
     datasource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE);
     datasource.setConnectionInitSqls(dialect.getConnectionInitStatements());
     datasource.setValidationQuery(dialect.getValidationQuery());
+    datasource.getPoolStatistics().setLeakDetectionThreshold(Long.parseLong(properties.getProperty(SONAR_JDBC_LEAK_DETECTION_THRESHOLD, "0")));
     enableSqlLogging(datasource, logbackHelper.getLoggerLevel("sql") == Level.TRACE);
   }
 
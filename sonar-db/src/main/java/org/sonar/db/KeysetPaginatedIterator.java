@@ -0,0 +1,199 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Forward-only {@link java.util.Iterator} over the rows of a table, loaded by pages of fixed size
+ * ordered by a unique key (keyset pagination). Contrary to {@link ResultSetIterator}, no cursor is kept
+ * open during traversal: each page is loaded by a short request on its own connection, so that memory
+ * consumption does not depend on the vendor-specific fetch size and other statements are not blocked
+ * (see streaming of result sets on MySQL).
+ * <p/>
+ * The next page is loaded on a background thread while the current one is consumed. The key of the
+ * last row returned by {@link #next()} is available through {@link #getLastKey()}, so that an
+ * interrupted traversal can be restarted from this key.
+ * <p/>
+ * As with {@link ResultSetIterator}, resources are released automatically at the end of traversal, but
+ * {@link #close()} must still be called when traversal is interrupted.
+ */
+public abstract class KeysetPaginatedIterator<E> implements Iterator<E>, Closeable {
+
+  public static final int DEFAULT_PAGE_SIZE = 1_000;
+
+  private final DataSource dataSource;
+  private final int pageSize;
+  private final ExecutorService executorService;
+
+  private Page<E> page = new Page<>(Collections.emptyList(), Collections.emptyList());
+  private int index = 0;
+  private boolean lastPage = false;
+  @CheckForNull
+  private Future<Page<E>> nextPage;
+  @CheckForNull
+  private String lastKey;
+  private volatile boolean closed = false;
+
+  /**
+   * @param startAfterKey the key after which traversal starts, {@code null} to traverse from the first row
+   */
+  protected KeysetPaginatedIterator(Database database, int pageSize, @Nullable String startAfterKey) {
+    checkArgument(pageSize > 0, "Page size must be strictly positive: %s", pageSize);
+    this.dataSource = database.getDataSource();
+    this.pageSize = pageSize;
+    this.lastKey = startAfterKey;
+    this.executorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("db-keyset-iterator-%d")
+      .setDaemon(true)
+      .build());
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (closed) {
+      return false;
+    }
+    while (index >= page.rows.size()) {
+      if (lastPage) {
+        close();
+        return false;
+      }
+      page = fetchNextPage();
+      index = 0;
+      lastPage = page.rows.size() < pageSize;
+      if (!lastPage) {
+        String pageLastKey = page.keys.get(page.keys.size() - 1);
+        nextPage = executorService.submit(() -> loadPage(pageLastKey));
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public E next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    lastKey = page.keys.get(index);
+    E row = page.rows.get(index);
+    index++;
+    return row;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Key of the last row returned by {@link #next()}, or the key given to the constructor if
+   * {@link #next()} has not been called yet.
+   */
+  @CheckForNull
+  public String getLastKey() {
+    return lastKey;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Creates the statement loading the rows which key is strictly greater than {@code afterKey}, ordered by key.
+   * There is no need to limit the number of rows: the statement is automatically limited to the page size.
+   *
+   * @param afterKey {@code null} when loading the first page
+   */
+  protected abstract PreparedStatement prepareStatement(Connection connection, @Nullable String afterKey) throws SQLException;
+
+  protected abstract String readKey(ResultSet rs) throws SQLException;
+
+  protected abstract E read(ResultSet rs) throws SQLException;
+
+  private Page<E> fetchNextPage() {
+    if (nextPage == null) {
+      return loadPage(lastKey);
+    }
+    try {
+      return nextPage.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while loading page of rows", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException("Fail to load page of rows", e.getCause());
+    } finally {
+      nextPage = null;
+    }
+  }
+
+  private Page<E> loadPage(@Nullable String afterKey) {
+    try (Connection connection = dataSource.getConnection();
+      PreparedStatement stmt = prepareStatement(connection, afterKey)) {
+      stmt.setMaxRows(pageSize);
+      stmt.setFetchSize(pageSize);
+      try (ResultSet rs = stmt.executeQuery()) {
+        List<String> keys = new ArrayList<>(pageSize);
+        List<E> rows = new ArrayList<>(pageSize);
+        while (rs.next()) {
+          keys.add(readKey(rs));
+          rows.add(read(rs));
+        }
+        return new Page<>(keys, rows);
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to load page of rows after key " + afterKey, e);
+    }
+  }
+
+  private static class Page<E> {
+    private final List<String> keys;
+    private final List<E> rows;
+
+    private Page(List<String> keys, List<E> rows) {
+      this.keys = keys;
+      this.rows = rows;
+    }
+  }
+}
@@ -111,7 +111,7 @@ public class ComponentDao implements Dao {
     if (keys.isEmpty()) {
       return emptyList();
     }
-    return mapper(session).selectSubProjectsByComponentUuids(keys);
+    return executeLargeInputs(keys, mapper(session)::selectSubProjectsByComponentUuids);
   }
 
   public List<ComponentDto> selectDescendantModules(DbSession session, String rootComponentUuid) {
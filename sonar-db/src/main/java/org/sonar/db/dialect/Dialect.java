@@ -83,6 +83,13 @@ public interface Dialect {
    */
   int getScrollSingleRowFetchSize();
 
+  /**
+   * Number of statements sent to the database in a single JDBC batch by batch sessions.
+   *
+   * @since 6.3
+   */
+  int getBatchSize();
+
   /**
    * Indicates whether DB migration can be perform on the DB vendor implementation associated with the current dialect.
    *
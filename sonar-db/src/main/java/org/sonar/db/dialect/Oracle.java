@@ -49,4 +49,12 @@ public class Oracle extends AbstractDialect {
   public List<String> getConnectionInitStatements() {
     return INIT_STATEMENTS;
   }
+
+  /**
+   * Round-trips are expensive compared to the execution of a single statement, larger batches are preferred.
+   */
+  @Override
+  public int getBatchSize() {
+    return 1000;
+  }
 }
@@ -49,4 +49,12 @@ public class PostgreSql extends AbstractDialect {
   public boolean supportsMigration() {
     return true;
   }
+
+  /**
+   * Round-trips are expensive compared to the execution of a single statement, larger batches are preferred.
+   */
+  @Override
+  public int getBatchSize() {
+    return 1000;
+  }
 }
@@ -22,6 +22,7 @@ package org.sonar.db.duplication;
 import java.util.Collection;
 import java.util.List;
 import javax.annotation.Nullable;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
@@ -38,6 +39,21 @@ public class DuplicationDao implements Dao {
       partition -> session.getMapper(DuplicationMapper.class).selectCandidates(analysisUuid, language, partition));
   }
 
+  /**
+   * Count the blocks of the given language which belong to the last analysis of enabled files.
+   */
+  public int countHashes(DbSession session, String language) {
+    return session.getMapper(DuplicationMapper.class).countHashes(language);
+  }
+
+  /**
+   * Streams the hashes of the blocks counted by {@link #countHashes(DbSession, String)}. The handler receives
+   * {@link String} results, a hash being returned once per block.
+   */
+  public void scrollHashes(DbSession session, String language, ResultHandler handler) {
+    session.getMapper(DuplicationMapper.class).selectHashes(language, handler);
+  }
+
   /**
    * Insert rows in the table DUPLICATIONS_INDEX.
    * Note that generated ids are not returned.
@@ -35,6 +35,7 @@ import org.apache.ibatis.session.RowBounds;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.RowNotFoundException;
+import org.sonar.db.property.InternalPropertiesDao;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
@@ -42,6 +43,14 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class MetricDao implements Dao {
 
+  static final String METRICS_VERSION_KEY = "metrics.version";
+
+  private final InternalPropertiesDao internalPropertiesDao;
+
+  public MetricDao(InternalPropertiesDao internalPropertiesDao) {
+    this.internalPropertiesDao = internalPropertiesDao;
+  }
+
   @CheckForNull
   public MetricDto selectByKey(DbSession session, String key) {
     return mapper(session).selectByKey(key);
@@ -67,6 +76,15 @@ public class MetricDao implements Dao {
     return mapper(session).selectAllEnabled();
   }
 
+  /**
+   * Version of metrics. A new version is generated in the same transaction as each creation, update or
+   * deactivation of metric made through this DAO. The version is an empty string as long as no metric has
+   * been written.
+   */
+  public String selectVersion(DbSession session) {
+    return internalPropertiesDao.selectByKey(session, METRICS_VERSION_KEY).orElse("");
+  }
+
   public List<MetricDto> selectEnabled(DbSession session, @Nullable Boolean isCustom, int offset, int limit) {
     Map<String, Object> properties = Maps.newHashMapWithExpectedSize(1);
     if (isCustom != null) {
@@ -82,6 +100,7 @@ public class MetricDao implements Dao {
 
   public MetricDto insert(DbSession session, MetricDto dto) {
     mapper(session).insert(dto);
+    newVersion(session);
 
     return dto;
   }
@@ -116,6 +135,10 @@ public class MetricDao implements Dao {
     }
   }
 
+  private void newVersion(DbSession session) {
+    internalPropertiesDao.saveNewVersion(session, METRICS_VERSION_KEY);
+  }
+
   private static MetricMapper mapper(DbSession session) {
     return session.getMapper(MetricMapper.class);
   }
@@ -127,6 +150,7 @@ public class MetricDao implements Dao {
         mapper(session).disableByIds(input);
         return null;
       });
+    newVersion(session);
   }
 
   /**
@@ -134,11 +158,16 @@ public class MetricDao implements Dao {
    * or is already disabled.
    */
   public boolean disableCustomByKey(DbSession session, String key) {
-    return mapper(session).disableByKey(key) == 1;
+    boolean disabled = mapper(session).disableByKey(key) == 1;
+    if (disabled) {
+      newVersion(session);
+    }
+    return disabled;
   }
 
   public void update(DbSession session, MetricDto metric) {
     mapper(session).update(metric);
+    newVersion(session);
   }
 
   @CheckForNull
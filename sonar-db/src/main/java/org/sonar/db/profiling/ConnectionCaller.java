@@ -0,0 +1,52 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Name of the code which borrows connections from the pool in the current thread, for example a web service
+ * action or a Compute Engine step. Borrows are accounted per caller by {@link ConnectionPoolStatistics}.
+ */
+public final class ConnectionCaller {
+
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private ConnectionCaller() {
+    // only static stuff
+  }
+
+  @CheckForNull
+  public static String get() {
+    return CURRENT.get();
+  }
+
+  /**
+   * @param caller the caller, or {@code null} to clear the caller of the current thread
+   */
+  public static void set(@Nullable String caller) {
+    if (caller == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(caller);
+    }
+  }
+}
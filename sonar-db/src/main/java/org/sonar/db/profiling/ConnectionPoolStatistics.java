@@ -0,0 +1,195 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static java.lang.String.format;
+
+/**
+ * Statistics of the connections borrowed from the pool: time spent waiting for a connection, borrows per caller
+ * (see {@link ConnectionCaller}) and connections held for longer than the leak detection threshold.
+ * <p>
+ * Stack of the caller is captured only if leak detection is enabled, as it's expensive.
+ */
+public class ConnectionPoolStatistics {
+
+  private static final Logger LOG = Loggers.get(ConnectionPoolStatistics.class);
+  private static final String UNKNOWN_CALLER = "other";
+  private static final long[] WAIT_TIME_BUCKETS_IN_MS = {1, 5, 10, 50, 100, 500, 1000};
+
+  private final System2 system2;
+  private final AtomicLong borrowCount = new AtomicLong(0);
+  private final AtomicLong totalWaitTime = new AtomicLong(0);
+  private final AtomicLong maxWaitTime = new AtomicLong(0);
+  private final AtomicLong leakCount = new AtomicLong(0);
+  private final AtomicLongArray waitTimeHistogram = new AtomicLongArray(WAIT_TIME_BUCKETS_IN_MS.length + 1);
+  private final ConcurrentMap<String, CallerStatistics> callers = new ConcurrentHashMap<>();
+  private final Set<Borrow> borrowed = ConcurrentHashMap.newKeySet();
+  private volatile long leakDetectionThreshold = 0L;
+
+  public ConnectionPoolStatistics(System2 system2) {
+    this.system2 = system2;
+  }
+
+  /**
+   * Statistics of the given data source, or empty statistics if the data source is not a {@link ProfiledDataSource}.
+   */
+  public static ConnectionPoolStatistics of(DataSource dataSource) {
+    if (dataSource instanceof ProfiledDataSource) {
+      return ((ProfiledDataSource) dataSource).getPoolStatistics();
+    }
+    return new ConnectionPoolStatistics(System2.INSTANCE);
+  }
+
+  /**
+   * @param thresholdInMs duration after which a borrowed connection which is not released is reported as a
+   *                      possible leak. Zero disables leak detection.
+   */
+  public void setLeakDetectionThreshold(long thresholdInMs) {
+    this.leakDetectionThreshold = thresholdInMs;
+  }
+
+  public long getLeakDetectionThreshold() {
+    return leakDetectionThreshold;
+  }
+
+  /**
+   * Records the borrow of a connection and returns the connection to be given to the caller, which records
+   * the release of the connection when it's closed.
+   */
+  Connection onBorrow(Connection connection, long waitTimeInMs) {
+    borrowCount.incrementAndGet();
+    totalWaitTime.addAndGet(waitTimeInMs);
+    maxWaitTime.accumulateAndGet(waitTimeInMs, Math::max);
+    waitTimeHistogram.incrementAndGet(bucketOf(waitTimeInMs));
+
+    String caller = ConnectionCaller.get();
+    long now = system2.now();
+    boolean leakDetection = leakDetectionThreshold > 0;
+    Borrow borrow = new Borrow(caller == null ? UNKNOWN_CALLER : caller, now, leakDetection ? new Throwable("Connection borrowed here") : null);
+    callers.computeIfAbsent(borrow.caller, c -> new CallerStatistics()).borrowCount.incrementAndGet();
+    if (leakDetection) {
+      detectLeaks(now);
+    }
+    borrowed.add(borrow);
+    return (Connection) Proxy.newProxyInstance(ConnectionPoolStatistics.class.getClassLoader(), new Class[] {Connection.class},
+      new MonitoredConnectionHandler(connection, () -> onRelease(borrow)));
+  }
+
+  private void onRelease(Borrow borrow) {
+    borrowed.remove(borrow);
+    callers.get(borrow.caller).holdTime.addAndGet(system2.now() - borrow.startTime);
+  }
+
+  private void detectLeaks(long now) {
+    for (Borrow borrow : borrowed) {
+      long holdTime = now - borrow.startTime;
+      if (holdTime > leakDetectionThreshold && borrow.reported.compareAndSet(false, true)) {
+        leakCount.incrementAndGet();
+        LOG.warn(format("Connection borrowed by %s is not released after %dms, it may be leaked", borrow.caller, holdTime), borrow.stack);
+      }
+    }
+  }
+
+  private static int bucketOf(long waitTimeInMs) {
+    for (int i = 0; i < WAIT_TIME_BUCKETS_IN_MS.length; i++) {
+      if (waitTimeInMs <= WAIT_TIME_BUCKETS_IN_MS[i]) {
+        return i;
+      }
+    }
+    return WAIT_TIME_BUCKETS_IN_MS.length;
+  }
+
+  public long getBorrowCount() {
+    return borrowCount.get();
+  }
+
+  public long getTotalWaitTime() {
+    return totalWaitTime.get();
+  }
+
+  public long getMaxWaitTime() {
+    return maxWaitTime.get();
+  }
+
+  public long getLeakCount() {
+    return leakCount.get();
+  }
+
+  /**
+   * Number of borrows by range of wait time, for example {@code "<= 5ms"}, in ascending order of wait time.
+   */
+  public Map<String, Long> getWaitTimeHistogram() {
+    Map<String, Long> histogram = new LinkedHashMap<>();
+    for (int i = 0; i < WAIT_TIME_BUCKETS_IN_MS.length; i++) {
+      histogram.put("<= " + WAIT_TIME_BUCKETS_IN_MS[i] + "ms", waitTimeHistogram.get(i));
+    }
+    histogram.put("> " + WAIT_TIME_BUCKETS_IN_MS[WAIT_TIME_BUCKETS_IN_MS.length - 1] + "ms", waitTimeHistogram.get(WAIT_TIME_BUCKETS_IN_MS.length));
+    return histogram;
+  }
+
+  /**
+   * Borrow count and cumulated hold time of the {@code limit} callers which held connections for the longest time.
+   */
+  public Map<String, String> getTopCallers(int limit) {
+    Map<String, String> result = new LinkedHashMap<>();
+    callers.entrySet().stream()
+      .sorted(Comparator.comparing((Map.Entry<String, CallerStatistics> e) -> e.getValue().holdTime.get()).reversed())
+      .limit(limit)
+      .forEach(e -> result.put(e.getKey(), format("%d borrows, %dms held", e.getValue().borrowCount.get(), e.getValue().holdTime.get())));
+    return result;
+  }
+
+  private static class CallerStatistics {
+    private final AtomicLong borrowCount = new AtomicLong(0);
+    private final AtomicLong holdTime = new AtomicLong(0);
+  }
+
+  private static class Borrow {
+    private final String caller;
+    private final long startTime;
+    @CheckForNull
+    private final Throwable stack;
+    private final AtomicBoolean reported = new AtomicBoolean(false);
+
+    private Borrow(String caller, long startTime, @Nullable Throwable stack) {
+      this.caller = caller;
+      this.startTime = startTime;
+      this.stack = stack;
+    }
+  }
+}
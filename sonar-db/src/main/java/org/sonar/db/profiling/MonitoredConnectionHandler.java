@@ -0,0 +1,48 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Notifies the release of the connection to the pool statistics when it's closed.
+ */
+class MonitoredConnectionHandler implements InvocationHandler {
+
+  private final Connection connection;
+  private final Runnable onRelease;
+  private final AtomicBoolean released = new AtomicBoolean(false);
+
+  MonitoredConnectionHandler(Connection connection, Runnable onRelease) {
+    this.connection = connection;
+    this.onRelease = onRelease;
+  }
+
+  @Override
+  public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+      onRelease.run();
+    }
+    return InvocationUtils.invokeQuietly(connection, method, args);
+  }
+}
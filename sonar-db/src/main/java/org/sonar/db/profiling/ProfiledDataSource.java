@@ -25,14 +25,18 @@ import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.util.Collection;
 import org.apache.commons.dbcp.BasicDataSource;
+import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 public class ProfiledDataSource extends BasicDataSource {
 
   static final Logger SQL_LOGGER = Loggers.get("sql");
 
   private final BasicDataSource delegate;
+  private final ConnectionPoolStatistics poolStatistics = new ConnectionPoolStatistics(System2.INSTANCE);
   private ConnectionInterceptor connectionInterceptor;
 
   public ProfiledDataSource(BasicDataSource delegate, ConnectionInterceptor connectionInterceptor) {
@@ -44,6 +48,10 @@ public class ProfiledDataSource extends BasicDataSource {
     return delegate;
   }
 
+  public ConnectionPoolStatistics getPoolStatistics() {
+    return poolStatistics;
+  }
+
   public synchronized void setConnectionInterceptor(ConnectionInterceptor ci) {
     this.connectionInterceptor = ci;
   }
@@ -320,7 +328,9 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return connectionInterceptor.getConnection(delegate);
+    long start = System.nanoTime();
+    Connection connection = connectionInterceptor.getConnection(delegate);
+    return poolStatistics.onBorrow(connection, NANOSECONDS.toMillis(System.nanoTime() - start));
   }
 
   @Override
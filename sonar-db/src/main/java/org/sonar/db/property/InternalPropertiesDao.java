@@ -23,6 +23,7 @@ import java.util.Optional;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.util.Uuids;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 
@@ -61,6 +62,25 @@ public class InternalPropertiesDao implements Dao {
     }
   }
 
+  /**
+   * Replaces the value of the property by a new unique value. Used as the version of data read by other processes,
+   * to be called in the transaction which changes these data.
+   * <p>The row is updated rather than deleted and inserted again, so that concurrent transactions wait for each other
+   * instead of failing on the unique key.</p>
+   *
+   * @see #selectByKey(DbSession, String)
+   */
+  public void saveNewVersion(DbSession dbSession, String key) {
+    checkKey(key);
+
+    InternalPropertiesMapper mapper = getMapper(dbSession);
+    String version = Uuids.create();
+    long now = system2.now();
+    if (mapper.updateAsText(key, version, now) == 0) {
+      mapper.insertAsText(key, version, now);
+    }
+  }
+
   private static boolean mustsBeStoredInClob(String value) {
     return value.length() > TEXT_VALUE_MAX_LENGTH;
   }
@@ -44,13 +44,16 @@ public class PropertiesDao implements Dao {
 
   private static final String NOTIFICATION_PREFIX = "notification.";
   private static final int VARCHAR_MAXSIZE = 4000;
+  static final String SETTINGS_VERSION_KEY = "settings.version";
 
   private final MyBatis mybatis;
   private final System2 system2;
+  private final InternalPropertiesDao internalPropertiesDao;
 
-  public PropertiesDao(MyBatis mybatis, System2 system2) {
+  public PropertiesDao(MyBatis mybatis, System2 system2, InternalPropertiesDao internalPropertiesDao) {
     this.mybatis = mybatis;
     this.system2 = system2;
+    this.internalPropertiesDao = internalPropertiesDao;
   }
 
   /**
@@ -119,6 +122,19 @@ public class PropertiesDao implements Dao {
     }
   }
 
+  /**
+   * Version of the global and component settings, whatever the user settings. A new version is generated in the
+   * same transaction as each write of global or component settings made through this DAO, including updates and
+   * renaming of keys. The version is an empty string as long as no setting has been written.
+   */
+  public String selectSettingsVersion(DbSession session) {
+    return internalPropertiesDao.selectByKey(session, SETTINGS_VERSION_KEY).orElse("");
+  }
+
+  public List<PropertyDto> selectComponentPropertiesByUuid(DbSession session, String componentUuid) {
+    return getMapper(session).selectComponentPropertiesByUuid(componentUuid);
+  }
+
   public List<PropertyDto> selectProjectProperties(DbSession session, String projectKey) {
     return getMapper(session).selectProjectProperties(projectKey);
   }
@@ -180,6 +196,9 @@ public class PropertiesDao implements Dao {
    */
   public void saveProperty(DbSession session, PropertyDto property) {
     save(getMapper(session), property.getKey(), property.getUserId(), property.getResourceId(), property.getValue());
+    if (property.getUserId() == null) {
+      newSettingsVersion(session);
+    }
   }
 
   private void save(PropertiesMapper mapper,
@@ -225,11 +244,19 @@ public class PropertiesDao implements Dao {
    * Used by Governance.
    */
   public int deleteByQuery(DbSession dbSession, PropertyQuery query) {
-    return getMapper(dbSession).deleteByQuery(query);
+    int deleted = getMapper(dbSession).deleteByQuery(query);
+    if (query.userId() == null) {
+      newSettingsVersion(dbSession);
+    }
+    return deleted;
   }
 
   public int delete(DbSession dbSession, PropertyDto dto) {
-    return getMapper(dbSession).delete(dto.getKey(), dto.getUserId(), dto.getResourceId());
+    int deleted = getMapper(dbSession).delete(dto.getKey(), dto.getUserId(), dto.getResourceId());
+    if (dto.getUserId() == null) {
+      newSettingsVersion(dbSession);
+    }
+    return deleted;
   }
 
   public void deleteProjectProperty(String key, Long projectId) {
@@ -241,10 +268,12 @@ public class PropertiesDao implements Dao {
 
   public void deleteProjectProperty(String key, Long projectId, DbSession session) {
     getMapper(session).deleteProjectProperty(key, projectId);
+    newSettingsVersion(session);
   }
 
   public void deleteProjectProperties(String key, String value, DbSession session) {
     getMapper(session).deleteProjectProperties(key, value);
+    newSettingsVersion(session);
   }
 
   public void deleteProjectProperties(String key, String value) {
@@ -256,6 +285,7 @@ public class PropertiesDao implements Dao {
 
   public void deleteGlobalProperty(String key, DbSession session) {
     getMapper(session).deleteGlobalProperty(key);
+    newSettingsVersion(session);
   }
 
   public void deleteGlobalProperty(String key) {
@@ -272,6 +302,7 @@ public class PropertiesDao implements Dao {
         mapper.deleteGlobalProperty(entry.getKey());
         save(mapper, entry.getKey(), null, null, entry.getValue());
       });
+      newSettingsVersion(session);
       session.commit();
     }
   }
@@ -283,11 +314,16 @@ public class PropertiesDao implements Dao {
     if (!newKey.equals(oldKey)) {
       try (DbSession session = mybatis.openSession(false)) {
         getMapper(session).renamePropertyKey(oldKey, newKey);
+        newSettingsVersion(session);
         session.commit();
       }
     }
   }
 
+  private void newSettingsVersion(DbSession session) {
+    internalPropertiesDao.saveNewVersion(session, SETTINGS_VERSION_KEY);
+  }
+
   private static PropertiesMapper getMapper(DbSession session) {
     return session.getMapper(PropertiesMapper.class);
   }
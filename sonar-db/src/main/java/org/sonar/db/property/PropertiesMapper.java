@@ -33,6 +33,8 @@ public interface PropertiesMapper {
 
   List<PropertyDto> selectProjectProperties(String resourceKey);
 
+  List<PropertyDto> selectComponentPropertiesByUuid(String componentUuid);
+
   PropertyDto selectByKey(PropertyDto key);
 
   List<PropertyDto> selectByKeys(@Param("keys") List<String> keys, @Nullable @Param("componentId") Long componentId);
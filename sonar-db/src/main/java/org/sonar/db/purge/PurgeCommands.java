@@ -32,6 +32,7 @@ class PurgeCommands {
 
   private static final int MAX_SNAPSHOTS_PER_QUERY = 1000;
   private static final int MAX_RESOURCES_PER_QUERY = 1000;
+  private static final int MAX_ANALYSES_PER_COMMIT = 100;
 
   private final SqlSession session;
   private final PurgeMapper purgeMapper;
@@ -145,51 +146,59 @@ class PurgeCommands {
     deleteAnalyses(snapshotIds);
   }
 
+  /**
+   * Analyses are deleted by chunks of {@link #MAX_ANALYSES_PER_COMMIT}, each chunk being committed, so that locks on
+   * the tables are released regularly and an interrupted deletion can be resumed.
+   */
   @VisibleForTesting
   protected void deleteAnalyses(List<IdUuidPair> analysisIdUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), MAX_SNAPSHOTS_PER_QUERY);
-
-    deleteAnalysisDuplications(analysisUuidsPartitions);
-
-    profiler.start("deleteAnalyses (events)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisEvents);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteAnalyses (project_measures)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisMeasures);
-    session.commit();
-    profiler.stop();
-
-    profiler.start("deleteAnalyses (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::deleteAnalyses);
-    session.commit();
-    profiler.stop();
+    for (List<String> analysisUuids : Lists.partition(IdUuidPairs.uuids(analysisIdUuids), MAX_ANALYSES_PER_COMMIT)) {
+      profiler.start("deleteAnalysisDuplications (duplications_index)");
+      purgeMapper.deleteAnalysisDuplications(analysisUuids);
+      profiler.stop();
+
+      profiler.start("deleteAnalyses (events)");
+      purgeMapper.deleteAnalysisEvents(analysisUuids);
+      profiler.stop();
+
+      profiler.start("deleteAnalyses (project_measures)");
+      purgeMapper.deleteAnalysisMeasures(analysisUuids);
+      profiler.stop();
+
+      profiler.start("deleteAnalyses (snapshots)");
+      purgeMapper.deleteAnalyses(analysisUuids);
+      session.commit();
+      profiler.stop();
+    }
   }
 
-  public void purgeAnalyses(List<IdUuidPair> analysisUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), MAX_SNAPSHOTS_PER_QUERY);
-
-    deleteAnalysisDuplications(analysisUuidsPartitions);
-
-    profiler.start("deleteSnapshotWastedMeasures (project_measures)");
+  /**
+   * Analyses are purged by chunks of {@link #MAX_ANALYSES_PER_COMMIT}. The purge status of an analysis is updated in
+   * the same transaction as the deletion of its data, so that an interrupted purge resumes on the analyses which are
+   * not purged yet.
+   *
+   * @return the number of purged analyses
+   */
+  public int purgeAnalyses(List<IdUuidPair> analysisUuids) {
+    if (analysisUuids.isEmpty()) {
+      return 0;
+    }
     List<Long> metricIdsWithoutHistoricalData = purgeMapper.selectMetricIdsWithoutHistoricalData();
-    analysisUuidsPartitions.stream()
-        .forEach(analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
-    session.commit();
-    profiler.stop();
-
-    profiler.start("updatePurgeStatusToOne (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
-    session.commit();
-    profiler.stop();
-  }
-
-  private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
-    profiler.start("deleteAnalysisDuplications (duplications_index)");
-    snapshotUuidsPartitions.forEach(purgeMapper::deleteAnalysisDuplications);
-    session.commit();
-    profiler.stop();
+    for (List<String> analysisUuidsChunk : Lists.partition(IdUuidPairs.uuids(analysisUuids), MAX_ANALYSES_PER_COMMIT)) {
+      profiler.start("deleteAnalysisDuplications (duplications_index)");
+      purgeMapper.deleteAnalysisDuplications(analysisUuidsChunk);
+      profiler.stop();
+
+      profiler.start("deleteSnapshotWastedMeasures (project_measures)");
+      purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsChunk, metricIdsWithoutHistoricalData);
+      profiler.stop();
+
+      profiler.start("updatePurgeStatusToOne (snapshots)");
+      purgeMapper.updatePurgeStatusToOne(analysisUuidsChunk);
+      session.commit();
+      profiler.stop();
+    }
+    return analysisUuids.size();
   }
 
   public void deleteFileSources(String rootUuid) {
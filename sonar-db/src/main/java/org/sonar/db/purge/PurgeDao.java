@@ -46,6 +46,7 @@ import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 public class PurgeDao implements Dao {
   private static final Logger LOG = Loggers.get(PurgeDao.class);
   private static final String[] UNPROCESSED_STATUS = new String[] {"U"};
+  private static final String[] PROCESSED_STATUS = new String[] {"P"};
 
   private final ComponentDao componentDao;
   private final System2 system2;
@@ -56,23 +57,59 @@ public class PurgeDao implements Dao {
   }
 
   public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
-    PurgeMapper mapper = session.getMapper(PurgeMapper.class);
+    purgeAnalysisLeftovers(session, conf, listener, profiler);
+    purgeHistory(session, conf, listener, profiler);
+  }
+
+  /**
+   * Deletes the aborted analyses of the root component and the data of its disabled components. This part of the purge
+   * is cheap and must be executed at the end of each analysis, as the disabled components are known only at that time.
+   */
+  public void purgeAnalysisLeftovers(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    PurgeCommands commands = new PurgeCommands(session, mapper(session), profiler);
+    deleteAbortedAnalyses(conf.rootProjectIdUuid().getUuid(), commands);
+    purgeDisabledComponents(session, conf.getDisabledComponentUuids(), listener);
+  }
+
+  /**
+   * Purges the processed analyses of the root component which are not purged yet, and deletes its old closed issues.
+   * Data is deleted and committed by chunks of analyses, so this method can be interrupted and executed again later.
+   *
+   * @return the number of purged analyses
+   */
+  public int purgeHistory(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
+    PurgeMapper mapper = mapper(session);
     PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
-    deleteAbortedAnalyses(rootUuid, commands);
     deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
-    purgeAnalyses(commands, rootUuid);
-    purgeDisabledComponents(session, conf.getDisabledComponentUuids(), listener);
+    int purgedAnalyses = purgeAnalyses(commands, rootUuid);
     deleteOldClosedIssues(conf, mapper, listener);
+    return purgedAnalyses;
   }
 
-  private static void purgeAnalyses(PurgeCommands commands, String rootUuid) {
-    List<IdUuidPair> analysisUuids = commands.selectSnapshotIdUuids(
-      new PurgeSnapshotQuery()
-        .setComponentUuid(rootUuid)
-        .setIslast(false)
-        .setNotPurged(true));
-    commands.purgeAnalyses(analysisUuids);
+  /**
+   * Returns the uuids of the root components which have analyses waiting to be purged by {@link #purgeHistory}.
+   */
+  public List<String> selectRootUuidsToPurge(DbSession session) {
+    return mapper(session).selectRootUuidsToPurge();
+  }
+
+  public int countAnalysesToPurge(DbSession session) {
+    return mapper(session).countAnalysesToPurge();
+  }
+
+  private static int purgeAnalyses(PurgeCommands commands, String rootUuid) {
+    List<IdUuidPair> analysisUuids = commands.selectSnapshotIdUuids(newNotPurgedAnalysesQuery(rootUuid));
+    return commands.purgeAnalyses(analysisUuids);
+  }
+
+  private static PurgeSnapshotQuery newNotPurgedAnalysesQuery(String rootUuid) {
+    // analyses being processed are excluded, their data may still be written
+    return new PurgeSnapshotQuery()
+      .setComponentUuid(rootUuid)
+      .setIslast(false)
+      .setStatus(PROCESSED_STATUS)
+      .setNotPurged(true);
   }
 
   private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
@@ -104,11 +141,7 @@ public class PurgeDao implements Dao {
       return;
     }
 
-    List<String> analysisUuids = purgeCommands.selectSnapshotUuids(
-      new PurgeSnapshotQuery()
-        .setComponentUuid(rootUuid)
-        .setIslast(false)
-        .setNotPurged(true));
+    List<String> analysisUuids = purgeCommands.selectSnapshotUuids(newNotPurgedAnalysesQuery(rootUuid));
     List<String> componentWithoutHistoricalDataUuids = componentDao
       .selectDescendants(
         dbSession,
@@ -27,6 +27,13 @@ public interface PurgeMapper {
 
   List<IdUuidPair> selectAnalysisIdsAndUuids(PurgeSnapshotQuery query);
 
+  /**
+   * Returns the uuids of the root components which have processed analyses not purged yet.
+   */
+  List<String> selectRootUuidsToPurge();
+
+  int countAnalysesToPurge();
+
   /**
    * Returns the list of components of a project from a project_uuid. The project itself is also returned.
    */
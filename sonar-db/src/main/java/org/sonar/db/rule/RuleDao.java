@@ -79,6 +79,15 @@ public class RuleDao implements Dao {
     return mapper(session).selectAll();
   }
 
+  /**
+   * Most recent date of creation or update of a rule, whatever its status, or 0 if there are no rules. It
+   * can be used as version of the whole table as rules are never deleted.
+   */
+  public long selectMaxUpdatedAt(DbSession session) {
+    Long maxUpdatedAt = mapper(session).selectMaxUpdatedAt();
+    return maxUpdatedAt == null ? 0L : maxUpdatedAt;
+  }
+
   public List<RuleDto> selectByQuery(DbSession session, RuleQuery ruleQuery) {
     return mapper(session).selectByQuery(ruleQuery);
   }
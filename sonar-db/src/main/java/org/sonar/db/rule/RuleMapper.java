@@ -20,6 +20,7 @@
 package org.sonar.db.rule;
 
 import java.util.List;
+import javax.annotation.CheckForNull;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.session.ResultHandler;
 import org.sonar.api.rule.RuleKey;
@@ -31,6 +32,9 @@ public interface RuleMapper {
 
   List<RuleDto> selectAll(ResultHandler resultHandler);
 
+  @CheckForNull
+  Long selectMaxUpdatedAt();
+
   List<RuleDto> selectEnabled();
 
   void selectEnabled(ResultHandler resultHandler);
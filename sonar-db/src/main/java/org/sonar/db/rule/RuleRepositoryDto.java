@@ -19,12 +19,16 @@
  */
 package org.sonar.db.rule;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 public class RuleRepositoryDto {
 
   // do not rename "key" as MyBatis maps it with the db column "kee"
   private String kee;
   private String language;
   private String name;
+  private String definitionHash;
 
   public RuleRepositoryDto() {
     // used by MyBatis
@@ -48,6 +52,15 @@ public class RuleRepositoryDto {
     return name;
   }
 
+  /**
+   * Hash of the rules declared by the repository and its extensions when they were last registered,
+   * null if unknown.
+   */
+  @CheckForNull
+  public String getDefinitionHash() {
+    return definitionHash;
+  }
+
   public RuleRepositoryDto setKey(String s) {
     this.kee = s;
     return this;
@@ -62,4 +75,9 @@ public class RuleRepositoryDto {
     this.name = s;
     return this;
   }
+
+  public RuleRepositoryDto setDefinitionHash(@Nullable String s) {
+    this.definitionHash = s;
+    return this;
+  }
 }
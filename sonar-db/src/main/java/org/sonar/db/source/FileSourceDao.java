@@ -31,6 +31,7 @@ import java.util.function.Function;
 import javax.annotation.CheckForNull;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.ibatis.session.ResultHandler;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
@@ -50,6 +51,15 @@ public class FileSourceDao implements Dao {
     return mapper(session).select(fileUuid, Type.SOURCE);
   }
 
+  /**
+   * Same as {@link #selectSourceByFileUuid(DbSession, String)} but columns BINARY_DATA and LINE_HASHES
+   * are not loaded, so that only {@link FileSourceDto#getLineSourceData()} is available.
+   */
+  @CheckForNull
+  public FileSourceDto selectLineDataByFileUuid(DbSession session, String fileUuid) {
+    return mapper(session).selectLineData(fileUuid, Type.SOURCE);
+  }
+
   @CheckForNull
   public FileSourceDto selectTest(String fileUuid) {
     DbSession session = mybatis.openSession(false);
@@ -109,6 +119,15 @@ public class FileSourceDao implements Dao {
     }
   }
 
+  /**
+   * Streams the line hashes of the source files of a project that have at least one non-closed issue,
+   * ordered by file uuid. Only {@link FileSourceDto#getFileUuid()} and {@link FileSourceDto#getLineHashes()}
+   * are loaded.
+   */
+  public void scrollLineHashesOfFilesWithOpenIssues(DbSession dbSession, String projectUuid, ResultHandler handler) {
+    mapper(dbSession).selectLineHashesOfFilesWithOpenIssues(projectUuid, Type.SOURCE, handler);
+  }
+
   public void insert(FileSourceDto dto) {
     DbSession session = mybatis.openSession(false);
     try {
@@ -137,6 +156,14 @@ public class FileSourceDao implements Dao {
     mapper(session).update(dto);
   }
 
+  /**
+   * Same as {@link #update(DbSession, FileSourceDto)} but column BINARY_DATA and LINE_HASHES are not
+   * written. To be used when the text of the file did not change.
+   */
+  public void updateLineData(DbSession session, FileSourceDto dto) {
+    mapper(session).updateLineData(dto);
+  }
+
   private static FileSourceMapper mapper(DbSession session) {
     return session.getMapper(FileSourceMapper.class);
   }
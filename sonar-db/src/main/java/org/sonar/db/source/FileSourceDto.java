@@ -21,12 +21,21 @@ package org.sonar.db.source;
 
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import net.jpountz.lz4.LZ4BlockInputStream;
@@ -38,6 +47,7 @@ import static java.lang.String.format;
 
 public class FileSourceDto {
 
+  private static final byte[] DICTIONARY_MAGIC = {'S', 'Q', 'D', 'Z'};
   private static final String SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE = "Protocol message was too large.  May be malicious.  " +
     "Use CodedInputStream.setSizeLimit() to increase the size limit.";
 
@@ -49,8 +59,10 @@ public class FileSourceDto {
   private String lineHashes;
   private String srcHash;
   private byte[] binaryData;
+  private byte[] lineData;
   private String dataType;
   private String dataHash;
+  private String textHash;
   private String revision;
 
   public Long getId() {
@@ -86,16 +98,37 @@ public class FileSourceDto {
   }
 
   /**
-   * MD5 of column BINARY_DATA. Used to know to detect data changes and need for update.
+   * MD5 of columns BINARY_DATA and LINE_DATA. Used to know to detect data changes and need for update.
    */
   public FileSourceDto setDataHash(String s) {
     this.dataHash = s;
     return this;
   }
 
+  @CheckForNull
+  public String getTextHash() {
+    return textHash;
+  }
+
+  /**
+   * MD5 of column BINARY_DATA when LINE_DATA is set. Used to detect whether BINARY_DATA must be rewritten
+   * or if updating LINE_DATA is enough.
+   */
+  public FileSourceDto setTextHash(@Nullable String s) {
+    this.textHash = s;
+    return this;
+  }
+
   public DbFileSources.Data decodeSourceData(byte[] binaryData) {
+    return decodeSourceData(binaryData, null);
+  }
+
+  /**
+   * Same as {@link #decodeSourceData(byte[])} but supports data encoded with a {@link SourceDictionary}.
+   */
+  public DbFileSources.Data decodeSourceData(byte[] binaryData, @Nullable SourceDictionaries dictionaries) {
     try {
-      return decodeRegularSourceData(binaryData);
+      return decodeRegularSourceData(binaryData, dictionaries);
     } catch (IOException e) {
       throw new IllegalStateException(
         format("Fail to decompress and deserialize source data [id=%s,fileUuid=%s,projectUuid=%s]", id, fileUuid, projectUuid),
@@ -103,20 +136,20 @@ public class FileSourceDto {
     }
   }
 
-  private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
-    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
-      return DbFileSources.Data.parseFrom(lz4Input);
+  private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData, @Nullable SourceDictionaries dictionaries) throws IOException {
+    try (InputStream input = decompress(new ByteArrayInputStream(binaryData), dictionaries)) {
+      return DbFileSources.Data.parseFrom(input);
     } catch (InvalidProtocolBufferException e) {
       if (SIZE_LIMIT_EXCEEDED_EXCEPTION_MESSAGE.equals(e.getMessage())) {
-        return decodeHugeSourceData(binaryData);
+        return decodeHugeSourceData(binaryData, dictionaries);
       }
       throw e;
     }
   }
 
-  private static DbFileSources.Data decodeHugeSourceData(byte[] binaryData) throws IOException {
-    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
-      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+  private static DbFileSources.Data decodeHugeSourceData(byte[] binaryData, @Nullable SourceDictionaries dictionaries) throws IOException {
+    try (InputStream decompressedInput = decompress(new ByteArrayInputStream(binaryData), dictionaries)) {
+      CodedInputStream input = CodedInputStream.newInstance(decompressedInput);
       input.setSizeLimit(Integer.MAX_VALUE);
       return DbFileSources.Data.parseFrom(input);
     }
@@ -127,9 +160,18 @@ public class FileSourceDto {
    * in the column BINARY_DATA.
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
+    return encodeSourceData(data, null);
+  }
+
+  /**
+   * Same as {@link #encodeSourceData(DbFileSources.Data)} but data is deflated with the given dictionary
+   * instead of being compressed with LZ4 when {@code dictionary} is not {@code null}.
+   */
+  public static byte[] encodeSourceData(DbFileSources.Data data, @Nullable SourceDictionary dictionary) {
     ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
-    LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
+    OutputStream compressedOutput = null;
     try {
+      compressedOutput = compress(byteOutput, dictionary);
       data.writeTo(compressedOutput);
       compressedOutput.close();
       return byteOutput.toByteArray();
@@ -141,8 +183,12 @@ public class FileSourceDto {
   }
 
   public static List<DbFileSources.Test> decodeTestData(byte[] binaryData) {
+    return decodeTestData(binaryData, null);
+  }
+
+  public static List<DbFileSources.Test> decodeTestData(byte[] binaryData, @Nullable SourceDictionaries dictionaries) {
     // stream is always closed
-    return decodeTestData(new ByteArrayInputStream(binaryData));
+    return decodeTestData(new ByteArrayInputStream(binaryData), dictionaries);
   }
 
   /**
@@ -150,14 +196,21 @@ public class FileSourceDto {
    * The parameter "input" is always closed by this method.
    */
   public static List<DbFileSources.Test> decodeTestData(InputStream binaryInput) {
-    LZ4BlockInputStream lz4Input = null;
+    return decodeTestData(binaryInput, null);
+  }
+
+  /**
+   * Same as {@link #decodeTestData(InputStream)} but supports data encoded with a {@link SourceDictionary}.
+   */
+  public static List<DbFileSources.Test> decodeTestData(InputStream binaryInput, @Nullable SourceDictionaries dictionaries) {
+    InputStream decompressedInput = null;
     List<DbFileSources.Test> tests = new ArrayList<>();
     try {
-      lz4Input = new LZ4BlockInputStream(binaryInput);
+      decompressedInput = decompress(binaryInput, dictionaries);
 
       DbFileSources.Test currentTest;
       do {
-        currentTest = DbFileSources.Test.parseDelimitedFrom(lz4Input);
+        currentTest = DbFileSources.Test.parseDelimitedFrom(decompressedInput);
         if (currentTest != null) {
           tests.add(currentTest);
         }
@@ -166,7 +219,8 @@ public class FileSourceDto {
     } catch (IOException e) {
       throw new IllegalStateException("Fail to decompress and deserialize source data", e);
     } finally {
-      IOUtils.closeQuietly(lz4Input);
+      IOUtils.closeQuietly(decompressedInput);
+      IOUtils.closeQuietly(binaryInput);
     }
   }
 
@@ -175,9 +229,14 @@ public class FileSourceDto {
    * in the column BINARY_DATA.
    */
   public static byte[] encodeTestData(List<DbFileSources.Test> tests) {
+    return encodeTestData(tests, null);
+  }
+
+  public static byte[] encodeTestData(List<DbFileSources.Test> tests, @Nullable SourceDictionary dictionary) {
     ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
-    LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
+    OutputStream compressedOutput = null;
     try {
+      compressedOutput = compress(byteOutput, dictionary);
       for (DbFileSources.Test test : tests) {
         test.writeDelimitedTo(compressedOutput);
       }
@@ -190,6 +249,59 @@ public class FileSourceDto {
     }
   }
 
+  /**
+   * Data encoded with a dictionary starts with {@link #DICTIONARY_MAGIC} and the key of the dictionary, followed by
+   * the raw deflate stream. Other data is a LZ4 block stream, which never starts with {@link #DICTIONARY_MAGIC}.
+   */
+  private static OutputStream compress(OutputStream output, @Nullable SourceDictionary dictionary) throws IOException {
+    if (dictionary == null) {
+      return new LZ4BlockOutputStream(output);
+    }
+    DataOutputStream header = new DataOutputStream(output);
+    header.write(DICTIONARY_MAGIC);
+    header.writeUTF(dictionary.getKey());
+    header.flush();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setDictionary(dictionary.bytes());
+    return new DeflaterOutputStream(output, deflater) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          def.end();
+        }
+      }
+    };
+  }
+
+  private static InputStream decompress(InputStream input, @Nullable SourceDictionaries dictionaries) throws IOException {
+    InputStream bufferedInput = input.markSupported() ? input : new BufferedInputStream(input);
+    bufferedInput.mark(DICTIONARY_MAGIC.length);
+    byte[] magic = new byte[DICTIONARY_MAGIC.length];
+    if (IOUtils.read(bufferedInput, magic) != magic.length || !Arrays.equals(magic, DICTIONARY_MAGIC)) {
+      bufferedInput.reset();
+      return new LZ4BlockInputStream(bufferedInput);
+    }
+    String dictionaryKey = new DataInputStream(bufferedInput).readUTF();
+    SourceDictionary dictionary = dictionaries == null ? null : dictionaries.get(dictionaryKey);
+    if (dictionary == null) {
+      throw new IllegalStateException(format("Dictionary %s is required to decompress source data", dictionaryKey));
+    }
+    Inflater inflater = new Inflater(true);
+    inflater.setDictionary(dictionary.bytes());
+    return new InflaterInputStream(bufferedInput, inflater) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inf.end();
+        }
+      }
+    };
+  }
+
   /**
    * Compressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    */
@@ -206,18 +318,93 @@ public class FileSourceDto {
   }
 
   /**
-   * Compressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
+   * Compressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data} holding
+   * only the fields which change between analyses of an unchanged file (SCM, coverage and duplications).
+   * When {@code null}, column BINARY_DATA holds the whole data (rows inserted before 6.3).
+   */
+  @CheckForNull
+  public byte[] getLineData() {
+    return lineData;
+  }
+
+  public FileSourceDto setLineData(@Nullable byte[] lineData) {
+    this.lineData = lineData;
+    return this;
+  }
+
+  /**
+   * Decompressed and deserialized value of columns BINARY_DATA and LINE_DATA
    */
   public DbFileSources.Data getSourceData() {
-    return decodeSourceData(binaryData);
+    return getSourceData(null);
+  }
+
+  /**
+   * Same as {@link #getSourceData()} but supports column BINARY_DATA encoded with a {@link SourceDictionary}.
+   */
+  public DbFileSources.Data getSourceData(@Nullable SourceDictionaries dictionaries) {
+    DbFileSources.Data text = decodeSourceData(binaryData, dictionaries);
+    if (lineData == null) {
+      return text;
+    }
+    return mergeSourceData(text, decodeSourceData(lineData));
+  }
+
+  /**
+   * Decompressed and deserialized value of column LINE_DATA, which does not contain the text of lines, or
+   * {@code null} if the column is not set (rows inserted before 6.3).
+   */
+  @CheckForNull
+  public DbFileSources.Data getLineSourceData() {
+    if (lineData == null) {
+      return null;
+    }
+    return decodeSourceData(lineData);
   }
 
   public FileSourceDto setSourceData(DbFileSources.Data data) {
+    return setSourceData(data, null);
+  }
+
+  /**
+   * Text of lines (source, highlighting and symbols) is stored in column BINARY_DATA while other
+   * fields are stored in column LINE_DATA, so that BINARY_DATA does not have to be rewritten when
+   * the file did not change. The dictionary, if any, is used to compress only the text.
+   */
+  public FileSourceDto setSourceData(DbFileSources.Data data, @Nullable SourceDictionary dictionary) {
     this.dataType = Type.SOURCE;
-    this.binaryData = encodeSourceData(data);
+    DbFileSources.Data.Builder text = DbFileSources.Data.newBuilder();
+    DbFileSources.Data.Builder lines = DbFileSources.Data.newBuilder();
+    for (DbFileSources.Line line : data.getLinesList()) {
+      DbFileSources.Line.Builder textLine = text.addLinesBuilder().setLine(line.getLine());
+      if (line.hasSource()) {
+        textLine.setSource(line.getSource());
+      }
+      if (line.hasHighlighting()) {
+        textLine.setHighlighting(line.getHighlighting());
+      }
+      if (line.hasSymbols()) {
+        textLine.setSymbols(line.getSymbols());
+      }
+      lines.addLines(line.toBuilder().clearLine().clearSource().clearHighlighting().clearSymbols());
+    }
+    this.binaryData = encodeSourceData(text.build(), dictionary);
+    this.lineData = encodeSourceData(lines.build());
     return this;
   }
 
+  private static DbFileSources.Data mergeSourceData(DbFileSources.Data text, DbFileSources.Data lines) {
+    DbFileSources.Data.Builder result = DbFileSources.Data.newBuilder();
+    int lineCount = lines.getLinesCount();
+    for (int i = 0; i < text.getLinesCount(); i++) {
+      DbFileSources.Line.Builder line = result.addLinesBuilder().mergeFrom(text.getLines(i));
+      if (i < lineCount) {
+        line.mergeFrom(lines.getLines(i));
+      }
+    }
+    return result.build();
+  }
+
   /**
    * Compressed value of serialized protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
    */
@@ -225,9 +412,18 @@ public class FileSourceDto {
     return decodeTestData(binaryData);
   }
 
+  public List<DbFileSources.Test> getTestData(@Nullable SourceDictionaries dictionaries) {
+    return decodeTestData(binaryData, dictionaries);
+  }
+
   public FileSourceDto setTestData(List<DbFileSources.Test> data) {
+    return setTestData(data, null);
+  }
+
+  public FileSourceDto setTestData(List<DbFileSources.Test> data, @Nullable SourceDictionary dictionary) {
     this.dataType = Type.TEST;
-    this.binaryData = encodeTestData(data);
+    this.binaryData = encodeTestData(data, dictionary);
+    this.lineData = null;
     return this;
   }
 
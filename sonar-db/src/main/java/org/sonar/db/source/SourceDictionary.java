@@ -0,0 +1,131 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.concurrent.Immutable;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Preset dictionary used to deflate the serialized data of sources of a given language. Small files compress
+ * poorly when the compressor starts with an empty history, so the most frequent lines of a sample of files
+ * are given to the compressor before the data itself.
+ * <p>
+ * A dictionary is identified by the language and by a hash of its content, so a dictionary never changes
+ * once it has been used to encode data.
+ * </p>
+ */
+@Immutable
+public class SourceDictionary {
+
+  /**
+   * Deflate can not look back further than 32KB, bytes beyond that limit would be useless.
+   */
+  public static final int MAX_SIZE = 32 * 1024;
+  private static final int MIN_LINE_LENGTH = 8;
+  private static final int MIN_OCCURRENCES = 2;
+
+  private final String language;
+  private final String key;
+  private final byte[] bytes;
+
+  public SourceDictionary(String language, byte[] bytes) {
+    checkArgument(bytes.length > 0 && bytes.length <= MAX_SIZE, "Size of dictionary must be between 1 and %s bytes", MAX_SIZE);
+    this.language = requireNonNull(language, "language can't be null");
+    this.bytes = Arrays.copyOf(bytes, bytes.length);
+    this.key = language + "." + DigestUtils.md5Hex(bytes).substring(0, 8);
+  }
+
+  public String getLanguage() {
+    return language;
+  }
+
+  /**
+   * Unique identifier of the dictionary, written in the header of the data encoded with it.
+   */
+  public String getKey() {
+    return key;
+  }
+
+  public byte[] getBytes() {
+    return Arrays.copyOf(bytes, bytes.length);
+  }
+
+  byte[] bytes() {
+    return bytes;
+  }
+
+  /**
+   * Builds a dictionary from the lines which are repeated the most in the given sample, by total size.
+   * As deflate encodes nearest matches with fewer bits, the most valuable lines are put at the end
+   * of the dictionary.
+   *
+   * @return {@code null} if the sample has no repeated line
+   */
+  @CheckForNull
+  public static SourceDictionary train(String language, Iterable<String> sampleLines) {
+    Map<String, Integer> occurrences = new HashMap<>();
+    for (String line : sampleLines) {
+      String trimmed = line.trim();
+      if (trimmed.length() >= MIN_LINE_LENGTH) {
+        occurrences.merge(trimmed, 1, Integer::sum);
+      }
+    }
+    List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+    for (Map.Entry<String, Integer> entry : occurrences.entrySet()) {
+      if (entry.getValue() >= MIN_OCCURRENCES) {
+        candidates.add(entry);
+      }
+    }
+    candidates.sort(Comparator.<Map.Entry<String, Integer>>comparingLong(e -> (long) e.getValue() * e.getKey().length())
+      .reversed()
+      .thenComparing(Map.Entry::getKey));
+
+    List<byte[]> selected = new ArrayList<>();
+    int size = 0;
+    for (Map.Entry<String, Integer> candidate : candidates) {
+      byte[] line = (candidate.getKey() + "\n").getBytes(UTF_8);
+      if (size + line.length <= MAX_SIZE) {
+        selected.add(line);
+        size += line.length;
+      }
+    }
+    if (selected.isEmpty()) {
+      return null;
+    }
+    ByteArrayOutputStream output = new ByteArrayOutputStream(size);
+    for (int i = selected.size() - 1; i >= 0; i--) {
+      byte[] line = selected.get(i);
+      output.write(line, 0, line.length);
+    }
+    return new SourceDictionary(language, output.toByteArray());
+  }
+}
@@ -25,6 +25,7 @@ import org.junit.Test;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
 import org.sonar.db.dialect.PostgreSql;
+import org.sonar.db.profiling.ProfiledDataSource;
 import org.sonar.process.logging.LogbackHelper;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -92,6 +93,21 @@ public class DefaultDatabaseTest {
     assertThat(((BasicDataSource) db.getDataSource()).getMaxActive()).isEqualTo(1);
   }
 
+  @Test
+  public void configure_leak_detection_of_pool() {
+    Settings settings = new MapSettings();
+    settings.setProperty("sonar.jdbc.url", "jdbc:h2:mem:sonar");
+    settings.setProperty("sonar.jdbc.driverClassName", "org.h2.Driver");
+    settings.setProperty("sonar.jdbc.leakDetectionThresholdMillis", "60000");
+
+    DefaultDatabase db = new DefaultDatabase(logbackHelper, settings);
+    db.start();
+    db.stop();
+
+    assertThat(((ProfiledDataSource) db.getDataSource()).getPoolStatistics().getLeakDetectionThreshold()).isEqualTo(60000L);
+    assertThat(((ProfiledDataSource) db.getDataSource()).getPoolStatistics().getBorrowCount()).isEqualTo(1L);
+  }
+
   @Test
   public void shouldGuessDialectFromUrl() {
     Settings settings = new MapSettings();
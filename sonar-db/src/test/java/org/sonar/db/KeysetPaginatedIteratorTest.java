@@ -0,0 +1,147 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import com.google.common.collect.ImmutableList;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class KeysetPaginatedIteratorTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.createForSchema(System2.INSTANCE, KeysetPaginatedIteratorTest.class, "schema.sql");
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void iterate_over_pages() {
+    dbTester.prepareDbUnit(getClass(), "feed.xml");
+
+    KeeIterator underTest = new KeeIterator(2, null);
+
+    assertThat(ImmutableList.copyOf(underTest)).containsExactly("AB", "CD", "EF", "GH", "IJ");
+    assertThat(underTest.getLastKey()).isEqualTo("IJ");
+    assertThat(underTest.hasNext()).isFalse();
+  }
+
+  @Test
+  public void iterate_when_number_of_rows_is_a_multiple_of_page_size() {
+    dbTester.prepareDbUnit(getClass(), "feed.xml");
+
+    assertThat(ImmutableList.copyOf(new KeeIterator(5, null))).containsExactly("AB", "CD", "EF", "GH", "IJ");
+    assertThat(ImmutableList.copyOf(new KeeIterator(1, null))).containsExactly("AB", "CD", "EF", "GH", "IJ");
+  }
+
+  @Test
+  public void restart_after_last_key() {
+    dbTester.prepareDbUnit(getClass(), "feed.xml");
+
+    KeeIterator first = new KeeIterator(2, null);
+    assertThat(first.next()).isEqualTo("AB");
+    assertThat(first.next()).isEqualTo("CD");
+    assertThat(first.next()).isEqualTo("EF");
+    first.close();
+    assertThat(first.hasNext()).isFalse();
+
+    KeeIterator second = new KeeIterator(2, first.getLastKey());
+    assertThat(second.getLastKey()).isEqualTo("EF");
+    assertThat(ImmutableList.copyOf(second)).containsExactly("GH", "IJ");
+  }
+
+  @Test
+  public void iterate_empty_table() {
+    KeeIterator underTest = new KeeIterator(2, null);
+
+    assertThat(underTest.hasNext()).isFalse();
+    assertThat(underTest.getLastKey()).isNull();
+
+    expectedException.expect(NoSuchElementException.class);
+    underTest.next();
+  }
+
+  @Test
+  public void remove_row_is_not_supported() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    new KeeIterator(2, null).remove();
+  }
+
+  @Test
+  public void fail_if_page_size_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Page size must be strictly positive: 0");
+
+    new KeeIterator(0, null);
+  }
+
+  @Test
+  public void fail_to_read_row() {
+    dbTester.prepareDbUnit(getClass(), "feed.xml");
+    KeeIterator underTest = new KeeIterator(2, null) {
+      @Override
+      protected String read(ResultSet rs) throws SQLException {
+        // column does not exist
+        return rs.getString(1234);
+      }
+    };
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to load page of rows after key null");
+
+    underTest.hasNext();
+  }
+
+  private class KeeIterator extends KeysetPaginatedIterator<String> {
+
+    KeeIterator(int pageSize, @Nullable String startAfterKey) {
+      super(dbTester.database(), pageSize, startAfterKey);
+    }
+
+    @Override
+    protected PreparedStatement prepareStatement(Connection connection, @Nullable String afterKey) throws SQLException {
+      if (afterKey == null) {
+        return connection.prepareStatement("select kee from issues order by kee");
+      }
+      PreparedStatement stmt = connection.prepareStatement("select kee from issues where kee>? order by kee");
+      stmt.setString(1, afterKey);
+      return stmt;
+    }
+
+    @Override
+    protected String readKey(ResultSet rs) throws SQLException {
+      return rs.getString(1);
+    }
+
+    @Override
+    protected String read(ResultSet rs) throws SQLException {
+      return rs.getString(1);
+    }
+  }
+}
@@ -56,4 +56,9 @@ public class H2Test {
   public void h2_does_not_supportMigration() {
     assertThat(dialect.supportsMigration()).isFalse();
   }
+
+  @Test
+  public void getBatchSize() {
+    assertThat(dialect.getBatchSize()).isEqualTo(250);
+  }
 }
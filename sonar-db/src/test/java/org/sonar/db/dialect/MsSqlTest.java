@@ -59,4 +59,9 @@ public class MsSqlTest {
   public void msSql_does_supportMigration() {
     assertThat(msSql.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void getBatchSize() {
+    assertThat(msSql.getBatchSize()).isEqualTo(250);
+  }
 }
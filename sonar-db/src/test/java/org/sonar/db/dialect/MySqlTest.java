@@ -60,4 +60,9 @@ public class MySqlTest {
   public void mysql_does_supportMigration() {
     assertThat(mySql.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void getBatchSize() {
+    assertThat(mySql.getBatchSize()).isEqualTo(250);
+  }
 }
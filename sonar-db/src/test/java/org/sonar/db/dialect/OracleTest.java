@@ -57,4 +57,9 @@ public class OracleTest {
   public void oracle_does_supportMigration() {
     assertThat(underTest.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void getBatchSize() {
+    assertThat(underTest.getBatchSize()).isEqualTo(1000);
+  }
 }
@@ -61,4 +61,9 @@ public class PostgreSqlTest {
   public void postgres_does_supportMigration() {
     assertThat(dialect.supportsMigration()).isTrue();
   }
+
+  @Test
+  public void getBatchSize() {
+    assertThat(dialect.getBatchSize()).isEqualTo(1000);
+  }
 }
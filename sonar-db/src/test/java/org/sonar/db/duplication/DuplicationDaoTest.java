@@ -25,6 +25,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.Collections.singletonList;
@@ -61,6 +62,19 @@ public class DuplicationDaoTest {
     assertThat(blocks).hasSize(2);
   }
 
+  @Test
+  public void count_and_scroll_hashes_of_last_analyses() {
+    db.prepareDbUnit(getClass(), "select_candidates.xml");
+    dbSession.commit();
+
+    assertThat(dao.countHashes(dbSession, "java")).isEqualTo(2);
+    assertThat(dao.countHashes(dbSession, "grvy")).isEqualTo(0);
+
+    List<String> hashes = new ArrayList<>();
+    dao.scrollHashes(dbSession, "java", context -> hashes.add((String) context.getResultObject()));
+    assertThat(hashes).containsExactly("aa", "aa");
+  }
+
   @Test
   public void insert() {
     db.prepareDbUnit(getClass(), "insert.xml");
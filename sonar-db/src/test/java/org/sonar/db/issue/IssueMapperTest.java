@@ -19,6 +19,8 @@
  */
 package org.sonar.db.issue;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -213,6 +215,31 @@ public class IssueMapperTest {
     assertThat(result.getUpdatedAt()).isEqualTo(1_500_000_000_000L);
   }
 
+  @Test
+  public void selectNonClosedByProjectUuid_returns_issues_ordered_by_component() {
+    underTest.insert(newIssue().setKee("ISSUE_ON_FILE2").setComponentUuid(file2.uuid()).setStatus("OPEN").setResolution(null));
+    underTest.insert(newIssue().setKee("ISSUE_ON_FILE").setComponentUuid(file.uuid()).setStatus("OPEN").setResolution(null));
+    underTest.insert(newIssue().setKee("CLOSED_ISSUE").setComponentUuid(file.uuid()).setStatus("CLOSED"));
+    dbTester.getSession().commit();
+
+    List<IssueDto> issues = new ArrayList<>();
+    underTest.selectNonClosedByProjectUuid(project.uuid(), context -> issues.add((IssueDto) context.getResultObject()));
+
+    assertThat(issues).extracting(IssueDto::getKey).containsOnly("ISSUE_ON_FILE2", "ISSUE_ON_FILE");
+    assertThat(issues).extracting(IssueDto::getComponentUuid).isSorted();
+  }
+
+  @Test
+  public void selectNonClosedByProjectUuid_ignores_issues_of_other_projects() {
+    underTest.insert(newIssue().setStatus("OPEN").setResolution(null));
+    dbTester.getSession().commit();
+
+    List<IssueDto> issues = new ArrayList<>();
+    underTest.selectNonClosedByProjectUuid("other project uuid", context -> issues.add((IssueDto) context.getResultObject()));
+
+    assertThat(issues).isEmpty();
+  }
+
   private IssueDto newIssue() {
     return new IssueDto()
       .setKee("ABCDE")
@@ -30,6 +30,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.RowNotFoundException;
+import org.sonar.db.property.InternalPropertiesDao;
 
 import static com.google.common.collect.Sets.newHashSet;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -50,7 +51,7 @@ public class MetricDaoTest {
   @Before
   public void createDao() {
     session = dbTester.myBatis().openSession(false);
-    underTest = new MetricDao();
+    underTest = new MetricDao(new InternalPropertiesDao(System2.INSTANCE));
   }
 
   @After
@@ -120,6 +121,26 @@ public class MetricDaoTest {
     assertThat(underTest.selectEnabled(session)).hasSize(2);
   }
 
+  @Test
+  public void version_changes_when_a_metric_is_inserted_updated_or_disabled() {
+    assertThat(underTest.selectVersion(session)).isEmpty();
+
+    MetricDto metric = underTest.insert(session, newMetricDto().setKey("first").setUserManaged(true).setEnabled(true));
+    String version = underTest.selectVersion(session);
+    assertThat(version).isNotEmpty();
+
+    underTest.update(session, metric.setShortName("First"));
+    assertThat(underTest.selectVersion(session)).isNotEqualTo(version);
+
+    version = underTest.selectVersion(session);
+    underTest.disableCustomByKey(session, "first");
+    assertThat(underTest.selectVersion(session)).isNotEqualTo(version);
+
+    version = underTest.selectVersion(session);
+    underTest.disableCustomByKey(session, "unknown");
+    assertThat(underTest.selectVersion(session)).isEqualTo(version);
+  }
+
   @Test
   public void find_all() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -0,0 +1,128 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.sql.Connection;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConnectionPoolStatisticsTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private System2 system2 = mock(System2.class);
+  private ConnectionPoolStatistics underTest = new ConnectionPoolStatistics(system2);
+
+  @After
+  public void tearDown() {
+    ConnectionCaller.set(null);
+  }
+
+  @Test
+  public void record_wait_time_of_borrows() throws Exception {
+    underTest.onBorrow(mock(Connection.class), 0);
+    underTest.onBorrow(mock(Connection.class), 3);
+    underTest.onBorrow(mock(Connection.class), 2000);
+
+    assertThat(underTest.getBorrowCount()).isEqualTo(3);
+    assertThat(underTest.getTotalWaitTime()).isEqualTo(2003);
+    assertThat(underTest.getMaxWaitTime()).isEqualTo(2000);
+    assertThat(underTest.getWaitTimeHistogram()).containsExactly(
+      entry("<= 1ms", 1L), entry("<= 5ms", 1L), entry("<= 10ms", 0L), entry("<= 50ms", 0L), entry("<= 100ms", 0L),
+      entry("<= 500ms", 0L), entry("<= 1000ms", 0L), entry("> 1000ms", 1L));
+  }
+
+  @Test
+  public void account_borrows_and_hold_time_per_caller() throws Exception {
+    when(system2.now()).thenReturn(1_000L);
+    ConnectionCaller.set("api/issues/search");
+    Connection connection1 = underTest.onBorrow(mock(Connection.class), 0);
+    Connection connection2 = underTest.onBorrow(mock(Connection.class), 0);
+    ConnectionCaller.set(null);
+    Connection connection3 = underTest.onBorrow(mock(Connection.class), 0);
+
+    when(system2.now()).thenReturn(1_100L);
+    connection1.close();
+    connection2.close();
+    // closing twice must not be accounted twice
+    connection2.close();
+    connection3.close();
+
+    assertThat(underTest.getTopCallers(10)).containsExactly(
+      entry("api/issues/search", "2 borrows, 200ms held"),
+      entry("other", "1 borrows, 100ms held"));
+    assertThat(underTest.getTopCallers(1)).containsOnlyKeys("api/issues/search");
+  }
+
+  @Test
+  public void connection_calls_are_delegated() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.getAutoCommit()).thenReturn(true);
+
+    Connection monitored = underTest.onBorrow(connection, 0);
+    monitored.getAutoCommit();
+    monitored.close();
+
+    verify(connection).getAutoCommit();
+    verify(connection, times(1)).close();
+  }
+
+  @Test
+  public void report_connections_held_longer_than_leak_detection_threshold() throws Exception {
+    underTest.setLeakDetectionThreshold(1_000L);
+    ConnectionCaller.set("api/issues/search");
+    when(system2.now()).thenReturn(1_000L);
+    underTest.onBorrow(mock(Connection.class), 0);
+    Connection released = underTest.onBorrow(mock(Connection.class), 0);
+    released.close();
+
+    when(system2.now()).thenReturn(5_000L);
+    underTest.onBorrow(mock(Connection.class), 0);
+    // leak is reported only once
+    underTest.onBorrow(mock(Connection.class), 0);
+
+    assertThat(underTest.getLeakCount()).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsExactly("Connection borrowed by api/issues/search is not released after 4000ms, it may be leaked");
+  }
+
+  @Test
+  public void leak_detection_is_disabled_by_default() throws Exception {
+    when(system2.now()).thenReturn(1_000L);
+    underTest.onBorrow(mock(Connection.class), 0);
+    when(system2.now()).thenReturn(1_000_000L);
+    underTest.onBorrow(mock(Connection.class), 0);
+
+    assertThat(underTest.getLeakDetectionThreshold()).isZero();
+    assertThat(underTest.getLeakCount()).isZero();
+    assertThat(logTester.logs(LoggerLevel.WARN)).isEmpty();
+  }
+}
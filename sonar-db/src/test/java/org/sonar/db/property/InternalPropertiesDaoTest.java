@@ -235,6 +235,31 @@ public class InternalPropertiesDaoTest {
       .hasCreatedAt(DATE_1);
   }
 
+  @Test
+  public void saveNewVersion_inserts_then_replaces_value() {
+    when(system2.now()).thenReturn(DATE_1, DATE_2);
+
+    underTest.saveNewVersion(dbSession, A_KEY);
+    String version = underTest.selectByKey(dbSession, A_KEY).get();
+    assertThat(version).isNotEmpty();
+
+    underTest.saveNewVersion(dbSession, A_KEY);
+    String newVersion = underTest.selectByKey(dbSession, A_KEY).get();
+    assertThat(newVersion).isNotEmpty().isNotEqualTo(version);
+    assertThatInternalProperty(A_KEY)
+      .hasTextValue(newVersion)
+      .hasCreatedAt(DATE_2);
+  }
+
+  @Test
+  public void saveNewVersion_replaces_clob_value() {
+    underTest.save(dbSession, A_KEY, VALUE_SIZE_4001);
+
+    underTest.saveNewVersion(dbSession, A_KEY);
+
+    assertThat(underTest.selectByKey(dbSession, A_KEY).get()).isNotEmpty().isNotEqualTo(VALUE_SIZE_4001);
+  }
+
   @Test
   public void selectByKey_throws_IAE_when_key_is_null() {
     expectKeyNullOrEmptyIAE();
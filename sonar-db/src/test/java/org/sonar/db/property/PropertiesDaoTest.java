@@ -299,6 +299,66 @@ public class PropertiesDaoTest {
     };
   }
 
+  @Test
+  public void selectSettingsVersion_changes_when_a_setting_is_saved_or_deleted() throws SQLException {
+    assertThat(underTest.selectSettingsVersion(session)).isEmpty();
+
+    insertProperty("global.one", "one", null, null);
+    String version = underTest.selectSettingsVersion(session);
+    assertThat(version).isNotEmpty();
+
+    insertProperty("project.one", "Pone", 10L, null);
+    assertThat(underTest.selectSettingsVersion(session)).isNotEqualTo(version);
+
+    version = underTest.selectSettingsVersion(session);
+    insertProperty("project.one", "Pone", 10L, null);
+    assertThat(underTest.selectSettingsVersion(session)).isNotEqualTo(version);
+
+    version = underTest.selectSettingsVersion(session);
+    underTest.deleteGlobalProperty("global.one");
+    assertThat(underTest.selectSettingsVersion(session)).isNotEqualTo(version);
+  }
+
+  @Test
+  public void selectSettingsVersion_changes_when_a_setting_key_is_renamed() throws SQLException {
+    insertProperty("global.one", "one", null, null);
+    String version = underTest.selectSettingsVersion(session);
+
+    underTest.renamePropertyKey("global.one", "global.two");
+
+    assertThat(underTest.selectSettingsVersion(session)).isNotEqualTo(version);
+  }
+
+  @Test
+  public void selectSettingsVersion_ignores_user_settings() throws SQLException {
+    insertProperty("global.one", "one", null, null);
+    String version = underTest.selectSettingsVersion(session);
+
+    insertProperty("user.one", "one", null, 100L);
+    underTest.delete(session, new PropertyDto().setKey("user.one").setUserId(100L));
+    session.commit();
+
+    assertThat(underTest.selectSettingsVersion(session)).isEqualTo(version);
+  }
+
+  @Test
+  public void selectComponentPropertiesByUuid() throws SQLException {
+    ComponentDto projectDto = insertProject("A");
+    long projectId = projectDto.getId();
+    insertProperty("global.one", "one", null, null);
+    insertProperty("project.one", "Pone", projectId, null);
+    insertProperty("user.one", "Uone", projectId, 100L);
+
+    List<PropertyDto> dtos = underTest.selectComponentPropertiesByUuid(session, projectDto.uuid());
+
+    assertThat(dtos).hasSize(1);
+    assertThatDto(dtos.iterator().next())
+      .hasKey("project.one")
+      .hasResourceId(projectId)
+      .hasValue("Pone");
+    assertThat(underTest.selectComponentPropertiesByUuid(session, "unknown")).isEmpty();
+  }
+
   @Test
   public void selectProjectProperty() throws SQLException {
     insertProperty("project.one", "one", 10L, null);
@@ -37,12 +37,14 @@ import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
+import org.sonar.db.component.SnapshotDto;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.db.ce.CeTaskTypes.REPORT;
+import static org.sonar.db.component.SnapshotTesting.newAnalysis;
 import static org.sonar.db.webhook.WebhookDbTesting.newWebhookDeliveryDto;
 import static org.sonar.db.webhook.WebhookDbTesting.selectAllDeliveryUuids;
 
@@ -90,6 +92,42 @@ public class PurgeDaoTest {
     dbTester.assertDbUnit(getClass(), "shouldDeleteHistoricalDataOfDirectoriesAndFiles-result.xml", "projects", "snapshots");
   }
 
+  @Test
+  public void purgeHistory_marks_processed_analyses_as_purged_and_ignores_analyses_being_processed() {
+    ComponentDto project = dbTester.components().insertProject();
+    SnapshotDto lastAnalysis = dbTester.components().insertSnapshot(newAnalysis(project));
+    SnapshotDto processedAnalysis = dbTester.components().insertSnapshot(newAnalysis(project).setLast(false));
+    SnapshotDto unprocessedAnalysis = dbTester.components().insertSnapshot(newAnalysis(project).setLast(false).setStatus(SnapshotDto.STATUS_UNPROCESSED));
+
+    int purged = underTest.purgeHistory(dbSession, newConfigurationWith30Days(project), PurgeListener.EMPTY, new PurgeProfiler());
+
+    assertThat(purged).isEqualTo(1);
+    assertThat(selectPurgeStatus(lastAnalysis)).isNull();
+    assertThat(selectPurgeStatus(processedAnalysis)).isEqualTo(1);
+    assertThat(selectPurgeStatus(unprocessedAnalysis)).isNull();
+  }
+
+  @Test
+  public void select_roots_and_count_analyses_to_purge() {
+    ComponentDto project1 = dbTester.components().insertProject();
+    dbTester.components().insertSnapshot(newAnalysis(project1));
+    dbTester.components().insertSnapshot(newAnalysis(project1).setLast(false));
+    dbTester.components().insertSnapshot(newAnalysis(project1).setLast(false));
+    ComponentDto project2 = dbTester.components().insertProject();
+    dbTester.components().insertSnapshot(newAnalysis(project2));
+    dbTester.components().insertSnapshot(newAnalysis(project2).setLast(false).setPurgeStatus(1));
+    ComponentDto project3 = dbTester.components().insertProject();
+    dbTester.components().insertSnapshot(newAnalysis(project3).setLast(false).setStatus(SnapshotDto.STATUS_UNPROCESSED));
+
+    assertThat(underTest.selectRootUuidsToPurge(dbSession)).containsOnly(project1.uuid());
+    assertThat(underTest.countAnalysesToPurge(dbSession)).isEqualTo(2);
+
+    underTest.purgeHistory(dbSession, newConfigurationWith30Days(project1), PurgeListener.EMPTY, new PurgeProfiler());
+
+    assertThat(underTest.selectRootUuidsToPurge(dbSession)).isEmpty();
+    assertThat(underTest.countAnalysesToPurge(dbSession)).isZero();
+  }
+
   @Test
   public void close_issues_clean_index_and_file_sources_of_disabled_components_specified_by_uuid_in_configuration() {
     dbTester.prepareDbUnit(getClass(), "close_issues_clean_index_and_files_sources_of_specified_components.xml");
@@ -250,6 +288,14 @@ public class PurgeDaoTest {
     return new PurgeConfiguration(new IdUuidPair(THE_PROJECT_ID, THE_PROJECT_UUID), new String[0], 30, System2.INSTANCE, Collections.emptyList());
   }
 
+  private static PurgeConfiguration newConfigurationWith30Days(ComponentDto root) {
+    return new PurgeConfiguration(new IdUuidPair(root.getId(), root.uuid()), new String[0], 30, System2.INSTANCE, Collections.emptyList());
+  }
+
+  private Integer selectPurgeStatus(SnapshotDto analysis) {
+    return dbClient.snapshotDao().selectByUuid(dbSession, analysis.getUuid()).get().getPurgeStatus();
+  }
+
   private static PurgeConfiguration newConfigurationWith30Days(System2 system2, String... disabledComponentUuids) {
     return new PurgeConfiguration(new IdUuidPair(THE_PROJECT_ID, THE_PROJECT_UUID), new String[0], 30, system2, Arrays.asList(disabledComponentUuids));
   }
@@ -120,6 +120,15 @@ public class RuleDaoTest {
     assertThat(rules.get(0).getId()).isEqualTo(1);
   }
 
+  @Test
+  public void selectMaxUpdatedAt() {
+    assertThat(underTest.selectMaxUpdatedAt(dbTester.getSession())).isEqualTo(0L);
+
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    assertThat(underTest.selectMaxUpdatedAt(dbTester.getSession())).isEqualTo(1_600_000_000_000L);
+  }
+
   @Test
   public void selectEnabled() {
     dbTester.prepareDbUnit(getClass(), "selectEnabled.xml");
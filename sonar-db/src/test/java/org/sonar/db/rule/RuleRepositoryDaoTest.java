@@ -51,6 +51,16 @@ public class RuleRepositoryDaoTest {
     assertThat(row.getKey()).isEqualTo("findbugs");
     assertThat(row.getName()).isEqualTo("Findbugs");
     assertThat(row.getLanguage()).isEqualTo("java");
+    assertThat(row.getDefinitionHash()).isNull();
+  }
+
+  @Test
+  public void insert_and_select_definition_hash() {
+    DbSession dbSession = dbTester.getSession();
+    RuleRepositoryDto dto = new RuleRepositoryDto("findbugs", "java", "Findbugs").setDefinitionHash("a1b2c3");
+    underTest.insert(dbSession, asList(dto));
+
+    assertThat(underTest.selectByKey(dbSession, "findbugs").get().getDefinitionHash()).isEqualTo("a1b2c3");
   }
 
   @Test
@@ -21,6 +21,8 @@ package org.sonar.db.source;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -59,6 +61,19 @@ public class FileSourceDaoTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("123456789");
   }
 
+  @Test
+  public void selectLineDataByFileUuid_does_not_load_text_nor_line_hashes() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    FileSourceDto fileSourceDto = underTest.selectLineDataByFileUuid(session, "FILE1_UUID");
+
+    assertThat(fileSourceDto.getFileUuid()).isEqualTo("FILE1_UUID");
+    assertThat(fileSourceDto.getSrcHash()).isEqualTo("FILE_HASH");
+    assertThat(fileSourceDto.getBinaryData()).isNull();
+    assertThat(fileSourceDto.getLineHashes()).isNull();
+    assertThat(underTest.selectLineDataByFileUuid(session, "unknown")).isNull();
+  }
+
   @Test
   public void select_line_hashes() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -175,6 +190,43 @@ public class FileSourceDaoTest {
       "project_uuid", "file_uuid", "data_hash", "line_hashes", "src_hash", "created_at", "updated_at", "data_type", "revision");
   }
 
+  @Test
+  public void updateLineData_does_not_write_binary_data_nor_line_hashes() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+    FileSourceDto before = underTest.selectSourceByFileUuid(dbTester.getSession(), "FILE1_UUID");
+
+    underTest.updateLineData(dbTester.getSession(), new FileSourceDto()
+      .setId(101L)
+      .setBinaryData("updated data".getBytes())
+      .setLineData("line data".getBytes())
+      .setDataHash("NEW_DATA_HASH")
+      .setSrcHash("NEW_FILE_HASH")
+      .setLineHashes("NEW_LINE_HASHES")
+      .setUpdatedAt(1500000000002L)
+      .setRevision("987654321"));
+    dbTester.getSession().commit();
+
+    FileSourceDto fileSourceDto = underTest.selectSourceByFileUuid(dbTester.getSession(), "FILE1_UUID");
+    assertThat(fileSourceDto.getBinaryData()).isEqualTo(before.getBinaryData());
+    assertThat(fileSourceDto.getLineHashes()).isEqualTo(before.getLineHashes());
+    assertThat(fileSourceDto.getLineData()).isEqualTo("line data".getBytes());
+    assertThat(fileSourceDto.getDataHash()).isEqualTo("NEW_DATA_HASH");
+    assertThat(fileSourceDto.getSrcHash()).isEqualTo("NEW_FILE_HASH");
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(1500000000002L);
+    assertThat(fileSourceDto.getRevision()).isEqualTo("987654321");
+  }
+
+  @Test
+  public void scrollLineHashesOfFilesWithOpenIssues_returns_files_having_non_closed_issues_ordered_by_uuid() {
+    dbTester.prepareDbUnit(getClass(), "scroll_line_hashes_of_files_with_open_issues.xml");
+
+    List<FileSourceDto> dtos = new ArrayList<>();
+    underTest.scrollLineHashesOfFilesWithOpenIssues(dbTester.getSession(), "PRJ_UUID", context -> dtos.add((FileSourceDto) context.getResultObject()));
+
+    assertThat(dtos).extracting(FileSourceDto::getFileUuid).containsExactly("FILE1_UUID", "FILE2_UUID");
+    assertThat(dtos).extracting(FileSourceDto::getLineHashes).containsExactly("GHI", "ABC\\nDEF");
+  }
+
   private static class ReaderToStringFunction implements Function<Reader, String> {
 
     String result = null;
@@ -26,6 +26,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.db.protobuf.DbFileSources;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class FileSourceDtoTest {
@@ -54,6 +55,119 @@ public class FileSourceDtoTest {
     assertThat(underTest.getTestData().get(0).getName()).isEqualTo("name#1");
   }
 
+  @Test
+  public void setSourceData_stores_text_and_other_line_data_apart() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(1)
+        .setSource("line1")
+        .setHighlighting("0,5,k")
+        .setScmRevision("rev-1")
+        .setLineHits(3)
+        .addDuplication(2))
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(2)
+        .setSource("line2")
+        .setSymbols("1,2,3"))
+      .build();
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getDataType()).isEqualTo(FileSourceDto.Type.SOURCE);
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+    DbFileSources.Data text = underTest.decodeSourceData(underTest.getBinaryData());
+    assertThat(text.getLines(0).getSource()).isEqualTo("line1");
+    assertThat(text.getLines(0).getHighlighting()).isEqualTo("0,5,k");
+    assertThat(text.getLines(0).hasScmRevision()).isFalse();
+    assertThat(text.getLines(0).hasLineHits()).isFalse();
+    assertThat(text.getLines(0).getDuplicationCount()).isZero();
+    DbFileSources.Data lines = underTest.decodeSourceData(underTest.getLineData());
+    assertThat(lines.getLines(0).hasSource()).isFalse();
+    assertThat(lines.getLines(0).getScmRevision()).isEqualTo("rev-1");
+    assertThat(lines.getLines(0).getLineHits()).isEqualTo(3);
+    assertThat(lines.getLines(1).hasSymbols()).isFalse();
+  }
+
+  @Test
+  public void getSourceData_reads_whole_data_from_binary_data_when_there_is_no_line_data() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(1)
+        .setSource("line1")
+        .setScmRevision("rev-1"))
+      .build();
+
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(FileSourceDto.encodeSourceData(data));
+
+    assertThat(underTest.getLineData()).isNull();
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
+  @Test
+  public void getLineSourceData_reads_only_line_data() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder()
+        .setLine(1)
+        .setSource("line1")
+        .setScmRevision("rev-1"))
+      .build();
+
+    DbFileSources.Data lines = new FileSourceDto().setSourceData(data).getLineSourceData();
+
+    assertThat(lines.getLines(0).hasSource()).isFalse();
+    assertThat(lines.getLines(0).getScmRevision()).isEqualTo("rev-1");
+    assertThat(new FileSourceDto().setBinaryData(FileSourceDto.encodeSourceData(data)).getLineSourceData()).isNull();
+  }
+
+  @Test
+  public void encode_and_decode_source_data_with_dictionary() {
+    SourceDictionary dictionary = new SourceDictionary("java", LOREM_IPSUM.getBytes(UTF_8));
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource(LOREM_IPSUM).setScmRevision("rev-1"))
+      .build();
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data, dictionary);
+
+    assertThat(underTest.getBinaryData().length).isLessThan(FileSourceDto.encodeSourceData(data).length);
+    assertThat(underTest.getSourceData(key -> key.equals(dictionary.getKey()) ? dictionary : null)).isEqualTo(data);
+  }
+
+  @Test
+  public void encode_and_decode_test_data_with_dictionary() {
+    SourceDictionary dictionary = new SourceDictionary("java", "name#".getBytes(UTF_8));
+    List<DbFileSources.Test> tests = Arrays.asList(
+      DbFileSources.Test.newBuilder().setName("name#1").build(),
+      DbFileSources.Test.newBuilder().setName("name#2").build());
+
+    FileSourceDto underTest = new FileSourceDto().setTestData(tests, dictionary);
+
+    assertThat(underTest.getTestData(key -> dictionary)).isEqualTo(tests);
+  }
+
+  @Test
+  public void data_compressed_without_dictionary_is_decoded_whatever_the_dictionaries() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1"))
+      .build();
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(underTest.getSourceData(key -> null)).isEqualTo(data);
+  }
+
+  @Test
+  public void getSourceData_throws_ISE_if_dictionary_is_missing() {
+    SourceDictionary dictionary = new SourceDictionary("java", LOREM_IPSUM.getBytes(UTF_8));
+    FileSourceDto underTest = new FileSourceDto().setSourceData(DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1"))
+      .build(), dictionary);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Dictionary " + dictionary.getKey() + " is required to decompress source data");
+
+    underTest.getSourceData(key -> null);
+  }
+
   @Test
   public void getSourceData_throws_ISE_with_id_fileUuid_and_projectUuid_in_message_when_data_cant_be_read() {
     long id = 12L;
@@ -0,0 +1,148 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Not a unit test. Compares compression of sources with LZ4 and with dictionaries trained on the given corpus:
+ * <pre>
+ *   java -cp ... org.sonar.db.source.SourceCompressionBenchmark &lt;directory of sources&gt;
+ * </pre>
+ * Files are grouped by extension, which stands for the language. For each group, a dictionary is trained on one file
+ * out of two and all the files are encoded with both codecs. Compression ratio and encoding/decoding throughputs
+ * (in MB of uncompressed protobuf data per second) are printed on the standard output.
+ */
+public class SourceCompressionBenchmark {
+
+  private static final int ITERATIONS = 5;
+
+  private SourceCompressionBenchmark() {
+    // only main
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: SourceCompressionBenchmark <directory of sources>");
+      System.exit(1);
+    }
+    Map<String, List<DbFileSources.Data>> filesByExtension = new TreeMap<>();
+    try (Stream<Path> paths = Files.walk(Paths.get(args[0]))) {
+      paths.filter(Files::isRegularFile).forEach(path -> {
+        String fileName = path.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        if (dot > 0) {
+          toData(path).ifPresent(data -> filesByExtension.computeIfAbsent(fileName.substring(dot + 1), e -> new ArrayList<>()).add(data));
+        }
+      });
+    }
+
+    System.out.println(String.format("%-10s %8s %14s %14s %10s %14s %14s %14s %14s", "language", "files", "raw bytes", "lz4 bytes", "dict bytes",
+      "lz4 enc MB/s", "dict enc MB/s", "lz4 dec MB/s", "dict dec MB/s"));
+    for (Map.Entry<String, List<DbFileSources.Data>> entry : filesByExtension.entrySet()) {
+      benchmark(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private static Optional<DbFileSources.Data> toData(Path path) {
+    try {
+      List<String> lines = Files.readAllLines(path, UTF_8);
+      DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+      for (int i = 0; i < lines.size(); i++) {
+        data.addLinesBuilder().setLine(i + 1).setSource(lines.get(i));
+      }
+      return Optional.of(data.build());
+    } catch (IOException e) {
+      // binary or unreadable files are not part of the corpus
+      return Optional.empty();
+    }
+  }
+
+  private static void benchmark(String language, List<DbFileSources.Data> files) {
+    List<String> trainingLines = new ArrayList<>();
+    for (int i = 0; i < files.size(); i += 2) {
+      files.get(i).getLinesList().forEach(line -> trainingLines.add(line.getSource()));
+    }
+    SourceDictionary dictionary = SourceDictionary.train(language, trainingLines);
+    if (dictionary == null) {
+      System.out.println(String.format("%-10s %8d no repeated line, no dictionary", language, files.size()));
+      return;
+    }
+
+    long rawBytes = files.stream().mapToLong(DbFileSources.Data::getSerializedSize).sum();
+    Result lz4 = run(files, null);
+    Result dict = run(files, dictionary);
+    System.out.println(String.format("%-10s %8d %14d %14d %10d %14.1f %14.1f %14.1f %14.1f", language, files.size(), rawBytes, lz4.compressedBytes, dict.compressedBytes,
+      throughput(rawBytes, lz4.encodingNanos), throughput(rawBytes, dict.encodingNanos),
+      throughput(rawBytes, lz4.decodingNanos), throughput(rawBytes, dict.decodingNanos)));
+  }
+
+  private static Result run(List<DbFileSources.Data> files, @Nullable SourceDictionary dictionary) {
+    SourceDictionaries dictionaries = key -> dictionary;
+    FileSourceDto dto = new FileSourceDto();
+    Result result = new Result();
+    // first iteration warms up the JVM and is not measured
+    for (int iteration = 0; iteration <= ITERATIONS; iteration++) {
+      long compressedBytes = 0L;
+      long encodingNanos = 0L;
+      long decodingNanos = 0L;
+      for (DbFileSources.Data data : files) {
+        long start = System.nanoTime();
+        byte[] encoded = FileSourceDto.encodeSourceData(data, dictionary);
+        long encodedAt = System.nanoTime();
+        dto.decodeSourceData(encoded, dictionaries);
+        decodingNanos += System.nanoTime() - encodedAt;
+        encodingNanos += encodedAt - start;
+        compressedBytes += encoded.length;
+      }
+      if (iteration > 0) {
+        result.compressedBytes = compressedBytes;
+        result.encodingNanos += encodingNanos;
+        result.decodingNanos += decodingNanos;
+      }
+    }
+    result.encodingNanos /= ITERATIONS;
+    result.decodingNanos /= ITERATIONS;
+    return result;
+  }
+
+  private static double throughput(long bytes, long nanos) {
+    return nanos == 0L ? 0d : (bytes / (1024d * 1024d)) / (nanos / 1_000_000_000d);
+  }
+
+  private static class Result {
+    private long compressedBytes;
+    private long encodingNanos;
+    private long decodingNanos;
+  }
+}
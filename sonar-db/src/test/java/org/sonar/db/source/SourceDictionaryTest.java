@@ -0,0 +1,95 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceDictionaryTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void key_is_made_of_language_and_hash_of_content() {
+    SourceDictionary underTest = new SourceDictionary("java", "foo".getBytes(UTF_8));
+
+    assertThat(underTest.getLanguage()).isEqualTo("java");
+    assertThat(underTest.getKey()).isEqualTo("java.acbd18db");
+    assertThat(new SourceDictionary("java", "bar".getBytes(UTF_8)).getKey()).isNotEqualTo(underTest.getKey());
+    assertThat(new SourceDictionary("js", "foo".getBytes(UTF_8)).getKey()).isEqualTo("js.acbd18db");
+  }
+
+  @Test
+  public void fail_if_dictionary_is_empty() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Size of dictionary must be between 1 and 32768 bytes");
+
+    new SourceDictionary("java", new byte[0]);
+  }
+
+  @Test
+  public void fail_if_dictionary_is_bigger_than_deflate_window() {
+    expectedException.expect(IllegalArgumentException.class);
+
+    new SourceDictionary("java", new byte[SourceDictionary.MAX_SIZE + 1]);
+  }
+
+  @Test
+  public void train_keeps_repeated_lines_with_most_valuable_at_the_end() {
+    SourceDictionary underTest = SourceDictionary.train("java", Arrays.asList(
+      "import java.util.List;",
+      "  private static final int",
+      "import java.util.List;",
+      "    return null;",
+      "  private static final int",
+      "import java.util.List;",
+      "  }",
+      "  }",
+      "public class Foo {"));
+
+    assertThat(new String(underTest.getBytes(), UTF_8)).isEqualTo("private static final int\nimport java.util.List;\n");
+    assertThat(underTest.getLanguage()).isEqualTo("java");
+  }
+
+  @Test
+  public void train_returns_null_if_no_line_is_repeated() {
+    assertThat(SourceDictionary.train("java", Arrays.asList("public class Foo {", "  int bar;"))).isNull();
+    assertThat(SourceDictionary.train("java", Collections.emptyList())).isNull();
+  }
+
+  @Test
+  public void train_does_not_exceed_max_size() {
+    String[] lines = new String[20_000];
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = "line number " + (i / 2);
+    }
+
+    SourceDictionary underTest = SourceDictionary.train("java", Arrays.asList(lines));
+
+    assertThat(underTest.getBytes().length).isLessThanOrEqualTo(SourceDictionary.MAX_SIZE);
+  }
+}
@@ -36,6 +36,8 @@ public class SearchProjectsRequest {
   private final String organization;
   private final String filter;
   private final List<String> facets;
+  private final String sort;
+  private final Boolean asc;
 
   private SearchProjectsRequest(Builder builder) {
     this.page = builder.page;
@@ -43,6 +45,8 @@ public class SearchProjectsRequest {
     this.organization = builder.organization;
     this.filter = builder.filter;
     this.facets = builder.facets;
+    this.sort = builder.sort;
+    this.asc = builder.asc;
   }
 
   @CheckForNull
@@ -59,6 +63,16 @@ public class SearchProjectsRequest {
     return facets;
   }
 
+  @CheckForNull
+  public String getSort() {
+    return sort;
+  }
+
+  @CheckForNull
+  public Boolean getAsc() {
+    return asc;
+  }
+
   public int getPageSize() {
     return pageSize;
   }
@@ -77,6 +91,8 @@ public class SearchProjectsRequest {
     private Integer pageSize;
     private String filter;
     private List<String> facets = new ArrayList<>();
+    private String sort;
+    private Boolean asc;
 
     private Builder() {
       // enforce static factory method
@@ -97,6 +113,16 @@ public class SearchProjectsRequest {
       return this;
     }
 
+    public Builder setSort(@Nullable String sort) {
+      this.sort = sort;
+      return this;
+    }
+
+    public Builder setAsc(@Nullable Boolean asc) {
+      this.asc = asc;
+      return this;
+    }
+
     public Builder setPage(int page) {
       this.page = page;
       return this;
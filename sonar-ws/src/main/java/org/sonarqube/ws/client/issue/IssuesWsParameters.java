@@ -42,6 +42,7 @@ public class IssuesWsParameters {
   public static final String ACTION_SET_TAGS = "set_tags";
   public static final String ACTION_SET_TYPE = "set_type";
   public static final String ACTION_BULK_CHANGE = "bulk_change";
+  public static final String ACTION_EXPORT = "export";
 
   public static final String PARAM_ISSUE = "issue";
   public static final String PARAM_COMMENT = "comment";
@@ -114,6 +115,7 @@ public class IssuesWsParameters {
   public static final String PARAM_SORT = "sort";
   public static final String PARAM_ASC = "asc";
   public static final String PARAM_ADDITIONAL_FIELDS = "additionalFields";
+  public static final String PARAM_CURSOR = "cursor";
 
   public static final String FACET_MODE = "facetMode";
   public static final String FACET_MODE_COUNT = "count";
@@ -39,6 +39,7 @@ public class SearchWsRequest {
   private String createdAt;
   private String createdBefore;
   private String createdInLast;
+  private String cursor;
   private List<String> directories;
   private String facetMode;
   private List<String> facets;
@@ -182,6 +183,22 @@ public class SearchWsRequest {
     return this;
   }
 
+  /**
+   * @since 6.3
+   */
+  @CheckForNull
+  public String getCursor() {
+    return cursor;
+  }
+
+  /**
+   * @since 6.3
+   */
+  public SearchWsRequest setCursor(@Nullable String cursor) {
+    this.cursor = cursor;
+    return this;
+  }
+
   @CheckForNull
   public List<String> getDirectories() {
     return directories;
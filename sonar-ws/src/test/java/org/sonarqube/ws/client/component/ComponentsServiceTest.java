@@ -41,6 +41,8 @@ public class ComponentsServiceTest {
     underTest.searchProjects(SearchProjectsRequest.builder()
       .setFilter("ncloc > 10")
       .setFacets(singletonList("ncloc"))
+      .setSort("coverage")
+      .setAsc(false)
       .setPage(3)
       .setPageSize(10)
       .build());
@@ -49,6 +51,8 @@ public class ComponentsServiceTest {
       .hasPath("search_projects")
       .hasParam(PARAM_FILTER, "ncloc > 10")
       .hasParam(Param.FACETS, singletonList("ncloc"))
+      .hasParam(Param.SORT, "coverage")
+      .hasParam(Param.ASCENDING, false)
       .hasParam(Param.PAGE, 3)
       .hasParam(Param.PAGE_SIZE, 10)
       .andNoOtherParam();